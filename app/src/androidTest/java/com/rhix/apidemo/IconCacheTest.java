@@ -0,0 +1,60 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+// Needs a device: Bitmap and vector drawables do not work in local unit tests
+@RunWith(AndroidJUnit4.class)
+public class IconCacheTest {
+    private IconCache cache;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cache = IconCache.getInstance(context);
+        cache.clear();
+    }
+
+    @Test
+    public void repeatedIcons_shareOneBitmap() {
+        long requestsBefore = cache.getRequestCount();
+        long rasterizedBefore = cache.getRasterizedCount();
+
+        Bitmap first = cache.getBitmap(R.drawable.ic_pin);
+        for (int i = 0; i < 999; i++) {
+            assertSame(first, cache.getBitmap(R.drawable.ic_pin));
+        }
+
+        long requests = cache.getRequestCount() - requestsBefore;
+        long rasterized = cache.getRasterizedCount() - rasterizedBefore;
+        // Before the cache, every one of these requests allocated its own ARGB_8888 bitmap
+        Log.i("IconCacheTest", "1000 marker icons: " + requests + " bitmaps without cache, "
+                + rasterized + " with cache (" + first.getByteCount() / 1024 + " KB each)");
+        assertEquals(1000, requests);
+        assertEquals(1, rasterized);
+    }
+
+    @Test
+    public void sizeAndTint_areSeparateEntries() {
+        Bitmap plain = cache.getBitmap(R.drawable.ic_center, 100, 100, IconCache.NO_TINT);
+        Bitmap tinted = cache.getBitmap(R.drawable.ic_center, 100, 100, Color.BLUE);
+        Bitmap small = cache.getBitmap(R.drawable.ic_center, 48, 48, IconCache.NO_TINT);
+
+        assertNotSame(plain, tinted);
+        assertNotSame(plain, small);
+        assertEquals(100, plain.getWidth());
+        assertEquals(48, small.getHeight());
+        assertSame(plain, cache.getBitmap(R.drawable.ic_center, 100, 100, IconCache.NO_TINT));
+    }
+}
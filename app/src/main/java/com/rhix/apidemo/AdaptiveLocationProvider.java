@@ -0,0 +1,78 @@
+package com.rhix.apidemo;
+
+import android.location.Location;
+
+import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
+import org.osmdroid.views.overlay.mylocation.IMyLocationConsumer;
+import org.osmdroid.views.overlay.mylocation.IMyLocationProvider;
+
+import java.util.concurrent.TimeUnit;
+
+// Sits between GpsMyLocationProvider and MyLocationNewOverlay: fixes go to the overlay as usual
+// and to a LocationRefreshPipeline, and the pipeline can change the GPS rate. GpsMyLocationProvider
+// only reads its minimum update time when started, so a rate change restarts it.
+public class AdaptiveLocationProvider implements IMyLocationProvider, IMyLocationConsumer,
+        LocationRefreshPipeline.RateController {
+    private final GpsMyLocationProvider gps;
+    private IMyLocationConsumer consumer;
+    private LocationRefreshPipeline pipeline;
+
+    public AdaptiveLocationProvider(GpsMyLocationProvider gps) {
+        this.gps = gps;
+        gps.setLocationUpdateMinTime(LocationRefreshPipeline.MOVING_UPDATE_MILLIS);
+    }
+
+    public void setPipeline(LocationRefreshPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public long getUpdateIntervalMillis() {
+        return gps.getLocationUpdateMinTime();
+    }
+
+    @Override
+    public void setUpdateIntervalMillis(long millis) {
+        if (millis == gps.getLocationUpdateMinTime()) {
+            return;
+        }
+        gps.setLocationUpdateMinTime(millis);
+        if (consumer != null) {
+            gps.stopLocationProvider();
+            gps.startLocationProvider(this);
+        }
+    }
+
+    @Override
+    public boolean startLocationProvider(IMyLocationConsumer consumer) {
+        this.consumer = consumer;
+        return gps.startLocationProvider(this);
+    }
+
+    @Override
+    public void stopLocationProvider() {
+        consumer = null;
+        gps.stopLocationProvider();
+    }
+
+    @Override
+    public Location getLastKnownLocation() {
+        return gps.getLastKnownLocation();
+    }
+
+    @Override
+    public void destroy() {
+        consumer = null;
+        gps.destroy();
+    }
+
+    @Override
+    public void onLocationChanged(Location location, IMyLocationProvider source) {
+        if (consumer != null) {
+            consumer.onLocationChanged(location, this);
+        }
+        if (pipeline != null) {
+            pipeline.onLocation(location.getLatitude(), location.getLongitude(),
+                    TimeUnit.NANOSECONDS.toMillis(location.getElapsedRealtimeNanos()));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// App-wide network layer: one OkHttp client (connection pool, dispatcher, disk cache)
+// shared by the OpenWeather and Nominatim Retrofit instances. Every call is timed into
+// getNetworkMetrics(), and callers go through getFetchPolicy() for retries and a circuit
+// breaker per endpoint.
+public class ApiClient {
+    public static final String WEATHER_BASE_URL = "https://api.openweathermap.org/data/2.5/";
+    public static final String NOMINATIM_BASE_URL = "https://nominatim.openstreetmap.org/";
+
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024; // 10 MB
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+
+    private static ApiClient instance;
+
+    private final NetworkMetrics networkMetrics = new NetworkMetrics();
+    private final Map<NetworkMetrics.Endpoint, FetchPolicy> fetchPolicies = new EnumMap<>(NetworkMetrics.Endpoint.class);
+    private final OkHttpClient httpClient;
+    private final Gson gson;
+    private final WeatherApiService weatherService;
+    private final WeatherApiServiceTwo weatherServiceTwo;
+    private final WeatherApiServiceTwo nominatimService;
+
+    public static synchronized ApiClient getInstance(Context context) {
+        if (instance == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+            instance = new ApiClient(cacheDir, WEATHER_BASE_URL, NOMINATIM_BASE_URL);
+        }
+        return instance;
+    }
+
+    ApiClient(@Nullable File cacheDir, String weatherBaseUrl, String nominatimBaseUrl) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)) // HTTP/2 when the server offers it via ALPN
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("User-Agent", AppStartup.USER_AGENT)
+                        .build()))
+                .eventListenerFactory(new NetworkEventListener.Factory(networkMetrics));
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir, HTTP_CACHE_SIZE));
+        }
+        httpClient = builder.build();
+
+        gson = ResponseAdapters.register(new GsonBuilder()).create();
+        GsonConverterFactory gsonConverterFactory = GsonConverterFactory.create(gson);
+
+        Retrofit weatherRetrofit = new Retrofit.Builder()
+                .baseUrl(weatherBaseUrl)
+                .client(httpClient)
+                .addConverterFactory(gsonConverterFactory)
+                .build();
+
+        Retrofit nominatimRetrofit = new Retrofit.Builder()
+                .baseUrl(nominatimBaseUrl)
+                .client(httpClient)
+                .addConverterFactory(gsonConverterFactory)
+                .build();
+
+        weatherService = weatherRetrofit.create(WeatherApiService.class);
+        weatherServiceTwo = weatherRetrofit.create(WeatherApiServiceTwo.class);
+        nominatimService = nominatimRetrofit.create(WeatherApiServiceTwo.class);
+
+        // Backoff delays only; the retried calls themselves run on OkHttp's dispatcher
+        ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fetch-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (NetworkMetrics.Endpoint endpoint : NetworkMetrics.Endpoint.values()) {
+            fetchPolicies.put(endpoint, new FetchPolicy(endpoint.key(), retryExecutor));
+        }
+    }
+
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    // Latency per endpoint and phase for everything sent through getHttpClient()
+    public NetworkMetrics getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    // Retry and circuit breaker state shared by every caller of the endpoint
+    public FetchPolicy getFetchPolicy(NetworkMetrics.Endpoint endpoint) {
+        return fetchPolicies.get(endpoint);
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    // Resolves and class-loads the response adapters up front so the first response does not pay for it
+    void warmUpJsonAdapters() {
+        gson.getAdapter(WeatherResponse.class);
+        gson.getAdapter(WeatherResponseTwo.class);
+        gson.getAdapter(NominatimResponse.class);
+        gson.getAdapter(GeocodeResponse.class);
+    }
+
+    // OpenWeather lookups by city name
+    public WeatherApiService getWeatherService() {
+        return weatherService;
+    }
+
+    // OpenWeather lookups by coordinates
+    public WeatherApiServiceTwo getWeatherServiceTwo() {
+        return weatherServiceTwo;
+    }
+
+    // Nominatim reverse geocoding
+    public WeatherApiServiceTwo getNominatimService() {
+        return nominatimService;
+    }
+}
@@ -0,0 +1,13 @@
+package com.rhix.apidemo;
+
+import android.app.Application;
+
+public class ApiDemoApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Configure osmdroid and the network stack off the main thread while the first activity inflates
+        AppStartup.getInstance(this).start();
+    }
+}
@@ -0,0 +1,173 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.os.Looper;
+import android.util.Log;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.config.IConfigurationProvider;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// One-time app initialization on a background thread: osmdroid configuration, tile storage,
+// the shared network client, the JSON adapters and the saved places, whose background refresh
+// is scheduled last, once every waiting screen has been released. Started from ApiDemoApplication.
+// Map fragments call awaitMapReady() before inflating a MapView, which only covers the osmdroid
+// configuration and tile storage; the weather screen calls awaitReady() before reading saved
+// places. Both waits are bounded: whatever is still unopened when one gives up is created lazily
+// on first use instead. A phase that throws is logged and skipped; the phases after it still run.
+public class AppStartup {
+    private static final String TAG = "AppStartup";
+
+    // Sent with every tile and API request
+    public static final String USER_AGENT = BuildConfig.APPLICATION_ID + "/" + BuildConfig.VERSION_NAME;
+
+    // Well under the 5 s input-dispatch ANR limit
+    private static final long AWAIT_TIMEOUT_MILLIS = 2_000;
+
+    private static AppStartup instance;
+
+    private final Context context;
+    private final CountDownLatch mapReady = new CountDownLatch(1);
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private final List<String> failedPhases = new ArrayList<>();
+    private final long createdNanos = System.nanoTime();
+    private boolean started;
+    private long readyMillis = -1;
+    private long mainThreadWaitMillis;
+
+    private AppStartup(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized AppStartup getInstance(Context context) {
+        if (instance == null) {
+            instance = new AppStartup(context);
+        }
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        new Thread(this::run, TAG).start();
+    }
+
+    // Blocks until what a MapView needs (osmdroid configuration, tile storage) is set up, or the timeout
+    public void awaitMapReady() {
+        await(mapReady, "map");
+    }
+
+    // Blocks until every awaited phase has finished (successfully or not), or the timeout
+    public void awaitReady() {
+        await(ready, "startup");
+    }
+
+    private void await(CountDownLatch latch, String what) {
+        if (latch.getCount() == 0) {
+            return;
+        }
+        start();
+        long startNanos = System.nanoTime();
+        try {
+            if (!latch.await(AWAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "Gave up waiting for " + what + " after " + AWAIT_TIMEOUT_MILLIS + " ms, phases "
+                        + getPhaseTimings());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            synchronized (this) {
+                mainThreadWaitMillis += (System.nanoTime() - startNanos) / 1_000_000;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    // Phase name to duration in milliseconds, in the order the phases ran
+    public synchronized Map<String, Long> getPhaseTimings() {
+        return new LinkedHashMap<>(phaseMillis);
+    }
+
+    // Phases that threw, in the order they ran
+    public synchronized List<String> getFailedPhases() {
+        return new ArrayList<>(failedPhases);
+    }
+
+    // From construction (Application.onCreate) to ready, or -1 while still running
+    public synchronized long getReadyMillis() {
+        return readyMillis;
+    }
+
+    // Total time the UI thread spent blocked in awaitMapReady() and awaitReady()
+    public synchronized long getMainThreadWaitMillis() {
+        return mainThreadWaitMillis;
+    }
+
+    private void run() {
+        try {
+            phase("osmdroid-config", this::initOsmdroid);
+            phase("tile-storage", () -> OfflineTiles.getArchive(context));
+        } finally {
+            mapReady.countDown();
+        }
+        try {
+            phase("network", () -> ApiClient.getInstance(context));
+            phase("json", () -> ApiClient.getInstance(context).warmUpJsonAdapters());
+            phase("saved-places", () -> SavedPlaces.getInstance(context).getStore().getPlaces());
+        } finally {
+            synchronized (this) {
+                readyMillis = (System.nanoTime() - createdNanos) / 1_000_000;
+            }
+            ready.countDown();
+        }
+        // Nothing waits on this: WorkManager initializes its database the first time it is used
+        phase("place-weather-worker", () -> PlaceWeatherWorker.schedule(context));
+        Log.i(TAG, "Ready after " + getReadyMillis() + " ms, phases " + getPhaseTimings()
+                + (getFailedPhases().isEmpty() ? "" : ", failed " + getFailedPhases()));
+    }
+
+    private void initOsmdroid() {
+        IConfigurationProvider configuration = Configuration.getInstance();
+        configuration.load(context, context.getSharedPreferences("osmdroid", Context.MODE_PRIVATE));
+        configuration.setUserAgentValue(USER_AGENT);
+        File basePath = configuration.getOsmdroidBasePath(context);
+        File tileCache = configuration.getOsmdroidTileCache(context);
+        if (!basePath.mkdirs() && !basePath.isDirectory()) {
+            Log.w(TAG, "Cannot create " + basePath);
+        }
+        if (!tileCache.mkdirs() && !tileCache.isDirectory()) {
+            Log.w(TAG, "Cannot create " + tileCache);
+        }
+    }
+
+    private void phase(String name, Runnable work) {
+        long startNanos = System.nanoTime();
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            // Whatever the phase left unopened is created lazily on first use instead
+            Log.e(TAG, "Startup phase " + name + " failed", e);
+            synchronized (this) {
+                failedPhases.add(name);
+            }
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        synchronized (this) {
+            phaseMillis.put(name, millis);
+        }
+    }
+}
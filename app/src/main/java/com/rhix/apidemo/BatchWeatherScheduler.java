@@ -0,0 +1,231 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Loads weather for every point of a layer. Points are grouped into the WeatherCache's
+// geohash cells so each cell costs at most one request; cells are fetched through a bounded
+// window, visible ones first, and every result is handed to the listener as soon as it lands.
+public class BatchWeatherScheduler {
+    public static final int DEFAULT_MAX_CONCURRENT = 3;
+
+    public interface Listener {
+        // Called on the WeatherCache's callback executor, once per cell
+        void onCellWeather(int[] pointIndices, WeatherSnapshot snapshot);
+
+        void onCellError(int[] pointIndices, Throwable error);
+
+        void onFinished(int cells, int failedCells);
+    }
+
+    private static BatchWeatherScheduler instance;
+
+    private final WeatherCache cache;
+    private final int maxConcurrent;
+
+    public static synchronized BatchWeatherScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new BatchWeatherScheduler(OpenWeatherCache.getInstance(context), DEFAULT_MAX_CONCURRENT);
+        }
+        return instance;
+    }
+
+    public BatchWeatherScheduler(WeatherCache cache, int maxConcurrent) {
+        this.cache = cache;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public Batch load(PointStore points, Listener listener) {
+        Batch batch = group(points, listener);
+        batch.pump();
+        return batch;
+    }
+
+    // Cells whose centre is inside the box go first, starting with the very first requests
+    public Batch load(PointStore points, double south, double west, double north, double east, Listener listener) {
+        Batch batch = group(points, listener);
+        batch.prioritize(south, west, north, east);
+        batch.pump();
+        return batch;
+    }
+
+    private Batch group(PointStore points, Listener listener) {
+        Map<String, Cell> cells = new LinkedHashMap<>();
+        for (int i = 0; i < points.size(); i++) {
+            String key = cache.cellFor(points.getLatitude(i), points.getLongitude(i));
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                cell = new Cell(key, cells.size());
+                cells.put(key, cell);
+            }
+            cell.add(i);
+        }
+        return new Batch(new ArrayList<>(cells.values()), listener);
+    }
+
+    private static class Cell {
+        final String key;
+        final long sequence;
+        final double latitude;
+        final double longitude;
+        int[] indices = new int[4];
+        int size;
+        boolean visible;
+        Cancellable request;
+
+        Cell(String key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+            double[] center = GeoHash.decodeCenter(key);
+            this.latitude = center[0];
+            this.longitude = center[1];
+        }
+
+        void add(int index) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+
+        int[] pointIndices() {
+            return Arrays.copyOf(indices, size);
+        }
+    }
+
+    // Visible cells first, otherwise in the order the points came in
+    private static int compare(Cell a, Cell b) {
+        if (a.visible != b.visible) {
+            return a.visible ? -1 : 1;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    public class Batch implements Cancellable {
+        private final Listener listener;
+        private final int totalCells;
+        private PriorityQueue<Cell> queue;
+        private final List<Cell> running = new ArrayList<>();
+        private int finishedCells;
+        private int failedCells;
+        private boolean cancelled;
+
+        Batch(List<Cell> cells, Listener listener) {
+            this.listener = listener;
+            this.totalCells = cells.size();
+            this.queue = new PriorityQueue<>(Math.max(1, cells.size()), BatchWeatherScheduler::compare);
+            queue.addAll(cells);
+        }
+
+        // Moves cells whose centre is inside the box to the front of the queue
+        public synchronized void prioritize(double south, double west, double north, double east) {
+            List<Cell> pending = new ArrayList<>(queue);
+            for (Cell cell : pending) {
+                cell.visible = cell.latitude >= south && cell.latitude <= north
+                        && cell.longitude >= west && cell.longitude <= east;
+            }
+            queue = new PriorityQueue<>(Math.max(1, pending.size()), BatchWeatherScheduler::compare);
+            queue.addAll(pending);
+        }
+
+        public synchronized int getPendingCellCount() {
+            return queue.size();
+        }
+
+        public synchronized int getRunningCellCount() {
+            return running.size();
+        }
+
+        public int getTotalCellCount() {
+            return totalCells;
+        }
+
+        @Override
+        public void cancel() {
+            List<Cell> toCancel;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                queue.clear();
+                toCancel = new ArrayList<>(running);
+                running.clear();
+            }
+            for (Cell cell : toCancel) {
+                if (cell.request != null) {
+                    cell.request.cancel();
+                }
+            }
+        }
+
+        void pump() {
+            if (totalCells == 0) {
+                listener.onFinished(0, 0);
+                return;
+            }
+            while (true) {
+                final Cell cell;
+                synchronized (this) {
+                    if (cancelled || running.size() >= maxConcurrent || queue.isEmpty()) {
+                        return;
+                    }
+                    cell = queue.poll();
+                    running.add(cell);
+                }
+                Cancellable request = cache.get(cell.latitude, cell.longitude, new WeatherCache.Callback() {
+                    @Override
+                    public void onWeather(WeatherSnapshot snapshot) {
+                        if (finish(cell, false)) {
+                            listener.onCellWeather(cell.pointIndices(), snapshot);
+                            afterFinish();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (finish(cell, true)) {
+                            listener.onCellError(cell.pointIndices(), t);
+                            afterFinish();
+                        }
+                    }
+                });
+                synchronized (this) {
+                    cell.request = request;
+                }
+            }
+        }
+
+        // False when the batch was cancelled and the result should be dropped
+        private synchronized boolean finish(Cell cell, boolean failed) {
+            if (cancelled || !running.remove(cell)) {
+                return false;
+            }
+            finishedCells++;
+            if (failed) {
+                failedCells++;
+            }
+            return true;
+        }
+
+        private void afterFinish() {
+            boolean done;
+            int failed;
+            synchronized (this) {
+                done = finishedCells == totalCells;
+                failed = failedCells;
+            }
+            if (done) {
+                listener.onFinished(totalCells, failed);
+            } else {
+                pump();
+            }
+        }
+    }
+}
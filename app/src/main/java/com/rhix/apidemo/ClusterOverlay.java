@@ -0,0 +1,91 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Draws a ClusterIndex: one circle per cluster in view, labelled with its point count.
+// The index is built on a background thread; every frame only queries the visible cells,
+// so pans and zooms pick up the right clusters without rebuilding anything.
+public class ClusterOverlay extends Overlay {
+    public static final int DEFAULT_RADIUS_PX = 60;
+    private static final int MIN_ZOOM = 0;
+    private static final int MAX_ZOOM = 19;
+    private static final Executor BUILD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final float density;
+    private final Paint clusterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint pointPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final GeoPoint scratchPoint = new GeoPoint(0.0, 0.0);
+    private final Point scratchPixel = new Point();
+
+    private volatile ClusterIndex index;
+    private int maxVisibleZoom = MAX_ZOOM;
+
+    public ClusterOverlay(MapView mapView) {
+        this.mapView = mapView;
+        this.density = mapView.getResources().getDisplayMetrics().density;
+        clusterPaint.setColor(Color.argb(200, 33, 150, 243));
+        pointPaint.setColor(Color.argb(230, 244, 67, 54));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(12 * density);
+    }
+
+    // Builds the index off the main thread and redraws when it is ready
+    public void setPoints(final double[] latitudes, final double[] longitudes, final int size) {
+        setPoints(PointStore.wrap(latitudes, longitudes, size));
+    }
+
+    public void setPoints(final PointStore points) {
+        final int radiusPx = Math.round(DEFAULT_RADIUS_PX * density);
+        BUILD_EXECUTOR.execute(() -> {
+            index = ClusterIndex.build(points, MIN_ZOOM, MAX_ZOOM, radiusPx);
+            mapView.postInvalidate();
+        });
+    }
+
+    // Hide the clusters above this zoom (e.g. when individual markers take over)
+    public void setMaxVisibleZoom(int zoom) {
+        maxVisibleZoom = zoom;
+    }
+
+    public ClusterIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public void draw(final Canvas canvas, final Projection projection) {
+        ClusterIndex current = index;
+        int zoom = (int) Math.floor(projection.getZoomLevel());
+        if (current == null || zoom > maxVisibleZoom) {
+            return;
+        }
+        BoundingBox box = projection.getBoundingBox();
+        current.query(zoom, box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast(),
+                (latitude, longitude, count, pointIndex) -> {
+                    scratchPoint.setCoords(latitude, longitude);
+                    projection.toPixels(scratchPoint, scratchPixel);
+                    if (count == 1) {
+                        canvas.drawCircle(scratchPixel.x, scratchPixel.y, 5 * density, pointPaint);
+                        return;
+                    }
+                    float radius = (float) (12 + 4 * Math.log10(count)) * density;
+                    canvas.drawCircle(scratchPixel.x, scratchPixel.y, radius, clusterPaint);
+                    canvas.drawText(String.valueOf(count), scratchPixel.x,
+                            scratchPixel.y - (textPaint.descent() + textPaint.ascent()) / 2, textPaint);
+                });
+    }
+}
@@ -1,14 +0,0 @@
-package com.rhix.apidemo;
-
-public class GeocodeResponse {
-    private String name;        // City name
-    private String country;     // Country code
-
-    public String getName() {
-        return name;
-    }
-
-    public String getCountry() {
-        return country;
-    }
-}
@@ -0,0 +1,296 @@
+package com.rhix.apidemo;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Persistent reverse-geocode results with a nearest-neighbour lookup.
+// Entries are appended to a single file and indexed in memory on a ~1 km grid. Every record is
+// framed as [length][payload][crc], so a record cut short by process death (or otherwise damaged)
+// is detected on load and the file is truncated to the last good record before the next append.
+// A new place replaces any stored within DUPLICATE_METERS of it, the oldest places are dropped
+// beyond maxPlaces, and the file is rewritten once it holds more dropped records than live ones.
+public class GeocodeStore {
+    private static final String TAG = "GeocodeStore";
+    private static final byte[] MAGIC = {'G', 'E', 'O', '1'};
+    private static final double CELL_DEGREES = 0.01;
+    private static final int MAX_RECORD_BYTES = 8 + 8 + 8 + 2 + 65535;
+    private static final int COMPACT_MIN_DEAD = 256;
+    public static final int DEFAULT_MAX_PLACES = 5000;
+    public static final double DUPLICATE_METERS = 50;
+
+    public static class Place {
+        public final double latitude;
+        public final double longitude;
+        public final String name;
+        public final long fetchedAt;
+
+        public Place(double latitude, double longitude, String name, long fetchedAt) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.name = name;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final File file;
+    private final int maxPlaces;
+    private final Map<Long, List<Place>> grid = new HashMap<>();
+    // Live places, oldest first
+    private final LinkedHashSet<Place> places = new LinkedHashSet<>();
+    private final CRC32 crc = new CRC32();
+    private boolean loaded;
+    // Records in the file, live or not
+    private int records;
+    private long droppedBytes;
+
+    public GeocodeStore(File file) {
+        this(file, DEFAULT_MAX_PLACES);
+    }
+
+    public GeocodeStore(File file, int maxPlaces) {
+        this.file = file;
+        this.maxPlaces = maxPlaces;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return places.size();
+    }
+
+    // Bytes of damaged or torn records cut off the end of the file on load
+    public synchronized long getDroppedBytes() {
+        ensureLoaded();
+        return droppedBytes;
+    }
+
+    // Closest stored place within radiusMeters, or null
+    public synchronized Place nearest(double latitude, double longitude, double radiusMeters) {
+        ensureLoaded();
+        double dLat = GeoMath.metersToLatitudeDegrees(radiusMeters);
+        double dLon = GeoMath.metersToLongitudeDegrees(radiusMeters, latitude);
+        long minRow = cellIndex(latitude - dLat);
+        long maxRow = cellIndex(latitude + dLat);
+        long minCol = cellIndex(longitude - dLon);
+        long maxCol = cellIndex(longitude + dLon);
+
+        Place best = null;
+        double bestDistance = radiusMeters;
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                List<Place> cell = grid.get(cellKey(row, col));
+                if (cell == null) {
+                    continue;
+                }
+                for (Place place : cell) {
+                    double distance = GeoMath.distanceMeters(latitude, longitude, place.latitude, place.longitude);
+                    if (distance <= bestDistance) {
+                        bestDistance = distance;
+                        best = place;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public synchronized void put(Place place) {
+        ensureLoaded();
+        index(place);
+        if (records - places.size() >= Math.max(places.size(), COMPACT_MIN_DEAD) && compact()) {
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        boolean header = !file.exists() || file.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (header) {
+                out.write(MAGIC);
+            }
+            write(out, place);
+            records++;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to persist place " + place.name, e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        long fileLength = file.length();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a geocode store");
+                }
+            }
+            validLength = MAGIC.length;
+            while (true) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (in.readInt() != checksum(payload)) {
+                    break;
+                }
+                index(decode(payload));
+                records++;
+                validLength += 4 + length + 4;
+            }
+        } catch (EOFException e) {
+            // End of file, or a record cut short by process death; everything before it is intact
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read " + file, e);
+        }
+        if (validLength < fileLength) {
+            droppedBytes = fileLength - validLength;
+            Log.w(TAG, "Dropping " + droppedBytes + " damaged bytes from " + file);
+            truncate(validLength);
+        }
+    }
+
+    // Cuts the file back to its last complete record so later appends are read back in sync
+    private void truncate(long length) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to truncate " + file, e);
+        }
+    }
+
+    // Rewrites the file with only the live places; false leaves the old file in place
+    private boolean compact() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.write(MAGIC);
+            for (Place place : places) {
+                write(out, place);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to compact " + file, e);
+            tmp.delete();
+            return false;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Failed to replace " + file);
+            tmp.delete();
+            return false;
+        }
+        records = places.size();
+        return true;
+    }
+
+    // Adds the place, replacing stored duplicates and dropping the oldest beyond the cap
+    private void index(Place place) {
+        long key = cellKey(cellIndex(place.latitude), cellIndex(place.longitude));
+        double dLat = GeoMath.metersToLatitudeDegrees(DUPLICATE_METERS);
+        double dLon = GeoMath.metersToLongitudeDegrees(DUPLICATE_METERS, place.latitude);
+        for (long row = cellIndex(place.latitude - dLat); row <= cellIndex(place.latitude + dLat); row++) {
+            for (long col = cellIndex(place.longitude - dLon); col <= cellIndex(place.longitude + dLon); col++) {
+                List<Place> cell = grid.get(cellKey(row, col));
+                if (cell == null) {
+                    continue;
+                }
+                for (Iterator<Place> it = cell.iterator(); it.hasNext(); ) {
+                    Place stored = it.next();
+                    if (GeoMath.distanceMeters(place.latitude, place.longitude,
+                            stored.latitude, stored.longitude) <= DUPLICATE_METERS) {
+                        it.remove();
+                        places.remove(stored);
+                    }
+                }
+            }
+        }
+
+        List<Place> cell = grid.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>(2);
+            grid.put(key, cell);
+        }
+        cell.add(place);
+        places.add(place);
+
+        while (places.size() > maxPlaces) {
+            Iterator<Place> oldest = places.iterator();
+            unindex(oldest.next());
+            oldest.remove();
+        }
+    }
+
+    private void unindex(Place place) {
+        long key = cellKey(cellIndex(place.latitude), cellIndex(place.longitude));
+        List<Place> cell = grid.get(key);
+        if (cell != null) {
+            cell.remove(place);
+            if (cell.isEmpty()) {
+                grid.remove(key);
+            }
+        }
+    }
+
+    private void write(DataOutputStream out, Place place) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + place.name.length());
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeDouble(place.latitude);
+        payload.writeDouble(place.longitude);
+        payload.writeLong(place.fetchedAt);
+        payload.writeUTF(place.name);
+        byte[] data = bytes.toByteArray();
+        out.writeInt(data.length);
+        out.write(data);
+        out.writeInt(checksum(data));
+    }
+
+    private static Place decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        double latitude = in.readDouble();
+        double longitude = in.readDouble();
+        long fetchedAt = in.readLong();
+        String name = in.readUTF();
+        return new Place(latitude, longitude, name, fetchedAt);
+    }
+
+    private int checksum(byte[] data) {
+        crc.reset();
+        crc.update(data, 0, data.length);
+        return (int) crc.getValue();
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,206 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Point;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Draws a GeometryStore: filled polygons and stroked lines, thousands at a time. Each frame
+// queries the store for the chunks in view; every chunk's Path is built once per integer zoom,
+// in pixels relative to the chunk's corner, and cached, so a pan only moves the canvas and a
+// fractional zoom only scales it. Chunks smaller than a pixel are skipped. A stroke width of 0
+// draws fills only, for areas whose outline is drawn elsewhere.
+public class GeometryLayer extends Overlay {
+    // Simplification tolerance when building a path
+    private static final double TOLERANCE_PX = 0.5;
+    private static final float MIN_ITEM_PX = 1f;
+    // Cached paths are bounded by their total vertex count
+    private static final int MAX_CACHED_VERTICES = 1 << 20;
+    private static final Executor BUILD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float strokeWidthPx;
+    private final LruCache<Long, CachedPath> paths = new LruCache<Long, CachedPath>(MAX_CACHED_VERTICES) {
+        @Override
+        protected int sizeOf(Long key, CachedPath value) {
+            return value.vertices + 1;
+        }
+    };
+    private final GeoPoint scratchPoint = new GeoPoint(0.0, 0.0);
+    private final Point scratchPixel = new Point();
+    private float[] scratchVertices = new float[2 * GeometryStore.CHUNK_VERTICES];
+    private int[] visibleFills = new int[64];
+    private int[] visibleStrokes = new int[64];
+    private int fillCount;
+    private int strokeCount;
+
+    private volatile GeometryStore store;
+    private GeometryStore cachedStore;
+
+    private long frames;
+    private long frameNanos;
+    private long pathsBuilt;
+    private long itemsDrawn;
+
+    private static final class CachedPath {
+        final Path path;
+        final int vertices;
+
+        CachedPath(Path path, int vertices) {
+            this.path = path;
+            this.vertices = vertices;
+        }
+    }
+
+    public GeometryLayer(MapView mapView, int fillColor, int strokeColor, float strokeWidthPx) {
+        this.mapView = mapView;
+        this.strokeWidthPx = strokeWidthPx;
+        fillPaint.setStyle(Paint.Style.FILL);
+        fillPaint.setColor(fillColor);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setColor(strokeColor);
+        strokePaint.setStrokeJoin(Paint.Join.ROUND);
+        strokePaint.setStrokeCap(Paint.Cap.ROUND);
+    }
+
+    // Builds the store and its index off the main thread and redraws when ready
+    public void setGeometry(final GeometryStore.Builder builder) {
+        BUILD_EXECUTOR.execute(() -> {
+            store = builder.build();
+            mapView.postInvalidate();
+        });
+    }
+
+    public GeometryStore getGeometry() {
+        return store;
+    }
+
+    public double getAverageFrameMicros() {
+        return frames == 0 ? 0 : frameNanos / 1e3 / frames;
+    }
+
+    public long getPathsBuilt() {
+        return pathsBuilt;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        final GeometryStore current = store;
+        if (current == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (current != cachedStore) {
+            paths.evictAll();
+            cachedStore = current;
+        }
+
+        double zoom = projection.getZoomLevel();
+        int pathZoom = (int) Math.floor(zoom);
+        final double pathWorldSize = TileSystem.MapSize((double) pathZoom);
+        final float scale = (float) (TileSystem.MapSize(zoom) / pathWorldSize);
+        final double minItemSize = MIN_ITEM_PX / (pathWorldSize * scale);
+
+        fillCount = 0;
+        strokeCount = 0;
+        BoundingBox box = projection.getBoundingBox();
+        current.query(box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast(), item -> {
+            if (current.getItemWidth(item) < minItemSize && current.getItemHeight(item) < minItemSize) {
+                return;
+            }
+            if (current.isFill(item)) {
+                visibleFills = add(visibleFills, fillCount++, item);
+            } else if (strokeWidthPx > 0) {
+                visibleStrokes = add(visibleStrokes, strokeCount++, item);
+            }
+        });
+
+        // Paths are in integer-zoom pixels; the canvas scale stretches them to the current zoom,
+        // so the stroke width is divided by the same factor to stay constant on screen
+        strokePaint.setStrokeWidth(strokeWidthPx / scale);
+        for (int i = 0; i < fillCount; i++) {
+            drawItem(canvas, projection, current, visibleFills[i], pathZoom, pathWorldSize, scale, fillPaint);
+        }
+        for (int i = 0; i < strokeCount; i++) {
+            drawItem(canvas, projection, current, visibleStrokes[i], pathZoom, pathWorldSize, scale, strokePaint);
+        }
+        itemsDrawn += fillCount + strokeCount;
+        frameNanos += System.nanoTime() - start;
+        frames++;
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        paths.evictAll();
+        super.onDetach(mapView);
+    }
+
+    private void drawItem(Canvas canvas, Projection projection, GeometryStore current, int item,
+                          int pathZoom, double pathWorldSize, float scale, Paint paint) {
+        Path path = pathFor(current, item, pathZoom, pathWorldSize);
+        scratchPoint.setCoords(TileMath.latitudeOf(current.getItemMinY(item)), TileMath.longitudeOf(current.getItemMinX(item)));
+        projection.toPixels(scratchPoint, scratchPixel);
+        canvas.save();
+        canvas.translate(scratchPixel.x, scratchPixel.y);
+        canvas.scale(scale, scale);
+        canvas.drawPath(path, paint);
+        canvas.restore();
+    }
+
+    private Path pathFor(GeometryStore current, int item, int pathZoom, double pathWorldSize) {
+        long key = ((long) pathZoom << 32) | item;
+        CachedPath cached = paths.get(key);
+        if (cached != null) {
+            return cached.path;
+        }
+        int capacity = 2 * current.getItemVertexCount(item);
+        if (scratchVertices.length < capacity) {
+            scratchVertices = new float[capacity];
+        }
+        int vertices = current.toPixels(item, pathWorldSize, TOLERANCE_PX, scratchVertices);
+        Path path = new Path();
+        path.moveTo(scratchVertices[0], scratchVertices[1]);
+        for (int i = 1; i < vertices; i++) {
+            path.lineTo(scratchVertices[2 * i], scratchVertices[2 * i + 1]);
+        }
+        if (current.isFill(item)) {
+            path.close();
+        }
+        paths.put(key, new CachedPath(path, vertices));
+        pathsBuilt++;
+        return path;
+    }
+
+    private static int[] add(int[] items, int index, int item) {
+        if (index == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+        items[index] = item;
+        return items;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        GeometryStore current = store;
+        return String.format(Locale.US, "GeometryLayer[%d shapes, %d frames at %.0f us, %d paths built, %d items drawn]",
+                current == null ? 0 : current.getShapeCount(), frames, getAverageFrameMicros(), pathsBuilt, itemsDrawn);
+    }
+}
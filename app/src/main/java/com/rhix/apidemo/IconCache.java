@@ -0,0 +1,172 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.Locale;
+
+// App-wide cache of rasterized icons keyed by (drawable, size, density, tint), so markers that
+// look the same share one Bitmap instead of each rasterizing its own vector drawable.
+// Bounded by bitmap bytes with LRU eviction.
+public class IconCache {
+    public static final int NO_TINT = 0;
+    // Intrinsic size of the drawable, in pixels at the current density
+    public static final int INTRINSIC_SIZE = 0;
+
+    private static IconCache instance;
+
+    private static final class Key {
+        final int drawableId;
+        final int width;
+        final int height;
+        final int densityDpi;
+        final int tint;
+
+        Key(int drawableId, int width, int height, int densityDpi, int tint) {
+            this.drawableId = drawableId;
+            this.width = width;
+            this.height = height;
+            this.densityDpi = densityDpi;
+            this.tint = tint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return drawableId == other.drawableId && width == other.width && height == other.height
+                    && densityDpi == other.densityDpi && tint == other.tint;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = drawableId;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + densityDpi;
+            return 31 * result + tint;
+        }
+    }
+
+    private final Context context;
+    private final LruCache<Key, Bitmap> cache;
+    private long requestCount;
+    private long rasterizedCount;
+    private long rasterizedBytes;
+    private long evictionCount;
+
+    private IconCache(Context context, int maxBytes) {
+        this.context = context.getApplicationContext();
+        this.cache = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Bitmap oldValue, Bitmap newValue) {
+                if (evicted) {
+                    evictionCount++;
+                }
+            }
+        };
+    }
+
+    public static synchronized IconCache getInstance(Context context) {
+        if (instance == null) {
+            // Icons are small; 1/32 of the heap holds hundreds of them
+            int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 32);
+            instance = new IconCache(context, maxBytes);
+        }
+        return instance;
+    }
+
+    @Nullable
+    public Bitmap getBitmap(int drawableId) {
+        return getBitmap(drawableId, INTRINSIC_SIZE, INTRINSIC_SIZE, NO_TINT);
+    }
+
+    // Width and height in pixels (or INTRINSIC_SIZE); tint as an ARGB color (or NO_TINT)
+    @Nullable
+    public synchronized Bitmap getBitmap(int drawableId, int widthPx, int heightPx, int tint) {
+        requestCount++;
+        Resources resources = context.getResources();
+        Key key = new Key(drawableId, widthPx, heightPx, resources.getDisplayMetrics().densityDpi, tint);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        Drawable drawable = ContextCompat.getDrawable(context, drawableId);
+        if (drawable == null) {
+            return null;
+        }
+        if (tint != NO_TINT) {
+            drawable = drawable.mutate();
+            drawable.setTint(tint);
+        }
+        int width = widthPx == INTRINSIC_SIZE ? drawable.getIntrinsicWidth() : widthPx;
+        int height = heightPx == INTRINSIC_SIZE ? drawable.getIntrinsicHeight() : heightPx;
+        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(canvas);
+
+        rasterizedCount++;
+        rasterizedBytes += bitmap.getByteCount();
+        cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    // A lightweight drawable over the shared bitmap, e.g. for Marker.setIcon
+    @Nullable
+    public Drawable getDrawable(int drawableId) {
+        return getDrawable(drawableId, INTRINSIC_SIZE, INTRINSIC_SIZE, NO_TINT);
+    }
+
+    @Nullable
+    public Drawable getDrawable(int drawableId, int widthPx, int heightPx, int tint) {
+        Bitmap bitmap = getBitmap(drawableId, widthPx, heightPx, tint);
+        return bitmap == null ? null : new BitmapDrawable(context.getResources(), bitmap);
+    }
+
+    // Without the cache every request would have rasterized a new bitmap
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    public synchronized long getRasterizedCount() {
+        return rasterizedCount;
+    }
+
+    public synchronized long getRasterizedBytes() {
+        return rasterizedBytes;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized void clear() {
+        cache.evictAll();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "IconCache[%d requests, %d bitmaps (%d KB) rasterized, %d evicted, %d/%d KB]",
+                requestCount, rasterizedCount, rasterizedBytes / 1024, evictionCount,
+                cache.size() / 1024, cache.maxSize() / 1024);
+    }
+}
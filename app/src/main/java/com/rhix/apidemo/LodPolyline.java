@@ -0,0 +1,102 @@
+package com.rhix.apidemo;
+
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Polyline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Feeds a Polyline only the vertices that matter at the current zoom. The pyramid is
+// built on a background thread; zoom changes swap in a prebuilt level on the UI thread.
+public class LodPolyline implements MapListener {
+    public static final float DEFAULT_TOLERANCE_PX = 1.5f;
+    private static final int MIN_ZOOM = 0;
+    private static final int MAX_ZOOM = 19;
+    private static final Executor BUILD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final Polyline line;
+    private final float tolerancePx;
+
+    // One list per zoom, sharing GeoPoint instances; only touched on the UI thread
+    private List<List<GeoPoint>> levels;
+    private int appliedZoom = -1;
+    private int generation;
+
+    public LodPolyline(MapView mapView, Polyline line, float tolerancePx) {
+        this.mapView = mapView;
+        this.line = line;
+        this.tolerancePx = tolerancePx;
+        mapView.addMapListener(this);
+    }
+
+    public void setPoints(final PointStore points) {
+        final int buildGeneration = ++generation;
+        BUILD_EXECUTOR.execute(() -> {
+            PolylineSimplifier.Pyramid pyramid =
+                    PolylineSimplifier.Pyramid.build(points, MIN_ZOOM, MAX_ZOOM, tolerancePx);
+            final List<List<GeoPoint>> built = toGeoPoints(points, pyramid);
+            mapView.post(() -> {
+                if (buildGeneration != generation) {
+                    return; // superseded by a newer setPoints
+                }
+                levels = built;
+                appliedZoom = -1;
+                apply(mapView.getZoomLevelDouble());
+            });
+        });
+    }
+
+    public int getVertexCount() {
+        return line.getActualPoints().size();
+    }
+
+    @Override
+    public boolean onScroll(ScrollEvent event) {
+        return false;
+    }
+
+    @Override
+    public boolean onZoom(ZoomEvent event) {
+        apply(event.getZoomLevel());
+        return false;
+    }
+
+    private void apply(double zoomLevel) {
+        if (levels == null) {
+            return;
+        }
+        // Use the finer level during fractional zoom so the line never looks coarser than its tolerance
+        int zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, (int) Math.ceil(zoomLevel)));
+        if (zoom == appliedZoom) {
+            return;
+        }
+        appliedZoom = zoom;
+        line.setPoints(levels.get(zoom - MIN_ZOOM));
+        mapView.invalidate();
+    }
+
+    private static List<List<GeoPoint>> toGeoPoints(PointStore points, PolylineSimplifier.Pyramid pyramid) {
+        // The finest level contains every coarser one, so one GeoPoint per kept vertex is enough
+        GeoPoint[] geoPoints = new GeoPoint[points.size()];
+        for (int i : pyramid.getIndices(MAX_ZOOM)) {
+            geoPoints[i] = new GeoPoint(points.getLatitude(i), points.getLongitude(i));
+        }
+        List<List<GeoPoint>> levels = new ArrayList<>(MAX_ZOOM - MIN_ZOOM + 1);
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            int[] indices = pyramid.getIndices(zoom);
+            List<GeoPoint> level = new ArrayList<>(indices.length);
+            for (int i : indices) {
+                level.add(geoPoints[i]);
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+}
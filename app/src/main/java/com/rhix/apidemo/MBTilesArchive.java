@@ -0,0 +1,64 @@
+package com.rhix.apidemo;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.Closeable;
+import java.io.File;
+
+// Writable MBTiles (SQLite) archive. osmdroid's MBTilesFileArchive reads the same file.
+public class MBTilesArchive implements TileStore, Closeable {
+    private final SQLiteDatabase db;
+
+    private MBTilesArchive(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    public static MBTilesArchive open(File file, String name) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        db.enableWriteAheadLogging(); // readers (the map) are not blocked by prefetch writes
+        db.execSQL("CREATE TABLE IF NOT EXISTS metadata (name TEXT PRIMARY KEY, value TEXT)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS tiles (zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, "
+                + "tile_data BLOB, PRIMARY KEY (zoom_level, tile_column, tile_row))");
+        db.execSQL("INSERT OR IGNORE INTO metadata (name, value) VALUES ('name', ?)", new Object[]{name});
+        db.execSQL("INSERT OR IGNORE INTO metadata (name, value) VALUES ('format', 'png')");
+        db.execSQL("INSERT OR IGNORE INTO metadata (name, value) VALUES ('type', 'baselayer')");
+        return new MBTilesArchive(db);
+    }
+
+    @Override
+    public boolean contains(int zoom, int x, int y) {
+        return DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?",
+                new String[]{String.valueOf(zoom), String.valueOf(x), String.valueOf(TileMath.toTmsRow(y, zoom))}) > 0;
+    }
+
+    @Override
+    public void put(int zoom, int x, int y, byte[] data) {
+        ContentValues values = new ContentValues();
+        values.put("zoom_level", zoom);
+        values.put("tile_column", x);
+        values.put("tile_row", TileMath.toTmsRow(y, zoom));
+        values.put("tile_data", data);
+        db.insertWithOnConflict("tiles", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public long getTileCount() {
+        return DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM tiles", null);
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL(SUM(LENGTH(tile_data)), 0) FROM tiles", null);
+    }
+
+    @Override
+    public void close() {
+        db.close();
+    }
+}
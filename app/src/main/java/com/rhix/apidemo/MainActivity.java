@@ -2,6 +2,8 @@ package com.rhix.apidemo;
 
 import android.os.Bundle;
 import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
@@ -10,10 +12,18 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 public class MainActivity extends AppCompatActivity {
+    private static final String TAB_TAG_PREFIX = "tab_";
+    // False keeps the activity from prefetching tiles (set by tests)
+    static final String EXTRA_PREFETCH_TILES = "com.rhix.apidemo.PREFETCH_TILES";
+
+    // The visible tab; the others stay added but hidden so their MapViews survive
+    private Fragment activeFragment;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -24,38 +34,82 @@ public class MainActivity extends AppCompatActivity {
 
         // Set default fragment
         if (savedInstanceState == null) {
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, new MapFragment())
-                    .commit();
+            showTab(R.id.nav_map);
+
+            // Fill the offline tile archive for the field area in the background when a prefetch
+            // server is configured (resumes if a previous run was cut short)
+            if (getIntent().getBooleanExtra(EXTRA_PREFETCH_TILES, true)) {
+                OfflineTiles.prefetchCoverage(this, BuildConfig.TILE_PREFETCH_URL);
+            }
+        } else {
+            // The fragment manager restored the tabs along with their hidden state
+            for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+                if (!fragment.isHidden()) {
+                    activeFragment = fragment;
+                }
+            }
         }
 
         // Use setOnItemSelectedListener instead of setOnNavigationItemSelectedListener
         bottomNavigationView.setOnItemSelectedListener(new BottomNavigationView.OnItemSelectedListener() {
             @Override
             public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-                Fragment selectedFragment = null;
-
-                int itemId = item.getItemId();
-                if (itemId == R.id.nav_map) {
-                    selectedFragment = new MapFragment();
-                }else if(itemId == R.id.nav_custom_marker){
-                    selectedFragment = new MapCustomMarkerFragment();
-                }else if(itemId == R.id.nav_points){
-                    selectedFragment = new MapPointsFragment();
-                }else if(itemId == R.id.nav_plot){
-                    selectedFragment = new MapPlotFragment();
-                }else if(itemId == R.id.nav_cloud){
-                    selectedFragment = new MapWeatherFragment();
-                }
+                return showTab(item.getItemId());
+            }
+        });
+    }
 
-                if (selectedFragment != null) {
-                    getSupportFragmentManager().beginTransaction()
-                            .replace(R.id.fragment_container, selectedFragment)
-                            .commit();
-                }
+    // Shows the tab's fragment, creating it on first use, and hides the previous one
+    private boolean showTab(int itemId) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        String tag = TAB_TAG_PREFIX + itemId;
+        Fragment fragment = fragmentManager.findFragmentByTag(tag);
+        if (fragment != null && fragment == activeFragment) {
+            return true;
+        }
+
+        final long startNanos = System.nanoTime();
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        if (fragment == null) {
+            fragment = createTab(itemId);
+            if (fragment == null) {
+                return false;
+            }
+            transaction.add(R.id.fragment_container, fragment, tag);
+        } else {
+            transaction.show(fragment);
+        }
+        if (activeFragment != null) {
+            transaction.hide(activeFragment);
+        }
+        transaction.commit();
+        activeFragment = fragment;
 
+        // Latency up to the first frame of the new tab
+        final View container = findViewById(R.id.fragment_container);
+        container.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                container.getViewTreeObserver().removeOnPreDrawListener(this);
+                NavMetrics.recordTabSwitch(System.nanoTime() - startNanos);
                 return true;
             }
         });
+        return true;
+    }
+
+    private static Fragment createTab(int itemId) {
+        if (itemId == R.id.nav_map) {
+            return new MapFragment();
+        } else if (itemId == R.id.nav_custom_marker) {
+            return new MapCustomMarkerFragment();
+        } else if (itemId == R.id.nav_points) {
+            return new MapPointsFragment();
+        } else if (itemId == R.id.nav_plot) {
+            return new MapPlotFragment();
+        } else if (itemId == R.id.nav_cloud) {
+            return new MapWeatherFragment();
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,8 @@
 package com.rhix.apidemo;
 
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -21,8 +17,6 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
-import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
@@ -51,16 +45,15 @@ public class MapCustomMarkerFragment extends Fragment {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        // Initialize osmdroid configuration with SharedPreferences directly
-        SharedPreferences sharedPreferences = requireContext().getSharedPreferences("osmdroid", Context.MODE_PRIVATE);
-        Configuration.getInstance().load(requireContext(), sharedPreferences);
-        Configuration.getInstance().setUserAgentValue("com.rhix.apidemo");
+        // osmdroid is configured once at startup; MapView reads that configuration when inflated
+        AppStartup.getInstance(requireContext()).awaitMapReady();
 
         View view = inflater.inflate(R.layout.fragment_map, container, false);
 
         // Set up the MapView
         mapView = view.findViewById(R.id.map);
-        mapView.setTileSource(TileSourceFactory.MAPNIK); // Use MAPNIK for OSM tiles
+        NavMetrics.recordMapViewCreated();
+        OfflineTiles.install(mapView); // MAPNIK tiles, read from the offline archive first
         mapView.setMultiTouchControls(true);
 
         // Set initial map position and zoom level
@@ -77,6 +70,9 @@ public class MapCustomMarkerFragment extends Fragment {
         // Initialize and add the custom marker
         customMarker = addCustomMarker(startPoint); // Add a custom marker at the starting point
 
+        // Network latency panel and draw profiling, debug builds only
+        PerfOverlay.attachIfDebug(mapView);
+
         // Request location permission
         requestLocationPermission();
 
@@ -137,40 +133,40 @@ public class MapCustomMarkerFragment extends Fragment {
         return marker;
     }
 
+    // Rasterized once per (drawable, size, density) and shared through IconCache
     private Bitmap getBitmapFromDrawable(int drawableId) {
-        Drawable drawable = ContextCompat.getDrawable(requireContext(), drawableId);
-        if (drawable == null) return null;
-
-        // Create a Bitmap from the drawable
-        Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawable.draw(canvas);
-        return bitmap;
+        return IconCache.getInstance(requireContext()).getBitmap(drawableId);
     }
 
     private Bitmap getScaledBitmap(int drawableId, int width, int height) {
-        Drawable drawable = ContextCompat.getDrawable(requireContext(), drawableId);
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, width, height);
-        drawable.draw(canvas);
-        return bitmap;
+        return IconCache.getInstance(requireContext()).getBitmap(drawableId, width, height, IconCache.NO_TINT);
     }
 
-
-
-
     @Override
     public void onPause() {
         super.onPause();
-        mapView.onPause();
+        if (!isHidden()) {
+            mapView.onPause();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        mapView.onResume();
+        if (!isHidden()) {
+            mapView.onResume();
+        }
+    }
+
+    // MainActivity hides tabs instead of replacing them; pause the map while it is off screen
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (hidden) {
+            mapView.onPause();
+        } else {
+            mapView.onResume();
+        }
     }
 
     @Override
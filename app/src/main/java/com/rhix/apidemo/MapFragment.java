@@ -1,8 +1,6 @@
 package com.rhix.apidemo;
 
 import android.Manifest;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
@@ -18,8 +16,6 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
-import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
@@ -46,16 +42,15 @@ public class MapFragment extends Fragment {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-       // Initialize osmdroid configuration with SharedPreferences directly
-        SharedPreferences sharedPreferences = requireContext().getSharedPreferences("osmdroid", Context.MODE_PRIVATE);
-        Configuration.getInstance().load(requireContext(), sharedPreferences);
-        Configuration.getInstance().setUserAgentValue("com.rhix.apidemo");
+        // osmdroid is configured once at startup; MapView reads that configuration when inflated
+        AppStartup.getInstance(requireContext()).awaitMapReady();
 
         View view = inflater.inflate(R.layout.fragment_map, container, false);
 
         // Set up the MapView
         mapView = view.findViewById(R.id.map);
-        mapView.setTileSource(TileSourceFactory.MAPNIK); // Use MAPNIK for OSM tiles
+        NavMetrics.recordMapViewCreated();
+        OfflineTiles.install(mapView); // MAPNIK tiles, read from the offline archive first
         mapView.setMultiTouchControls(true);
 
         // Set initial map position and zoom level
@@ -67,6 +62,9 @@ public class MapFragment extends Fragment {
         locationOverlay = new MyLocationNewOverlay(mapView);
         mapView.getOverlays().add(locationOverlay);
 
+        // Network latency panel and draw profiling, debug builds only
+        PerfOverlay.attachIfDebug(mapView);
+
         // Request location permission
         requestLocationPermission();
 
@@ -102,13 +100,28 @@ public class MapFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
-        mapView.onPause();
+        if (!isHidden()) {
+            mapView.onPause();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        mapView.onResume();
+        if (!isHidden()) {
+            mapView.onResume();
+        }
+    }
+
+    // MainActivity hides tabs instead of replacing them; pause the map while it is off screen
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (hidden) {
+            mapView.onPause();
+        } else {
+            mapView.onResume();
+        }
     }
 
     @Override
@@ -1,9 +1,9 @@
 package com.rhix.apidemo;
 
 import android.Manifest;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
@@ -11,6 +11,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
@@ -19,21 +20,22 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
-import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Polyline;
 import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
+import org.osmdroid.views.overlay.mylocation.IMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
-import java.util.Arrays;
-import java.util.List;
+import java.io.File;
 
 public class MapPlotFragment extends Fragment {
+    private static final String TRACK_FILE = "track.log";
+
     private MapView mapView;
     private MyLocationNewOverlay locationOverlay;
+    private TrackRecorder trackRecorder;
+    private GeofenceEngine geofences;
 
     private final ActivityResultLauncher<String[]> locationPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), result -> {
@@ -52,15 +54,15 @@ public class MapPlotFragment extends Fragment {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        SharedPreferences sharedPreferences = requireContext().getSharedPreferences("osmdroid", Context.MODE_PRIVATE);
-        Configuration.getInstance().load(requireContext(), sharedPreferences);
-        Configuration.getInstance().setUserAgentValue("com.yourapp.package");
+        // osmdroid is configured once at startup; MapView reads that configuration when inflated
+        AppStartup.getInstance(requireContext()).awaitMapReady();
 
         View view = inflater.inflate(R.layout.fragment_map, container, false);
 
         // Set up the MapView
         mapView = view.findViewById(R.id.map);
-        mapView.setTileSource(TileSourceFactory.MAPNIK);
+        NavMetrics.recordMapViewCreated();
+        OfflineTiles.install(mapView);
         mapView.setMultiTouchControls(true);
 
         // Set initial map position and zoom level
@@ -72,10 +74,33 @@ public class MapPlotFragment extends Fragment {
         addMarkersToMap();
         drawLineBetweenPoints();
 
-        // Initialize location overlay with GpsMyLocationProvider
-        locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(getContext()), mapView);
+        // Record the route walked; the log survives the process, so the track picks up where it left off
+        TrackOverlay trackOverlay = new TrackOverlay(Color.argb(220, 33, 150, 243), 8 * getResources().getDisplayMetrics().density);
+        mapView.getOverlays().add(trackOverlay);
+        trackRecorder = new TrackRecorder(new File(requireContext().getFilesDir(), TRACK_FILE), mapView, trackOverlay);
+        trackRecorder.start();
+
+        // The route outlines the site; every fix is checked against it
+        GeofenceEngine.Builder fences = new GeofenceEngine.Builder();
+        fences.addFence(ROUTE);
+        geofences = fences.build();
+
+        // Initialize location overlay with GpsMyLocationProvider; every fix is also recorded
+        locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(getContext()), mapView) {
+            @Override
+            public void onLocationChanged(Location location, IMyLocationProvider source) {
+                super.onLocationChanged(location, source);
+                if (location != null) {
+                    trackRecorder.onLocation(location.getLatitude(), location.getLongitude(), location.getTime());
+                    geofences.update(location.getLatitude(), location.getLongitude(), geofenceListener);
+                }
+            }
+        };
         mapView.getOverlays().add(locationOverlay);
 
+        // Network latency panel and draw profiling, debug builds only
+        PerfOverlay.attachIfDebug(mapView);
+
         // Request location permission
         requestLocationPermission();
 
@@ -89,55 +114,63 @@ public class MapPlotFragment extends Fragment {
         return view;
     }
 
-    private void addMarkersToMap() {
-        GeoPoint[] points = new GeoPoint[]{
-                new GeoPoint(10.679661456360577, 122.96088446926933),
-                new GeoPoint(10.680528171358237, 122.96263178591225),
-                new GeoPoint(10.678683980411808, 122.96473349189357),
-                new GeoPoint(10.677468595948623, 122.96316727417242),
-                new GeoPoint(10.677434749405863, 122.96284656472892),
-                new GeoPoint(10.677507066175139, 122.96217089109979),
-                new GeoPoint(10.67777500620726, 122.96120092033692),
-                new GeoPoint(10.678230880119218, 122.96054658923967),
-                new GeoPoint(10.679661456360577, 122.96088446926933)
-                /*
-                new GeoPoint(10.668328, 122.958444),
-                new GeoPoint(10.674155, 122.961091),
-                new GeoPoint(10.675039, 122.961242),
-                new GeoPoint(10.675847, 122.961027),
-                new GeoPoint(10.683639, 122.957072),
-                new GeoPoint(10.683985, 122.956504)*/
-        };
+    // The route loops back to its first vertex
+    private static final PointStore ROUTE = PointStore.of(PointStore.Encoding.DOUBLE,
+            10.679661456360577, 122.96088446926933,
+            10.680528171358237, 122.96263178591225,
+            10.678683980411808, 122.96473349189357,
+            10.677468595948623, 122.96316727417242,
+            10.677434749405863, 122.96284656472892,
+            10.677507066175139, 122.96217089109979,
+            10.67777500620726, 122.96120092033692,
+            10.678230880119218, 122.96054658923967,
+            10.679661456360577, 122.96088446926933
+    );
+
+    private final GeofenceEngine.Listener geofenceListener = new GeofenceEngine.Listener() {
+        @Override
+        public void onEnter(int fence) {
+            showGeofenceEvent("Entered the site");
+        }
 
-        for (GeoPoint point : points) {
-            Marker marker = new Marker(mapView);
-            marker.setPosition(point);
-            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-            marker.setIcon(ContextCompat.getDrawable(requireContext(), R.drawable.ic_pin));
-            marker.setTitle("Point: " + point.getLatitude() + ", " + point.getLongitude());
-            mapView.getOverlays().add(marker);
+        @Override
+        public void onExit(int fence) {
+            showGeofenceEvent("Left the site");
         }
+    };
+
+    // Fixes can arrive off the main thread
+    private void showGeofenceEvent(String message) {
+        mapView.post(() -> {
+            if (getContext() != null) {
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void addMarkersToMap() {
+        ViewportMarkerLayer markerLayer = new ViewportMarkerLayer(mapView,
+                IconCache.getInstance(requireContext()).getDrawable(R.drawable.ic_pin));
+        markerLayer.setPoints(ROUTE);
+        mapView.getOverlays().add(markerLayer);
     }
 
     private void drawLineBetweenPoints() {
-        List<GeoPoint> points = Arrays.asList(
-                new GeoPoint(10.679661456360577, 122.96088446926933),
-                new GeoPoint(10.680528171358237, 122.96263178591225),
-                new GeoPoint(10.678683980411808, 122.96473349189357),
-                new GeoPoint(10.677468595948623, 122.96316727417242),
-                new GeoPoint(10.677434749405863, 122.96284656472892),
-                new GeoPoint(10.677507066175139, 122.96217089109979),
-                new GeoPoint(10.67777500620726, 122.96120092033692),
-                new GeoPoint(10.678230880119218, 122.96054658923967),
-                new GeoPoint(10.679661456360577, 122.96088446926933)
-        );
-
-        // Create a Polyline and set the points
+        int red = ContextCompat.getColor(requireContext(), R.color.red);
+
+        // The site the route encloses is shaded through the geometry layer, fill only; the layer
+        // indexes and caches its paths, and takes thousands of such areas the same way
+        GeometryLayer siteArea = new GeometryLayer(mapView, Color.argb(48, Color.red(red), Color.green(red), Color.blue(red)),
+                red, 0f);
+        siteArea.setGeometry(new GeometryStore.Builder().addPolygon(ROUTE));
+        mapView.getOverlays().add(siteArea);
+
+        // Create a Polyline; its points are set per zoom level once the LOD pyramid is built
         Polyline line = new Polyline();
-        line.setPoints(points);
+        new LodPolyline(mapView, line, LodPolyline.DEFAULT_TOLERANCE_PX).setPoints(ROUTE);
 
         // Set color and width for the polyline
-        line.setColor(ContextCompat.getColor(requireContext(), R.color.red)); // Set color from resources
+        line.setColor(red); // Set color from resources
         line.setWidth(10f); // Line width in pixels (using deprecated method)
 
         // Add the line to the map
@@ -166,18 +199,34 @@ public class MapPlotFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
-        mapView.onPause();
+        if (!isHidden()) {
+            mapView.onPause();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        mapView.onResume();
+        if (!isHidden()) {
+            mapView.onResume();
+        }
+    }
+
+    // MainActivity hides tabs instead of replacing them; pause the map while it is off screen
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (hidden) {
+            mapView.onPause();
+        } else {
+            mapView.onResume();
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        trackRecorder.stop();
         mapView.onDetach();
     }
 }
\ No newline at end of file
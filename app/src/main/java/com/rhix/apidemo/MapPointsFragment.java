@@ -1,8 +1,6 @@
 package com.rhix.apidemo;
 
 import android.Manifest;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.graphics.Paint;
 import android.os.Build;
@@ -19,11 +17,13 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
-import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.events.DelayedMapListener;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Marker;
 import org.osmdroid.views.overlay.Polyline;
 import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
@@ -33,8 +33,13 @@ import java.util.Arrays;
 import java.util.List;
 
 public class MapPointsFragment extends Fragment {
+    private static final int DETAIL_ZOOM = 17;
+    // Wait for the map to settle before reordering the weather queue
+    private static final long PRIORITIZE_DELAY_MS = 200;
+
     private MapView mapView;
     private MyLocationNewOverlay locationOverlay;
+    private BatchWeatherScheduler.Batch weatherBatch;
 
     private final ActivityResultLauncher<String[]> locationPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), result -> {
@@ -53,15 +58,15 @@ public class MapPointsFragment extends Fragment {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        SharedPreferences sharedPreferences = requireContext().getSharedPreferences("osmdroid", Context.MODE_PRIVATE);
-        Configuration.getInstance().load(requireContext(), sharedPreferences);
-        Configuration.getInstance().setUserAgentValue("com.yourapp.package");
+        // osmdroid is configured once at startup; MapView reads that configuration when inflated
+        AppStartup.getInstance(requireContext()).awaitMapReady();
 
         View view = inflater.inflate(R.layout.fragment_map, container, false);
 
         // Set up the MapView
         mapView = view.findViewById(R.id.map);
-        mapView.setTileSource(TileSourceFactory.MAPNIK);
+        NavMetrics.recordMapViewCreated();
+        OfflineTiles.install(mapView);
         mapView.setMultiTouchControls(true);
 
         // Set initial map position and zoom level
@@ -76,6 +81,9 @@ public class MapPointsFragment extends Fragment {
         locationOverlay = new MyLocationNewOverlay(new GpsMyLocationProvider(getContext()), mapView);
         mapView.getOverlays().add(locationOverlay);
 
+        // Network latency panel and draw profiling, debug builds only
+        PerfOverlay.attachIfDebug(mapView);
+
         // Request location permission
         requestLocationPermission();
 
@@ -90,22 +98,95 @@ public class MapPointsFragment extends Fragment {
     }
 
     private void addMarkersToMap() {
-        GeoPoint[] points = new GeoPoint[]{
-                new GeoPoint(10.668328, 122.958444),
-                new GeoPoint(10.674155, 122.961091),
-                new GeoPoint(10.675039, 122.961242),
-                new GeoPoint(10.675847, 122.961027),
-                new GeoPoint(10.683639, 122.957072),
-                new GeoPoint(10.683985, 122.956504)
+        PointStore points = PointStore.of(PointStore.Encoding.E7,
+                10.668328, 122.958444,
+                10.674155, 122.961091,
+                10.675039, 122.961242,
+                10.675847, 122.961027,
+                10.683639, 122.957072,
+                10.683985, 122.956504
+        );
+
+        // One overlay draws every cluster in view instead of one Marker per point
+        ClusterOverlay clusterOverlay = new ClusterOverlay(mapView);
+        clusterOverlay.setPoints(points);
+        clusterOverlay.setMaxVisibleZoom(DETAIL_ZOOM - 1);
+        mapView.getOverlays().add(clusterOverlay);
+
+        // Individual markers take over once zoomed in, created only for what is on screen
+        ViewportMarkerLayer markerLayer = new ViewportMarkerLayer(mapView,
+                IconCache.getInstance(requireContext()).getDrawable(R.drawable.ic_pin));
+        markerLayer.setPoints(points);
+        markerLayer.setMinVisibleZoom(DETAIL_ZOOM);
+        mapView.getOverlays().add(markerLayer);
+
+        loadWeather(points, markerLayer);
+    }
+
+    // One request per weather cell rather than per point, a few at a time, cells on screen first.
+    // Badges fill in as each cell arrives.
+    private void loadWeather(PointStore points, ViewportMarkerLayer markerLayer) {
+        final WeatherBadgeOverlay weatherOverlay = new WeatherBadgeOverlay(mapView, points);
+        weatherOverlay.setMinVisibleZoom(DETAIL_ZOOM);
+        mapView.getOverlays().add(weatherOverlay);
+        markerLayer.setTitleFormatter((store, index) -> {
+            String title = ViewportMarkerLayer.COORDINATE_TITLE.format(store, index);
+            float temperature = weatherOverlay.getTemperature(index);
+            return Float.isNaN(temperature) ? title
+                    : MarkerTitles.withTemperature(title, temperature);
+        });
+
+        final BatchWeatherScheduler.Listener listener = new BatchWeatherScheduler.Listener() {
+            @Override
+            public void onCellWeather(int[] pointIndices, WeatherSnapshot snapshot) {
+                weatherOverlay.setTemperature(pointIndices, snapshot.getTemp());
+            }
+
+            @Override
+            public void onCellError(int[] pointIndices, Throwable error) {
+                // Those points simply get no badge
+            }
+
+            @Override
+            public void onFinished(int cells, int failedCells) {
+            }
         };
+        // The viewport is only known once the map has been laid out; start then, on-screen cells first
+        final BatchWeatherScheduler scheduler = BatchWeatherScheduler.getInstance(requireContext());
+        if (mapView.isLayoutOccurred()) {
+            startWeather(scheduler, points, listener);
+        } else {
+            mapView.addOnFirstLayoutListener((view, left, top, right, bottom) ->
+                    startWeather(scheduler, points, listener));
+        }
+
+        mapView.addMapListener(new DelayedMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent event) {
+                prioritizeVisibleWeather();
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent event) {
+                prioritizeVisibleWeather();
+                return false;
+            }
+        }, PRIORITIZE_DELAY_MS));
+    }
+
+    private void startWeather(BatchWeatherScheduler scheduler, PointStore points, BatchWeatherScheduler.Listener listener) {
+        BoundingBox box = mapView.getBoundingBox();
+        weatherBatch = scheduler.load(points, box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast(),
+                listener);
+    }
 
-        for (GeoPoint point : points) {
-            Marker marker = new Marker(mapView);
-            marker.setPosition(point);
-            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-            marker.setTitle("Point: " + point.getLatitude() + ", " + point.getLongitude());
-            mapView.getOverlays().add(marker);
+    private void prioritizeVisibleWeather() {
+        if (weatherBatch == null) {
+            return;
         }
+        BoundingBox box = mapView.getBoundingBox();
+        weatherBatch.prioritize(box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast());
     }
 
     private void requestLocationPermission() {
@@ -130,18 +211,37 @@ public class MapPointsFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
-        mapView.onPause();
+        if (!isHidden()) {
+            mapView.onPause();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        mapView.onResume();
+        if (!isHidden()) {
+            mapView.onResume();
+        }
+    }
+
+    // MainActivity hides tabs instead of replacing them; pause the map while it is off screen
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (hidden) {
+            mapView.onPause();
+        } else {
+            mapView.onResume();
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (weatherBatch != null) {
+            weatherBatch.cancel();
+            weatherBatch = null;
+        }
         mapView.onDetach();
     }
 }
@@ -2,11 +2,8 @@ package com.rhix.apidemo;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Build;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -21,27 +18,18 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
 import org.osmdroid.api.IMapController;
-import org.osmdroid.config.Configuration;
-import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 
-import java.util.List;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
-
 public class MapWeatherFragment extends Fragment {
     private MapView mapView;
     private MyLocationNewOverlay locationOverlay;
+    private LocationRefreshPipeline refreshPipeline;
     private Marker weatherMarker;
-    private final String WEATHER_API_KEY = BuildConfig.API_KEY;
-    private final String WEATHER_BASE_URL = "https://api.openweathermap.org/data/2.5/";
+    private RequestManager requests;
 
     private final ActivityResultLauncher<String[]> locationPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), result -> {
@@ -60,13 +48,14 @@ public class MapWeatherFragment extends Fragment {
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        SharedPreferences sharedPreferences = requireContext().getSharedPreferences("osmdroid", Context.MODE_PRIVATE);
-        Configuration.getInstance().load(requireContext(), sharedPreferences);
-        Configuration.getInstance().setUserAgentValue("com.rhix.apidemo");
+        // osmdroid is configured once at startup; MapView reads that configuration when inflated
+        AppStartup.getInstance(requireContext()).awaitMapReady();
 
         View view = inflater.inflate(R.layout.fragment_map, container, false);
         mapView = view.findViewById(R.id.map);
-        mapView.setTileSource(TileSourceFactory.MAPNIK);
+        requests = RequestManager.bind(this);
+        NavMetrics.recordMapViewCreated();
+        OfflineTiles.install(mapView);
         mapView.setMultiTouchControls(true);
 
         IMapController mapController = mapView.getController();
@@ -74,12 +63,22 @@ public class MapWeatherFragment extends Fragment {
         GeoPoint startPoint = new GeoPoint(10.53724, 122.83202);
         mapController.setCenter(startPoint);
 
-        locationOverlay = new MyLocationNewOverlay(mapView);
+        // Temperature surface under everything else
+        mapView.getOverlays().add(new WeatherFieldOverlay(mapView, OpenWeatherCache.getInstance(requireContext())));
+
+        // Weather follows the device, refetched only after real movement; GPS slows down while standing still
+        AdaptiveLocationProvider locationProvider = new AdaptiveLocationProvider(new GpsMyLocationProvider(requireContext()));
+        refreshPipeline = new LocationRefreshPipeline(this::fetchWeatherData, locationProvider);
+        locationProvider.setPipeline(refreshPipeline);
+        locationOverlay = new MyLocationNewOverlay(locationProvider, mapView);
         mapView.getOverlays().add(locationOverlay);
 
         weatherMarker = new Marker(mapView);
         mapView.getOverlays().add(weatherMarker);
 
+        // Network latency panel and draw profiling, debug builds only
+        PerfOverlay.attachIfDebug(mapView);
+
         requestLocationPermission();
 
         Button zoomInButton = view.findViewById(R.id.zoom_in_button);
@@ -103,69 +102,32 @@ public class MapWeatherFragment extends Fragment {
                 ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
             locationOverlay.enableMyLocation();
             locationOverlay.enableFollowLocation();
-            locationOverlay.runOnFirstFix(() -> {
-                GeoPoint myLocation = locationOverlay.getMyLocation();
-                if (myLocation != null) {
-                    fetchWeatherData(myLocation.getLatitude(), myLocation.getLongitude());
-                }
-            });
         }
     }
 
-    private void fetchWeatherData(double latitude, double longitude) {
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(WEATHER_BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-
-        WeatherApiServiceTwo apiService = retrofit.create(WeatherApiServiceTwo.class);
-
-        Call<WeatherResponseTwo> call = apiService.getWeather(latitude, longitude, WEATHER_API_KEY, "metric");
-
-        call.enqueue(new Callback<WeatherResponseTwo>() {
+    // Called by refreshPipeline on the main thread for each fix that passes its gates
+    private Cancellable fetchWeatherData(double latitude, double longitude, Runnable done) {
+        if (!requests.isActive()) {
+            return Cancellable.NONE;
+        }
+        // Weather and place name are requested together; the marker shows whichever text is ready.
+        // A result already posted when the view goes away is dropped.
+        return WeatherMarkerLoader.getInstance(mapView.getContext()).load(latitude, longitude, new WeatherMarkerLoader.Listener() {
             @Override
-            public void onResponse(@NonNull Call<WeatherResponseTwo> call, @NonNull Response<WeatherResponseTwo> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String temperature = response.body().getMain().getTemp() + "°C";
-                    fetchLocationNameWithNominatim(latitude, longitude, temperature);
-                    //updateWeatherMarker(latitude, longitude, temperature);
+            public void onMarkerText(String text, boolean complete) {
+                done.run();
+                if (requests.isActive()) {
+                    updateWeatherMarker(latitude, longitude, text);
                 }
             }
 
             @Override
-            public void onFailure(@NonNull Call<WeatherResponseTwo> call, @NonNull Throwable t) {
-                Toast.makeText(requireContext(), "Failed to load weather data", Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
-    private void fetchLocationNameWithNominatim(double latitude, double longitude, String temperature) {
-        Log.v("Location: ", "Retrieving........");
-        Retrofit nominatimRetrofit = new Retrofit.Builder()
-                .baseUrl("https://nominatim.openstreetmap.org/")
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-
-        WeatherApiServiceTwo apiService = nominatimRetrofit.create(WeatherApiServiceTwo.class);
-
-        Call<NominatimResponse> call = apiService.reverseGeocodeWithNominatim(latitude, longitude, "json");
-
-        call.enqueue(new Callback<NominatimResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<NominatimResponse> call, @NonNull Response<NominatimResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String locationText = response.body().getDisplayName() + ": " + temperature;
-                    //Log.v("Location: ", "---------------------------");
-                    //Log.v("Location: ", locationText);
-
-                    updateWeatherMarker(latitude, longitude, locationText);
+            public void onError(Throwable t) {
+                done.run();
+                if (requests.isActive()) {
+                    Toast.makeText(mapView.getContext(), "Failed to load weather data", Toast.LENGTH_SHORT).show();
                 }
             }
-
-            @Override
-            public void onFailure(@NonNull Call<NominatimResponse> call, @NonNull Throwable t) {
-                Toast.makeText(requireContext(), "Failed to load location name with Nominatim", Toast.LENGTH_SHORT).show();
-            }
         });
     }
 
@@ -181,18 +143,34 @@ public class MapWeatherFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
-        mapView.onPause();
+        if (!isHidden()) {
+            mapView.onPause();
+        }
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        mapView.onResume();
+        if (!isHidden()) {
+            mapView.onResume();
+        }
+    }
+
+    // MainActivity hides tabs instead of replacing them; pause the map while it is off screen
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (hidden) {
+            mapView.onPause();
+        } else {
+            mapView.onResume();
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        refreshPipeline.stop();
         mapView.onDetach();
     }
 }
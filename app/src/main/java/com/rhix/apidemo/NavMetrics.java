@@ -0,0 +1,72 @@
+package com.rhix.apidemo;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+// Counters for bottom-nav behaviour: how long a tab switch takes to reach its first frame,
+// how many MapViews get built and how many tiles go to the network.
+public final class NavMetrics {
+    private static final String TAG = "NavMetrics";
+
+    private static int tabSwitchCount;
+    private static long totalTabSwitchNanos;
+    private static long maxTabSwitchNanos;
+    private static int mapViewCreateCount;
+    private static int tileFetchCount;
+
+    private NavMetrics() {
+    }
+
+    public static synchronized void recordTabSwitch(long nanos) {
+        tabSwitchCount++;
+        totalTabSwitchNanos += nanos;
+        maxTabSwitchNanos = Math.max(maxTabSwitchNanos, nanos);
+        Log.d(TAG, String.format(Locale.US, "Tab switch %.1f ms (%s)", nanos / 1e6, snapshot()));
+    }
+
+    public static synchronized void recordMapViewCreated() {
+        mapViewCreateCount++;
+    }
+
+    // Called from osmdroid's download threads
+    public static synchronized void recordTileFetch() {
+        tileFetchCount++;
+    }
+
+    public static synchronized int getTabSwitchCount() {
+        return tabSwitchCount;
+    }
+
+    public static synchronized double getAverageTabSwitchMillis() {
+        return tabSwitchCount == 0 ? 0 : totalTabSwitchNanos / 1e6 / tabSwitchCount;
+    }
+
+    public static synchronized double getMaxTabSwitchMillis() {
+        return maxTabSwitchNanos / 1e6;
+    }
+
+    public static synchronized int getMapViewCreateCount() {
+        return mapViewCreateCount;
+    }
+
+    public static synchronized int getTileFetchCount() {
+        return tileFetchCount;
+    }
+
+    public static synchronized void reset() {
+        tabSwitchCount = 0;
+        totalTabSwitchNanos = 0;
+        maxTabSwitchNanos = 0;
+        mapViewCreateCount = 0;
+        tileFetchCount = 0;
+    }
+
+    @NonNull
+    public static synchronized String snapshot() {
+        return String.format(Locale.US, "%d switches, avg %.1f ms, max %.1f ms, %d MapViews created, %d tiles fetched",
+                tabSwitchCount, getAverageTabSwitchMillis(), getMaxTabSwitchMillis(), mapViewCreateCount, tileFetchCount);
+    }
+}
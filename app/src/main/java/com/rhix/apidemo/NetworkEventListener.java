@@ -0,0 +1,133 @@
+package com.rhix.apidemo;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Times every call on the shared OkHttp client into NetworkMetrics, keyed by the endpoint its
+// URL points at. OkHttp creates one listener per call, so the start times are plain fields.
+// TTFB runs from the last request byte written to the first response byte read, i.e. server
+// time plus one round trip; DNS, connect and TLS are recorded only when a new connection is made.
+// Responses served from the HTTP cache and cancelled calls are left out.
+class NetworkEventListener extends EventListener {
+    private final NetworkMetrics metrics;
+    private final NetworkMetrics.Endpoint endpoint;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestSent;
+    private boolean cacheHit;
+    private boolean canceled;
+
+    static final class Factory implements EventListener.Factory {
+        private final NetworkMetrics metrics;
+
+        Factory(NetworkMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @NonNull
+        @Override
+        public EventListener create(@NonNull Call call) {
+            return new NetworkEventListener(metrics, NetworkMetrics.endpointOf(call.request().url().encodedPath()));
+        }
+    }
+
+    NetworkEventListener(NetworkMetrics metrics, NetworkMetrics.Endpoint endpoint) {
+        this.metrics = metrics;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+        metrics.record(endpoint, NetworkMetrics.Phase.DNS, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+        metrics.record(endpoint, NetworkMetrics.Phase.TLS, System.nanoTime() - secureConnectStart);
+    }
+
+    // The connect phase includes the TLS handshake, as a user waiting on it sees it
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy,
+                           @Nullable Protocol protocol) {
+        metrics.record(endpoint, NetworkMetrics.Phase.CONNECT, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        requestSent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        if (requestSent != 0) {
+            metrics.record(endpoint, NetworkMetrics.Phase.TTFB, System.nanoTime() - requestSent);
+            requestSent = 0;
+        }
+    }
+
+    @Override
+    public void cacheHit(@NonNull Call call, @NonNull Response response) {
+        cacheHit = true;
+    }
+
+    @Override
+    public void canceled(@NonNull Call call) {
+        canceled = true;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        if (!cacheHit) {
+            metrics.record(endpoint, NetworkMetrics.Phase.TOTAL, System.nanoTime() - callStart);
+        }
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        if (!canceled) {
+            metrics.recordFailure(endpoint);
+        }
+    }
+}
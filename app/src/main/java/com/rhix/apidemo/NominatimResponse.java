@@ -1,9 +0,0 @@
-package com.rhix.apidemo;
-
-public class NominatimResponse {
-    private String display_name; // Place name
-
-    public String getDisplayName() {
-        return display_name;
-    }
-}
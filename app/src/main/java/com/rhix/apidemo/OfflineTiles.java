@@ -0,0 +1,193 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.ConnectivityManager;
+import android.util.Log;
+
+import org.osmdroid.tileprovider.MapTileProviderArray;
+import org.osmdroid.tileprovider.modules.CantContinueException;
+import org.osmdroid.tileprovider.modules.IArchiveFile;
+import org.osmdroid.tileprovider.modules.IFilesystemCache;
+import org.osmdroid.tileprovider.modules.MBTilesFileArchive;
+import org.osmdroid.tileprovider.modules.MapTileDownloader;
+import org.osmdroid.tileprovider.modules.MapTileFileArchiveProvider;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileSqlCacheProvider;
+import org.osmdroid.tileprovider.modules.NetworkAvailabliltyCheck;
+import org.osmdroid.tileprovider.modules.SqlTileWriter;
+import org.osmdroid.tileprovider.modules.TileDownloader;
+import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.tileprovider.util.SimpleRegisterReceiver;
+import org.osmdroid.views.MapView;
+
+import java.io.File;
+
+import okhttp3.OkHttpClient;
+
+// Offline MAPNIK tiles for our field area. The map reads the local MBTiles archive first,
+// then osmdroid's own tile cache, and only goes to the network when both miss.
+public final class OfflineTiles {
+    private static final String TAG = "OfflineTiles";
+
+    // Bacolod / Bago area on Negros, covering the points used by the map fragments
+    public static final double COVERAGE_NORTH = 10.72;
+    public static final double COVERAGE_SOUTH = 10.50;
+    public static final double COVERAGE_EAST = 123.00;
+    public static final double COVERAGE_WEST = 122.80;
+    public static final int COVERAGE_MIN_ZOOM = 10;
+    public static final int COVERAGE_MAX_ZOOM = 16;
+    public static final long BYTE_BUDGET = 64L * 1024 * 1024;
+    private static final int PREFETCH_WORKERS = 2;
+    // The public OSM servers behind MAPNIK forbid bulk downloading, so prefetch only runs against a
+    // server configured with TILE_PREFETCH_URL in local.properties, e.g. https://tiles.example.com/{z}/{x}/{y}.png
+    private static final String OSM_TILE_HOST = "tile.openstreetmap.org";
+
+    private static MBTilesArchive archive;
+    private static Cancellable runningPrefetch;
+
+    private OfflineTiles() {
+    }
+
+    public static File getArchiveFile(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), "tiles/mapnik.mbtiles");
+    }
+
+    public static synchronized MBTilesArchive getArchive(Context context) {
+        if (archive == null) {
+            archive = MBTilesArchive.open(getArchiveFile(context), "MAPNIK");
+        }
+        return archive;
+    }
+
+    public static OnlineTileSourceBase getTileSource() {
+        return TileSourceFactory.MAPNIK;
+    }
+
+    // URL template for prefetching, or null when bulk prefetch is off
+    static String getPrefetchUrlTemplate(String configured) {
+        if (configured == null || configured.isEmpty() || configured.contains(OSM_TILE_HOST)) {
+            return null;
+        }
+        return configured;
+    }
+
+    // Replaces mapView.setTileSource(TileSourceFactory.MAPNIK)
+    public static void install(MapView mapView) {
+        Context context = mapView.getContext();
+        OnlineTileSourceBase tileSource = getTileSource();
+        getArchive(context); // makes sure the file and schema exist before osmdroid opens it read-only
+
+        SimpleRegisterReceiver registerReceiver = new SimpleRegisterReceiver(context);
+        IArchiveFile[] archives = new IArchiveFile[]{MBTilesFileArchive.getDatabaseFileArchive(getArchiveFile(context))};
+        MapTileDownloader downloader =
+                new MapTileDownloader(tileSource, new SqlTileWriter(), new NetworkAvailabliltyCheck(context));
+        downloader.setTileDownloader(new CountingTileDownloader(ApiClient.getInstance(context).getNetworkMetrics()));
+        MapTileModuleProviderBase[] providers = new MapTileModuleProviderBase[]{
+                new MapTileFileArchiveProvider(registerReceiver, tileSource, archives),
+                new MapTileSqlCacheProvider(registerReceiver, tileSource),
+                downloader
+        };
+        mapView.setTileProvider(new MapTileProviderArray(tileSource, registerReceiver, providers));
+    }
+
+    // Fills the archive with the coverage area from the configured prefetch server; only runs on
+    // unmetered networks. Safe to call from the main thread: the archive and the HTTP client are
+    // opened on a background thread.
+    public static synchronized void prefetchCoverage(Context context, String configuredUrl) {
+        final String urlTemplate = getPrefetchUrlTemplate(configuredUrl);
+        if (urlTemplate == null || runningPrefetch != null) {
+            return;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null || connectivityManager.isActiveNetworkMetered()) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final PendingPrefetch pending = new PendingPrefetch();
+        runningPrefetch = pending;
+        new Thread(() -> {
+            // Same connection pool and metrics as the API calls, but tiles stay out of the HTTP cache,
+            // which is sized for weather and Nominatim responses and would be flushed by them
+            OkHttpClient httpClient = ApiClient.getInstance(appContext).getHttpClient().newBuilder()
+                    .cache(null)
+                    .build();
+            TilePrefetcher prefetcher = new TilePrefetcher(
+                    getArchive(appContext),
+                    httpClient,
+                    urlTemplate,
+                    AppStartup.USER_AGENT,
+                    PREFETCH_WORKERS);
+            pending.started(prefetcher.prefetch(COVERAGE_NORTH, COVERAGE_SOUTH, COVERAGE_EAST, COVERAGE_WEST,
+                    COVERAGE_MIN_ZOOM, COVERAGE_MAX_ZOOM, BYTE_BUDGET, new TilePrefetcher.Listener() {
+                        @Override
+                        public void onProgress(TilePrefetcher.Progress progress) {
+                            Log.d(TAG, "Prefetch " + progress);
+                        }
+
+                        @Override
+                        public void onFinished(TilePrefetcher.Progress progress) {
+                            synchronized (OfflineTiles.class) {
+                                runningPrefetch = null;
+                            }
+                        }
+                    }));
+        }, TAG).start();
+    }
+
+    public static synchronized void cancelPrefetch() {
+        if (runningPrefetch != null) {
+            runningPrefetch.cancel();
+        }
+    }
+
+    // Stands in for the prefetch while its archive and client are opened, so a cancel in that
+    // window still reaches the run
+    private static class PendingPrefetch implements Cancellable {
+        private Cancellable run;
+        private boolean cancelled;
+
+        synchronized void started(Cancellable run) {
+            this.run = run;
+            if (cancelled) {
+                run.cancel();
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            if (run != null) {
+                run.cancel();
+            }
+        }
+    }
+
+    // Counts and times every tile request that actually goes to the network. osmdroid downloads
+    // through HttpURLConnection, not OkHttp, so only the whole call is timed here.
+    private static class CountingTileDownloader extends TileDownloader {
+        private final NetworkMetrics metrics;
+
+        CountingTileDownloader(NetworkMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Drawable downloadTile(long tileIndex, int redirectCount, String targetUrl,
+                                     IFilesystemCache filesystemCache, OnlineTileSourceBase tileSource)
+                throws CantContinueException {
+            NavMetrics.recordTileFetch();
+            long start = System.nanoTime();
+            Drawable tile = super.downloadTile(tileIndex, redirectCount, targetUrl, filesystemCache, tileSource);
+            if (tile != null) {
+                metrics.record(NetworkMetrics.Endpoint.TILES, NetworkMetrics.Phase.TOTAL, System.nanoTime() - start);
+            } else {
+                metrics.recordFailure(NetworkMetrics.Endpoint.TILES);
+            }
+            return tile;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+// The app-wide WeatherCache: entries under the cache dir, misses fetched from OpenWeather
+// under the weather endpoint's FetchPolicy, callbacks delivered on the main thread. Readings
+// up to MAX_STALE_MILLIS past their ttl are still shown while they are refreshed.
+public final class OpenWeatherCache {
+    public static final long MAX_STALE_MILLIS = TimeUnit.HOURS.toMillis(3);
+
+    private static WeatherCache instance;
+
+    private OpenWeatherCache() {
+    }
+
+    public static synchronized WeatherCache getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            ApiClient apiClient = ApiClient.getInstance(appContext);
+            instance = new WeatherCache(
+                    new File(appContext.getCacheDir(), "weather"),
+                    WeatherCache.DEFAULT_PRECISION,
+                    WeatherCache.DEFAULT_TTL_MILLIS,
+                    MAX_STALE_MILLIS,
+                    WeatherCache.DEFAULT_MEMORY_ENTRIES,
+                    withPolicy(apiClient.getFetchPolicy(NetworkMetrics.Endpoint.WEATHER), fetcher(apiClient)),
+                    Executors.newSingleThreadExecutor(),
+                    mainHandler::post);
+        }
+        return instance;
+    }
+
+    static WeatherCache.Fetcher fetcher(final ApiClient apiClient) {
+        return (latitude, longitude, callback) -> {
+            Call<WeatherResponseTwo> call = apiClient.getWeatherServiceTwo()
+                    .getWeather(latitude, longitude, BuildConfig.API_KEY, "metric");
+            call.enqueue(new retrofit2.Callback<WeatherResponseTwo>() {
+                @Override
+                public void onResponse(@NonNull Call<WeatherResponseTwo> call, @NonNull Response<WeatherResponseTwo> response) {
+                    if (response.isSuccessful() && response.body() != null && response.body().getMain() != null) {
+                        callback.onWeather(new WeatherSnapshot(response.body().getMain().getTemp(), System.currentTimeMillis()));
+                    } else if (response.isSuccessful()) {
+                        // Not retried: the same request would get the same answer
+                        callback.onError(new JsonParseException("Weather response has no temperature"));
+                    } else {
+                        callback.onError(new HttpStatusException("Weather request failed", response.code()));
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<WeatherResponseTwo> call, @NonNull Throwable t) {
+                    callback.onError(t);
+                }
+            });
+            return call::cancel;
+        };
+    }
+
+    // Each fetch retried and circuit-broken by the policy
+    static WeatherCache.Fetcher withPolicy(final FetchPolicy policy, final WeatherCache.Fetcher fetcher) {
+        return (latitude, longitude, callback) -> policy.execute(
+                result -> fetcher.fetch(latitude, longitude, new WeatherCache.Callback() {
+                    @Override
+                    public void onWeather(WeatherSnapshot snapshot) {
+                        result.onSuccess(snapshot);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        result.onFailure(t);
+                    }
+                }),
+                new FetchPolicy.Result<WeatherSnapshot>() {
+                    @Override
+                    public void onSuccess(WeatherSnapshot snapshot) {
+                        callback.onWeather(snapshot);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        callback.onError(t);
+                    }
+                });
+    }
+}
@@ -0,0 +1,205 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.widget.Toast;
+
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Debug builds only: a panel in the map's top-left corner with network latency percentiles per
+// endpoint. The text is rebuilt when new calls have finished, and at most once a second while profiling.
+// Tapping the panel writes the full histograms as JSON to the app's external files dir; a long
+// press starts overlay draw profiling, and a second one stops it and writes the jank report.
+public class PerfOverlay extends Overlay {
+    private static final String TAG = "PerfOverlay";
+    private static final long REFRESH_MILLIS = 1000;
+    private static final String DUMP_FILE = "network-metrics.json";
+    private static final String JANK_REPORT_FILE = "jank-report.txt";
+    private static final Executor DUMP_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final NetworkMetrics.Endpoint[] ENDPOINTS = NetworkMetrics.Endpoint.values();
+
+    private final MapView mapView;
+    private final NetworkMetrics metrics;
+    private final ProfilingOverlayManager overlayManager;
+    private final float density;
+    private final Paint panelPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF panel = new RectF();
+    private String[] lines = new String[0];
+    private long shownCalls = -1;
+    private long builtAtMillis;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            if (finishedCalls() != shownCalls || overlayManager.isProfiling()) {
+                mapView.invalidate();
+            }
+            mapView.postDelayed(this, REFRESH_MILLIS);
+        }
+    };
+
+    public PerfOverlay(MapView mapView, NetworkMetrics metrics, ProfilingOverlayManager overlayManager) {
+        this.mapView = mapView;
+        this.metrics = metrics;
+        this.overlayManager = overlayManager;
+        this.density = mapView.getResources().getDisplayMetrics().density;
+        panelPaint.setColor(Color.argb(170, 0, 0, 0));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTypeface(Typeface.MONOSPACE);
+        textPaint.setTextSize(10 * density);
+        mapView.postDelayed(refresh, REFRESH_MILLIS);
+    }
+
+    // Adds the overlay on top of the map's others, and the profiling overlay manager under
+    // them, in debug builds
+    public static void attachIfDebug(MapView mapView) {
+        if (BuildConfig.DEBUG) {
+            NetworkMetrics metrics = ApiClient.getInstance(mapView.getContext()).getNetworkMetrics();
+            ProfilingOverlayManager overlayManager = ProfilingOverlayManager.install(mapView);
+            mapView.getOverlays().add(new PerfOverlay(mapView, metrics, overlayManager));
+        }
+    }
+
+    private long finishedCalls() {
+        long calls = 0;
+        for (NetworkMetrics.Endpoint endpoint : ENDPOINTS) {
+            calls += metrics.get(endpoint, NetworkMetrics.Phase.TOTAL).getCount() + metrics.getFailureCount(endpoint);
+        }
+        return calls;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        long calls = finishedCalls();
+        long now = SystemClock.uptimeMillis();
+        if (calls != shownCalls || (overlayManager.isProfiling() && now - builtAtMillis >= REFRESH_MILLIS)) {
+            shownCalls = calls;
+            builtAtMillis = now;
+            lines = buildLines();
+        }
+        float padding = 6 * density;
+        float lineHeight = textPaint.getFontSpacing();
+        float width = 0;
+        for (String line : lines) {
+            width = Math.max(width, textPaint.measureText(line));
+        }
+        // The panel stays upright and in the corner however the map is rotated
+        projection.save(canvas, false, true);
+        panel.set(padding, padding, padding + width + 2 * padding, padding + lines.length * lineHeight + 2 * padding);
+        canvas.drawRect(panel, panelPaint);
+        float baseline = panel.top + padding - textPaint.ascent();
+        for (String line : lines) {
+            canvas.drawText(line, panel.left + padding, baseline, textPaint);
+            baseline += lineHeight;
+        }
+        projection.restore(canvas, true);
+    }
+
+    private String[] buildLines() {
+        int count = 0;
+        String[] built = new String[ENDPOINTS.length + 2];
+        built[count++] = "network (tap to dump, hold to profile)";
+        if (overlayManager.isProfiling()) {
+            DrawProfile profile = overlayManager.getProfile();
+            built[count++] = String.format(Locale.US, "profiling  %d frames  %d late  draw p95 %.1f ms",
+                    profile.getFrameCount(), profile.getLateFrameCount(),
+                    profile.getDrawTimes().getPercentileNanos(95) / 1e6);
+        }
+        for (NetworkMetrics.Endpoint endpoint : ENDPOINTS) {
+            if (metrics.get(endpoint, NetworkMetrics.Phase.TOTAL).getCount() > 0 || metrics.getFailureCount(endpoint) > 0) {
+                built[count++] = metrics.summary(endpoint);
+            }
+        }
+        String[] result = new String[count];
+        System.arraycopy(built, 0, result, 0, count);
+        return result;
+    }
+
+    @Override
+    public boolean onSingleTapConfirmed(MotionEvent e, MapView mapView) {
+        if (!panel.contains(e.getX(), e.getY())) {
+            return false;
+        }
+        final Context context = mapView.getContext().getApplicationContext();
+        DUMP_EXECUTOR.execute(() -> write(context, DUMP_FILE, out -> metrics.writeJson(out), "Network metrics"));
+        return true;
+    }
+
+    @Override
+    public boolean onLongPress(MotionEvent e, MapView mapView) {
+        if (!panel.contains(e.getX(), e.getY())) {
+            return false;
+        }
+        final Context context = mapView.getContext().getApplicationContext();
+        if (!overlayManager.isProfiling()) {
+            overlayManager.setProfiling(true);
+            Toast.makeText(context, "Profiling overlay draws", Toast.LENGTH_SHORT).show();
+        } else {
+            overlayManager.setProfiling(false);
+            final String report = overlayManager.dumpReport();
+            DUMP_EXECUTOR.execute(() -> write(context, JANK_REPORT_FILE, out -> out.write(report), "Jank report"));
+        }
+        builtAtMillis = 0;
+        lines = buildLines();
+        mapView.invalidate();
+        return true;
+    }
+
+    private interface Body {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private void write(Context context, String name, Body body, String what) {
+        File dir = context.getExternalFilesDir(null);
+        File file = new File(dir != null ? dir : context.getFilesDir(), name);
+        String message;
+        try (Writer out = new FileWriter(file)) {
+            body.writeTo(out);
+            message = what + " written to " + file;
+            Log.d(TAG, message);
+        } catch (IOException ex) {
+            message = "Could not write " + what.toLowerCase(Locale.US) + ": " + ex.getMessage();
+            Log.w(TAG, message, ex);
+        }
+        final String toast = message;
+        mapView.post(() -> Toast.makeText(context, toast, Toast.LENGTH_LONG).show());
+    }
+
+    // MapView forwards its own pause and resume; no polling while the map is off screen
+    @Override
+    public void onPause() {
+        mapView.removeCallbacks(refresh);
+        super.onPause();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        mapView.removeCallbacks(refresh);
+        mapView.postDelayed(refresh, REFRESH_MILLIS);
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        mapView.removeCallbacks(refresh);
+        super.onDetach(mapView);
+    }
+}
@@ -0,0 +1,59 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+// Periodic background refresh of every saved place's weather, so WeatherFragment opens on
+// recent data. One wake-up per interval covers all places; it waits for a network and skips
+// low battery, and WorkManager backs off if a run gets nothing at all.
+public class PlaceWeatherWorker extends Worker {
+    private static final String TAG = "PlaceWeatherWorker";
+    static final String WORK_NAME = "place-weather-refresh";
+    public static final long REFRESH_INTERVAL_HOURS = 1;
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    public PlaceWeatherWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Safe to call on every start: an existing schedule is kept, not pushed back
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                PlaceWeatherWorker.class, REFRESH_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PlaceWeatherRefresher refresher = SavedPlaces.getInstance(getApplicationContext());
+        try {
+            PlaceWeatherRefresher.Outcome outcome = refresher.refreshAll(TIMEOUT_MILLIS);
+            Log.i(TAG, outcome + " " + refresher);
+            return outcome.refreshed == 0 && outcome.failed > 0 ? Result.retry() : Result.success();
+        } catch (InterruptedException e) {
+            // Stopped by WorkManager (constraints no longer met); it will run again
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+}
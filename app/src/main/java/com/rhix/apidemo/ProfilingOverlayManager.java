@@ -0,0 +1,168 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+import android.util.Log;
+import android.view.Choreographer;
+
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.DefaultOverlayManager;
+import org.osmdroid.views.overlay.Overlay;
+import org.osmdroid.views.overlay.OverlayManager;
+import org.osmdroid.views.overlay.TilesOverlay;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// The map's overlay manager with an opt-in profiling mode. While profiling, every overlay's draw
+// is timed into a DrawProfile and a Choreographer callback measures the vsync interval after
+// each map frame; otherwise drawing is DefaultOverlayManager's own, behind a single flag check.
+// UI thread only.
+public class ProfilingOverlayManager extends DefaultOverlayManager {
+    private static final String TAG = "DrawProfile";
+
+    private final DrawProfile profile = new DrawProfile();
+    private final Map<Overlay, Integer> slots = new IdentityHashMap<>();
+    private int tilesSlot = -1;
+    private boolean profiling;
+    private long lastVsyncNanos;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!profiling) {
+                return;
+            }
+            if (lastVsyncNanos != 0) {
+                profile.recordFrameInterval(frameTimeNanos - lastVsyncNanos);
+            }
+            lastVsyncNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    public ProfilingOverlayManager(TilesOverlay tilesOverlay) {
+        super(tilesOverlay);
+    }
+
+    // Swaps the map's overlay manager for a profiling one, keeping its tiles and overlays
+    public static ProfilingOverlayManager install(MapView mapView) {
+        OverlayManager current = mapView.getOverlayManager();
+        if (current instanceof ProfilingOverlayManager) {
+            return (ProfilingOverlayManager) current;
+        }
+        ProfilingOverlayManager manager = new ProfilingOverlayManager(current.getTilesOverlay());
+        manager.addAll(current.overlays());
+        mapView.setOverlayManager(manager);
+        return manager;
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    // Turning profiling on starts a fresh profile
+    public void setProfiling(boolean enabled) {
+        if (enabled == profiling) {
+            return;
+        }
+        profiling = enabled;
+        lastVsyncNanos = 0;
+        slots.clear();
+        tilesSlot = -1;
+        if (enabled) {
+            profile.reset();
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+    }
+
+    public DrawProfile getProfile() {
+        return profile;
+    }
+
+    public String dumpReport() {
+        String report = profile.report();
+        Log.d(TAG, report);
+        return report;
+    }
+
+    @Override
+    public void onDraw(Canvas c, MapView pMapView) {
+        if (!profiling) {
+            super.onDraw(c, pMapView);
+            return;
+        }
+        Projection projection = pMapView.getProjection();
+        profile.beginFrame((int) projection.getZoomLevel(), System.nanoTime());
+
+        // Same order as DefaultOverlayManager: protect the visible tiles, draw tiles, then overlays
+        TilesOverlay tilesOverlay = getTilesOverlay();
+        if (tilesOverlay != null) {
+            tilesOverlay.protectDisplayedTilesForCache(c, projection);
+        }
+        for (Overlay overlay : overlays()) {
+            if (overlay != null && overlay.isEnabled() && overlay instanceof TilesOverlay) {
+                ((TilesOverlay) overlay).protectDisplayedTilesForCache(c, projection);
+            }
+        }
+        if (tilesOverlay != null && tilesOverlay.isEnabled()) {
+            if (tilesSlot < 0) {
+                tilesSlot = profile.register("TilesOverlay");
+            }
+            long start = System.nanoTime();
+            tilesOverlay.draw(c, pMapView, false);
+            profile.recordDraw(tilesSlot, System.nanoTime() - start);
+        }
+        for (Overlay overlay : overlays()) {
+            if (overlay != null && overlay.isEnabled()) {
+                int slot = slotOf(overlay);
+                long start = System.nanoTime();
+                overlay.draw(c, pMapView, false);
+                profile.recordDraw(slot, System.nanoTime() - start);
+            }
+        }
+        profile.endFrame(System.nanoTime());
+    }
+
+    private int slotOf(Overlay overlay) {
+        Integer slot = slots.get(overlay);
+        if (slot == null) {
+            slot = profile.register(nameOf(overlay.getClass()));
+            slots.put(overlay, slot);
+        }
+        return slot;
+    }
+
+    // Anonymous subclasses, like MapPlotFragment's location overlay, report as their parent
+    private static String nameOf(Class<?> type) {
+        while (type.isAnonymousClass()) {
+            type = type.getSuperclass();
+        }
+        return type.getSimpleName();
+    }
+
+    // Vsync callbacks stop while the map is paused; the profile carries on after resume
+    @Override
+    public void onPause() {
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        super.onPause();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (profiling) {
+            lastVsyncNanos = 0;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    @Override
+    public void onDetach(MapView pMapView) {
+        setProfiling(false);
+        super.onDetach(pMapView);
+    }
+}
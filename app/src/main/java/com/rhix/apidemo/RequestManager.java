@@ -0,0 +1,196 @@
+package com.rhix.apidemo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+// Retrofit calls owned by a fragment's view. Everything still outstanding is cancelled when the
+// view is destroyed, and no callback reaches the fragment after that. Identical calls (same
+// method and URL) share one request across all fragments, and a call made shortly after an
+// identical one succeeded is answered from that result without touching the network. Each call
+// runs under its endpoint's FetchPolicy, so transient failures are retried before anyone hears of them.
+public class RequestManager implements DefaultLifecycleObserver {
+    public static final long DEFAULT_REPLAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static SharedRequests<Object> shared;
+
+    private final SharedRequests<Object> requests;
+    private final ApiClient apiClient;
+    private final Set<Subscription<?>> outstanding = new LinkedHashSet<>();
+    private boolean destroyed;
+
+    static synchronized SharedRequests<Object> shared() {
+        if (shared == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            shared = new SharedRequests<>(DEFAULT_REPLAY_MILLIS, mainHandler::post);
+        }
+        return shared;
+    }
+
+    // Call from onCreateView or later; the manager lives until the view is destroyed
+    public static RequestManager bind(Fragment fragment) {
+        RequestManager manager = new RequestManager(shared(), ApiClient.getInstance(fragment.requireContext()));
+        fragment.getViewLifecycleOwner().getLifecycle().addObserver(manager);
+        return manager;
+    }
+
+    RequestManager(SharedRequests<Object> requests, ApiClient apiClient) {
+        this.requests = requests;
+        this.apiClient = apiClient;
+    }
+
+    // False once the view is gone; callbacks from elsewhere can check it before touching views
+    public synchronized boolean isActive() {
+        return !destroyed;
+    }
+
+    public <T> Cancellable enqueue(final Call<T> call, SharedRequests.Callback<T> callback) {
+        Subscription<T> subscription = new Subscription<>(callback);
+        synchronized (this) {
+            if (destroyed) {
+                return Cancellable.NONE;
+            }
+            outstanding.add(subscription);
+        }
+        Cancellable handle = requests.get(keyOf(call), sharedCallback -> start(policyFor(call), call, sharedCallback), subscription);
+        subscription.setHandle(handle);
+        return subscription;
+    }
+
+    static String keyOf(Call<?> call) {
+        return call.request().method() + " " + call.request().url();
+    }
+
+    private FetchPolicy policyFor(Call<?> call) {
+        return apiClient.getFetchPolicy(NetworkMetrics.endpointOf(call.request().url().encodedPath()));
+    }
+
+    private static <T> Cancellable start(FetchPolicy policy, final Call<T> call, final SharedRequests.Callback<Object> callback) {
+        return policy.execute(result -> {
+            // A Retrofit call runs once; every attempt gets a fresh copy
+            Call<T> attempt = call.isExecuted() ? call.clone() : call;
+            attempt.enqueue(new retrofit2.Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        result.onSuccess(response.body());
+                    } else {
+                        result.onFailure(new HttpStatusException("Request for " + call.request().url().encodedPath() + " failed", response.code()));
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    result.onFailure(t);
+                }
+            });
+            return attempt::cancel;
+        }, new FetchPolicy.Result<T>() {
+            @Override
+            public void onSuccess(T body) {
+                callback.onResult(body);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                callback.onError(t);
+            }
+        });
+    }
+
+    public synchronized int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        cancelAll();
+    }
+
+    void cancelAll() {
+        List<Subscription<?>> pending;
+        synchronized (this) {
+            destroyed = true;
+            pending = new ArrayList<>(outstanding);
+            outstanding.clear();
+        }
+        for (Subscription<?> subscription : pending) {
+            subscription.cancel();
+        }
+    }
+
+    private synchronized boolean finish(Subscription<?> subscription) {
+        return outstanding.remove(subscription) && !destroyed;
+    }
+
+    private class Subscription<T> implements Cancellable, SharedRequests.Callback<Object> {
+        private final SharedRequests.Callback<T> callback;
+        private Cancellable handle = Cancellable.NONE;
+        private boolean cancelled;
+
+        Subscription(SharedRequests.Callback<T> callback) {
+            this.callback = callback;
+        }
+
+        void setHandle(Cancellable handle) {
+            boolean cancelNow;
+            synchronized (this) {
+                this.handle = handle;
+                cancelNow = cancelled;
+            }
+            if (cancelNow) {
+                handle.cancel();
+            }
+        }
+
+        // Every call sharing a key has the same response type
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onResult(Object result) {
+            if (finish(this) && !isCancelled()) {
+                callback.onResult((T) result);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (finish(this) && !isCancelled()) {
+                callback.onError(t);
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable current;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                current = handle;
+            }
+            synchronized (RequestManager.this) {
+                outstanding.remove(this);
+            }
+            current.cancel();
+        }
+    }
+}
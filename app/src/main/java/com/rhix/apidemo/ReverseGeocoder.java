@@ -0,0 +1,194 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+// Place names for coordinates: answered from the local GeocodeStore when a stored result
+// lies within radiusMeters, otherwise fetched from Nominatim through the rate-limited scheduler.
+// Transient failures are retried under the FetchPolicy, each retry queueing behind the rate limit again.
+public class ReverseGeocoder {
+    public static final double DEFAULT_RADIUS_METERS = 300;
+    public static final double NOMINATIM_REQUESTS_PER_SECOND = 1.0;
+    private static final int DEDUP_PRECISION = 7; // ~150 m cells
+
+    private static ReverseGeocoder instance;
+
+    private final GeocodeStore store;
+    private final NominatimScheduler scheduler;
+    private final FetchPolicy policy;
+    private final double radiusMeters;
+    private final Executor ioExecutor;
+    private final Executor callbackExecutor;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong remoteLookups = new AtomicLong();
+
+    public static synchronized ReverseGeocoder getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            ApiClient apiClient = ApiClient.getInstance(appContext);
+            NominatimScheduler.Fetcher fetcher = nominatimFetcher(apiClient);
+            instance = new ReverseGeocoder(
+                    new GeocodeStore(new File(appContext.getFilesDir(), "geocode.bin")),
+                    new NominatimScheduler(fetcher, NOMINATIM_REQUESTS_PER_SECOND, DEDUP_PRECISION, executor),
+                    apiClient.getFetchPolicy(NetworkMetrics.Endpoint.REVERSE),
+                    DEFAULT_RADIUS_METERS,
+                    executor,
+                    mainHandler::post);
+        }
+        return instance;
+    }
+
+    public ReverseGeocoder(GeocodeStore store, NominatimScheduler scheduler, double radiusMeters,
+                           Executor ioExecutor, Executor callbackExecutor) {
+        this(store, scheduler, FetchPolicy.once("reverse"), radiusMeters, ioExecutor, callbackExecutor);
+    }
+
+    public ReverseGeocoder(GeocodeStore store, NominatimScheduler scheduler, FetchPolicy policy, double radiusMeters,
+                           Executor ioExecutor, Executor callbackExecutor) {
+        this.store = store;
+        this.scheduler = scheduler;
+        this.policy = policy;
+        this.radiusMeters = radiusMeters;
+        this.ioExecutor = ioExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public Cancellable lookup(final double latitude, final double longitude, final int priority,
+                              final NominatimScheduler.Callback callback) {
+        final Lookup lookup = new Lookup();
+        ioExecutor.execute(() -> {
+            if (lookup.cancelled) {
+                return;
+            }
+            GeocodeStore.Place place = store.nearest(latitude, longitude, radiusMeters);
+            if (place != null) {
+                localHits.incrementAndGet();
+                deliver(lookup, callback, place.name, null);
+                return;
+            }
+            remoteLookups.incrementAndGet();
+            lookup.setRemote(policy.execute(
+                    result -> scheduler.submit(latitude, longitude, priority, new NominatimScheduler.Callback() {
+                        @Override
+                        public void onPlaceName(String name) {
+                            result.onSuccess(name);
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            result.onFailure(t);
+                        }
+                    }),
+                    new FetchPolicy.Result<String>() {
+                        @Override
+                        public void onSuccess(String name) {
+                            ioExecutor.execute(() -> store.put(new GeocodeStore.Place(latitude, longitude, name, System.currentTimeMillis())));
+                            deliver(lookup, callback, name, null);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t) {
+                            deliver(lookup, callback, null, t);
+                        }
+                    }));
+        });
+        return lookup;
+    }
+
+    public long getLocalHitCount() {
+        return localHits.get();
+    }
+
+    public long getRemoteLookupCount() {
+        return remoteLookups.get();
+    }
+
+    public NominatimScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ReverseGeocoder{localHits=" + localHits + ", remoteLookups=" + remoteLookups
+                + ", sent=" + scheduler.getSentCount() + ", deduplicated=" + scheduler.getDeduplicatedCount() + "}";
+    }
+
+    private void deliver(final Lookup lookup, final NominatimScheduler.Callback callback, final String name, final Throwable error) {
+        callbackExecutor.execute(() -> {
+            if (lookup.cancelled) {
+                return;
+            }
+            if (name != null) {
+                callback.onPlaceName(name);
+            } else {
+                callback.onError(error);
+            }
+        });
+    }
+
+    static NominatimScheduler.Fetcher nominatimFetcher(final ApiClient apiClient) {
+        return (latitude, longitude, callback) -> {
+            Call<NominatimResponse> call = apiClient.getNominatimService()
+                    .reverseGeocodeWithNominatim(latitude, longitude, "json");
+            call.enqueue(new retrofit2.Callback<NominatimResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<NominatimResponse> call, @NonNull Response<NominatimResponse> response) {
+                    if (response.isSuccessful() && response.body() != null && response.body().getDisplayName() != null) {
+                        callback.onPlaceName(response.body().getDisplayName());
+                    } else {
+                        callback.onError(new HttpStatusException("Reverse geocode failed", response.code()));
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<NominatimResponse> call, @NonNull Throwable t) {
+                    callback.onError(t);
+                }
+            });
+            return call::cancel;
+        };
+    }
+
+    // Covers both the local lookup and, if it misses, the queued Nominatim request
+    private static class Lookup implements Cancellable {
+        volatile boolean cancelled;
+        private Cancellable remote;
+
+        synchronized void setRemote(Cancellable remote) {
+            if (cancelled) {
+                remote.cancel();
+            } else {
+                this.remote = remote;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable toCancel;
+            synchronized (this) {
+                cancelled = true;
+                toCancel = remote;
+                remote = null;
+            }
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+// The app-wide saved places: a PlaceWeatherStore under the files dir (seeded with DEFAULT_PLACE
+// whenever it is empty) and the refresher PlaceWeatherWorker runs, fetching by city name from
+// OpenWeather under the weather endpoint's FetchPolicy.
+public final class SavedPlaces {
+    public static final String DEFAULT_PLACE = "Bacolod";
+
+    private static final Executor IO_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static PlaceWeatherRefresher instance;
+
+    private SavedPlaces() {
+    }
+
+    // Reads the store on first use; AppStartup does that off the main thread
+    public static synchronized PlaceWeatherRefresher getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            PlaceWeatherStore store = new PlaceWeatherStore(new File(appContext.getFilesDir(), "places.bin"));
+            // First run, or a file that could not be read: without a place the worker has nothing to do
+            if (store.getPlaces().isEmpty()) {
+                store.addPlace(DEFAULT_PLACE);
+            }
+            instance = new PlaceWeatherRefresher(store, fetcher(ApiClient.getInstance(appContext)));
+        }
+        return instance;
+    }
+
+    // Stores a result fetched by a screen without writing the file on the main thread
+    public static void putAsync(final PlaceWeatherStore store, final PlaceWeatherStore.Entry entry) {
+        IO_EXECUTOR.execute(() -> store.put(entry));
+    }
+
+    // A missing name or description is filled in by the Entry; a response without main has no weather
+    static PlaceWeatherStore.Entry toEntry(String place, WeatherResponse response, long now) {
+        WeatherResponse.Weather[] weather = response.getWeather();
+        String description = weather != null && weather.length > 0 && weather[0] != null ? weather[0].getDescription() : null;
+        return new PlaceWeatherStore.Entry(place, response.getName(), response.getMain().getTemp(), description, now);
+    }
+
+    static PlaceWeatherRefresher.Fetcher fetcher(final ApiClient apiClient) {
+        final FetchPolicy policy = apiClient.getFetchPolicy(NetworkMetrics.Endpoint.WEATHER);
+        return (place, callback) -> policy.execute(result -> {
+            Call<WeatherResponse> call = apiClient.getWeatherService().getWeather(place, BuildConfig.API_KEY, "metric");
+            call.enqueue(new retrofit2.Callback<WeatherResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<WeatherResponse> call, @NonNull Response<WeatherResponse> response) {
+                    if (response.isSuccessful() && response.body() != null && response.body().getMain() != null) {
+                        result.onSuccess(toEntry(place, response.body(), System.currentTimeMillis()));
+                    } else {
+                        result.onFailure(new HttpStatusException("Weather for " + place + " failed", response.code()));
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<WeatherResponse> call, @NonNull Throwable t) {
+                    result.onFailure(t);
+                }
+            });
+            return call::cancel;
+        }, new FetchPolicy.Result<PlaceWeatherStore.Entry>() {
+            @Override
+            public void onSuccess(PlaceWeatherStore.Entry entry) {
+                callback.onEntry(entry);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                callback.onError(t);
+            }
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.rhix.apidemo;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+// Downloads every tile of a bounding box over a zoom range into a tile store (the MBTiles archive).
+// Tiles already in the store are skipped, so an interrupted run resumes where it stopped.
+// The server is given as a URL template with {z}, {x} and {y} placeholders.
+public class TilePrefetcher {
+    private static final String TAG = "TilePrefetcher";
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+
+    public interface Listener {
+        // Called from a background thread
+        void onProgress(Progress progress);
+
+        void onFinished(Progress progress);
+    }
+
+    public static class Progress {
+        public final long totalTiles;
+        public final long downloaded;
+        public final long skipped;
+        public final long failed;
+        public final long downloadedBytes;
+        public final long elapsedMillis;
+        public final boolean budgetReached;
+
+        Progress(long totalTiles, long downloaded, long skipped, long failed, long downloadedBytes,
+                 long elapsedMillis, boolean budgetReached) {
+            this.totalTiles = totalTiles;
+            this.downloaded = downloaded;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.downloadedBytes = downloadedBytes;
+            this.elapsedMillis = elapsedMillis;
+            this.budgetReached = budgetReached;
+        }
+
+        public long getProcessed() {
+            return downloaded + skipped + failed;
+        }
+
+        public double getTilesPerSecond() {
+            return elapsedMillis == 0 ? 0 : downloaded * 1000.0 / elapsedMillis;
+        }
+
+        public double getBytesPerSecond() {
+            return elapsedMillis == 0 ? 0 : downloadedBytes * 1000.0 / elapsedMillis;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d/%d tiles (%d new, %d cached, %d failed), %d KB, %.1f tiles/s, %.1f KB/s%s",
+                    getProcessed(), totalTiles, downloaded, skipped, failed, downloadedBytes / 1024,
+                    getTilesPerSecond(), getBytesPerSecond() / 1024, budgetReached ? ", byte budget reached" : "");
+        }
+    }
+
+    private final TileStore store;
+    private final OkHttpClient httpClient;
+    private final String urlTemplate;
+    private final String userAgent;
+    private final int workers;
+
+    public TilePrefetcher(TileStore store, OkHttpClient httpClient, String urlTemplate,
+                          String userAgent, int workers) {
+        this.store = store;
+        this.httpClient = httpClient;
+        this.urlTemplate = urlTemplate;
+        this.userAgent = userAgent;
+        this.workers = workers;
+    }
+
+    public Cancellable prefetch(final double north, final double south, final double east, final double west,
+                                final int minZoom, final int maxZoom, final long byteBudget, final Listener listener) {
+        final Run run = new Run(TileMath.countTiles(north, south, east, west, minZoom, maxZoom), byteBudget, listener);
+        Thread coordinator = new Thread(() -> run.execute(north, south, east, west, minZoom, maxZoom), TAG);
+        coordinator.start();
+        return () -> run.cancelled = true;
+    }
+
+    static String tileUrl(String urlTemplate, int zoom, int x, int y) {
+        return urlTemplate.replace("{z}", String.valueOf(zoom))
+                .replace("{x}", String.valueOf(x))
+                .replace("{y}", String.valueOf(y));
+    }
+
+    private class Run {
+        final long totalTiles;
+        final long byteBudget;
+        final Listener listener;
+        final long startNanos = System.nanoTime();
+        final AtomicLong downloaded = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong downloadedBytes = new AtomicLong();
+        final AtomicLong storeBytes = new AtomicLong();
+        final AtomicLong lastReportMillis = new AtomicLong();
+        volatile boolean cancelled;
+        volatile boolean budgetReached;
+
+        Run(long totalTiles, long byteBudget, Listener listener) {
+            this.totalTiles = totalTiles;
+            this.byteBudget = byteBudget;
+            this.listener = listener;
+        }
+
+        void execute(double north, double south, double east, double west, int minZoom, int maxZoom) {
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            // At most two tiles queued per worker, so the coordinator never races far ahead
+            Semaphore window = new Semaphore(workers * 2);
+            storeBytes.set(store.getTotalBytes());
+
+            outer:
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                int minX = TileMath.longitudeToTileX(west, zoom);
+                int maxX = TileMath.longitudeToTileX(east, zoom);
+                int minY = TileMath.latitudeToTileY(north, zoom);
+                int maxY = TileMath.latitudeToTileY(south, zoom);
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        if (cancelled || storeBytes.get() >= byteBudget) {
+                            budgetReached = !cancelled;
+                            break outer;
+                        }
+                        if (store.contains(zoom, x, y)) {
+                            skipped.incrementAndGet();
+                            maybeReport();
+                            continue;
+                        }
+                        window.acquireUninterruptibly();
+                        final int tileZoom = zoom, tileX = x, tileY = y;
+                        pool.execute(() -> {
+                            try {
+                                download(tileZoom, tileX, tileY);
+                            } finally {
+                                window.release();
+                            }
+                        });
+                    }
+                }
+            }
+
+            pool.shutdown();
+            window.acquireUninterruptibly(workers * 2); // wait for in-flight tiles
+            Progress progress = snapshot();
+            Log.i(TAG, "Prefetch finished: " + progress);
+            listener.onFinished(progress);
+        }
+
+        private void download(int zoom, int x, int y) {
+            String url = tileUrl(urlTemplate, zoom, x, y);
+            Request request = new Request.Builder().url(url).header("User-Agent", userAgent).build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    failed.incrementAndGet();
+                    return;
+                }
+                byte[] data = body.bytes();
+                store.put(zoom, x, y, data);
+                downloaded.incrementAndGet();
+                downloadedBytes.addAndGet(data.length);
+                storeBytes.addAndGet(data.length);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                Log.w(TAG, "Tile " + zoom + "/" + x + "/" + y + " failed", e);
+            }
+            maybeReport();
+        }
+
+        private void maybeReport() {
+            long now = System.currentTimeMillis();
+            long last = lastReportMillis.get();
+            if (now - last >= PROGRESS_INTERVAL_MILLIS && lastReportMillis.compareAndSet(last, now)) {
+                listener.onProgress(snapshot());
+            }
+        }
+
+        private Progress snapshot() {
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            return new Progress(totalTiles, downloaded.get(), skipped.get(), failed.get(),
+                    downloadedBytes.get(), elapsedMillis, budgetReached);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.rhix.apidemo;
+
+// Where TilePrefetcher puts tiles; x and y are slippy-map (XYZ) coordinates
+public interface TileStore {
+    boolean contains(int zoom, int x, int y);
+
+    void put(int zoom, int x, int y, byte[] data);
+
+    long getTotalBytes();
+}
@@ -0,0 +1,139 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+import org.osmdroid.views.overlay.Polyline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A growing track drawn as a chain of Polylines of at most CHUNK_SIZE points. Adding a point to a
+// Polyline makes it re-project all of its points on the next draw, so only the last chunk ever
+// changes and a long recording costs the same per fix as a short one. Chunks out of view are
+// skipped, and each visible chunk is simplified for the zoom (the LodPolyline tolerance), so a
+// zoomed-out view of a long recording strokes a few points per chunk instead of every fix.
+public class TrackOverlay extends Overlay {
+    static final int CHUNK_SIZE = 256;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final int color;
+    private final float widthPx;
+    private Chunk open;
+    private GeoPoint lastPoint;
+    private int pointCount;
+    private int drawnPointCount;
+
+    // One Polyline and the full points behind it; the Polyline holds only the zoom's subset
+    private final class Chunk {
+        final Polyline line = new Polyline();
+        final SimplifiedLine points = new SimplifiedLine(LodPolyline.DEFAULT_TOLERANCE_PX);
+        final List<GeoPoint> geoPoints = new ArrayList<>();
+        double north = -90, south = 90, east = -180, west = 180;
+        BoundingBox bounds;
+        int appliedZoom = -1;
+        int appliedSize;
+
+        Chunk() {
+            line.setColor(color);
+            line.setWidth(widthPx);
+        }
+
+        void add(GeoPoint point) {
+            geoPoints.add(point);
+            points.add(point.getLatitude(), point.getLongitude());
+            north = Math.max(north, point.getLatitude());
+            south = Math.min(south, point.getLatitude());
+            east = Math.max(east, point.getLongitude());
+            west = Math.min(west, point.getLongitude());
+            bounds = null;
+        }
+
+        BoundingBox getBounds() {
+            if (bounds == null) {
+                bounds = new BoundingBox(north, east, south, west);
+            }
+            return bounds;
+        }
+
+        // Hands the Polyline the points that matter at the zoom, when the zoom or points changed
+        int apply(int zoom) {
+            int[] indices = points.indicesAt(zoom);
+            if (zoom != appliedZoom || points.size() != appliedSize) {
+                List<GeoPoint> kept = new ArrayList<>(indices.length);
+                for (int i : indices) {
+                    kept.add(geoPoints.get(i));
+                }
+                line.setPoints(kept);
+                appliedZoom = zoom;
+                appliedSize = points.size();
+            }
+            return indices.length;
+        }
+    }
+
+    public TrackOverlay(int color, float widthPx) {
+        this.color = color;
+        this.widthPx = widthPx;
+    }
+
+    // Call on the UI thread; newSegment leaves a gap from the previous point
+    public void addPoint(double latitude, double longitude, boolean newSegment) {
+        GeoPoint point = new GeoPoint(latitude, longitude);
+        if (open == null || newSegment || open.points.size() >= CHUNK_SIZE) {
+            open = new Chunk();
+            chunks.add(open);
+            if (!newSegment && lastPoint != null) {
+                // Start where the previous chunk ended so the line stays continuous
+                open.add(lastPoint);
+            }
+        }
+        open.add(point);
+        lastPoint = point;
+        pointCount++;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    // Points stroked by the last frame, after culling and simplification
+    public int getDrawnPointCount() {
+        return drawnPointCount;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        BoundingBox view = projection.getBoundingBox();
+        double zoom = projection.getZoomLevel();
+        // The finer level during fractional zoom, as LodPolyline does
+        int lodZoom = Math.max(0, (int) Math.ceil(zoom));
+        int drawn = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk.getBounds().overlaps(view, zoom)) {
+                drawn += chunk.apply(lodZoom);
+                chunk.line.draw(canvas, projection);
+            }
+        }
+        drawnPointCount = drawn;
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        for (Chunk chunk : chunks) {
+            chunk.line.onDetach(mapView);
+        }
+        chunks.clear();
+        open = null;
+        super.onDetach(mapView);
+    }
+}
@@ -0,0 +1,120 @@
+package com.rhix.apidemo;
+
+import android.util.Log;
+
+import org.osmdroid.views.MapView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Records location fixes into a TrackLog and mirrors them into a TrackOverlay. All disk access
+// happens on one background thread; the overlay is updated through mapView.post in the same
+// order. Starting replays whatever the log already holds, so a recording carries on after the
+// process was killed, and the new session begins a new segment.
+public class TrackRecorder {
+    private static final String TAG = "TrackRecorder";
+    private static final Executor IO_EXECUTOR = Executors.newSingleThreadExecutor();
+    // Replayed points are handed to the UI thread in batches
+    private static final int REPLAY_BATCH = 512;
+
+    private final File file;
+    private final MapView mapView;
+    private final TrackOverlay overlay;
+
+    // Only touched on IO_EXECUTOR
+    private TrackLog log;
+    private boolean segmentStarted;
+
+    public TrackRecorder(File file, MapView mapView, TrackOverlay overlay) {
+        this.file = file;
+        this.mapView = mapView;
+        this.overlay = overlay;
+    }
+
+    public void start() {
+        IO_EXECUTOR.execute(() -> {
+            try {
+                log = TrackLog.open(file);
+                if (log.getRecoveredBytes() > 0) {
+                    Log.w(TAG, "Dropped " + log.getRecoveredBytes() + " bytes of a torn record from " + file);
+                }
+                replay();
+                log.startSegment();
+                segmentStarted = false;
+            } catch (IOException e) {
+                Log.e(TAG, "Could not open track log " + file, e);
+                log = null;
+            }
+        });
+    }
+
+    // timeMillis is wall-clock UTC (Location.getTime), as written to GPX
+    public void onLocation(final double latitude, final double longitude, final long timeMillis) {
+        IO_EXECUTOR.execute(() -> {
+            if (log == null) {
+                return;
+            }
+            try {
+                log.append(latitude, longitude, timeMillis);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not append to track log", e);
+                return;
+            }
+            final boolean newSegment = !segmentStarted;
+            segmentStarted = true;
+            mapView.post(() -> {
+                overlay.addPoint(latitude, longitude, newSegment);
+                mapView.invalidate();
+            });
+        });
+    }
+
+    public void stop() {
+        IO_EXECUTOR.execute(() -> {
+            if (log == null) {
+                return;
+            }
+            try {
+                log.sync();
+                log.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not close track log", e);
+            }
+            log = null;
+        });
+    }
+
+    private void replay() throws IOException {
+        final double[] batch = new double[REPLAY_BATCH * 2];
+        final boolean[] breaks = new boolean[REPLAY_BATCH];
+        final int[] count = {0};
+        log.read((latitude, longitude, timeMillis, newSegment) -> {
+            int i = count[0]++;
+            batch[2 * i] = latitude;
+            batch[2 * i + 1] = longitude;
+            breaks[i] = newSegment;
+            if (count[0] == REPLAY_BATCH) {
+                postBatch(batch, breaks, count[0]);
+                count[0] = 0;
+            }
+        });
+        postBatch(batch, breaks, count[0]);
+    }
+
+    private void postBatch(double[] batch, boolean[] breaks, int count) {
+        if (count == 0) {
+            return;
+        }
+        final double[] points = Arrays.copyOf(batch, 2 * count);
+        final boolean[] segments = Arrays.copyOf(breaks, count);
+        mapView.post(() -> {
+            for (int i = 0; i < segments.length; i++) {
+                overlay.addPoint(points[2 * i], points[2 * i + 1], segments[i]);
+            }
+            mapView.invalidate();
+        });
+    }
+}
@@ -0,0 +1,224 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+import android.view.MotionEvent;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Markers for a PointStore, created only for points in the viewport plus a margin.
+// The markers are owned and drawn by this overlay instead of living in mapView.getOverlays();
+// when a pan leaves the loaded area the set is re-queried from a PointQuadTree and markers
+// that scrolled away are recycled for the new points. Titles are formatted on demand.
+// At most MAX_ACTIVE_MARKERS are bound: the viewport is filled first and the margin only gets
+// what is left, so in a dense area every marker goes to a point actually on screen.
+public class ViewportMarkerLayer extends Overlay {
+    public interface TitleFormatter {
+        String format(PointStore points, int index);
+    }
+
+    public static final TitleFormatter COORDINATE_TITLE = MarkerTitles::coordinates;
+
+    // Extra area loaded on each side, as a fraction of the viewport size
+    private static final double MARGIN = 0.5;
+    private static final int MAX_ACTIVE_MARKERS = 500;
+    private static final Executor BUILD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final Drawable icon;
+    private final ArrayDeque<PointMarker> pool = new ArrayDeque<>();
+    private SparseArray<PointMarker> active = new SparseArray<>();
+    private SparseArray<PointMarker> next = new SparseArray<>();
+
+    private volatile PointQuadTree tree;
+    private PointQuadTree loadedTree;
+    private TitleFormatter titleFormatter = COORDINATE_TITLE;
+    private int minVisibleZoom;
+    private int loadedZoom = -1;
+    private double loadedSouth, loadedWest, loadedNorth, loadedEast;
+    private int createdMarkers;
+
+    public ViewportMarkerLayer(MapView mapView, Drawable icon) {
+        this.mapView = mapView;
+        this.icon = icon;
+    }
+
+    // Indexes the points off the main thread and redraws when ready
+    public void setPoints(final PointStore points) {
+        BUILD_EXECUTOR.execute(() -> {
+            tree = PointQuadTree.build(points);
+            mapView.postInvalidate();
+        });
+    }
+
+    public void setTitleFormatter(TitleFormatter titleFormatter) {
+        this.titleFormatter = titleFormatter;
+    }
+
+    // Below this zoom no markers are created (e.g. while ClusterOverlay is showing)
+    public void setMinVisibleZoom(int zoom) {
+        minVisibleZoom = zoom;
+    }
+
+    public int getActiveMarkerCount() {
+        return active.size();
+    }
+
+    public int getPooledMarkerCount() {
+        return pool.size();
+    }
+
+    public int getCreatedMarkerCount() {
+        return createdMarkers;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        PointQuadTree current = tree;
+        int zoom = (int) Math.floor(projection.getZoomLevel());
+        if (current == null || zoom < minVisibleZoom) {
+            releaseAll();
+            return;
+        }
+        BoundingBox box = projection.getBoundingBox();
+        if (current != loadedTree || zoom != loadedZoom || !isLoaded(box)) {
+            load(current, zoom, box);
+        }
+        for (int i = 0; i < active.size(); i++) {
+            active.valueAt(i).draw(canvas, projection);
+        }
+    }
+
+    @Override
+    public boolean onSingleTapConfirmed(MotionEvent event, MapView mapView) {
+        // Topmost (last drawn) marker first
+        for (int i = active.size() - 1; i >= 0; i--) {
+            if (active.valueAt(i).onSingleTapConfirmed(event, mapView)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        releaseAll();
+        for (PointMarker marker : pool) {
+            marker.onDetach(mapView);
+        }
+        pool.clear();
+        super.onDetach(mapView);
+    }
+
+    private boolean isLoaded(BoundingBox box) {
+        return box.getLatSouth() >= loadedSouth && box.getLatNorth() <= loadedNorth
+                && box.getLonWest() >= loadedWest && box.getLonEast() <= loadedEast;
+    }
+
+    private void load(final PointQuadTree current, int zoom, BoundingBox box) {
+        double latMargin = (box.getLatNorth() - box.getLatSouth()) * MARGIN;
+        double lonMargin = (box.getLonEast() - box.getLonWest()) * MARGIN;
+        loadedSouth = box.getLatSouth() - latMargin;
+        loadedNorth = box.getLatNorth() + latMargin;
+        loadedWest = box.getLonWest() - lonMargin;
+        loadedEast = box.getLonEast() + lonMargin;
+        loadedZoom = zoom;
+        if (current != loadedTree) {
+            releaseAll();
+            loadedTree = current;
+        }
+
+        final PointStore points = current.getPoints();
+        PointQuadTree.Visitor take = index -> {
+            if (next.size() >= MAX_ACTIVE_MARKERS || next.get(index) != null) {
+                return;
+            }
+            PointMarker marker = active.get(index);
+            if (marker == null) {
+                marker = obtain();
+                marker.bind(points, index);
+            } else {
+                active.remove(index);
+            }
+            next.put(index, marker);
+        };
+        current.query(box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast(), take);
+        if (next.size() >= MAX_ACTIVE_MARKERS) {
+            // The viewport alone fills the budget: nothing is preloaded, so any pan reloads
+            loadedSouth = box.getLatSouth();
+            loadedNorth = box.getLatNorth();
+            loadedWest = box.getLonWest();
+            loadedEast = box.getLonEast();
+        } else {
+            current.query(loadedSouth, loadedWest, loadedNorth, loadedEast, take);
+        }
+
+        // Whatever is left scrolled out of the loaded area
+        for (int i = 0; i < active.size(); i++) {
+            recycle(active.valueAt(i));
+        }
+        active.clear();
+        SparseArray<PointMarker> swap = active;
+        active = next;
+        next = swap;
+    }
+
+    private PointMarker obtain() {
+        PointMarker marker = pool.poll();
+        if (marker == null) {
+            marker = new PointMarker(mapView);
+            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+            marker.setIcon(icon);
+            createdMarkers++;
+        }
+        return marker;
+    }
+
+    private void recycle(PointMarker marker) {
+        if (marker.isInfoWindowShown()) {
+            marker.closeInfoWindow();
+        }
+        pool.push(marker);
+    }
+
+    private void releaseAll() {
+        for (int i = 0; i < active.size(); i++) {
+            recycle(active.valueAt(i));
+        }
+        active.clear();
+        loadedZoom = -1;
+    }
+
+    private class PointMarker extends Marker {
+        private final GeoPoint position = new GeoPoint(0.0, 0.0);
+        private PointStore points;
+        private int index;
+
+        PointMarker(MapView mapView) {
+            super(mapView);
+        }
+
+        void bind(PointStore points, int index) {
+            this.points = points;
+            this.index = index;
+            position.setCoords(points.getLatitude(index), points.getLongitude(index));
+            setPosition(position);
+        }
+
+        // Only built when the info window actually asks for it
+        @Override
+        public String getTitle() {
+            return titleFormatter.format(points, index);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.util.List;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
-import retrofit2.http.Headers;
 import retrofit2.http.Query;
 
 public interface WeatherApiServiceTwo {
@@ -17,7 +16,7 @@ public interface WeatherApiServiceTwo {
     );
 
     // Method for Nominatim reverse geocoding
-    @Headers("User-Agent: MyAndroidApp/1.0 (your-email@example.com)")
+    // User-Agent (required by the Nominatim usage policy) is added by ApiClient
     @GET("reverse")
     Call<NominatimResponse> reverseGeocodeWithNominatim(
             @Query("lat") double latitude,
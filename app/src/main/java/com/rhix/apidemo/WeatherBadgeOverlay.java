@@ -0,0 +1,93 @@
+package com.rhix.apidemo;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.RectF;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Temperature badges next to the points of a PointStore. Temperatures arrive one cell at a
+// time from BatchWeatherScheduler and show up on the next frame; only points in view are drawn.
+public class WeatherBadgeOverlay extends Overlay {
+    private static final Executor BUILD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final float density;
+    private final float[] temperatures;
+    private final Paint badgePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final GeoPoint scratchPoint = new GeoPoint(0.0, 0.0);
+    private final Point scratchPixel = new Point();
+    private final RectF scratchRect = new RectF();
+
+    private volatile PointQuadTree tree;
+    private int minVisibleZoom;
+
+    public WeatherBadgeOverlay(final MapView mapView, final PointStore points) {
+        this.mapView = mapView;
+        this.density = mapView.getResources().getDisplayMetrics().density;
+        this.temperatures = new float[points.size()];
+        Arrays.fill(temperatures, Float.NaN);
+        badgePaint.setColor(Color.argb(220, 255, 255, 255));
+        textPaint.setColor(Color.DKGRAY);
+        textPaint.setTextSize(11 * density);
+        BUILD_EXECUTOR.execute(() -> {
+            tree = PointQuadTree.build(points);
+            mapView.postInvalidate();
+        });
+    }
+
+    public void setMinVisibleZoom(int zoom) {
+        minVisibleZoom = zoom;
+    }
+
+    // Call on the UI thread
+    public void setTemperature(int[] pointIndices, double temperature) {
+        for (int index : pointIndices) {
+            temperatures[index] = (float) temperature;
+        }
+        mapView.invalidate();
+    }
+
+    // NaN until the point's cell has loaded
+    public float getTemperature(int pointIndex) {
+        return temperatures[pointIndex];
+    }
+
+    @Override
+    public void draw(final Canvas canvas, final Projection projection) {
+        PointQuadTree current = tree;
+        if (current == null || projection.getZoomLevel() < minVisibleZoom) {
+            return;
+        }
+        final float padding = 3 * density;
+        final float offsetX = 10 * density;
+        final float offsetY = 40 * density; // beside the head of the ic_pin marker
+        BoundingBox box = projection.getBoundingBox();
+        current.query(box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast(), index -> {
+            float temperature = temperatures[index];
+            if (Float.isNaN(temperature)) {
+                return;
+            }
+            String label = MarkerTitles.temperature(Math.round(temperature * 10) / 10.0);
+            scratchPoint.setCoords(current.getPoints().getLatitude(index), current.getPoints().getLongitude(index));
+            projection.toPixels(scratchPoint, scratchPixel);
+            float left = scratchPixel.x + offsetX;
+            float baseline = scratchPixel.y - offsetY;
+            scratchRect.set(left - padding, baseline + textPaint.ascent() - padding,
+                    left + textPaint.measureText(label) + padding, baseline + textPaint.descent() + padding);
+            canvas.drawRoundRect(scratchRect, padding, padding, badgePaint);
+            canvas.drawText(label, left, baseline, textPaint);
+        });
+    }
+}
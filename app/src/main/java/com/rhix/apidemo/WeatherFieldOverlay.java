@@ -0,0 +1,249 @@
+package com.rhix.apidemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Colour-mapped temperature surface over the visible map. Weather is sampled on the coarse
+// TemperatureField grid through WeatherCache; each display tile is interpolated and coloured
+// on a background thread once its four corner samples are in, then cached by (zoom, x, y).
+// Panning only renders tiles that were not on screen before. Samples are kept in an LRU like the
+// tiles; a sample that failed is retried after a backoff that doubles with each failure.
+public class WeatherFieldOverlay extends Overlay {
+    private static final String TAG = "WeatherFieldOverlay";
+
+    // The field is smooth, so tiles are rendered small and upscaled with filtering when drawn
+    static final int BITMAP_SIZE = 64;
+    private static final int MAX_CACHED_TILES = 128;
+    // Grid nodes; a screenful of tiles needs only a few dozen
+    private static final int MAX_CACHED_SAMPLES = 1024;
+    private static final long RETRY_BASE_MILLIS = 5_000;
+    private static final long RETRY_MAX_MILLIS = 5 * 60_000;
+    // Skip drawing when zoomed out this far rather than sampling a whole continent
+    private static final int MAX_VISIBLE_TILES = 64;
+    private static final int FIELD_ALPHA = 110;
+    private static final Executor RENDER_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final MapView mapView;
+    private final WeatherCache weatherCache;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final LruCache<Long, Bitmap> tiles = new LruCache<>(MAX_CACHED_TILES);
+    private final Set<Long> rendering = new HashSet<>();
+    private final LruCache<Long, Float> samples = new LruCache<>(MAX_CACHED_SAMPLES);
+    private final Map<Long, Cancellable> sampling = new HashMap<>();
+    private final LruCache<Long, Failure> failedSamples = new LruCache<>(MAX_CACHED_SAMPLES);
+    private final GeoPoint scratchPoint = new GeoPoint(0.0, 0.0);
+    private final Point scratchPixel = new Point();
+    private final RectF scratchRect = new RectF();
+    // Bumped on detach so renders still queued at that point are dropped
+    private int generation;
+
+    private final AtomicLong renderedTiles = new AtomicLong();
+    private final AtomicLong interpolateNanos = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+
+    public WeatherFieldOverlay(MapView mapView, WeatherCache weatherCache) {
+        this.mapView = mapView;
+        this.weatherCache = weatherCache;
+        paint.setAlpha(FIELD_ALPHA);
+    }
+
+    public long getRenderedTileCount() {
+        return renderedTiles.get();
+    }
+
+    public double getAverageInterpolateMicros() {
+        long count = renderedTiles.get();
+        return count == 0 ? 0 : interpolateNanos.get() / 1e3 / count;
+    }
+
+    public double getAverageRenderMicros() {
+        long count = renderedTiles.get();
+        return count == 0 ? 0 : renderNanos.get() / 1e3 / count;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Projection projection) {
+        int zoom = (int) Math.floor(projection.getZoomLevel());
+        BoundingBox box = projection.getBoundingBox();
+        int west = TileMath.longitudeToTileX(box.getLonWest(), zoom);
+        int east = TileMath.longitudeToTileX(box.getLonEast(), zoom);
+        int north = TileMath.latitudeToTileY(box.getLatNorth(), zoom);
+        int south = TileMath.latitudeToTileY(box.getLatSouth(), zoom);
+        if ((long) (east - west + 1) * (south - north + 1) > MAX_VISIBLE_TILES) {
+            return;
+        }
+        for (int y = north; y <= south; y++) {
+            for (int x = west; x <= east; x++) {
+                long key = TemperatureField.key(zoom, x, y);
+                Bitmap bitmap = tiles.get(key);
+                if (bitmap == null) {
+                    requestTile(zoom, x, y, key);
+                    continue;
+                }
+                toScreenRect(projection, zoom, x, y, scratchRect);
+                canvas.drawBitmap(bitmap, null, scratchRect, paint);
+            }
+        }
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        Log.d(TAG, toString());
+        generation++;
+        for (Cancellable request : sampling.values()) {
+            if (request != null) {
+                request.cancel();
+            }
+        }
+        sampling.clear();
+        rendering.clear();
+        tiles.evictAll();
+        super.onDetach(mapView);
+    }
+
+    private void toScreenRect(Projection projection, int zoom, int x, int y, RectF out) {
+        double n = 1 << zoom;
+        scratchPoint.setCoords(TileMath.latitudeOf(y / n), TileMath.longitudeOf(x / n));
+        projection.toPixels(scratchPoint, scratchPixel);
+        out.left = scratchPixel.x;
+        out.top = scratchPixel.y;
+        scratchPoint.setCoords(TileMath.latitudeOf((y + 1) / n), TileMath.longitudeOf((x + 1) / n));
+        projection.toPixels(scratchPoint, scratchPixel);
+        out.right = scratchPixel.x;
+        out.bottom = scratchPixel.y;
+    }
+
+    private void requestTile(final int zoom, final int x, final int y, final Long key) {
+        if (rendering.contains(key)) {
+            return;
+        }
+        long[] corners = TemperatureField.cornerKeys(zoom, x, y);
+        final float[] temperatures = new float[4];
+        boolean ready = true;
+        for (int i = 0; i < 4; i++) {
+            Float temperature = samples.get(corners[i]);
+            if (temperature == null) {
+                requestSample(corners[i]);
+                ready = false;
+            } else {
+                temperatures[i] = temperature;
+            }
+        }
+        if (!ready) {
+            return;
+        }
+
+        rendering.add(key);
+        final int renderGeneration = generation;
+        RENDER_EXECUTOR.execute(() -> {
+            final Bitmap bitmap = render(zoom, x, y, temperatures);
+            mapView.post(() -> {
+                if (renderGeneration != generation) {
+                    return;
+                }
+                rendering.remove(key);
+                tiles.put(key, bitmap);
+                mapView.invalidate();
+            });
+        });
+    }
+
+    private Bitmap render(int zoom, int x, int y, float[] corners) {
+        int pixels = BITMAP_SIZE * BITMAP_SIZE;
+        float[] field = new float[pixels];
+        int[] argb = new int[pixels];
+        long start = System.nanoTime();
+        TemperatureField.interpolate(zoom, x, y, corners, field, BITMAP_SIZE);
+        long interpolated = System.nanoTime();
+        TemperatureField.colorize(field, argb, pixels);
+        Bitmap bitmap = Bitmap.createBitmap(argb, BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+        long end = System.nanoTime();
+        interpolateNanos.addAndGet(interpolated - start);
+        renderNanos.addAndGet(end - interpolated);
+        renderedTiles.incrementAndGet();
+        return bitmap;
+    }
+
+    private void requestSample(final long node) {
+        if (sampling.containsKey(node)) {
+            return;
+        }
+        final Failure failure = failedSamples.get(node);
+        if (failure != null && SystemClock.uptimeMillis() < failure.retryAtMillis) {
+            return;
+        }
+        // Placeholder first in case the cache answers before get() returns
+        sampling.put(node, null);
+        final int sampleGeneration = generation;
+        Cancellable request = weatherCache.get(TemperatureField.nodeLatitude(node), TemperatureField.nodeLongitude(node),
+                new WeatherCache.Callback() {
+                    @Override
+                    public void onWeather(WeatherSnapshot snapshot) {
+                        if (sampleGeneration != generation) {
+                            return;
+                        }
+                        sampling.remove(node);
+                        failedSamples.remove(node);
+                        samples.put(node, (float) snapshot.getTemp());
+                        mapView.invalidate();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (sampleGeneration != generation) {
+                            return;
+                        }
+                        // Tiles touching this node stay empty until the backoff runs out, rather
+                        // than retrying every frame; the redraw then asks again
+                        sampling.remove(node);
+                        int failures = failure == null ? 1 : failure.count + 1;
+                        long delay = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(failures - 1, 16));
+                        failedSamples.put(node, new Failure(failures, SystemClock.uptimeMillis() + delay));
+                        mapView.postInvalidateDelayed(delay);
+                    }
+                });
+        if (sampling.containsKey(node)) {
+            sampling.put(node, request);
+        }
+    }
+
+    private static class Failure {
+        final int count;
+        final long retryAtMillis;
+
+        Failure(int count, long retryAtMillis) {
+            this.count = count;
+            this.retryAtMillis = retryAtMillis;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "WeatherFieldOverlay[%d samples, %d tiles rendered, interpolate %.0f us, render %.0f us per tile]",
+                samples.size(), renderedTiles.get(), getAverageInterpolateMicros(), getAverageRenderMicros());
+    }
+}
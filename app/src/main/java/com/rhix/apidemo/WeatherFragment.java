@@ -11,20 +11,22 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
+import java.util.List;
+
 import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 
+// Shows the first saved place straight from the PlaceWeatherStore (kept fresh by
+// PlaceWeatherWorker) and refetches it in the background only once that is past the cache ttl.
 public class WeatherFragment extends Fragment {
 
     private TextView cityNameTextView;
     private TextView temperatureTextView;
     private TextView descriptionTextView;
+    private RequestManager requests;
+    private PlaceWeatherRefresher places;
+    private boolean showingWeather;
 
     private final String API_KEY = BuildConfig.API_KEY;
-    private final String BASE_URL = "https://api.openweathermap.org/data/2.5/";
 
     @Nullable
     @Override
@@ -35,38 +37,58 @@ public class WeatherFragment extends Fragment {
         temperatureTextView = view.findViewById(R.id.tv_temperature);
         descriptionTextView = view.findViewById(R.id.tv_description);
 
-        getWeatherData("Bacolod");
+        requests = RequestManager.bind(this);
+        AppStartup.getInstance(requireContext()).awaitReady();
+        places = SavedPlaces.getInstance(requireContext());
+
+        List<String> saved = places.getStore().getPlaces();
+        String place = saved.isEmpty() ? SavedPlaces.DEFAULT_PLACE : saved.get(0);
+        PlaceWeatherStore.Entry entry = places.getStore().get(place);
+        long now = System.currentTimeMillis();
+        places.recordShown(entry, now);
+        if (entry != null) {
+            show(entry);
+        }
+        if (entry == null || entry.getAgeMillis(now) >= WeatherCache.DEFAULT_TTL_MILLIS) {
+            getWeatherData(place);
+        }
 
         return view;
     }
 
     private void getWeatherData(String city) {
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-
-        WeatherApiService apiService = retrofit.create(WeatherApiService.class);
+        WeatherApiService apiService = ApiClient.getInstance(requireContext()).getWeatherService();
 
         Call<WeatherResponse> call = apiService.getWeather(city, API_KEY, "metric");
 
-        call.enqueue(new Callback<WeatherResponse>() {
+        // Cancelled with the view; a view recreated within a minute gets the last result back
+        requests.enqueue(call, new SharedRequests.Callback<WeatherResponse>() {
             @Override
-            public void onResponse(Call<WeatherResponse> call, Response<WeatherResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    Log.d("Result: ", "Loading...");
-                    WeatherResponse weatherData = response.body();
-                    cityNameTextView.setText(weatherData.getName());
-                    temperatureTextView.setText(weatherData.getMain().getTemp() + "°C");
-                    descriptionTextView.setText(weatherData.getWeather()[0].getDescription());
+            public void onResult(WeatherResponse weatherData) {
+                Log.d("Result: ", "Loading...");
+                if (weatherData.getMain() == null) {
+                    onError(new IllegalStateException("Weather response for " + city + " has no temperature"));
+                    return;
                 }
+                PlaceWeatherStore.Entry entry = SavedPlaces.toEntry(city, weatherData, System.currentTimeMillis());
+                SavedPlaces.putAsync(places.getStore(), entry);
+                show(entry);
             }
 
             @Override
-            public void onFailure(Call<WeatherResponse> call, Throwable t) {
-                // Handle the error
-                cityNameTextView.setText("Error loading data");
+            public void onError(Throwable t) {
+                // Stored weather stays up; only an empty screen reports the failure
+                if (!showingWeather) {
+                    cityNameTextView.setText("Error loading data");
+                }
             }
         });
     }
+
+    private void show(PlaceWeatherStore.Entry entry) {
+        showingWeather = true;
+        cityNameTextView.setText(entry.name);
+        temperatureTextView.setText((float) entry.temp + "°C");
+        descriptionTextView.setText(entry.description);
+    }
 }
@@ -0,0 +1,172 @@
+package com.rhix.apidemo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Starts the weather and place-name lookups for a marker at the same time and joins them.
+// If the place name is not back within placeTimeoutMillis (or fails), the temperature is
+// shown on its own and the full text follows if the name arrives later.
+public class WeatherMarkerLoader {
+    public static final long DEFAULT_PLACE_TIMEOUT_MILLIS = 1500;
+
+    public interface Listener {
+        // complete is false while the text has the temperature only
+        void onMarkerText(String text, boolean complete);
+
+        void onError(Throwable t);
+    }
+
+    private static WeatherMarkerLoader instance;
+
+    private final WeatherCache weatherCache;
+    private final ReverseGeocoder reverseGeocoder;
+    private final ScheduledExecutorService timer;
+    private final Executor callbackExecutor;
+    private final long placeTimeoutMillis;
+
+    public static synchronized WeatherMarkerLoader getInstance(Context context) {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new WeatherMarkerLoader(
+                    OpenWeatherCache.getInstance(context),
+                    ReverseGeocoder.getInstance(context),
+                    Executors.newSingleThreadScheduledExecutor(),
+                    mainHandler::post,
+                    DEFAULT_PLACE_TIMEOUT_MILLIS);
+        }
+        return instance;
+    }
+
+    public WeatherMarkerLoader(WeatherCache weatherCache, ReverseGeocoder reverseGeocoder,
+                               ScheduledExecutorService timer, Executor callbackExecutor, long placeTimeoutMillis) {
+        this.weatherCache = weatherCache;
+        this.reverseGeocoder = reverseGeocoder;
+        this.timer = timer;
+        this.callbackExecutor = callbackExecutor;
+        this.placeTimeoutMillis = placeTimeoutMillis;
+    }
+
+    public Cancellable load(double latitude, double longitude, Listener listener) {
+        final Join join = new Join(listener);
+        join.setWeatherCall(weatherCache.get(latitude, longitude, new WeatherCache.Callback() {
+            @Override
+            public void onWeather(WeatherSnapshot snapshot) {
+                join.onTemperature(MarkerTitles.temperature(snapshot.getTemp()));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                join.onWeatherError(t);
+            }
+        }));
+        join.setPlaceCall(reverseGeocoder.lookup(latitude, longitude, NominatimScheduler.PRIORITY_HIGH,
+                new NominatimScheduler.Callback() {
+                    @Override
+                    public void onPlaceName(String name) {
+                        join.onPlaceName(name);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        join.onPlaceFailed();
+                    }
+                }));
+        join.setTimeout(timer.schedule(join::onPlaceFailed, placeTimeoutMillis, TimeUnit.MILLISECONDS));
+        return join;
+    }
+
+    private class Join implements Cancellable {
+        private final Listener listener;
+        private Cancellable weatherCall = Cancellable.NONE;
+        private Cancellable placeCall = Cancellable.NONE;
+        private ScheduledFuture<?> timeout;
+        private String temperature;
+        private String placeName;
+        private boolean placeGivenUp;
+        private boolean partialShown;
+        private boolean finished;
+
+        Join(Listener listener) {
+            this.listener = listener;
+        }
+
+        synchronized void setWeatherCall(Cancellable call) {
+            weatherCall = call;
+        }
+
+        synchronized void setPlaceCall(Cancellable call) {
+            placeCall = call;
+        }
+
+        synchronized void setTimeout(ScheduledFuture<?> future) {
+            if (finished) {
+                future.cancel(false);
+            } else {
+                timeout = future;
+            }
+        }
+
+        synchronized void onTemperature(String value) {
+            temperature = value;
+            update();
+        }
+
+        synchronized void onPlaceName(String name) {
+            placeName = name;
+            update();
+        }
+
+        synchronized void onPlaceFailed() {
+            placeGivenUp = true;
+            update();
+        }
+
+        synchronized void onWeatherError(Throwable t) {
+            if (finished) {
+                return;
+            }
+            finish();
+            placeCall.cancel();
+            callbackExecutor.execute(() -> listener.onError(t));
+        }
+
+        private void update() {
+            if (finished || temperature == null) {
+                return;
+            }
+            if (placeName != null) {
+                finish();
+                final String text = placeName + ": " + temperature;
+                callbackExecutor.execute(() -> listener.onMarkerText(text, true));
+            } else if (placeGivenUp && !partialShown) {
+                // Slow or failed Nominatim: show the temperature now, keep waiting for the name
+                partialShown = true;
+                final String text = temperature;
+                callbackExecutor.execute(() -> listener.onMarkerText(text, false));
+            }
+        }
+
+        private void finish() {
+            finished = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                finish();
+            }
+            weatherCall.cancel();
+            placeCall.cancel();
+        }
+    }
+}
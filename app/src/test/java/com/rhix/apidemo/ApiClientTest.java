@@ -0,0 +1,125 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+public class ApiClientTest {
+    private static final String WEATHER_JSON =
+            "{\"name\":\"Bacolod\",\"main\":{\"temp\":29.5},\"weather\":[{\"description\":\"clear sky\"}]}";
+    private static final String NOMINATIM_JSON = "{\"display_name\":\"Bacolod, Negros Occidental\"}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString();
+        apiClient = new ApiClient(tempFolder.newFolder("http"), baseUrl, baseUrl);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void consecutiveRequests_reuseOneConnection() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody(WEATHER_JSON));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            Response<WeatherResponse> response = apiClient.getWeatherService()
+                    .getWeather("Bacolod", "key", "metric").execute();
+            assertTrue(response.isSuccessful());
+            assertEquals("Bacolod", response.body().getName());
+        }
+
+        // Sequence numbers count requests per connection, so 0, 1, 2 means one socket served all three
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(2, server.takeRequest().getSequenceNumber());
+        assertEquals(1, apiClient.getHttpClient().connectionPool().connectionCount());
+    }
+
+    @Test
+    public void weatherAndNominatimServices_shareConnectionPool() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"main\":{\"temp\":30.0}}"));
+        server.enqueue(new MockResponse().setBody(NOMINATIM_JSON));
+
+        Response<WeatherResponseTwo> weather = apiClient.getWeatherServiceTwo()
+                .getWeather(10.5, 122.8, "key", "metric").execute();
+        Response<NominatimResponse> place = apiClient.getNominatimService()
+                .reverseGeocodeWithNominatim(10.5, 122.8, "json").execute();
+
+        assertEquals(30.0, weather.body().getMain().getTemp(), 0.001);
+        assertEquals("Bacolod, Negros Occidental", place.body().getDisplayName());
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(1, apiClient.getHttpClient().connectionPool().connectionCount());
+    }
+
+    @Test
+    public void everyRequest_carriesTheAppUserAgent() throws Exception {
+        server.enqueue(new MockResponse().setBody(NOMINATIM_JSON));
+
+        apiClient.getNominatimService().reverseGeocodeWithNominatim(10.5, 122.8, "json").execute();
+
+        assertEquals(AppStartup.USER_AGENT, server.takeRequest().getHeader("User-Agent"));
+    }
+
+    @Test
+    public void everyCall_isTimedUnderItsEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"main\":{\"temp\":30.0}}"));
+        server.enqueue(new MockResponse().setBody(NOMINATIM_JSON));
+        server.enqueue(new MockResponse().setBody(NOMINATIM_JSON));
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        apiClient.getWeatherServiceTwo().getWeather(10.5, 122.8, "key", "metric").execute();
+        apiClient.getNominatimService().reverseGeocodeWithNominatim(10.5, 122.8, "json").execute();
+        apiClient.getNominatimService().reverseGeocodeWithNominatim(10.6, 122.9, "json").execute();
+        apiClient.getWeatherServiceTwo().getWeather(10.5, 122.8, "key", "metric").execute();
+
+        NetworkMetrics metrics = apiClient.getNetworkMetrics();
+        assertEquals(2, metrics.get(NetworkMetrics.Endpoint.WEATHER, NetworkMetrics.Phase.TOTAL).getCount());
+        assertEquals(2, metrics.get(NetworkMetrics.Endpoint.WEATHER, NetworkMetrics.Phase.TTFB).getCount());
+        assertEquals(2, metrics.get(NetworkMetrics.Endpoint.REVERSE, NetworkMetrics.Phase.TOTAL).getCount());
+        // Only the first call opened a connection; the rest reused it. Plain HTTP has no TLS phase.
+        assertEquals(1, metrics.get(NetworkMetrics.Endpoint.WEATHER, NetworkMetrics.Phase.CONNECT).getCount());
+        assertEquals(0, metrics.get(NetworkMetrics.Endpoint.REVERSE, NetworkMetrics.Phase.CONNECT).getCount());
+        assertEquals(0, metrics.get(NetworkMetrics.Endpoint.WEATHER, NetworkMetrics.Phase.TLS).getCount());
+        // An HTTP error is still a completed call
+        assertEquals(0, metrics.getFailureCount(NetworkMetrics.Endpoint.WEATHER));
+    }
+
+    @Test
+    public void failedCall_isCountedAsAFailure() throws Exception {
+        server.shutdown();
+
+        try {
+            apiClient.getNominatimService().reverseGeocodeWithNominatim(10.5, 122.8, "json").execute();
+            fail("expected a connection failure");
+        } catch (IOException expected) {
+        }
+
+        NetworkMetrics metrics = apiClient.getNetworkMetrics();
+        assertEquals(1, metrics.getFailureCount(NetworkMetrics.Endpoint.REVERSE));
+        assertEquals(0, metrics.get(NetworkMetrics.Endpoint.REVERSE, NetworkMetrics.Phase.TOTAL).getCount());
+    }
+}
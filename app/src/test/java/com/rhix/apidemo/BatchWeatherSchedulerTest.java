@@ -0,0 +1,255 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class BatchWeatherSchedulerTest {
+    private static final Executor DIRECT = Runnable::run;
+    private static final int PRECISION = WeatherCache.DEFAULT_PRECISION;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // Stand-in weather API that records how many requests it saw, how many overlapped, and the
+    // cell each one was for
+    private static class RecordingDispatcher extends Dispatcher {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<String> cells = Collections.synchronizedList(new ArrayList<>());
+        final long delayMillis;
+        final int status;
+
+        RecordingDispatcher(long delayMillis, int status) {
+            this.delayMillis = delayMillis;
+            this.status = status;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            requests.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            HttpUrl url = request.getRequestUrl();
+            double lat = Double.parseDouble(url.queryParameter("lat"));
+            double lon = Double.parseDouble(url.queryParameter("lon"));
+            cells.add(GeoHash.encode(lat, lon, PRECISION));
+            try {
+                Thread.sleep(delayMillis);
+            } finally {
+                active.decrementAndGet();
+            }
+            if (status != 200) {
+                return new MockResponse().setResponseCode(status);
+            }
+            return new MockResponse().setBody("{\"main\":{\"temp\":" + (20 + lat) + "}}");
+        }
+    }
+
+    private static class Recorder implements BatchWeatherScheduler.Listener {
+        final int[] deliveries;
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger finishedCalls = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile int finishedCells = -1;
+        volatile int finishedFailures = -1;
+
+        Recorder(int points) {
+            deliveries = new int[points];
+        }
+
+        @Override
+        public synchronized void onCellWeather(int[] pointIndices, WeatherSnapshot snapshot) {
+            for (int index : pointIndices) {
+                deliveries[index]++;
+            }
+        }
+
+        @Override
+        public void onCellError(int[] pointIndices, Throwable error) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onFinished(int cells, int failedCells) {
+            finishedCells = cells;
+            finishedFailures = failedCells;
+            finishedCalls.incrementAndGet();
+            finished.countDown();
+        }
+
+        synchronized int deliveredCount() {
+            int count = 0;
+            for (int delivery : deliveries) {
+                count += delivery;
+            }
+            return count;
+        }
+    }
+
+    private MockWebServer server;
+    private WeatherCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString();
+        ApiClient apiClient = new ApiClient(null, baseUrl, baseUrl);
+        cache = new WeatherCache(tempFolder.newFolder(), PRECISION, 60_000, 256,
+                OpenWeatherCache.fetcher(apiClient), DIRECT, DIRECT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    // perCell points clustered at the centre of each of `cells` distinct geohash cells, ~5 km apart
+    // along a north-south line
+    private static PointStore clusteredPoints(int cells, int perCell) {
+        double[] lat = new double[cells * perCell];
+        double[] lon = new double[cells * perCell];
+        for (int c = 0; c < cells; c++) {
+            double[] center = GeoHash.decodeCenter(GeoHash.encode(10.0 + c * 0.05, 122.95, PRECISION));
+            for (int p = 0; p < perCell; p++) {
+                // Interleave the cells so grouping has to gather points from across the store
+                int index = p * cells + c;
+                lat[index] = center[0] + (p - perCell / 2) * 0.00001;
+                lon[index] = center[1] + (p - perCell / 2) * 0.00001;
+            }
+        }
+        return PointStore.wrap(lat, lon, lat.length);
+    }
+
+    private static String cellOf(int cell) {
+        return GeoHash.encode(10.0 + cell * 0.05, 122.95, PRECISION);
+    }
+
+    @Test
+    public void pointsInOneCell_shareOneRequest_withinConcurrencyWindow() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher(50, 200);
+        server.setDispatcher(dispatcher);
+        PointStore points = clusteredPoints(20, 10);
+        Recorder recorder = new Recorder(points.size());
+
+        BatchWeatherScheduler.Batch batch = new BatchWeatherScheduler(cache, 3).load(points, recorder);
+
+        assertEquals(20, batch.getTotalCellCount());
+        assertTrue(recorder.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(20, dispatcher.requests.get());
+        assertTrue("max concurrency " + dispatcher.maxActive.get(), dispatcher.maxActive.get() <= 3);
+        assertTrue("requests never overlapped", dispatcher.maxActive.get() > 1);
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals("point " + i, 1, recorder.deliveries[i]);
+        }
+        assertEquals(20, recorder.finishedCells);
+        assertEquals(0, recorder.finishedFailures);
+        assertEquals(1, recorder.finishedCalls.get());
+        assertEquals(0, batch.getPendingCellCount());
+        assertEquals(0, batch.getRunningCellCount());
+    }
+
+    @Test
+    public void visibleCells_jumpTheQueue() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher(100, 200);
+        server.setDispatcher(dispatcher);
+        PointStore points = clusteredPoints(10, 3);
+        Recorder recorder = new Recorder(points.size());
+
+        BatchWeatherScheduler.Batch batch = new BatchWeatherScheduler(cache, 1).load(points, recorder);
+        // Cell 0 is already in flight; the viewport now covers cells 7-9
+        batch.prioritize(10.0 + 6.5 * 0.05, 122.9, 10.0 + 9.5 * 0.05, 123.0);
+
+        assertTrue(recorder.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(10, dispatcher.cells.size());
+        assertEquals(cellOf(0), dispatcher.cells.get(0));
+        assertEquals(cellOf(7), dispatcher.cells.get(1));
+        assertEquals(cellOf(8), dispatcher.cells.get(2));
+        assertEquals(cellOf(9), dispatcher.cells.get(3));
+        // The rest keep their original order
+        assertEquals(cellOf(1), dispatcher.cells.get(4));
+        assertEquals(cellOf(6), dispatcher.cells.get(9));
+        assertEquals(1, dispatcher.maxActive.get());
+    }
+
+    @Test
+    public void loadWithViewport_sendsVisibleCellsFirstFromTheStart() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher(50, 200);
+        server.setDispatcher(dispatcher);
+        PointStore points = clusteredPoints(10, 3);
+        Recorder recorder = new Recorder(points.size());
+
+        // The viewport covers cells 7-9 before anything is sent
+        new BatchWeatherScheduler(cache, 1).load(points, 10.0 + 6.5 * 0.05, 122.9, 10.0 + 9.5 * 0.05, 123.0, recorder);
+
+        assertTrue(recorder.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(10, dispatcher.cells.size());
+        assertEquals(cellOf(7), dispatcher.cells.get(0));
+        assertEquals(cellOf(8), dispatcher.cells.get(1));
+        assertEquals(cellOf(9), dispatcher.cells.get(2));
+        assertEquals(cellOf(0), dispatcher.cells.get(3));
+    }
+
+    @Test
+    public void cancel_stopsQueuedCellsAndDropsInFlightResults() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher(200, 200);
+        server.setDispatcher(dispatcher);
+        PointStore points = clusteredPoints(20, 2);
+        Recorder recorder = new Recorder(points.size());
+
+        BatchWeatherScheduler.Batch batch = new BatchWeatherScheduler(cache, 2).load(points, recorder);
+        batch.cancel();
+        Thread.sleep(600);
+
+        assertTrue("requests " + dispatcher.requests.get(), dispatcher.requests.get() <= 2);
+        assertEquals(0, recorder.deliveredCount());
+        assertEquals(0, recorder.errors.get());
+        assertEquals(0, batch.getPendingCellCount());
+        assertEquals(0, recorder.finishedCalls.get());
+    }
+
+    @Test
+    public void failedCells_areReportedAndDoNotStallTheBatch() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher(10, 503);
+        server.setDispatcher(dispatcher);
+        PointStore points = clusteredPoints(5, 4);
+        Recorder recorder = new Recorder(points.size());
+
+        new BatchWeatherScheduler(cache, 2).load(points, recorder);
+
+        assertTrue(recorder.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(5, recorder.errors.get());
+        assertEquals(5, recorder.finishedCells);
+        assertEquals(5, recorder.finishedFailures);
+        assertEquals(0, recorder.deliveredCount());
+    }
+
+    @Test
+    public void emptyStore_finishesImmediately() {
+        Recorder recorder = new Recorder(0);
+
+        new BatchWeatherScheduler(cache, 3).load(PointStore.wrap(new double[0], new double[0], 0), recorder);
+
+        assertEquals(1, recorder.finishedCalls.get());
+        assertEquals(0, recorder.finishedCells);
+    }
+}
@@ -0,0 +1,109 @@
+package com.rhix.apidemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class GeocodeStoreTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static GeocodeStore.Place place(int i, String name) {
+        // 0.01 degrees apart: about 1.1 km, never duplicates of each other
+        return new GeocodeStore.Place(10.0 + i * 0.01, 122.9, name, i);
+    }
+
+    @Test
+    public void tornTail_isCutOffBeforeTheNextAppend() throws Exception {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        GeocodeStore store = new GeocodeStore(file);
+        store.put(place(0, "Bacolod"));
+        store.put(place(1, "Talisay"));
+        // Process death halfway through the second record
+        long complete = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(complete - 10);
+        }
+
+        GeocodeStore reopened = new GeocodeStore(file);
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.getDroppedBytes() > 0);
+        reopened.put(place(2, "Silay"));
+
+        GeocodeStore again = new GeocodeStore(file);
+        assertEquals(2, again.size());
+        assertEquals(0, again.getDroppedBytes());
+        assertEquals("Silay", again.nearest(10.02, 122.9, 100).name);
+    }
+
+    @Test
+    public void damagedRecord_failsItsChecksum() throws Exception {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        GeocodeStore store = new GeocodeStore(file);
+        store.put(place(0, "Bacolod"));
+        long firstEnd = file.length();
+        store.put(place(1, "Talisay"));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(firstEnd + 4); // first byte of the second record's latitude
+            raf.write(raf.read() ^ 0x40);
+        }
+
+        GeocodeStore reopened = new GeocodeStore(file);
+
+        assertEquals(1, reopened.size());
+        assertNull(reopened.nearest(10.01, 122.9, 100));
+        assertEquals(firstEnd, file.length());
+    }
+
+    @Test
+    public void fileWithoutHeader_startsEmpty() throws Exception {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        }
+        GeocodeStore store = new GeocodeStore(file);
+
+        assertEquals(0, store.size());
+        store.put(place(0, "Bacolod"));
+        assertEquals(1, new GeocodeStore(file).size());
+    }
+
+    @Test
+    public void nearbyPlace_replacesTheStoredOne() {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        GeocodeStore store = new GeocodeStore(file);
+        store.put(new GeocodeStore.Place(10.6683, 122.9584, "Bacolod", 1L));
+        // About 20 m away
+        store.put(new GeocodeStore.Place(10.6685, 122.9584, "Bacolod City", 2L));
+
+        assertEquals(1, store.size());
+        assertEquals("Bacolod City", store.nearest(10.6683, 122.9584, 300).name);
+        GeocodeStore reopened = new GeocodeStore(file);
+        assertEquals(1, reopened.size());
+        assertEquals("Bacolod City", reopened.nearest(10.6683, 122.9584, 300).name);
+    }
+
+    @Test
+    public void cap_dropsTheOldestAndTheFileIsCompacted() {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        GeocodeStore store = new GeocodeStore(file, 10);
+        for (int i = 0; i < 1_000; i++) {
+            store.put(place(i, "Place " + i));
+        }
+
+        assertEquals(10, store.size());
+        assertNull(store.nearest(10.0, 122.9, 100));
+        assertEquals("Place 999", store.nearest(19.99, 122.9, 100).name);
+        GeocodeStore reopened = new GeocodeStore(file, 10);
+        assertEquals(10, reopened.size());
+        // Rewritten whenever dropped records outnumber live ones (and reach 256)
+        long recordBytes = 4 + 8 + 8 + 8 + 2 + "Place 999".length() + 4;
+        assertTrue(file.length() + " bytes", file.length() <= 4 + (10 + 256) * recordBytes);
+    }
+}
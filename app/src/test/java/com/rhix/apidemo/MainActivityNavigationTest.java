@@ -0,0 +1,78 @@
+package com.rhix.apidemo;
+
+import android.content.Intent;
+import android.os.Looper;
+
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+import com.google.android.material.bottomnavigation.BottomNavigationView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityNavigationTest {
+    private ActivityController<MainActivity> controller;
+
+    @Before
+    public void setUp() {
+        NavMetrics.reset();
+        // Tests must not bulk-download tiles
+        Intent intent = new Intent(RuntimeEnvironment.getApplication(), MainActivity.class)
+                .putExtra(MainActivity.EXTRA_PREFETCH_TILES, false);
+        controller = Robolectric.buildActivity(MainActivity.class, intent).setup();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @After
+    public void tearDown() {
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void switchingBackToATab_reusesItsMapView() {
+        BottomNavigationView navigation = controller.get().findViewById(R.id.bottom_navigation);
+        assertEquals(1, NavMetrics.getMapViewCreateCount());
+
+        select(navigation, R.id.nav_points);
+        select(navigation, R.id.nav_map);
+        select(navigation, R.id.nav_points);
+        select(navigation, R.id.nav_map);
+
+        // One MapView per tab ever visited, however often the user switches
+        assertEquals(2, NavMetrics.getMapViewCreateCount());
+
+        FragmentManager fragmentManager = controller.get().getSupportFragmentManager();
+        Fragment map = fragmentManager.findFragmentByTag("tab_" + R.id.nav_map);
+        Fragment points = fragmentManager.findFragmentByTag("tab_" + R.id.nav_points);
+        assertNotNull(map);
+        assertNotNull(points);
+        assertFalse(map.isHidden());
+        assertTrue(points.isHidden());
+    }
+
+    @Test
+    public void reselectingTheVisibleTab_doesNothing() {
+        BottomNavigationView navigation = controller.get().findViewById(R.id.bottom_navigation);
+
+        select(navigation, R.id.nav_map);
+
+        assertEquals(1, NavMetrics.getMapViewCreateCount());
+        assertEquals(1, controller.get().getSupportFragmentManager().getFragments().size());
+    }
+
+    private static void select(BottomNavigationView navigation, int itemId) {
+        navigation.setSelectedItemId(itemId);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
@@ -0,0 +1,200 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+
+import static org.junit.Assert.*;
+
+public class RequestManagerTest {
+    private static final String WEATHER_JSON =
+            "{\"name\":\"Bacolod\",\"main\":{\"temp\":29.5},\"weather\":[{\"description\":\"clear sky\"}]}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiClient apiClient;
+    private SharedRequests<Object> shared;
+
+    // Waits for one callback and remembers what it got
+    private static class Latch implements SharedRequests.Callback<WeatherResponse> {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<WeatherResponse> result = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        public void onResult(WeatherResponse response) {
+            result.set(response);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error.set(t);
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString();
+        // No HTTP cache, so every request that is not shared reaches the server
+        apiClient = new ApiClient(null, baseUrl, baseUrl);
+        shared = new SharedRequests<>(RequestManager.DEFAULT_REPLAY_MILLIS, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private Call<WeatherResponse> weatherCall() {
+        return apiClient.getWeatherService().getWeather("Bacolod", "key", "metric");
+    }
+
+    @Test
+    public void identicalCallsFromTwoViews_goOutOnce() throws Exception {
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON).setBodyDelay(200, TimeUnit.MILLISECONDS));
+        RequestManager first = new RequestManager(shared, apiClient);
+        RequestManager second = new RequestManager(shared, apiClient);
+        Latch a = new Latch();
+        Latch b = new Latch();
+
+        first.enqueue(weatherCall(), a);
+        second.enqueue(weatherCall(), b);
+
+        assertTrue(a.await());
+        assertTrue(b.await());
+        assertEquals("Bacolod", a.result.get().getName());
+        assertSame(a.result.get(), b.result.get());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, first.getOutstandingCount());
+    }
+
+    @Test
+    public void callAfterASuccess_isReplayedWithoutTheNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON));
+        Latch first = new Latch();
+        new RequestManager(shared, apiClient).enqueue(weatherCall(), first);
+        assertTrue(first.await());
+
+        // A recreated view asks again
+        Latch late = new Latch();
+        new RequestManager(shared, apiClient).enqueue(weatherCall(), late);
+
+        assertTrue(late.await());
+        assertEquals(29.5, late.result.get().getMain().getTemp(), 0.001);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, shared.getReplayedCount());
+    }
+
+    @Test
+    public void destroyedView_cancelsItsCallsAndHearsNothing() throws Exception {
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON).setHeadersDelay(2, TimeUnit.SECONDS));
+        RequestManager manager = new RequestManager(shared, apiClient);
+        Latch latch = new Latch();
+        Call<WeatherResponse> call = weatherCall();
+
+        manager.enqueue(call, latch);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        manager.cancelAll();
+
+        assertTrue(call.isCanceled());
+        assertFalse(manager.isActive());
+        assertFalse(latch.done.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, shared.getCancelledCount());
+        assertEquals(0, shared.getInFlightCount());
+
+        // Anything asked after that is ignored
+        assertSame(Cancellable.NONE, manager.enqueue(weatherCall(), new Latch()));
+        assertEquals(0, shared.getInFlightCount());
+    }
+
+    @Test
+    public void destroyedView_leavesSharedCallRunningForOthers() throws Exception {
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON).setBodyDelay(300, TimeUnit.MILLISECONDS));
+        RequestManager leaving = new RequestManager(shared, apiClient);
+        RequestManager staying = new RequestManager(shared, apiClient);
+        Latch gone = new Latch();
+        Latch kept = new Latch();
+
+        leaving.enqueue(weatherCall(), gone);
+        staying.enqueue(weatherCall(), kept);
+        leaving.cancelAll();
+
+        assertTrue(kept.await());
+        assertNotNull(kept.result.get());
+        assertEquals(1, gone.done.getCount());
+        assertEquals(0, shared.getCancelledCount());
+    }
+
+    @Test
+    public void httpError_reachesTheCallback() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        Latch latch = new Latch();
+
+        new RequestManager(shared, apiClient).enqueue(weatherCall(), latch);
+
+        assertTrue(latch.await());
+        assertNull(latch.result.get());
+        assertTrue(latch.error.get().getMessage().contains("404"));
+    }
+
+    @Test
+    public void serverErrorsAndThrottling_areRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON));
+        Latch latch = new Latch();
+
+        new RequestManager(shared, apiClient).enqueue(weatherCall(), latch);
+
+        assertTrue(latch.await());
+        assertEquals(29.5, latch.result.get().getMain().getTemp(), 0.001);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, apiClient.getFetchPolicy(NetworkMetrics.Endpoint.WEATHER).getRetryCount());
+    }
+
+    @Test
+    public void failingEndpoint_opensTheBreakerAndStopsReachingTheServer() throws Exception {
+        for (int i = 0; i < FetchPolicy.DEFAULT_FAILURE_THRESHOLD; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        RequestManager manager = new RequestManager(shared, apiClient);
+
+        Latch first = new Latch();
+        manager.enqueue(weatherCall(), first);
+        assertTrue(first.await());
+        assertEquals(500, ((HttpStatusException) first.error.get()).getCode());
+
+        // Two more failures open the breaker; the third attempt is never sent
+        Latch second = new Latch();
+        manager.enqueue(weatherCall(), second);
+        assertTrue(second.await());
+        assertTrue(second.error.get() instanceof FetchPolicy.CircuitOpenException);
+
+        Latch third = new Latch();
+        manager.enqueue(weatherCall(), third);
+        assertTrue(third.await());
+        assertTrue(third.error.get() instanceof FetchPolicy.CircuitOpenException);
+        assertEquals(FetchPolicy.DEFAULT_FAILURE_THRESHOLD, server.getRequestCount());
+        assertEquals(2, apiClient.getFetchPolicy(NetworkMetrics.Endpoint.WEATHER).getRejectedCount());
+    }
+}
@@ -0,0 +1,121 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ReverseGeocoderTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Answers immediately and records when and for what each request was sent
+    private static class RecordingFetcher implements NominatimScheduler.Fetcher {
+        final List<Long> sentAt = Collections.synchronizedList(new ArrayList<>());
+        final List<String> names = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Cancellable fetch(double latitude, double longitude, NominatimScheduler.Callback callback) {
+            sentAt.add(System.nanoTime());
+            String name = latitude + "," + longitude;
+            names.add(name);
+            callback.onPlaceName(name);
+            return Cancellable.NONE;
+        }
+    }
+
+    private static NominatimScheduler.Callback countDown(final CountDownLatch latch) {
+        return new NominatimScheduler.Callback() {
+            @Override
+            public void onPlaceName(String name) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t.toString());
+            }
+        };
+    }
+
+    @Test
+    public void store_answersWithinRadiusAndSurvivesReopen() throws Exception {
+        File file = new File(tempFolder.getRoot(), "geocode.bin");
+        GeocodeStore store = new GeocodeStore(file);
+        store.put(new GeocodeStore.Place(10.6683, 122.9584, "Bacolod", 1L));
+        store.put(new GeocodeStore.Place(10.5372, 122.8320, "Bago", 2L));
+
+        GeocodeStore reopened = new GeocodeStore(file);
+        assertEquals(2, reopened.size());
+        // ~110 m north of the Bacolod entry
+        assertEquals("Bacolod", reopened.nearest(10.6693, 122.9584, 300).name);
+        assertNull(reopened.nearest(10.6783, 122.9584, 300));
+    }
+
+    @Test
+    public void scheduler_neverExceedsRate() throws Exception {
+        // Fake time that moves 20 ms per reading, so the admitted times do not depend on how
+        // promptly the executor threads run
+        final AtomicLong fakeNanos = new AtomicLong();
+        NanoClock clock = () -> fakeNanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        final List<Long> admittedAt = Collections.synchronizedList(new ArrayList<>());
+        NominatimScheduler.Fetcher fetcher = (latitude, longitude, callback) -> {
+            admittedAt.add(fakeNanos.get());
+            callback.onPlaceName(latitude + "," + longitude);
+            return Cancellable.NONE;
+        };
+        NominatimScheduler scheduler = new NominatimScheduler(fetcher, 20, 7, executor, clock);
+        CountDownLatch done = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(10.0 + i * 0.1, 122.0, NominatimScheduler.PRIORITY_NORMAL, countDown(done));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(5, admittedAt.size());
+        for (int i = 1; i < admittedAt.size(); i++) {
+            long gapNanos = admittedAt.get(i) - admittedAt.get(i - 1);
+            assertTrue("gap " + gapNanos + " ns", gapNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    public void scheduler_mergesDuplicatesAndServesHighPriorityFirst() throws Exception {
+        RecordingFetcher fetcher = new RecordingFetcher();
+        NominatimScheduler scheduler = new NominatimScheduler(fetcher, 10, 7, executor);
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+
+        // The first request takes the only token; the rest wait in the queue
+        scheduler.submit(10.0, 122.0, NominatimScheduler.PRIORITY_NORMAL, countDown(first));
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        scheduler.submit(11.0, 122.0, NominatimScheduler.PRIORITY_LOW, countDown(done));
+        scheduler.submit(11.00001, 122.00001, NominatimScheduler.PRIORITY_LOW, countDown(done));
+        scheduler.submit(12.0, 122.0, NominatimScheduler.PRIORITY_HIGH, countDown(done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, scheduler.getSentCount());
+        assertEquals(1, scheduler.getDeduplicatedCount());
+        assertTrue(fetcher.names.get(1).startsWith("12.0"));
+        assertTrue(fetcher.names.get(2).startsWith("11.0"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class SavedPlacesTest {
+    private static final String WEATHER_JSON =
+            "{\"name\":\"Bacolod\",\"main\":{\"temp\":29.5},\"weather\":[{\"description\":\"clear sky\"}]}";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiClient apiClient;
+    private PlaceWeatherStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString();
+        apiClient = new ApiClient(null, baseUrl, baseUrl);
+        store = new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void batchRefresh_fetchesByCityNameAndStoresTheResult() throws Exception {
+        store.addPlace("Bacolod");
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON));
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, SavedPlaces.fetcher(apiClient));
+
+        PlaceWeatherRefresher.Outcome outcome = refresher.refreshAll(5_000);
+
+        assertEquals(1, outcome.refreshed);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("Bacolod", request.getRequestUrl().queryParameter("q"));
+        PlaceWeatherStore.Entry entry = store.get("Bacolod");
+        assertEquals(29.5, entry.temp, 0.001);
+        assertEquals("clear sky", entry.description);
+    }
+
+    @Test
+    public void responseWithoutNameOrDescription_stillStores() throws Exception {
+        store.addPlace("Bacolod");
+        server.enqueue(new MockResponse().setBody("{\"main\":{\"temp\":29.5},\"weather\":[{}]}"));
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, SavedPlaces.fetcher(apiClient));
+
+        assertEquals(1, refresher.refreshAll(5_000).refreshed);
+
+        PlaceWeatherStore.Entry entry = new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin")).get("Bacolod");
+        assertEquals("Bacolod", entry.name);
+        assertEquals("", entry.description);
+    }
+
+    @Test
+    public void serverError_isRetriedWithinTheRun() throws Exception {
+        store.addPlace("Bacolod");
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(WEATHER_JSON));
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, SavedPlaces.fetcher(apiClient));
+
+        PlaceWeatherRefresher.Outcome outcome = refresher.refreshAll(5_000);
+
+        assertEquals(1, outcome.refreshed);
+        assertEquals(2, server.getRequestCount());
+        assertNotNull(store.get("Bacolod"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class TilePrefetcherTest {
+    private static final int TILE_BYTES = 1000;
+    // The whole world at zoom 3: 64 tiles
+    private static final int ZOOM = 3;
+    private static final int TOTAL_TILES = 64;
+
+    private MockWebServer server;
+    private String urlTemplate;
+    private final AtomicInteger tileRequests = new AtomicInteger();
+
+    // Stands in for the MBTiles archive
+    private static class MemoryTileStore implements TileStore {
+        final Map<String, byte[]> tiles = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean contains(int zoom, int x, int y) {
+            return tiles.containsKey(zoom + "/" + x + "/" + y);
+        }
+
+        @Override
+        public void put(int zoom, int x, int y, byte[] data) {
+            tiles.put(zoom + "/" + x + "/" + y, data);
+        }
+
+        @Override
+        public long getTotalBytes() {
+            long total = 0;
+            for (byte[] data : tiles.values()) {
+                total += data.length;
+            }
+            return total;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                tileRequests.incrementAndGet();
+                return new MockResponse().setBody(new Buffer().write(new byte[TILE_BYTES]));
+            }
+        });
+        server.start();
+        urlTemplate = server.url("/").toString() + "{z}/{x}/{y}.png";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private TilePrefetcher.Progress prefetch(TileStore store, long byteBudget) throws Exception {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final TilePrefetcher.Progress[] result = new TilePrefetcher.Progress[1];
+        TilePrefetcher prefetcher = new TilePrefetcher(store, new OkHttpClient(), urlTemplate, "test", 2);
+        prefetcher.prefetch(85, -85, 179.9, -180, ZOOM, ZOOM, byteBudget, new TilePrefetcher.Listener() {
+            @Override
+            public void onProgress(TilePrefetcher.Progress progress) {
+            }
+
+            @Override
+            public void onFinished(TilePrefetcher.Progress progress) {
+                result[0] = progress;
+                finished.countDown();
+            }
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    @Test
+    public void tileUrl_fillsThePlaceholders() {
+        assertEquals("https://tiles.example.com/16/55150/30814.png",
+                TilePrefetcher.tileUrl("https://tiles.example.com/{z}/{x}/{y}.png", 16, 55150, 30814));
+    }
+
+    @Test
+    public void byteBudget_stopsTheRun() throws Exception {
+        MemoryTileStore store = new MemoryTileStore();
+        long budget = 10 * TILE_BYTES;
+
+        TilePrefetcher.Progress progress = prefetch(store, budget);
+
+        assertTrue(progress.budgetReached);
+        assertEquals(0, progress.failed);
+        // Tiles already in flight when the budget is hit still land: at most two per worker
+        assertTrue(progress.downloaded + " tiles", progress.downloaded >= 10 && progress.downloaded <= 10 + 4);
+        assertEquals(progress.downloaded * TILE_BYTES, store.getTotalBytes());
+    }
+
+    @Test
+    public void budgetCountsTilesAlreadyStored() throws Exception {
+        MemoryTileStore store = new MemoryTileStore();
+        store.put(0, 0, 0, new byte[10 * TILE_BYTES]);
+
+        TilePrefetcher.Progress progress = prefetch(store, 10 * TILE_BYTES);
+
+        assertTrue(progress.budgetReached);
+        assertEquals(0, progress.downloaded);
+        assertEquals(0, tileRequests.get());
+    }
+
+    @Test
+    public void interruptedRun_resumesWithoutRefetching() throws Exception {
+        MemoryTileStore store = new MemoryTileStore();
+        TilePrefetcher.Progress first = prefetch(store, 20 * TILE_BYTES);
+        assertTrue(first.budgetReached);
+        int firstRequests = tileRequests.get();
+
+        TilePrefetcher.Progress second = prefetch(store, OfflineTiles.BYTE_BUDGET);
+
+        assertFalse(second.budgetReached);
+        assertEquals(first.downloaded, second.skipped);
+        assertEquals(TOTAL_TILES - first.downloaded, second.downloaded);
+        assertEquals(TOTAL_TILES, second.getProcessed());
+        assertEquals(TOTAL_TILES, store.tiles.size());
+        // Every tile was requested exactly once across both runs
+        assertEquals(TOTAL_TILES, firstRequests + second.downloaded);
+        assertEquals(TOTAL_TILES, tileRequests.get());
+    }
+}
@@ -0,0 +1,125 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+// Stands in for OpenWeather and Nominatim with MockWebServer and injected latency
+public class WeatherMarkerLoaderTest {
+    private static final long WEATHER_DELAY_MS = 600;
+    private static final long PLACE_DELAY_MS = 400;
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final MockWebServer weatherServer = new MockWebServer();
+    private final MockWebServer nominatimServer = new MockWebServer();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private ApiClient apiClient;
+
+    private static class Recorder implements WeatherMarkerLoader.Listener {
+        final long startNanos = System.nanoTime();
+        final List<String> texts = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> elapsedMillis = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch complete = new CountDownLatch(1);
+
+        @Override
+        public void onMarkerText(String text, boolean isComplete) {
+            texts.add(text);
+            elapsedMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (isComplete) {
+                complete.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t.toString());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        weatherServer.start();
+        nominatimServer.start();
+        apiClient = new ApiClient(null, weatherServer.url("/").toString(), nominatimServer.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        weatherServer.shutdown();
+        nominatimServer.shutdown();
+    }
+
+    private WeatherMarkerLoader newLoader(long placeTimeoutMillis) throws Exception {
+        File dir = tempFolder.newFolder();
+        WeatherCache weatherCache = new WeatherCache(new File(dir, "weather"), 6, 60_000, 16,
+                OpenWeatherCache.fetcher(apiClient), executor, DIRECT);
+        NominatimScheduler scheduler = new NominatimScheduler(ReverseGeocoder.nominatimFetcher(apiClient), 1, 7, executor);
+        ReverseGeocoder reverseGeocoder = new ReverseGeocoder(new GeocodeStore(new File(dir, "geocode.bin")),
+                scheduler, 300, executor, DIRECT);
+        return new WeatherMarkerLoader(weatherCache, reverseGeocoder, executor, DIRECT, placeTimeoutMillis);
+    }
+
+    private void enqueueResponses(long weatherDelayMs, long placeDelayMs) {
+        weatherServer.enqueue(new MockResponse().setBody("{\"main\":{\"temp\":29.5}}")
+                .setHeadersDelay(weatherDelayMs, TimeUnit.MILLISECONDS));
+        nominatimServer.enqueue(new MockResponse().setBody("{\"display_name\":\"Bacolod\"}")
+                .setHeadersDelay(placeDelayMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void timeToMarker_isMaxOfCallsNotSum() throws Exception {
+        WeatherMarkerLoader loader = newLoader(5_000);
+        // Warm both connections so the measurement is dominated by the injected latency
+        enqueueResponses(0, 0);
+        Recorder warmUp = new Recorder();
+        loader.load(-33.0, 151.0, warmUp);
+        assertTrue(warmUp.complete.await(5, TimeUnit.SECONDS));
+        Thread.sleep(1_000); // let the Nominatim token bucket refill
+
+        enqueueResponses(WEATHER_DELAY_MS, PLACE_DELAY_MS);
+        Recorder recorder = new Recorder();
+        loader.load(10.668328, 122.958444, recorder);
+
+        assertTrue(recorder.complete.await(5, TimeUnit.SECONDS));
+        long elapsed = recorder.elapsedMillis.get(0);
+        assertEquals("Bacolod: 29.5°C", recorder.texts.get(0));
+        assertTrue("elapsed " + elapsed + " ms", elapsed >= WEATHER_DELAY_MS);
+        assertTrue("elapsed " + elapsed + " ms, sequential would be " + (WEATHER_DELAY_MS + PLACE_DELAY_MS),
+                elapsed < WEATHER_DELAY_MS + PLACE_DELAY_MS - 150);
+    }
+
+    @Test
+    public void slowPlaceName_showsTemperatureFirst() throws Exception {
+        WeatherMarkerLoader loader = newLoader(300);
+        enqueueResponses(100, 1_500);
+        Recorder recorder = new Recorder();
+        loader.load(10.668328, 122.958444, recorder);
+
+        assertTrue(recorder.complete.await(5, TimeUnit.SECONDS));
+        assertEquals(2, recorder.texts.size());
+        assertEquals("29.5°C", recorder.texts.get(0));
+        assertTrue(recorder.elapsedMillis.get(0) < 1_000);
+        assertEquals("Bacolod: 29.5°C", recorder.texts.get(1));
+    }
+}
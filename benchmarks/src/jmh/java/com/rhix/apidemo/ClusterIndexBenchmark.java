@@ -0,0 +1,93 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Build time and per-frame query time at 100k and 1M points around Negros.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=ClusterIndexBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClusterIndexBenchmark {
+    // Roughly a 1080x1920 phone screen
+    private static final int VIEW_WIDTH_PX = 1080;
+    private static final int VIEW_HEIGHT_PX = 1920;
+
+    @State(Scope.Benchmark)
+    public static class Points {
+        @Param({"100000", "1000000"})
+        int n;
+
+        double[] lat;
+        double[] lon;
+
+        @Setup
+        public void setUp() {
+            lat = new double[n];
+            lon = new double[n];
+            generate(lat, lon, n);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class View {
+        @Param({"100000", "1000000"})
+        int n;
+
+        @Param({"6", "10", "14", "18"})
+        int zoom;
+
+        ClusterIndex index;
+        double halfWidth;
+        double halfHeight;
+        int frame;
+
+        @Setup
+        public void setUp() {
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            generate(lat, lon, n);
+            index = ClusterIndex.build(lat, lon, n, 0, 19, 60);
+            double worldPx = 256.0 * (1L << zoom);
+            halfWidth = VIEW_WIDTH_PX / worldPx * 360 / 2;
+            halfHeight = halfWidth * VIEW_HEIGHT_PX / VIEW_WIDTH_PX;
+        }
+    }
+
+    // Clumped around a few towns, like real site data
+    private static void generate(double[] lat, double[] lon, int n) {
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) {
+            double centerLat = 9.5 + (i % 7) * 0.2;
+            double centerLon = 122.5 + (i % 5) * 0.15;
+            lat[i] = centerLat + random.nextGaussian() * 0.05;
+            lon[i] = centerLon + random.nextGaussian() * 0.05;
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ClusterIndex build(Points points) {
+        return ClusterIndex.build(points.lat, points.lon, points.n, 0, 19, 60);
+    }
+
+    // One frame: pans back and forth by up to 40% of the screen
+    @Benchmark
+    public int query(View view) {
+        int f = view.frame++ % 20;
+        double cLat = 10.1 + f * view.halfHeight / 25;
+        double cLon = 122.8 + f * view.halfWidth / 25;
+        final int[] points = {0};
+        view.index.query(view.zoom, cLat - view.halfHeight, cLon - view.halfWidth, cLat + view.halfHeight, cLon + view.halfWidth,
+                (latitude, longitude, count, pointIndex) -> points[0] += count);
+        return points[0];
+    }
+}
@@ -0,0 +1,74 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-fix cost of GeofenceEngine.update at 1k, 10k and 100k fences over the same 20 x 20 km
+// area, so density grows with the count. "walk" is one fix per second at walking pace, which
+// mostly stays in the cached cell; "jump" puts every fix somewhere new, so each one queries
+// the index. The gc profiler should report no allocation for either.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=GeofenceEngineBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GeofenceEngineBenchmark {
+    private static final int FIXES = 1 << 16;
+    private static final GeofenceEngine.Listener IGNORE = new GeofenceEngine.Listener() {
+        @Override
+        public void onEnter(int fence) {
+        }
+
+        @Override
+        public void onExit(int fence) {
+        }
+    };
+
+    @Param({"1000", "10000", "100000"})
+    int fences;
+
+    private GeofenceEngine engine;
+    private final double[] walkLat = new double[FIXES];
+    private final double[] walkLon = new double[FIXES];
+    private final double[] jumpLat = new double[FIXES];
+    private final double[] jumpLon = new double[FIXES];
+    private int fix;
+
+    @Setup
+    public void setUp() {
+        engine = Fixtures.randomFences(fences, 0.18, 19);
+        Random random = new Random(3);
+        double lat = 10.69;
+        double lon = 122.99;
+        for (int i = 0; i < FIXES; i++) {
+            // About 1.4 m per second, drifting; the walk is replayed forwards then backwards
+            lat += (random.nextDouble() - 0.45) * 0.00002;
+            lon += (random.nextDouble() - 0.45) * 0.00002;
+            walkLat[i] = lat;
+            walkLon[i] = lon;
+            jumpLat[i] = 10.6 + random.nextDouble() * 0.18;
+            jumpLon[i] = 122.9 + random.nextDouble() * 0.18;
+        }
+    }
+
+    @Benchmark
+    public int walk() {
+        int step = fix++ & (2 * FIXES - 1);
+        int i = step < FIXES ? step : 2 * FIXES - 1 - step;
+        return engine.update(walkLat[i], walkLon[i], IGNORE);
+    }
+
+    @Benchmark
+    public int jump() {
+        int i = fix++ & (FIXES - 1);
+        return engine.update(jumpLat[i], jumpLon[i], IGNORE);
+    }
+}
@@ -0,0 +1,125 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-frame cost of GeometryLayer over 10k parcel polygons on a phone-sized viewport. A cold
+// frame (new zoom level) queries and projects every visible item; a warm frame (pan at the same
+// zoom) only queries, since the paths are cached. projectAll projects every vertex of every
+// shape, which is what one overlay per shape costs each frame.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=GeometryStoreBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryStoreBenchmark {
+    private static final int SHAPES = 10_000;
+    private static final int VIEW_WIDTH_PX = 1080;
+    private static final int VIEW_HEIGHT_PX = 2000;
+
+    @State(Scope.Benchmark)
+    public static class Parcels {
+        GeometryStore.Builder builder;
+
+        @Setup
+        public void setUp() {
+            builder = parcels();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Frame {
+        @Param({"13", "15", "17"})
+        int zoom;
+
+        GeometryStore store;
+        double worldSize;
+        double centerX;
+        double centerY;
+        double spanX;
+        double spanY;
+        float[] out;
+        int frame;
+
+        @Setup
+        public void setUp() {
+            store = parcels().build();
+            worldSize = 256.0 * (1 << zoom);
+            spanX = VIEW_WIDTH_PX / worldSize;
+            spanY = VIEW_HEIGHT_PX / worldSize;
+            centerX = TileMath.mercatorX(122.99);
+            centerY = TileMath.mercatorY(10.69);
+            out = new float[2 * 64];
+        }
+
+        int query(double dx, GeometryStore.Visitor visitor) {
+            return store.query(TileMath.latitudeOf(centerY + spanY / 2), TileMath.longitudeOf(centerX - spanX / 2 + dx),
+                    TileMath.latitudeOf(centerY - spanY / 2), TileMath.longitudeOf(centerX + spanX / 2 + dx), visitor);
+        }
+    }
+
+    // Parcels of 8 to 40 vertices scattered over about 20 x 20 km
+    private static GeometryStore.Builder parcels() {
+        Random random = new Random(18);
+        GeometryStore.Builder builder = new GeometryStore.Builder();
+        for (int i = 0; i < SHAPES; i++) {
+            builder.addPolygon(Fixtures.ring(10.6 + random.nextDouble() * 0.18,
+                    122.9 + random.nextDouble() * 0.18, 0.0003 + random.nextDouble() * 0.001, 8 + random.nextInt(33)));
+        }
+        return builder;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public GeometryStore build(Parcels parcels) {
+        return parcels.builder.build();
+    }
+
+    // Pans by up to half a screen
+    @Benchmark
+    public int warmFrame(Frame frame) {
+        double dx = (frame.frame++ % 20 - 10) * frame.spanX * 0.05;
+        return frame.query(dx, item -> { });
+    }
+
+    @Benchmark
+    public int coldFrame(final Frame frame) {
+        final GeometryStore store = frame.store;
+        final double minItem = 1 / frame.worldSize;
+        final int[] vertices = {0};
+        frame.query(0, item -> {
+            if (store.getItemWidth(item) < minItem && store.getItemHeight(item) < minItem) {
+                return;
+            }
+            int capacity = 2 * store.getItemVertexCount(item);
+            if (frame.out.length < capacity) {
+                frame.out = new float[capacity];
+            }
+            vertices[0] += store.toPixels(item, frame.worldSize, 0.5, frame.out);
+        });
+        return vertices[0];
+    }
+
+    @Benchmark
+    public int projectAll(Frame frame) {
+        GeometryStore store = frame.store;
+        int vertices = 0;
+        for (int item = 0; item < store.getItemCount(); item++) {
+            if (store.isFill(item)) {
+                int capacity = 2 * store.getItemVertexCount(item);
+                if (frame.out.length < capacity) {
+                    frame.out = new float[capacity];
+                }
+                vertices += store.toPixels(item, frame.worldSize, 0, frame.out);
+            }
+        }
+        return vertices;
+    }
+}
@@ -0,0 +1,53 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Overhead NetworkEventListener adds to a call: one record per phase, from one thread and from
+// the four OkHttp threads a host may use at once, and the percentile read the perf overlay does.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=LatencyHistogramBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LatencyHistogramBenchmark {
+    private final long[] samples = new long[4096];
+    private LatencyHistogram histogram;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (long) (80e6 * Math.exp(random.nextGaussian() * 0.8));
+        }
+        histogram = new LatencyHistogram();
+        for (long sample : samples) {
+            histogram.record(sample);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(samples[index++ & 4095]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(samples[(int) (System.nanoTime() & 4095)]);
+    }
+
+    @Benchmark
+    public long p99() {
+        return histogram.getPercentileNanos(99);
+    }
+}
@@ -0,0 +1,38 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one marker title, formatted on demand as ViewportMarkerLayer brings a marker into
+// view, with and without the weather line MapPointsFragment appends.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=MarkerTitlesBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MarkerTitlesBenchmark {
+    private PointStore points;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        points = Fixtures.randomPoints(4096, 5);
+    }
+
+    @Benchmark
+    public String coordinates() {
+        return MarkerTitles.coordinates(points, index++ & 4095);
+    }
+
+    @Benchmark
+    public String withTemperature() {
+        int i = index++ & 4095;
+        return MarkerTitles.withTemperature(MarkerTitles.coordinates(points, i), 24.0 + i * 0.01f);
+    }
+}
@@ -0,0 +1,48 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Build time and viewport query time at detail zoom, which is what ViewportMarkerLayer pays
+// on every re-query. The number of points in view stays flat as the dataset grows.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=PointQuadTreeBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PointQuadTreeBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int n;
+
+    private PointStore points;
+    private PointQuadTree tree;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        points = Fixtures.randomPoints(n, 17);
+        tree = PointQuadTree.build(points);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PointQuadTree build() {
+        return PointQuadTree.build(points);
+    }
+
+    // A zoom 17 phone viewport plus ViewportMarkerLayer's margin is about 0.02 x 0.03 degrees
+    @Benchmark
+    public int query() {
+        int q = query++;
+        double south = 10.2 + (q % 50) * 0.01;
+        double west = 122.7 + (q % 40) * 0.01;
+        return tree.query(south, west, south + 0.02, west + 0.03, index -> { });
+    }
+}
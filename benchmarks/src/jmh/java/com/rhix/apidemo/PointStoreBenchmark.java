@@ -0,0 +1,169 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Loading 1M points: a list of GeoPoint-shaped objects (how the fragments used to hold points)
+// vs PointStore parsed from the same CSV in each encoding vs memory-mapped from its binary file,
+// and a full scan of the mapping. The gc profiler's alloc.rate.norm is the garbage each load
+// leaves behind; the heap the result keeps alive is printed as "retained heap" after every
+// iteration, measured across a full GC with and without the last result held.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=PointStoreBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PointStoreBenchmark {
+    private static final int POINTS = 1_000_000;
+
+    // The fields of osmdroid's GeoPoint, which :benchmarks cannot depend on
+    static final class GeoPointLike {
+        final double latitude;
+        final double longitude;
+        final double altitude;
+
+        GeoPointLike(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = 0;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Csv {
+        File file;
+
+        @Setup
+        public void setUp() throws IOException {
+            file = File.createTempFile("points", ".csv");
+            Random random = new Random(3);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+                writer.write("lat,lon\n");
+                for (int i = 0; i < POINTS; i++) {
+                    writer.write(String.format(Locale.US, "%.7f,%.7f%n",
+                            9.5 + random.nextDouble() * 1.5, 122.4 + random.nextDouble()));
+                }
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            file.delete();
+        }
+
+        PointStore load(PointStore.Encoding encoding) throws IOException {
+            try (FileReader reader = new FileReader(file)) {
+                return PointLoaders.loadCsv(reader, encoding, "lat", "lon");
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Binary {
+        @Param({"DOUBLE", "E7"})
+        PointStore.Encoding encoding;
+
+        File file;
+        PointStore mapped;
+
+        @Setup
+        public void setUp(Csv csv) throws IOException {
+            file = File.createTempFile("points", ".pts");
+            csv.load(encoding).write(file);
+            mapped = PointStore.map(file);
+        }
+
+        @TearDown
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    // Holds the last result so the iteration teardown can measure what it keeps alive
+    @State(Scope.Benchmark)
+    public static class Retained {
+        Object last;
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            if (last == null) {
+                return;
+            }
+            long held = usedHeapAfterGc();
+            last = null;
+            long released = usedHeapAfterGc();
+            System.out.printf(Locale.US, "retained heap: %.1f MB%n", (held - released) / 1048576.0);
+        }
+
+        private static long usedHeapAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    @Benchmark
+    public List<GeoPointLike> loadGeoPoints(Csv csv, Retained retained) throws IOException {
+        List<GeoPointLike> points = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(csv.file))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                points.add(new GeoPointLike(Double.parseDouble(line.substring(0, comma)),
+                        Double.parseDouble(line.substring(comma + 1))));
+            }
+        }
+        retained.last = points;
+        return points;
+    }
+
+    @Benchmark
+    public PointStore loadCsv(Csv csv, Binary binary, Retained retained) throws IOException {
+        PointStore store = csv.load(binary.encoding);
+        retained.last = store;
+        return store;
+    }
+
+    @Benchmark
+    public PointStore map(Binary binary, Retained retained) throws IOException {
+        PointStore store = PointStore.map(binary.file);
+        retained.last = store;
+        return store;
+    }
+
+    @Benchmark
+    public double scanMapped(Binary binary) {
+        PointStore mapped = binary.mapped;
+        double sum = 0;
+        for (int i = 0; i < mapped.size(); i++) {
+            sum += mapped.getLatitude(i) + mapped.getLongitude(i);
+        }
+        return sum;
+    }
+}
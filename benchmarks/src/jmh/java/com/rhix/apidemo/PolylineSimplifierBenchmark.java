@@ -0,0 +1,43 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Simplification cost for long GPS traces: the significance pass alone and the full 0-19
+// zoom pyramid LodPolyline builds from it.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=PolylineSimplifierBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PolylineSimplifierBenchmark {
+    // LodPolyline.DEFAULT_TOLERANCE_PX
+    private static final double TOLERANCE_PX = 1.5;
+
+    @Param({"100000", "500000"})
+    int n;
+
+    private PointStore trace;
+
+    @Setup
+    public void setUp() {
+        trace = Fixtures.randomWalk(n, 21);
+    }
+
+    @Benchmark
+    public double[] significance() {
+        return PolylineSimplifier.significance(trace);
+    }
+
+    @Benchmark
+    public PolylineSimplifier.Pyramid pyramid() {
+        return PolylineSimplifier.Pyramid.build(trace, 0, 19, TOLERANCE_PX);
+    }
+}
@@ -0,0 +1,60 @@
+package com.rhix.apidemo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+// Decode time and bytes allocated per decode: Gson's reflective adapters (the previous
+// GsonConverterFactory.create() path) vs ResponseAdapters, on recorded payloads. The
+// firstDecode pair builds a fresh Gson per decode, the adapter lookup the first response pays for.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=ResponseAdaptersBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ResponseAdaptersBenchmark {
+    @Param({"openweather_weather.json", "nominatim_reverse.json"})
+    String payload;
+
+    private final Gson reflective = new Gson();
+    private final Gson streaming = ResponseAdapters.register(new GsonBuilder()).create();
+    private String json;
+    private Class<?> type;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = Fixtures.payload(payload);
+        type = payload.startsWith("nominatim") ? NominatimResponse.class : WeatherResponse.class;
+    }
+
+    @Benchmark
+    public Object streaming() {
+        return streaming.fromJson(new StringReader(json), type);
+    }
+
+    @Benchmark
+    public Object reflective() {
+        return reflective.fromJson(new StringReader(json), type);
+    }
+
+    @Benchmark
+    public Object firstDecodeStreaming() {
+        return ResponseAdapters.register(new GsonBuilder()).create().fromJson(new StringReader(json), type);
+    }
+
+    @Benchmark
+    public Object firstDecodeReflective() {
+        return new Gson().fromJson(new StringReader(json), type);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-tile cost of the two steps WeatherFieldOverlay runs off the UI thread, at the bitmap size
+// it uses (64) and at full 256 px tile size for comparison.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=TemperatureFieldBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class TemperatureFieldBenchmark {
+    private static final float[] CORNERS = {24.5f, 27.0f, 29.5f, 31.0f};
+
+    @Param({"64", "256"})
+    int size;
+
+    private float[] field;
+    private int[] argb;
+    private int tile;
+
+    @Setup
+    public void setUp() {
+        field = new float[size * size];
+        argb = new int[size * size];
+        TemperatureField.interpolate(14, 13_800, 7_600, CORNERS, field, size);
+    }
+
+    @Benchmark
+    public float[] interpolate() {
+        int t = tile++;
+        TemperatureField.interpolate(14, 13_800 + t % 16, 7_600 + t / 16 % 16, CORNERS, field, size);
+        return field;
+    }
+
+    @Benchmark
+    public int[] colorize() {
+        TemperatureField.colorize(field, argb, field.length);
+        return argb;
+    }
+}
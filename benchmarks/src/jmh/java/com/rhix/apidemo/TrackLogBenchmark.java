@@ -0,0 +1,101 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Append cost per fix (one write() each, as TrackRecorder does), replay time on open, and
+// streaming GPX export of a day-long recording at one fix per second.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=TrackLogBenchmark
+@BenchmarkMode(Mode.AverageTime)
+public class TrackLogBenchmark {
+    private static final int DAY_FIXES = 86_400;
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    // A log recorded for a day
+    @State(Scope.Benchmark)
+    public static class Day {
+        File file;
+        File gpx;
+        TrackLog log;
+
+        @Setup
+        public void setUp() throws IOException {
+            file = File.createTempFile("track", ".log");
+            file.delete();
+            gpx = File.createTempFile("track", ".gpx");
+            try (TrackLog log = TrackLog.open(file)) {
+                Fixtures.appendWalk(log, DAY_FIXES, START_TIME);
+            }
+            log = TrackLog.open(file);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            log.close();
+            file.delete();
+            gpx.delete();
+        }
+    }
+
+    // A log being recorded; a fresh file per iteration
+    @State(Scope.Thread)
+    public static class Recording {
+        File file;
+        TrackLog log;
+        int fix;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            file = File.createTempFile("recording", ".log");
+            file.delete();
+            log = TrackLog.open(file);
+            fix = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.close();
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void append(Recording recording) throws IOException {
+        int i = recording.fix++;
+        recording.log.append(10.6683280 + (i & 1023) * 0.0000093, 122.9584440 + (i & 1023) * 0.0000071, START_TIME + i * 1000L);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int open(Day day) throws IOException {
+        try (TrackLog log = TrackLog.open(day.file)) {
+            return log.size();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long writeGpx(Day day) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(day.gpx), StandardCharsets.UTF_8))) {
+            day.log.writeGpx(out);
+        }
+        return day.gpx.length();
+    }
+}
@@ -0,0 +1,106 @@
+package com.rhix.apidemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// WeatherCache.get on each of its paths, with direct executors and a fetcher that answers
+// at once, so the numbers are the cache's own overhead: a memory hit, a disk hit (the cell
+// was evicted from memory but is still on disk), and a miss on an expired entry.
+// Run with ./gradlew :benchmarks:jmh -PjmhIncludes=WeatherCacheBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class WeatherCacheBenchmark {
+    private static final Executor DIRECT = Runnable::run;
+    private static final int CELLS = 1024;
+    // Cells at precision 6 are about 1.2 x 0.6 km; step well past that
+    private static final double CELL_STEP = 0.02;
+
+    private static final WeatherCache.Callback IGNORE = new WeatherCache.Callback() {
+        @Override
+        public void onWeather(WeatherSnapshot snapshot) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new AssertionError(t);
+        }
+    };
+
+    private static final WeatherCache.Fetcher INSTANT = (latitude, longitude, callback) -> {
+        callback.onWeather(new WeatherSnapshot(27.5, System.currentTimeMillis()));
+        return Cancellable.NONE;
+    };
+
+    private File dir;
+    // Holds every cell in memory
+    private WeatherCache warm;
+    // Same cells on disk but only one in memory
+    private WeatherCache cold;
+    // Same cells, every entry already expired
+    private WeatherCache expired;
+    private int lookup;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("weather").toFile();
+        warm = new WeatherCache(dir, WeatherCache.DEFAULT_PRECISION, WeatherCache.DEFAULT_TTL_MILLIS, CELLS,
+                INSTANT, DIRECT, DIRECT);
+        for (int i = 0; i < CELLS; i++) {
+            warm.get(latitude(i), longitude(i), IGNORE);
+        }
+        cold = new WeatherCache(dir, WeatherCache.DEFAULT_PRECISION, WeatherCache.DEFAULT_TTL_MILLIS, 1,
+                INSTANT, DIRECT, DIRECT);
+        expired = new WeatherCache(dir, WeatherCache.DEFAULT_PRECISION, 0, CELLS, INSTANT, DIRECT, DIRECT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static double latitude(int i) {
+        return 10.0 + (i % 32) * CELL_STEP;
+    }
+
+    private static double longitude(int i) {
+        return 122.0 + (i / 32) * CELL_STEP;
+    }
+
+    @Benchmark
+    public Cancellable memoryHit() {
+        int i = lookup++ & (CELLS - 1);
+        return warm.get(latitude(i), longitude(i), IGNORE);
+    }
+
+    @Benchmark
+    public Cancellable diskHit() {
+        int i = lookup++ & (CELLS - 1);
+        return cold.get(latitude(i), longitude(i), IGNORE);
+    }
+
+    // Reads the stale entry from disk, fetches, and writes the new one
+    @Benchmark
+    public Cancellable miss() {
+        int i = lookup++ & (CELLS - 1);
+        return expired.get(latitude(i), longitude(i), IGNORE);
+    }
+}
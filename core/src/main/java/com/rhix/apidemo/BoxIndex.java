@@ -0,0 +1,230 @@
+package com.rhix.apidemo;
+
+// Static R-tree over axis-aligned boxes, bulk-loaded with Sort-Tile-Recursive packing: items are
+// sorted into vertical slices by centre x, each slice by centre y, and every run of NODE_SIZE
+// becomes a node; the same packing is repeated over the nodes until one root is left. Nodes
+// come out nearly full and barely overlapping, so a query touches few of them. Coordinates are
+// whatever the caller uses (normalized mercator in this app).
+public class BoxIndex {
+    public interface Visitor {
+        void visit(int item);
+    }
+
+    static final int NODE_SIZE = 16;
+
+    private final double[] itemMinX, itemMinY, itemMaxX, itemMaxY;
+    private final int itemCount;
+
+    // Node boxes; children of node i are children[childStart[i] .. childStart[i] + childCount[i]),
+    // item ids for leaves (i < leafCount) and node ids otherwise
+    private double[] nodeMinX, nodeMinY, nodeMaxX, nodeMaxY;
+    private int[] childStart, childCount;
+    private int[] children;
+    private int nodeCount;
+    private int leafCount;
+    private int childSize;
+    private int root = -1;
+    private int height;
+
+    private BoxIndex(double[] minX, double[] minY, double[] maxX, double[] maxY, int count) {
+        this.itemMinX = minX;
+        this.itemMinY = minY;
+        this.itemMaxX = maxX;
+        this.itemMaxY = maxY;
+        this.itemCount = count;
+    }
+
+    // Takes ownership of the arrays; item i is the box (minX[i], minY[i]) - (maxX[i], maxY[i])
+    public static BoxIndex build(double[] minX, double[] minY, double[] maxX, double[] maxY, int count) {
+        BoxIndex index = new BoxIndex(minX, minY, maxX, maxY, count);
+        index.pack();
+        return index;
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Visits every item whose box intersects the query box (edges included); returns how many.
+    // Recurses once per level, so a query allocates nothing.
+    public int query(double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        if (root < 0) {
+            return 0;
+        }
+        return query(root, minX, minY, maxX, maxY, visitor);
+    }
+
+    private int query(int node, double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        int visited = 0;
+        int first = childStart[node];
+        int last = first + childCount[node];
+        if (node < leafCount) {
+            for (int i = first; i < last; i++) {
+                int item = children[i];
+                if (itemMaxX[item] >= minX && itemMinX[item] <= maxX
+                        && itemMaxY[item] >= minY && itemMinY[item] <= maxY) {
+                    visitor.visit(item);
+                    visited++;
+                }
+            }
+        } else {
+            for (int i = first; i < last; i++) {
+                int child = children[i];
+                if (nodeMaxX[child] >= minX && nodeMinX[child] <= maxX
+                        && nodeMaxY[child] >= minY && nodeMinY[child] <= maxY) {
+                    visited += query(child, minX, minY, maxX, maxY, visitor);
+                }
+            }
+        }
+        return visited;
+    }
+
+    private void pack() {
+        if (itemCount == 0) {
+            return;
+        }
+        // Every level has at most 1/15 as many nodes as the one below it, plus one partial node
+        int capacity = itemCount / (NODE_SIZE - 1) + 32;
+        nodeMinX = new double[capacity];
+        nodeMinY = new double[capacity];
+        nodeMaxX = new double[capacity];
+        nodeMaxY = new double[capacity];
+        childStart = new int[capacity];
+        childCount = new int[capacity];
+        children = new int[itemCount + capacity];
+
+        int[] level = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            level[i] = i;
+        }
+        double[] minX = itemMinX, minY = itemMinY, maxX = itemMaxX, maxY = itemMaxY;
+        int levelSize = itemCount;
+        boolean leaves = true;
+        while (true) {
+            sortTiles(level, levelSize, minX, minY, maxX, maxY);
+            int firstNode = nodeCount;
+            for (int start = 0; start < levelSize; start += NODE_SIZE) {
+                int end = Math.min(start + NODE_SIZE, levelSize);
+                addNode(level, start, end, minX, minY, maxX, maxY);
+            }
+            if (leaves) {
+                leafCount = nodeCount;
+                leaves = false;
+            }
+            height++;
+            int created = nodeCount - firstNode;
+            if (created == 1) {
+                root = firstNode;
+                return;
+            }
+            level = new int[created];
+            for (int i = 0; i < created; i++) {
+                level[i] = firstNode + i;
+            }
+            levelSize = created;
+            minX = nodeMinX;
+            minY = nodeMinY;
+            maxX = nodeMaxX;
+            maxY = nodeMaxY;
+        }
+    }
+
+    private void addNode(int[] level, int start, int end, double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int node = nodeCount++;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        childStart[node] = childSize;
+        childCount[node] = end - start;
+        for (int i = start; i < end; i++) {
+            int id = level[i];
+            children[childSize++] = id;
+            x0 = Math.min(x0, minX[id]);
+            y0 = Math.min(y0, minY[id]);
+            x1 = Math.max(x1, maxX[id]);
+            y1 = Math.max(y1, maxY[id]);
+        }
+        nodeMinX[node] = x0;
+        nodeMinY[node] = y0;
+        nodeMaxX[node] = x1;
+        nodeMaxY[node] = y1;
+    }
+
+    // Orders ids so consecutive runs of NODE_SIZE are STR tiles
+    private static void sortTiles(int[] ids, int size, double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        double[] centerX = new double[size];
+        double[] centerY = new double[size];
+        for (int i = 0; i < size; i++) {
+            centerX[i] = minX[ids[i]] + maxX[ids[i]];
+            centerY[i] = minY[ids[i]] + maxY[ids[i]];
+        }
+        sort(ids, centerX, centerY, 0, size - 1, true);
+        int nodes = (size + NODE_SIZE - 1) / NODE_SIZE;
+        int slices = (int) Math.ceil(Math.sqrt(nodes));
+        int sliceSize = slices * NODE_SIZE;
+        for (int start = 0; start < size; start += sliceSize) {
+            sort(ids, centerX, centerY, start, Math.min(start + sliceSize, size) - 1, false);
+        }
+    }
+
+    // Quicksort of ids (with their centre keys kept alongside) by x or y
+    private static void sort(int[] ids, double[] xs, double[] ys, int low, int high, boolean byX) {
+        while (high - low > 16) {
+            double[] keys = byX ? xs : ys;
+            int mid = (low + high) >>> 1;
+            // Median of three as pivot
+            if (keys[mid] < keys[low]) {
+                swap(ids, xs, ys, mid, low);
+            }
+            if (keys[high] < keys[low]) {
+                swap(ids, xs, ys, high, low);
+            }
+            if (keys[high] < keys[mid]) {
+                swap(ids, xs, ys, high, mid);
+            }
+            double pivot = keys[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(ids, xs, ys, i++, j--);
+                }
+            }
+            // Recurse into the smaller side, loop on the larger
+            if (j - low < high - i) {
+                sort(ids, xs, ys, low, j, byX);
+                low = i;
+            } else {
+                sort(ids, xs, ys, i, high, byX);
+                high = j;
+            }
+        }
+        double[] keys = byX ? xs : ys;
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && keys[j] < keys[j - 1]; j--) {
+                swap(ids, xs, ys, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(int[] ids, double[] xs, double[] ys, int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+        double y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+    }
+}
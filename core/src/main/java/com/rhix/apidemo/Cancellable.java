@@ -0,0 +1,8 @@
+package com.rhix.apidemo;
+
+// Handle for an asynchronous request that the caller may no longer need
+public interface Cancellable {
+    Cancellable NONE = () -> { };
+
+    void cancel();
+}
@@ -0,0 +1,106 @@
+package com.rhix.apidemo;
+
+// Stops calls to an endpoint that keeps failing. After failureThreshold failures in a row the
+// breaker opens and rejects calls for openMillis; then a single trial call is let through
+// (half-open). A successful trial closes the breaker, a failed one opens it again for twice as
+// long, up to maxOpenMillis. Time is passed in so it can be tested.
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private long opened;
+    private long rejected;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, long maxOpenMillis) {
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = openMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.openMillis = openMillis;
+    }
+
+    // False if the call must not be made; a true answer in HALF_OPEN makes it the trial call
+    public synchronized boolean allowRequest(long nowMillis) {
+        if (state == State.OPEN && nowMillis - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            openMillis = baseOpenMillis;
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized void onFailure(long nowMillis) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, maxOpenMillis);
+            open(nowMillis);
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open(nowMillis);
+        }
+    }
+
+    // A trial call that ended without an answer either way (e.g. cancelled)
+    public synchronized void onAbandoned() {
+        trialInFlight = false;
+    }
+
+    private void open(long nowMillis) {
+        state = State.OPEN;
+        openedAt = nowMillis;
+        trialInFlight = false;
+        opened++;
+    }
+
+    public synchronized State getState(long nowMillis) {
+        if (state == State.OPEN && nowMillis - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    // How long until a call will be let through again (0 if one would be now)
+    public synchronized long millisUntilRetry(long nowMillis) {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openedAt + openMillis - nowMillis);
+    }
+
+    public synchronized long getOpenedCount() {
+        return opened;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{state=" + state + ", consecutiveFailures=" + consecutiveFailures
+                + ", opened=" + opened + ", rejected=" + rejected + "}";
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhix.apidemo;
+
+// Wall-clock time in milliseconds, swapped for a fake in tests
+public interface Clock {
+    Clock SYSTEM = System::currentTimeMillis;
+
+    long nowMillis();
+}
@@ -0,0 +1,152 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+
+// Hierarchical grid clustering. Points are binned into cells of radiusPx screen pixels at
+// maxZoom; each lower zoom merges 2x2 cells of the level above, so every level is built
+// from the previous one rather than from the raw points. Levels are stored as primitive
+// arrays sorted by (row, column), which makes a viewport query a few binary searches.
+public class ClusterIndex {
+    public interface Visitor {
+        // pointIndex is the original point for single-point clusters, -1 otherwise
+        void visit(double latitude, double longitude, int count, int pointIndex);
+    }
+
+    private static class Level {
+        long[] keys;      // (row << 32) | column, ascending
+        double[] sumX;    // sums of normalized mercator x/y, divided by count for the centroid
+        double[] sumY;
+        int[] counts;
+        int[] pointIndex;
+    }
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final int radiusPx;
+    private final Level[] levels;
+
+    private ClusterIndex(int minZoom, int maxZoom, int radiusPx, Level[] levels) {
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.radiusPx = radiusPx;
+        this.levels = levels;
+    }
+
+    public static ClusterIndex build(double[] latitudes, double[] longitudes, int size,
+                                     int minZoom, int maxZoom, int radiusPx) {
+        return build(PointStore.wrap(latitudes, longitudes, size), minZoom, maxZoom, radiusPx);
+    }
+
+    public static ClusterIndex build(PointStore points, int minZoom, int maxZoom, int radiusPx) {
+        int size = points.size();
+        Level[] levels = new Level[maxZoom - minZoom + 1];
+        double cellSize = cellSize(radiusPx, maxZoom);
+
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = TileMath.mercatorX(points.getLongitude(i));
+            ys[i] = TileMath.mercatorY(points.getLatitude(i));
+            keys[i] = cellKey((long) (ys[i] / cellSize), (long) (xs[i] / cellSize));
+        }
+        levels[maxZoom - minZoom] = aggregate(keys, xs, ys, null, null, size);
+
+        for (int zoom = maxZoom - 1; zoom >= minZoom; zoom--) {
+            Level child = levels[zoom + 1 - minZoom];
+            int n = child.keys.length;
+            long[] parentKeys = new long[n];
+            for (int i = 0; i < n; i++) {
+                long key = child.keys[i];
+                parentKeys[i] = cellKey((key >>> 32) >> 1, (key & 0xffffffffL) >> 1);
+            }
+            levels[zoom - minZoom] = aggregate(parentKeys, child.sumX, child.sumY, child.counts, child.pointIndex, n);
+        }
+        return new ClusterIndex(minZoom, maxZoom, radiusPx, levels);
+    }
+
+    // Groups items by key. counts/pointIndex are null when the items are raw points.
+    private static Level aggregate(long[] keys, double[] sumX, double[] sumY, int[] counts, int[] pointIndex, int n) {
+        long[] unique = Arrays.copyOf(keys, n);
+        Arrays.sort(unique);
+        int u = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || unique[i] != unique[i - 1]) {
+                unique[u++] = unique[i];
+            }
+        }
+
+        Level level = new Level();
+        level.keys = Arrays.copyOf(unique, u);
+        level.sumX = new double[u];
+        level.sumY = new double[u];
+        level.counts = new int[u];
+        level.pointIndex = new int[u];
+        for (int i = 0; i < n; i++) {
+            int slot = Arrays.binarySearch(level.keys, keys[i]);
+            level.sumX[slot] += sumX[i];
+            level.sumY[slot] += sumY[i];
+            level.counts[slot] += counts == null ? 1 : counts[i];
+            level.pointIndex[slot] = counts == null ? i : pointIndex[i];
+        }
+        for (int slot = 0; slot < u; slot++) {
+            if (level.counts[slot] > 1) {
+                level.pointIndex[slot] = -1;
+            }
+        }
+        return level;
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    public int getClusterCount(int zoom) {
+        return levels[clampZoom(zoom) - minZoom].keys.length;
+    }
+
+    // Visits the clusters of the given zoom whose cell intersects the box; returns how many
+    public int query(int zoom, double south, double west, double north, double east, Visitor visitor) {
+        int z = clampZoom(zoom);
+        Level level = levels[z - minZoom];
+        double cellSize = cellSize(radiusPx, z);
+        long minRow = (long) (TileMath.mercatorY(north) / cellSize);
+        long maxRow = (long) (TileMath.mercatorY(south) / cellSize);
+        long minCol = (long) (TileMath.mercatorX(west) / cellSize);
+        long maxCol = (long) (TileMath.mercatorX(east) / cellSize);
+        int visited = 0;
+
+        for (long row = minRow; row <= maxRow; row++) {
+            long first = cellKey(row, minCol);
+            long last = cellKey(row, maxCol);
+            int i = Arrays.binarySearch(level.keys, first);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < level.keys.length && level.keys[i] <= last; i++) {
+                int count = level.counts[i];
+                visitor.visit(TileMath.latitudeOf(level.sumY[i] / count), TileMath.longitudeOf(level.sumX[i] / count),
+                        count, level.pointIndex[i]);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private int clampZoom(int zoom) {
+        return Math.max(minZoom, Math.min(maxZoom, zoom));
+    }
+
+    // Cell edge in normalized mercator units; halving the zoom doubles it, so levels nest
+    private static double cellSize(int radiusPx, int zoom) {
+        return radiusPx / (256.0 * (1L << zoom));
+    }
+
+    private static long cellKey(long row, long column) {
+        return (row << 32) | column;
+    }
+}
@@ -0,0 +1,213 @@
+package com.rhix.apidemo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Draw times of a map's overlays, frame by frame. Overlays are grouped by name (usually their
+// class), so a hundred Markers show up as one line. Each map draw is bracketed by beginFrame and
+// endFrame; the vsync interval that follows it (from Choreographer) tells whether the frame was
+// late, and a late frame is blamed on the overlay group that took longest in it. Not thread-safe:
+// record and report on the UI thread.
+public class DrawProfile {
+    public static final long FRAME_BUDGET_NANOS = 16_666_667L;
+    private static final int MAX_ZOOM = 30;
+
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+    private final List<Group> groups = new ArrayList<>();
+    private long[] frameNanos = new long[8];
+
+    private final LatencyHistogram drawTimes = new LatencyHistogram();
+    private final ZoomStats[] zooms = new ZoomStats[MAX_ZOOM + 1];
+    private long frames;
+    private long slowDraws;
+    private long lateFrames;
+    private long intervalsSeen;
+
+    // The last committed frame, waiting for its vsync interval
+    private boolean awaitingInterval;
+    private int lastZoom;
+    private int lastSlowestGroup = -1;
+
+    private int frameZoom;
+    private long frameStart;
+
+    private static final class Group {
+        final String name;
+        final LatencyHistogram perFrame = new LatencyHistogram();
+        int instances;
+        long totalNanos;
+        long blamedFrames;
+
+        Group(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class ZoomStats {
+        final LatencyHistogram drawTimes = new LatencyHistogram();
+        long lateFrames;
+    }
+
+    // Counts one more overlay under the name and returns the group's slot
+    public int register(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = groups.size();
+            slots.put(name, slot);
+            groups.add(new Group(name));
+            if (frameNanos.length < groups.size()) {
+                frameNanos = Arrays.copyOf(frameNanos, groups.size() * 2);
+            }
+        }
+        groups.get(slot).instances++;
+        return slot;
+    }
+
+    public void beginFrame(int zoom, long nowNanos) {
+        frameZoom = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        frameStart = nowNanos;
+        Arrays.fill(frameNanos, 0, groups.size(), 0);
+    }
+
+    public void recordDraw(int slot, long nanos) {
+        frameNanos[slot] += nanos;
+    }
+
+    public void endFrame(long nowNanos) {
+        long drawNanos = nowNanos - frameStart;
+        frames++;
+        drawTimes.record(drawNanos);
+        if (drawNanos > FRAME_BUDGET_NANOS) {
+            slowDraws++;
+        }
+        int slowest = -1;
+        for (int i = 0; i < groups.size(); i++) {
+            long nanos = frameNanos[i];
+            if (nanos > 0) {
+                Group group = groups.get(i);
+                group.perFrame.record(nanos);
+                group.totalNanos += nanos;
+                if (slowest < 0 || nanos > frameNanos[slowest]) {
+                    slowest = i;
+                }
+            }
+        }
+        zoom(frameZoom).drawTimes.record(drawNanos);
+        awaitingInterval = true;
+        lastZoom = frameZoom;
+        lastSlowestGroup = slowest;
+    }
+
+    // Time between two vsync callbacks. Only the interval right after a map draw is attributed,
+    // so an idle map does not count as late.
+    public void recordFrameInterval(long nanos) {
+        if (!awaitingInterval) {
+            return;
+        }
+        awaitingInterval = false;
+        intervalsSeen++;
+        if (nanos > FRAME_BUDGET_NANOS) {
+            lateFrames++;
+            zoom(lastZoom).lateFrames++;
+            if (lastSlowestGroup >= 0) {
+                groups.get(lastSlowestGroup).blamedFrames++;
+            }
+        }
+    }
+
+    private ZoomStats zoom(int zoom) {
+        if (zooms[zoom] == null) {
+            zooms[zoom] = new ZoomStats();
+        }
+        return zooms[zoom];
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    // Map draws that by themselves took longer than a frame
+    public long getSlowDrawCount() {
+        return slowDraws;
+    }
+
+    // Map frames whose next vsync came late
+    public long getLateFrameCount() {
+        return lateFrames;
+    }
+
+    public LatencyHistogram getDrawTimes() {
+        return drawTimes;
+    }
+
+    // Null if nothing is registered under the name
+    public LatencyHistogram getGroupDrawTimes(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? null : groups.get(slot).perFrame;
+    }
+
+    public long getBlamedFrames(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? 0 : groups.get(slot).blamedFrames;
+    }
+
+    // Groups keep their slots, but overlays have to be registered again
+    public void reset() {
+        for (Group group : groups) {
+            group.instances = 0;
+            group.perFrame.reset();
+            group.totalNanos = 0;
+            group.blamedFrames = 0;
+        }
+        Arrays.fill(zooms, null);
+        drawTimes.reset();
+        frames = 0;
+        slowDraws = 0;
+        lateFrames = 0;
+        intervalsSeen = 0;
+        awaitingInterval = false;
+    }
+
+    // Overlay groups by total draw time, then frame times per integer zoom level
+    public String report() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(String.format(Locale.US,
+                "Jank report: %d map frames, %d late (%.1f%% of %d timed), %d draws over %.1f ms; draw p50 %.1f p95 %.1f max %.1f ms%n",
+                frames, lateFrames, intervalsSeen == 0 ? 0 : 100.0 * lateFrames / intervalsSeen, intervalsSeen,
+                slowDraws, FRAME_BUDGET_NANOS / 1e6,
+                drawTimes.getPercentileNanos(50) / 1e6, drawTimes.getPercentileNanos(95) / 1e6,
+                drawTimes.getMaxNanos() / 1e6));
+
+        List<Group> sorted = new ArrayList<>(groups);
+        Collections.sort(sorted, (a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        sb.append(String.format(Locale.US, "Overlays, slowest first:%n"));
+        for (Group group : sorted) {
+            if (group.perFrame.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.US,
+                    "  %-28s x%-4d p50 %6.2f  p95 %6.2f  max %6.2f ms  total %8.1f ms  slowest in %d late frames%n",
+                    group.name, group.instances,
+                    group.perFrame.getPercentileNanos(50) / 1e6, group.perFrame.getPercentileNanos(95) / 1e6,
+                    group.perFrame.getMaxNanos() / 1e6, group.totalNanos / 1e6, group.blamedFrames));
+        }
+
+        sb.append(String.format(Locale.US, "By zoom:%n"));
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            ZoomStats stats = zooms[z];
+            if (stats == null) {
+                continue;
+            }
+            sb.append(String.format(Locale.US, "  z%-2d %6d frames  %5d late  draw p50 %6.2f  p95 %6.2f  max %6.2f ms%n",
+                    z, stats.drawTimes.getCount(), stats.lateFrames,
+                    stats.drawTimes.getPercentileNanos(50) / 1e6, stats.drawTimes.getPercentileNanos(95) / 1e6,
+                    stats.drawTimes.getMaxNanos() / 1e6));
+        }
+        return sb.toString();
+    }
+}
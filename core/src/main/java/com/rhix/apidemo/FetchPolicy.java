@@ -0,0 +1,247 @@
+package com.rhix.apidemo;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// How one endpoint is called: transient failures (network errors, 5xx, 429) are retried up to
+// maxAttempts times with jittered exponential backoff, and a CircuitBreaker stops calls
+// altogether while the endpoint keeps failing, so an outage costs one quick rejection per
+// caller instead of a stream of timeouts. Other errors are passed straight through.
+public class FetchPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(8);
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final long DEFAULT_MAX_OPEN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    public interface Result<T> {
+        void onSuccess(T value);
+
+        void onFailure(Throwable t);
+    }
+
+    // One try; must report exactly once unless cancelled
+    public interface Attempt<T> {
+        Cancellable start(Result<T> result);
+    }
+
+    // Thrown at callers while the breaker is open
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(String endpoint, long retryInMillis) {
+            super(endpoint + " is failing; not retrying for " + retryInMillis + " ms");
+        }
+    }
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final CircuitBreaker breaker;
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+    private final Random random;
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public FetchPolicy(String name, ScheduledExecutorService scheduler) {
+        this(name, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS,
+                new CircuitBreaker(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, DEFAULT_MAX_OPEN_MILLIS),
+                scheduler, Clock.SYSTEM, new Random());
+    }
+
+    public FetchPolicy(String name, int maxAttempts, long baseDelayMillis, long maxDelayMillis, CircuitBreaker breaker,
+                       ScheduledExecutorService scheduler, Clock clock, Random random) {
+        this.name = name;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.breaker = breaker;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    // A single attempt and a breaker that never opens, for callers that opt out
+    public static FetchPolicy once(String name) {
+        return new FetchPolicy(name, 1, 0, 0, new CircuitBreaker(Integer.MAX_VALUE, 0, 0),
+                null, Clock.SYSTEM, new Random());
+    }
+
+    public static boolean isTransient(Throwable t) {
+        if (t instanceof CircuitOpenException) {
+            return false;
+        }
+        if (t instanceof HttpStatusException) {
+            return ((HttpStatusException) t).isTransient();
+        }
+        return t instanceof IOException;
+    }
+
+    // "Full jitter": anywhere from 0 to the exponential step, so clients that failed together
+    // do not come back together
+    long backoffMillis(int retry) {
+        long step = baseDelayMillis << Math.min(retry, 20);
+        long cap = Math.min(step, maxDelayMillis);
+        synchronized (random) {
+            return (long) (random.nextDouble() * (cap + 1));
+        }
+    }
+
+    public <T> Cancellable execute(Attempt<T> attempt, Result<T> result) {
+        Execution<T> execution = new Execution<>(attempt, result);
+        execution.next();
+        return execution;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public long getAttemptCount() {
+        return attempts.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    // Calls that gave up with an error after their last attempt
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    // Calls turned away by the open breaker
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPolicy{" + name + ", attempts=" + attempts + ", retries=" + retries
+                + ", failures=" + failures + ", rejected=" + rejected + ", " + breaker + "}";
+    }
+
+    private class Execution<T> implements Cancellable {
+        private final Attempt<T> attempt;
+        private final Result<T> result;
+        private int tries;
+        private boolean cancelled;
+        private boolean trying;
+        private Cancellable current = Cancellable.NONE;
+        private ScheduledFuture<?> pendingRetry;
+
+        Execution(Attempt<T> attempt, Result<T> result) {
+            this.attempt = attempt;
+            this.result = result;
+        }
+
+        void next() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                pendingRetry = null;
+            }
+            long now = clock.nowMillis();
+            if (!breaker.allowRequest(now)) {
+                rejected.incrementAndGet();
+                result.onFailure(new CircuitOpenException(name, breaker.millisUntilRetry(now)));
+                return;
+            }
+            attempts.incrementAndGet();
+            final int attemptNumber;
+            synchronized (this) {
+                attemptNumber = ++tries;
+                trying = true;
+            }
+            Cancellable call = attempt.start(new Result<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    if (finishTry(attemptNumber)) {
+                        breaker.onSuccess();
+                        result.onSuccess(value);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (finishTry(attemptNumber)) {
+                        failed(t, attemptNumber);
+                    }
+                }
+            });
+            synchronized (this) {
+                if (trying && tries == attemptNumber) {
+                    current = call;
+                }
+            }
+        }
+
+        // False if the try was cancelled or already reported
+        private synchronized boolean finishTry(int attemptNumber) {
+            if (cancelled || !trying || tries != attemptNumber) {
+                return false;
+            }
+            trying = false;
+            current = Cancellable.NONE;
+            return true;
+        }
+
+        private void failed(Throwable t, int attemptNumber) {
+            if (!isTransient(t)) {
+                // The endpoint answered; it is up even if this request was wrong
+                breaker.onSuccess();
+                failures.incrementAndGet();
+                result.onFailure(t);
+                return;
+            }
+            breaker.onFailure(clock.nowMillis());
+            if (attemptNumber >= maxAttempts) {
+                failures.incrementAndGet();
+                result.onFailure(t);
+                return;
+            }
+            retries.incrementAndGet();
+            long delay = backoffMillis(attemptNumber - 1);
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                pendingRetry = scheduler.schedule(this::next, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Cancellable call;
+            boolean abandonedTry;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                call = current;
+                abandonedTry = trying;
+                trying = false;
+                current = Cancellable.NONE;
+                if (pendingRetry != null) {
+                    pendingRetry.cancel(false);
+                }
+            }
+            if (abandonedTry) {
+                breaker.onAbandoned();
+            }
+            call.cancel();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.rhix.apidemo;
+
+public final class GeoMath {
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    public static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    private GeoMath() {
+    }
+
+    // Great-circle (haversine) distance in metres
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Degrees of longitude spanned by the given distance at the given latitude
+    public static double metersToLongitudeDegrees(double meters, double latitude) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        return meters / (METERS_PER_DEGREE_LAT * Math.max(cos, 1e-6));
+    }
+
+    public static double metersToLatitudeDegrees(double meters) {
+        return meters / METERS_PER_DEGREE_LAT;
+    }
+}
@@ -0,0 +1,20 @@
+package com.rhix.apidemo;
+
+// Decoded by ResponseAdapters.GeocodeResponseAdapter
+public final class GeocodeResponse {
+    private final String name;        // City name
+    private final String country;     // Country code
+
+    public GeocodeResponse(String name, String country) {
+        this.name = name;
+        this.country = country;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+}
@@ -0,0 +1,237 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Tells which of many polygon fences a location is inside, and reports enter/exit events as
+// the location moves. Fence bounds are indexed in a BoxIndex; the map is cut into grid cells,
+// and the fences whose bounds touch the current cell are kept as the candidate list, so
+// consecutive fixes in the same cell skip the index entirely. Each candidate is then tested
+// with a bounds check and a crossing-number test. Apart from growing its buffers, update()
+// allocates nothing. Not thread-safe; call it from the thread that delivers fixes.
+public class GeofenceEngine {
+    // Grid cells are tiles at this zoom: about 600 m wide at the equator
+    static final int CELL_ZOOM = 16;
+    private static final double CELL_SIZE = 1.0 / (1 << CELL_ZOOM);
+
+    public interface Listener {
+        void onEnter(int fence);
+
+        void onExit(int fence);
+    }
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] fenceStart;
+    private final double[] fenceMinX, fenceMinY, fenceMaxX, fenceMaxY;
+    private final int fenceCount;
+    private final BoxIndex index;
+
+    // Candidates for the last cell
+    private long cell = -1;
+    private int[] candidates = new int[16];
+    private int candidateCount;
+    private final BoxIndex.Visitor collector = fence -> {
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidates.length * 2);
+        }
+        candidates[candidateCount++] = fence;
+    };
+
+    // Fences the last fix was inside, as a list and as a set; the next result is built in the spare pair
+    private int[] inside = new int[8];
+    private int insideCount;
+    private BitSet insideSet;
+    private int[] nextInside = new int[8];
+    private BitSet nextInsideSet;
+
+    private long updates;
+    private long cellChanges;
+    private long polygonTests;
+
+    private GeofenceEngine(Builder builder) {
+        xs = Arrays.copyOf(builder.xs, builder.vertexCount);
+        ys = Arrays.copyOf(builder.ys, builder.vertexCount);
+        fenceCount = builder.fenceCount;
+        fenceStart = Arrays.copyOf(builder.fenceStart, fenceCount + 1);
+        fenceMinX = new double[fenceCount];
+        fenceMinY = new double[fenceCount];
+        fenceMaxX = new double[fenceCount];
+        fenceMaxY = new double[fenceCount];
+        for (int fence = 0; fence < fenceCount; fence++) {
+            double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+            double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+            for (int i = fenceStart[fence]; i < fenceStart[fence + 1]; i++) {
+                x0 = Math.min(x0, xs[i]);
+                y0 = Math.min(y0, ys[i]);
+                x1 = Math.max(x1, xs[i]);
+                y1 = Math.max(y1, ys[i]);
+            }
+            fenceMinX[fence] = x0;
+            fenceMinY[fence] = y0;
+            fenceMaxX[fence] = x1;
+            fenceMaxY[fence] = y1;
+        }
+        // BoxIndex owns the arrays it is given
+        index = BoxIndex.build(fenceMinX.clone(), fenceMinY.clone(), fenceMaxX.clone(), fenceMaxY.clone(), fenceCount);
+        insideSet = new BitSet(fenceCount);
+        nextInsideSet = new BitSet(fenceCount);
+    }
+
+    public int size() {
+        return fenceCount;
+    }
+
+    // Moves to a new fix, reports the fences entered and left since the previous one, and
+    // returns how many fences contain the fix. The first fix enters every fence it is inside.
+    public int update(double latitude, double longitude, Listener listener) {
+        double x = TileMath.mercatorX(longitude);
+        double y = TileMath.mercatorY(latitude);
+        updates++;
+
+        long fixCell = ((long) Math.floor(y / CELL_SIZE) << 32) | (long) Math.floor(x / CELL_SIZE);
+        if (fixCell != cell) {
+            cell = fixCell;
+            cellChanges++;
+            candidateCount = 0;
+            double cellX = Math.floor(x / CELL_SIZE) * CELL_SIZE;
+            double cellY = Math.floor(y / CELL_SIZE) * CELL_SIZE;
+            index.query(cellX, cellY, cellX + CELL_SIZE, cellY + CELL_SIZE, collector);
+        }
+
+        int nextCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int fence = candidates[i];
+            if (containsMercator(fence, x, y)) {
+                if (nextCount == nextInside.length) {
+                    nextInside = Arrays.copyOf(nextInside, nextInside.length * 2);
+                }
+                nextInside[nextCount++] = fence;
+                nextInsideSet.set(fence);
+            }
+        }
+
+        for (int i = 0; i < nextCount; i++) {
+            if (!insideSet.get(nextInside[i])) {
+                listener.onEnter(nextInside[i]);
+            }
+        }
+        for (int i = 0; i < insideCount; i++) {
+            if (!nextInsideSet.get(inside[i])) {
+                listener.onExit(inside[i]);
+            }
+            insideSet.clear(inside[i]);
+        }
+
+        int[] list = inside;
+        inside = nextInside;
+        nextInside = list;
+        BitSet set = insideSet;
+        insideSet = nextInsideSet;
+        nextInsideSet = set;
+        insideCount = nextCount;
+        return nextCount;
+    }
+
+    // Fence ids containing the last fix, in no particular order
+    public int getInside(int[] out) {
+        System.arraycopy(inside, 0, out, 0, insideCount);
+        return insideCount;
+    }
+
+    public boolean isInside(int fence) {
+        return insideSet.get(fence);
+    }
+
+    // Stateless test of one fence
+    public boolean contains(int fence, double latitude, double longitude) {
+        return containsMercator(fence, TileMath.mercatorX(longitude), TileMath.mercatorY(latitude));
+    }
+
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    public long getCellChangeCount() {
+        return cellChanges;
+    }
+
+    public long getPolygonTestCount() {
+        return polygonTests;
+    }
+
+    // Crossing number: count ring edges crossed by a ray from the point towards +x. The ring is
+    // implicitly closed from its last vertex back to its first.
+    private boolean containsMercator(int fence, double x, double y) {
+        if (x < fenceMinX[fence] || x > fenceMaxX[fence] || y < fenceMinY[fence] || y > fenceMaxY[fence]) {
+            return false;
+        }
+        polygonTests++;
+        int first = fenceStart[fence];
+        int end = fenceStart[fence + 1];
+        boolean in = false;
+        double ax = xs[end - 1];
+        double ay = ys[end - 1];
+        for (int i = first; i < end; i++) {
+            double bx = xs[i];
+            double by = ys[i];
+            // Half-open in y, so a vertex on the ray is counted once
+            if ((ay > y) != (by > y) && x < ax + (y - ay) * (bx - ax) / (by - ay)) {
+                in = !in;
+            }
+            ax = bx;
+            ay = by;
+        }
+        return in;
+    }
+
+    public static class Builder {
+        private double[] xs = new double[256];
+        private double[] ys = new double[256];
+        private int vertexCount;
+        private int[] fenceStart = new int[17];
+        private int fenceCount;
+
+        // Ring as lat, lon pairs; the last vertex may or may not repeat the first. Returns the fence id.
+        public int addFence(double... latLon) {
+            return addFence(PointStore.wrap(latLonColumn(latLon, 0), latLonColumn(latLon, 1), latLon.length / 2));
+        }
+
+        public int addFence(PointStore ring) {
+            int n = ring.size();
+            if (n > 1 && ring.getLatitude(0) == ring.getLatitude(n - 1) && ring.getLongitude(0) == ring.getLongitude(n - 1)) {
+                n--;
+            }
+            if (n < 3) {
+                throw new IllegalArgumentException("A fence needs at least three vertices");
+            }
+            if (vertexCount + n > xs.length) {
+                int capacity = Math.max(vertexCount + n, xs.length * 2);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+            if (fenceCount + 2 > fenceStart.length) {
+                fenceStart = Arrays.copyOf(fenceStart, fenceStart.length * 2);
+            }
+            for (int i = 0; i < n; i++) {
+                xs[vertexCount] = TileMath.mercatorX(ring.getLongitude(i));
+                ys[vertexCount] = TileMath.mercatorY(ring.getLatitude(i));
+                vertexCount++;
+            }
+            fenceStart[++fenceCount] = vertexCount;
+            return fenceCount - 1;
+        }
+
+        public GeofenceEngine build() {
+            return new GeofenceEngine(this);
+        }
+
+        private static double[] latLonColumn(double[] latLon, int column) {
+            double[] values = new double[latLon.length / 2];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = latLon[2 * i + column];
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+
+// Polygons and polylines in normalized mercator space, cut into indexed items for drawing.
+// Every shape is split into stroke chunks of at most CHUNK_VERTICES vertices (neighbouring
+// chunks share their end vertex), and every polygon also gets one fill item spanning its whole
+// ring, since a fill needs the closed outline. All items go into a BoxIndex, so a viewport
+// query returns only the chunks on screen. Vertices carry their Douglas-Peucker significance,
+// so toPixels can drop those that would not move the line by a visible amount at a zoom.
+public class GeometryStore {
+    public static final int CHUNK_VERTICES = 64;
+
+    public interface Visitor {
+        void visit(int item);
+    }
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] significance;
+    private final int shapeCount;
+
+    // Per item: vertex range [start, end], owning shape, fill or stroke, bounds
+    private final int[] itemStart;
+    private final int[] itemEnd;
+    private final int[] itemShape;
+    private final boolean[] itemFill;
+    private final double[] itemMinX, itemMinY, itemMaxX, itemMaxY;
+    private final int itemCount;
+    private final BoxIndex index;
+
+    private GeometryStore(Builder builder) {
+        xs = Arrays.copyOf(builder.xs, builder.vertexCount);
+        ys = Arrays.copyOf(builder.ys, builder.vertexCount);
+        significance = Arrays.copyOf(builder.significance, builder.vertexCount);
+        shapeCount = builder.shapeCount;
+
+        int capacity = builder.shapeCount + builder.vertexCount / (CHUNK_VERTICES - 1) + builder.shapeCount;
+        itemStart = new int[capacity];
+        itemEnd = new int[capacity];
+        itemShape = new int[capacity];
+        itemFill = new boolean[capacity];
+        double[] minX = new double[capacity], minY = new double[capacity];
+        double[] maxX = new double[capacity], maxY = new double[capacity];
+        int items = 0;
+        for (int shape = 0; shape < builder.shapeCount; shape++) {
+            int first = builder.shapeStart[shape];
+            int last = builder.shapeStart[shape + 1] - 1;
+            if (builder.shapeClosed[shape]) {
+                items = addItem(items, shape, first, last, true, minX, minY, maxX, maxY);
+            }
+            for (int start = first; start < last; start += CHUNK_VERTICES - 1) {
+                items = addItem(items, shape, start, Math.min(start + CHUNK_VERTICES - 1, last), false,
+                        minX, minY, maxX, maxY);
+            }
+        }
+        itemCount = items;
+        itemMinX = minX;
+        itemMinY = minY;
+        itemMaxX = maxX;
+        itemMaxY = maxY;
+        index = BoxIndex.build(minX, minY, maxX, maxY, items);
+    }
+
+    private int addItem(int item, int shape, int start, int end, boolean fill,
+                        double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        itemStart[item] = start;
+        itemEnd[item] = end;
+        itemShape[item] = shape;
+        itemFill[item] = fill;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = start; i <= end; i++) {
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        minX[item] = x0;
+        minY[item] = y0;
+        maxX[item] = x1;
+        maxY[item] = y1;
+        return item + 1;
+    }
+
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getVertexCount() {
+        return xs.length;
+    }
+
+    public int getItemShape(int item) {
+        return itemShape[item];
+    }
+
+    public boolean isFill(int item) {
+        return itemFill[item];
+    }
+
+    // Top-left of the item's bounds, the origin of the coordinates written by toPixels
+    public double getItemMinX(int item) {
+        return itemMinX[item];
+    }
+
+    public double getItemMinY(int item) {
+        return itemMinY[item];
+    }
+
+    public double getItemWidth(int item) {
+        return itemMaxX[item] - itemMinX[item];
+    }
+
+    public double getItemHeight(int item) {
+        return itemMaxY[item] - itemMinY[item];
+    }
+
+    // Visits the items whose bounds intersect the box; returns how many
+    public int query(double south, double west, double north, double east, final Visitor visitor) {
+        return index.query(TileMath.mercatorX(west), TileMath.mercatorY(north),
+                TileMath.mercatorX(east), TileMath.mercatorY(south), visitor::visit);
+    }
+
+    // Writes the item's vertices as x, y pairs in pixels of a worldSizePx map, relative to the
+    // item's top-left. Vertices that would move the line by less than tolerancePx are skipped;
+    // the chunk's end vertices are always kept so neighbouring chunks still meet. Returns the
+    // number of vertices written; out must hold 2 * (vertices in the item).
+    public int toPixels(int item, double worldSizePx, double tolerancePx, float[] out) {
+        int start = itemStart[item];
+        int end = itemEnd[item];
+        double originX = itemMinX[item];
+        double originY = itemMinY[item];
+        double tolerance = tolerancePx / worldSizePx;
+        int n = 0;
+        for (int i = start; i <= end; i++) {
+            if (i != start && i != end && significance[i] <= tolerance) {
+                continue;
+            }
+            out[n++] = (float) ((xs[i] - originX) * worldSizePx);
+            out[n++] = (float) ((ys[i] - originY) * worldSizePx);
+        }
+        return n / 2;
+    }
+
+    public int getItemVertexCount(int item) {
+        return itemEnd[item] - itemStart[item] + 1;
+    }
+
+    public static class Builder {
+        private double[] xs = new double[256];
+        private double[] ys = new double[256];
+        private double[] significance = new double[256];
+        private int vertexCount;
+        private int[] shapeStart = new int[17];
+        private boolean[] shapeClosed = new boolean[16];
+        private int shapeCount;
+
+        // Ring as lat, lon pairs; closed even if the last vertex does not repeat the first
+        public Builder addPolygon(double... latLon) {
+            return add(latLon, true);
+        }
+
+        // Line as lat, lon pairs
+        public Builder addPolyline(double... latLon) {
+            return add(latLon, false);
+        }
+
+        public Builder addPolygon(PointStore ring) {
+            return add(ring, true);
+        }
+
+        public Builder addPolyline(PointStore line) {
+            return add(line, false);
+        }
+
+        public GeometryStore build() {
+            return new GeometryStore(this);
+        }
+
+        private Builder add(double[] latLon, boolean closed) {
+            double[] lat = new double[latLon.length / 2];
+            double[] lon = new double[latLon.length / 2];
+            for (int i = 0; i < lat.length; i++) {
+                lat[i] = latLon[2 * i];
+                lon[i] = latLon[2 * i + 1];
+            }
+            return add(PointStore.wrap(lat, lon, lat.length), closed);
+        }
+
+        private Builder add(PointStore points, boolean closed) {
+            int n = points.size();
+            if (n < 2) {
+                throw new IllegalArgumentException("A shape needs at least two vertices");
+            }
+            boolean repeatsFirst = points.getLatitude(0) == points.getLatitude(n - 1)
+                    && points.getLongitude(0) == points.getLongitude(n - 1);
+            int vertices = closed && !repeatsFirst ? n + 1 : n;
+            ensureCapacity(vertexCount + vertices);
+            if (shapeCount + 1 == shapeClosed.length) {
+                shapeClosed = Arrays.copyOf(shapeClosed, shapeClosed.length * 2);
+                shapeStart = Arrays.copyOf(shapeStart, shapeClosed.length + 1);
+            }
+
+            double[] sig = PolylineSimplifier.significance(points);
+            int base = vertexCount;
+            for (int i = 0; i < n; i++) {
+                xs[base + i] = TileMath.mercatorX(points.getLongitude(i));
+                ys[base + i] = TileMath.mercatorY(points.getLatitude(i));
+                significance[base + i] = sig[i];
+            }
+            if (vertices > n) {
+                xs[base + n] = xs[base];
+                ys[base + n] = ys[base];
+                significance[base + n] = Double.POSITIVE_INFINITY;
+            }
+            vertexCount += vertices;
+            shapeClosed[shapeCount] = closed;
+            shapeStart[++shapeCount] = vertexCount;
+            return this;
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > xs.length) {
+                int capacity = Math.max(size, xs.length * 2);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                significance = Arrays.copyOf(significance, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.rhix.apidemo;
+
+import java.io.IOException;
+
+// A response that arrived but was not a success; the status decides whether retrying can help
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    public HttpStatusException(String message, int code) {
+        super(message + ": HTTP " + code);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    // Server trouble, throttling and timeouts may clear up; other client errors will not
+    public boolean isTransient() {
+        return code >= 500 || code == 429 || code == 408;
+    }
+}
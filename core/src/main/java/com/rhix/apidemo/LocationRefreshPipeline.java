@@ -0,0 +1,167 @@
+package com.rhix.apidemo;
+
+import java.util.concurrent.TimeUnit;
+
+// Turns a stream of location fixes into weather refreshes. A refresh runs only after the device
+// has moved minDistanceMeters and minIntervalMillis have passed since the last one (or the last
+// result has gone stale), a newer refresh cancels one still in flight, and the GPS update rate
+// is lowered while the device stays put and raised again once it moves.
+public class LocationRefreshPipeline {
+    public static final float DEFAULT_MIN_DISTANCE_METERS = 500;
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Refresh in place once the cached weather would have expired anyway
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = WeatherCache.DEFAULT_TTL_MILLIS;
+
+    public static final long MOVING_UPDATE_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    public static final long STATIONARY_UPDATE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // Fixes wandering inside this radius (GPS noise) still count as standing still
+    static final float STATIONARY_RADIUS_METERS = 25;
+    static final long STATIONARY_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    public interface Fetcher {
+        // Starts a refresh for the fix; done must be run once the result (or error) is in
+        Cancellable fetch(double latitude, double longitude, Runnable done);
+    }
+
+    public interface RateController {
+        void setUpdateIntervalMillis(long millis);
+    }
+
+    private final Fetcher fetcher;
+    private final RateController rateController;
+    private final float minDistanceMeters;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+
+    private boolean hasRefreshed;
+    private double refreshLatitude, refreshLongitude;
+    private long refreshTime;
+    private Cancellable inFlight;
+    private int requestId;
+    private int completedId;
+
+    private boolean hasAnchor;
+    private double anchorLatitude, anchorLongitude;
+    private long anchorTime;
+    private boolean stationary;
+
+    private int fixCount;
+    private int refreshCount;
+    private int supersededCount;
+
+    public LocationRefreshPipeline(Fetcher fetcher, RateController rateController) {
+        this(fetcher, rateController, DEFAULT_MIN_DISTANCE_METERS, DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS);
+    }
+
+    public LocationRefreshPipeline(Fetcher fetcher, RateController rateController,
+                                   float minDistanceMeters, long minIntervalMillis, long maxIntervalMillis) {
+        this.fetcher = fetcher;
+        this.rateController = rateController;
+        this.minDistanceMeters = minDistanceMeters;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+    }
+
+    // timeMillis must be monotonic (e.g. Location.getElapsedRealtimeNanos in millis)
+    public void onLocation(double latitude, double longitude, long timeMillis) {
+        Cancellable superseded = null;
+        final int id;
+        synchronized (this) {
+            fixCount++;
+            updateRate(latitude, longitude, timeMillis);
+            if (!shouldRefresh(latitude, longitude, timeMillis)) {
+                return;
+            }
+            hasRefreshed = true;
+            refreshLatitude = latitude;
+            refreshLongitude = longitude;
+            refreshTime = timeMillis;
+            refreshCount++;
+            if (inFlight != null) {
+                superseded = inFlight;
+                inFlight = null;
+                supersededCount++;
+            }
+            id = ++requestId;
+        }
+        if (superseded != null) {
+            superseded.cancel();
+        }
+        Cancellable request = fetcher.fetch(latitude, longitude, () -> onDone(id));
+        synchronized (this) {
+            // done may already have run from inside fetch
+            if (id == requestId && id != completedId) {
+                inFlight = request;
+            }
+        }
+    }
+
+    public void stop() {
+        Cancellable request;
+        synchronized (this) {
+            request = inFlight;
+            inFlight = null;
+            requestId++;
+        }
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    public synchronized boolean isStationary() {
+        return stationary;
+    }
+
+    public synchronized boolean isRefreshing() {
+        return inFlight != null;
+    }
+
+    public synchronized int getFixCount() {
+        return fixCount;
+    }
+
+    public synchronized int getRefreshCount() {
+        return refreshCount;
+    }
+
+    public synchronized int getSupersededCount() {
+        return supersededCount;
+    }
+
+    private synchronized void onDone(int id) {
+        completedId = id;
+        if (id == requestId) {
+            inFlight = null;
+        }
+    }
+
+    private boolean shouldRefresh(double latitude, double longitude, long timeMillis) {
+        if (!hasRefreshed) {
+            return true;
+        }
+        long elapsed = timeMillis - refreshTime;
+        if (elapsed >= maxIntervalMillis) {
+            return true;
+        }
+        return elapsed >= minIntervalMillis
+                && GeoMath.distanceMeters(refreshLatitude, refreshLongitude, latitude, longitude) >= minDistanceMeters;
+    }
+
+    private void updateRate(double latitude, double longitude, long timeMillis) {
+        if (hasAnchor && GeoMath.distanceMeters(anchorLatitude, anchorLongitude, latitude, longitude) <= STATIONARY_RADIUS_METERS) {
+            if (!stationary && timeMillis - anchorTime >= STATIONARY_AFTER_MILLIS) {
+                stationary = true;
+                rateController.setUpdateIntervalMillis(STATIONARY_UPDATE_MILLIS);
+            }
+            return;
+        }
+        hasAnchor = true;
+        anchorLatitude = latitude;
+        anchorLongitude = longitude;
+        anchorTime = timeMillis;
+        if (stationary) {
+            stationary = false;
+            rateController.setUpdateIntervalMillis(MOVING_UPDATE_MILLIS);
+        }
+    }
+}
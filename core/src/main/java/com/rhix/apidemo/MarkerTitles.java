@@ -0,0 +1,21 @@
+package com.rhix.apidemo;
+
+// Marker and badge text. Titles are formatted on demand as markers come into view, so these
+// run on the draw path.
+public final class MarkerTitles {
+    private MarkerTitles() {
+    }
+
+    public static String coordinates(PointStore points, int index) {
+        return "Point: " + points.getLatitude(index) + ", " + points.getLongitude(index);
+    }
+
+    public static String temperature(double temp) {
+        return temp + "°C";
+    }
+
+    // Title with the temperature, rounded to a tenth of a degree, on a second line
+    public static String withTemperature(String title, double temp) {
+        return title + "\n" + temperature(Math.round(temp * 10) / 10.0);
+    }
+}
@@ -0,0 +1,8 @@
+package com.rhix.apidemo;
+
+// Monotonic time in nanoseconds for rate limiting, swapped for a fake in tests
+public interface NanoClock {
+    NanoClock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+}
@@ -0,0 +1,188 @@
+package com.rhix.apidemo;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency histograms for every endpoint the app talks to, one per phase of a call: DNS lookup,
+// TCP connect, TLS handshake, time to first byte and the whole call. Phases a call skips (a
+// pooled connection needs no DNS, connect or TLS) are simply not recorded. Safe to record from
+// any thread; readers see a live, not atomic, view.
+public class NetworkMetrics {
+    public enum Endpoint {
+        WEATHER, REVERSE, TILES, OTHER;
+
+        public String key() {
+            return name().toLowerCase(Locale.US);
+        }
+    }
+
+    public enum Phase {
+        DNS, CONNECT, TLS, TTFB, TOTAL;
+
+        public String key() {
+            return name().toLowerCase(Locale.US);
+        }
+    }
+
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+    private static final Phase[] PHASES = Phase.values();
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[ENDPOINTS.length * PHASES.length];
+    private final AtomicLongArray failures = new AtomicLongArray(ENDPOINTS.length);
+
+    public NetworkMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Classifies a request by its URL path: OpenWeather's .../weather, Nominatim's /reverse and
+    // slippy-map tiles ending in /z/x/y.ext
+    public static Endpoint endpointOf(String path) {
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        int start = path.lastIndexOf('/', end - 1) + 1;
+        String last = path.substring(start, end);
+        if (last.equals("weather")) {
+            return Endpoint.WEATHER;
+        }
+        if (last.equals("reverse") || last.startsWith("reverse.")) {
+            return Endpoint.REVERSE;
+        }
+        int dot = last.indexOf('.');
+        if (dot > 0 && isNumber(last, 0, dot) && start > 1) {
+            // y.png, preceded by /z/x
+            int xStart = path.lastIndexOf('/', start - 2) + 1;
+            if (xStart > 1 && isNumber(path, xStart, start - 1)) {
+                int zStart = path.lastIndexOf('/', xStart - 2) + 1;
+                if (isNumber(path, zStart, xStart - 1)) {
+                    return Endpoint.TILES;
+                }
+            }
+        }
+        return Endpoint.OTHER;
+    }
+
+    private static boolean isNumber(String s, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LatencyHistogram get(Endpoint endpoint, Phase phase) {
+        return histograms[endpoint.ordinal() * PHASES.length + phase.ordinal()];
+    }
+
+    public void record(Endpoint endpoint, Phase phase, long nanos) {
+        get(endpoint, phase).record(nanos);
+    }
+
+    public void recordFailure(Endpoint endpoint) {
+        failures.incrementAndGet(endpoint.ordinal());
+    }
+
+    public long getFailureCount(Endpoint endpoint) {
+        return failures.get(endpoint.ordinal());
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            failures.set(i, 0);
+        }
+    }
+
+    // One line for the perf overlay, e.g.
+    // "weather  n 12  p50 84  p95 210  p99 390 ms  ttfb 61  conn 40"
+    public String summary(Endpoint endpoint) {
+        LatencyHistogram total = get(endpoint, Phase.TOTAL);
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(String.format(Locale.US, "%-7s n %d  p50 %s  p95 %s  p99 %s ms",
+                endpoint.key(), total.getCount(),
+                millis(total.getPercentileNanos(50)),
+                millis(total.getPercentileNanos(95)),
+                millis(total.getPercentileNanos(99))));
+        appendMedian(sb, "ttfb", get(endpoint, Phase.TTFB));
+        appendMedian(sb, "dns", get(endpoint, Phase.DNS));
+        appendMedian(sb, "conn", get(endpoint, Phase.CONNECT));
+        appendMedian(sb, "tls", get(endpoint, Phase.TLS));
+        long failed = getFailureCount(endpoint);
+        if (failed > 0) {
+            sb.append("  failed ").append(failed);
+        }
+        return sb.toString();
+    }
+
+    private static void appendMedian(StringBuilder sb, String label, LatencyHistogram histogram) {
+        if (histogram.getCount() > 0) {
+            sb.append("  ").append(label).append(' ').append(millis(histogram.getPercentileNanos(50)));
+        }
+    }
+
+    private static String millis(long nanos) {
+        double ms = nanos / 1e6;
+        return ms < 10 ? String.format(Locale.US, "%.1f", ms) : String.valueOf(Math.round(ms));
+    }
+
+    // {"endpoints":{"weather":{"failures":0,"phases":{"total":{"count":..,"mean_ms":..,"p50_ms":..,
+    // ..,"max_ms":..,"buckets":[[low_ns,high_ns,count],..]},..}},..}}. Empty phases are left out;
+    // the buckets let several dumps be merged without losing the percentiles.
+    public void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("endpoints").beginObject();
+        for (Endpoint endpoint : ENDPOINTS) {
+            json.name(endpoint.key()).beginObject();
+            json.name("failures").value(getFailureCount(endpoint));
+            json.name("phases").beginObject();
+            for (Phase phase : PHASES) {
+                LatencyHistogram histogram = get(endpoint, phase);
+                if (histogram.getCount() > 0) {
+                    json.name(phase.key());
+                    writeHistogram(json, histogram);
+                }
+            }
+            json.endObject();
+            json.endObject();
+        }
+        json.endObject();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeHistogram(JsonWriter json, LatencyHistogram histogram) throws IOException {
+        json.beginObject();
+        json.name("count").value(histogram.getCount());
+        json.name("mean_ms").value(histogram.getMeanNanos() / 1e6);
+        for (double p : PERCENTILES) {
+            json.name("p" + (int) p + "_ms").value(histogram.getPercentileNanos(p) / 1e6);
+        }
+        json.name("max_ms").value(histogram.getMaxNanos() / 1e6);
+        json.name("buckets").beginArray();
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long count = histogram.getBucketCount(i);
+            if (count > 0) {
+                json.beginArray().value(LatencyHistogram.lowOf(i)).value(LatencyHistogram.highOf(i)).value(count).endArray();
+            }
+        }
+        json.endArray();
+        json.endObject();
+    }
+}
@@ -0,0 +1,14 @@
+package com.rhix.apidemo;
+
+// Decoded by ResponseAdapters.NominatimResponseAdapter, which skips everything but display_name
+public final class NominatimResponse {
+    private final String displayName; // Place name
+
+    public NominatimResponse(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,199 @@
+package com.rhix.apidemo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Queues reverse-geocode requests and releases them through a token bucket so we stay
+// within Nominatim's usage policy (about one request per second). Requests for the same
+// spot are merged, and higher-priority requests jump the queue.
+public class NominatimScheduler {
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_HIGH = 10;
+
+    public interface Callback {
+        void onPlaceName(String name);
+
+        void onError(Throwable t);
+    }
+
+    public interface Fetcher {
+        Cancellable fetch(double latitude, double longitude, Callback callback);
+    }
+
+    private final Fetcher fetcher;
+    private final TokenBucket bucket;
+    private final ScheduledExecutorService executor;
+    private final NanoClock clock;
+    private final int dedupPrecision;
+
+    private final PriorityQueue<Request> queue = new PriorityQueue<>();
+    private final Map<String, Request> pending = new HashMap<>(); // queued or in flight
+    private long nextSequence;
+    private boolean drainScheduled;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public NominatimScheduler(Fetcher fetcher, double requestsPerSecond, int dedupPrecision,
+                              ScheduledExecutorService executor) {
+        this(fetcher, requestsPerSecond, dedupPrecision, executor, NanoClock.SYSTEM);
+    }
+
+    public NominatimScheduler(Fetcher fetcher, double requestsPerSecond, int dedupPrecision,
+                              ScheduledExecutorService executor, NanoClock clock) {
+        this.fetcher = fetcher;
+        this.bucket = new TokenBucket(1, requestsPerSecond, clock.nanoTime());
+        this.dedupPrecision = dedupPrecision;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public Cancellable submit(double latitude, double longitude, int priority, Callback callback) {
+        String key = GeoHash.encode(latitude, longitude, dedupPrecision);
+        synchronized (this) {
+            Request request = pending.get(key);
+            if (request != null) {
+                deduplicated.incrementAndGet();
+                if (priority > request.priority && request.queued) {
+                    queue.remove(request);
+                    request.priority = priority;
+                    queue.add(request);
+                }
+            } else {
+                request = new Request(key, latitude, longitude, priority, nextSequence++);
+                pending.put(key, request);
+                request.queued = true;
+                queue.add(request);
+                scheduleDrain(0);
+            }
+            request.callbacks.add(callback);
+            final Request subscribed = request;
+            return () -> unsubscribe(subscribed, callback);
+        }
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        executor.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            drainScheduled = false;
+        }
+        while (true) {
+            final Request next;
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                long now = clock.nanoTime();
+                long wait = bucket.nanosUntilAvailable(now);
+                if (wait > 0 || !bucket.tryAcquire(now)) {
+                    scheduleDrain(Math.max(wait, 1));
+                    return;
+                }
+                next = queue.poll();
+                next.queued = false;
+            }
+            sent.incrementAndGet();
+            Cancellable call = fetcher.fetch(next.latitude, next.longitude, new Callback() {
+                @Override
+                public void onPlaceName(String name) {
+                    for (Callback callback : finish(next)) {
+                        callback.onPlaceName(name);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    for (Callback callback : finish(next)) {
+                        callback.onError(t);
+                    }
+                }
+            });
+            synchronized (this) {
+                next.call = call;
+                if (next.cancelled) {
+                    call.cancel();
+                }
+            }
+        }
+    }
+
+    private synchronized List<Callback> finish(Request request) {
+        if (pending.get(request.key) == request) {
+            pending.remove(request.key);
+        }
+        List<Callback> callbacks = new ArrayList<>(request.callbacks);
+        request.callbacks.clear();
+        return callbacks;
+    }
+
+    private synchronized void unsubscribe(Request request, Callback callback) {
+        request.callbacks.remove(callback);
+        if (!request.callbacks.isEmpty() || request.cancelled) {
+            return;
+        }
+        request.cancelled = true;
+        if (pending.get(request.key) == request) {
+            pending.remove(request.key);
+        }
+        if (request.queued) {
+            queue.remove(request);
+            request.queued = false;
+        } else if (request.call != null) {
+            request.call.cancel();
+        }
+    }
+
+    private static class Request implements Comparable<Request> {
+        final String key;
+        final double latitude;
+        final double longitude;
+        final long sequence;
+        final List<Callback> callbacks = new ArrayList<>(1);
+        int priority;
+        boolean queued;
+        boolean cancelled;
+        Cancellable call;
+
+        Request(String key, double latitude, double longitude, int priority, long sequence) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority); // higher priority first
+            }
+            return Long.compare(sequence, other.sequence); // then FIFO
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.rhix.apidemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Refreshes the weather of every saved place in one go, for a background job: all fetches start
+// together, the caller's thread waits for them (up to a timeout) and the store is written once.
+// Also keeps the numbers that say whether the schedule is working: how long each batch took and
+// how old the weather was when a screen showed it.
+public class PlaceWeatherRefresher {
+    // Weather older than this when shown counts as stale
+    public static final long DEFAULT_STALE_AFTER_MILLIS = TimeUnit.HOURS.toMillis(2);
+
+    public interface Callback {
+        void onEntry(PlaceWeatherStore.Entry entry);
+
+        void onError(Throwable t);
+    }
+
+    // Fetches the weather for one saved place; must call back exactly once unless cancelled
+    public interface Fetcher {
+        Cancellable fetch(String place, Callback callback);
+    }
+
+    public static final class Outcome {
+        public final int refreshed;
+        public final int failed;
+        public final long durationMillis;
+
+        Outcome(int refreshed, int failed, long durationMillis) {
+            this.refreshed = refreshed;
+            this.failed = failed;
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Outcome{refreshed=" + refreshed + ", failed=" + failed + ", durationMillis=" + durationMillis + "}";
+        }
+    }
+
+    private final PlaceWeatherStore store;
+    private final Fetcher fetcher;
+    private final long staleAfterMillis;
+
+    private final LatencyHistogram refreshTimes = new LatencyHistogram();
+    private int runs;
+    private int placesRefreshed;
+    private int placesFailed;
+    private long lastRefreshAt;
+
+    private int shown;
+    private int shownStale;
+    private int shownMissing;
+    private long maxShownAgeMillis;
+
+    public PlaceWeatherRefresher(PlaceWeatherStore store, Fetcher fetcher) {
+        this(store, fetcher, DEFAULT_STALE_AFTER_MILLIS);
+    }
+
+    public PlaceWeatherRefresher(PlaceWeatherStore store, Fetcher fetcher, long staleAfterMillis) {
+        this.store = store;
+        this.fetcher = fetcher;
+        this.staleAfterMillis = staleAfterMillis;
+    }
+
+    public PlaceWeatherStore getStore() {
+        return store;
+    }
+
+    // Blocks the calling (worker) thread. Places still unanswered after timeoutMillis are
+    // cancelled and count as failed; whatever did arrive is stored.
+    public Outcome refreshAll(long timeoutMillis) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<String> places = store.getPlaces();
+        final CountDownLatch done = new CountDownLatch(places.size());
+        final ConcurrentLinkedQueue<PlaceWeatherStore.Entry> entries = new ConcurrentLinkedQueue<>();
+        final AtomicInteger errors = new AtomicInteger();
+        List<Cancellable> calls = new ArrayList<>(places.size());
+
+        for (String place : places) {
+            calls.add(fetcher.fetch(place, new Callback() {
+                @Override
+                public void onEntry(PlaceWeatherStore.Entry entry) {
+                    entries.add(entry);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    errors.incrementAndGet();
+                    done.countDown();
+                }
+            }));
+        }
+        try {
+            done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            // Late answers are ignored either way; cancelling frees their connections
+            for (Cancellable call : calls) {
+                call.cancel();
+            }
+        }
+
+        List<PlaceWeatherStore.Entry> fetched = new ArrayList<>(entries);
+        store.putAll(fetched);
+        long nanos = System.nanoTime() - startNanos;
+        refreshTimes.record(nanos);
+        Outcome outcome = new Outcome(fetched.size(), places.size() - fetched.size(), nanos / 1_000_000);
+        synchronized (this) {
+            runs++;
+            placesRefreshed += outcome.refreshed;
+            placesFailed += outcome.failed;
+            if (outcome.refreshed > 0) {
+                lastRefreshAt = System.currentTimeMillis();
+            }
+        }
+        return outcome;
+    }
+
+    // Called by a screen when it shows a place from the store; entry is null if it had none yet
+    public synchronized void recordShown(PlaceWeatherStore.Entry entry, long now) {
+        shown++;
+        if (entry == null) {
+            shownMissing++;
+            return;
+        }
+        long age = entry.getAgeMillis(now);
+        maxShownAgeMillis = Math.max(maxShownAgeMillis, age);
+        if (age > staleAfterMillis) {
+            shownStale++;
+        }
+    }
+
+    // Wall time of each batch refresh
+    public LatencyHistogram getRefreshTimes() {
+        return refreshTimes;
+    }
+
+    public synchronized int getRunCount() {
+        return runs;
+    }
+
+    public synchronized int getPlacesRefreshedCount() {
+        return placesRefreshed;
+    }
+
+    public synchronized int getPlacesFailedCount() {
+        return placesFailed;
+    }
+
+    // Epoch millis of the last batch that refreshed anything, 0 if none has
+    public synchronized long getLastRefreshAt() {
+        return lastRefreshAt;
+    }
+
+    public synchronized int getShownCount() {
+        return shown;
+    }
+
+    // Shown older than staleAfterMillis
+    public synchronized int getShownStaleCount() {
+        return shownStale;
+    }
+
+    // Shown before the place had any weather, i.e. the screen had to wait for the network
+    public synchronized int getShownMissingCount() {
+        return shownMissing;
+    }
+
+    public synchronized long getMaxShownAgeMillis() {
+        return maxShownAgeMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PlaceWeatherRefresher{runs=" + runs + ", refreshed=" + placesRefreshed + ", failed=" + placesFailed
+                + ", refreshP95Ms=" + refreshTimes.getPercentileNanos(95) / 1_000_000
+                + ", shown=" + shown + ", shownStale=" + shownStale + ", shownMissing=" + shownMissing
+                + ", maxShownAgeMs=" + maxShownAgeMillis + "}";
+    }
+}
@@ -0,0 +1,186 @@
+package com.rhix.apidemo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The saved places and the last weather fetched for each, kept in one small file so a screen
+// can show them before any network call. The file is read on first use and rewritten whole
+// (through a temp file) on every change; a batch refresh writes it once via putAll().
+public class PlaceWeatherStore {
+    private static final int FORMAT_VERSION = 1;
+
+    public static final class Entry {
+        public final String place;
+        public final String name;
+        public final double temp;
+        public final String description;
+        public final long fetchedAt; // epoch millis
+
+        // A response may lack the name or description; the place itself and "" stand in, so
+        // nothing null reaches the file
+        public Entry(String place, String name, double temp, String description, long fetchedAt) {
+            this.place = place;
+            this.name = name != null ? name : place;
+            this.temp = temp;
+            this.description = description != null ? description : "";
+            this.fetchedAt = fetchedAt;
+        }
+
+        public long getAgeMillis(long now) {
+            return now - fetchedAt;
+        }
+    }
+
+    private final File file;
+    // Saved place to its latest entry, or null before the first successful fetch
+    private final Map<String, Entry> places = new LinkedHashMap<>();
+    private boolean loaded;
+    private int diskErrors;
+
+    public PlaceWeatherStore(File file) {
+        this.file = file;
+    }
+
+    public synchronized List<String> getPlaces() {
+        ensureLoaded();
+        return new ArrayList<>(places.keySet());
+    }
+
+    // False if the place was already saved
+    public synchronized boolean addPlace(String place) {
+        ensureLoaded();
+        if (places.containsKey(place)) {
+            return false;
+        }
+        places.put(place, null);
+        save();
+        return true;
+    }
+
+    public synchronized boolean removePlace(String place) {
+        ensureLoaded();
+        if (!places.containsKey(place)) {
+            return false;
+        }
+        places.remove(place);
+        save();
+        return true;
+    }
+
+    // Latest weather for a saved place, or null if none has been fetched yet
+    public synchronized Entry get(String place) {
+        ensureLoaded();
+        return places.get(place);
+    }
+
+    public void put(Entry entry) {
+        List<Entry> entries = new ArrayList<>(1);
+        entries.add(entry);
+        putAll(entries);
+    }
+
+    // Entries for places no longer saved (removed while their fetch ran) are dropped
+    public synchronized void putAll(Collection<Entry> entries) {
+        ensureLoaded();
+        boolean changed = false;
+        for (Entry entry : entries) {
+            if (places.containsKey(entry.place)) {
+                places.put(entry.place, entry);
+                changed = true;
+            }
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    // Age of the oldest saved place's weather; a place never fetched counts as infinitely old
+    public synchronized long getOldestAgeMillis(long now) {
+        ensureLoaded();
+        long oldest = 0;
+        for (Entry entry : places.values()) {
+            oldest = Math.max(oldest, entry == null ? Long.MAX_VALUE : entry.getAgeMillis(now));
+        }
+        return oldest;
+    }
+
+    // Reads or writes that failed; the store carries on with what it has in memory
+    public synchronized int getDiskErrorCount() {
+        return diskErrors;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String place = in.readUTF();
+                places.put(place, in.readBoolean() ? read(in, place) : null);
+            }
+        } catch (IOException e) {
+            diskErrors++;
+            places.clear();
+        }
+    }
+
+    private void save() {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(places.size());
+            for (Map.Entry<String, Entry> place : places.entrySet()) {
+                out.writeUTF(place.getKey());
+                out.writeBoolean(place.getValue() != null);
+                if (place.getValue() != null) {
+                    write(out, place.getValue());
+                }
+            }
+        } catch (IOException e) {
+            diskErrors++;
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            diskErrors++;
+            tmp.delete();
+        }
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        out.writeUTF(entry.name);
+        out.writeDouble(entry.temp);
+        out.writeUTF(entry.description);
+        out.writeLong(entry.fetchedAt);
+    }
+
+    private static Entry read(DataInputStream in, String place) throws IOException {
+        String name = in.readUTF();
+        double temp = in.readDouble();
+        String description = in.readUTF();
+        long fetchedAt = in.readLong();
+        return new Entry(place, name, temp, description, fetchedAt);
+    }
+}
@@ -0,0 +1,183 @@
+package com.rhix.apidemo;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Streaming loaders that fill a PointStore.Builder directly, so a large file never
+// exists as a list of objects in memory.
+public final class PointLoaders {
+    private PointLoaders() {
+    }
+
+    // Reads a CSV with a header row. Fields are split on commas; quoted fields are not supported.
+    // Attribute columns missing from a row, or not numeric, are stored as NaN.
+    public static PointStore loadCsv(Reader source, PointStore.Encoding encoding,
+                                     String latitudeColumn, String longitudeColumn,
+                                     String... attributeColumns) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source : new BufferedReader(source, 64 * 1024);
+        String header = reader.readLine();
+        if (header == null) {
+            return new PointStore.Builder(encoding, attributeColumns).build();
+        }
+        String[] headers = header.split(",");
+        int latIndex = indexOf(headers, latitudeColumn);
+        int lonIndex = indexOf(headers, longitudeColumn);
+        if (latIndex < 0 || lonIndex < 0) {
+            throw new IOException("CSV header has no " + latitudeColumn + "/" + longitudeColumn + " column");
+        }
+        // For each field position, which attribute column it feeds (-1 for none)
+        int[] attributeOf = new int[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            attributeOf[i] = indexOf(attributeColumns, headers[i]);
+        }
+
+        PointStore.Builder builder = new PointStore.Builder(encoding, attributeColumns);
+        double[] row = new double[headers.length];
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            int fields = 0;
+            int start = 0;
+            while (fields < row.length) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+                row[fields++] = parseDouble(line, start, end);
+                if (end == line.length()) {
+                    break;
+                }
+                start = end + 1;
+            }
+            if (latIndex >= fields || lonIndex >= fields
+                    || Double.isNaN(row[latIndex]) || Double.isNaN(row[lonIndex])) {
+                throw new IOException("Bad coordinates on line " + lineNumber);
+            }
+            int point = builder.add(row[latIndex], row[lonIndex]);
+            for (int i = 0; i < fields; i++) {
+                if (attributeOf[i] >= 0) {
+                    builder.setAttribute(attributeOf[i], point, row[i]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Reads Point features from a GeoJSON FeatureCollection; other geometry types are skipped.
+    // Attributes are numeric feature properties with the given names.
+    public static PointStore loadGeoJson(Reader source, PointStore.Encoding encoding,
+                                         String... attributeProperties) throws IOException {
+        PointStore.Builder builder = new PointStore.Builder(encoding, attributeProperties);
+        double[] attributes = new double[attributeProperties.length];
+        try (JsonReader reader = new JsonReader(source)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("features")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readFeature(reader, builder, attributeProperties, attributes);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        return builder.build();
+    }
+
+    private static void readFeature(JsonReader reader, PointStore.Builder builder,
+                                    String[] attributeProperties, double[] attributes) throws IOException {
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        boolean isPoint = false;
+        Arrays.fill(attributes, Double.NaN);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("geometry") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if (key.equals("type")) {
+                        isPoint = "Point".equals(reader.nextString());
+                    } else if (key.equals("coordinates") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        // Only a Point's coordinates are plain numbers; anything nested is skipped
+                        if (reader.hasNext() && reader.peek() == JsonToken.NUMBER) {
+                            longitude = reader.nextDouble();
+                            latitude = reader.hasNext() ? reader.nextDouble() : Double.NaN;
+                        }
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if (name.equals("properties") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    int column = indexOf(attributeProperties, reader.nextName());
+                    if (column >= 0 && reader.peek() == JsonToken.NUMBER) {
+                        attributes[column] = reader.nextDouble();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (isPoint && !Double.isNaN(latitude)) {
+            int point = builder.add(latitude, longitude);
+            for (int c = 0; c < attributes.length; c++) {
+                builder.setAttribute(c, point, attributes[c]);
+            }
+        }
+    }
+
+    private static double parseDouble(String line, int start, int end) {
+        while (start < end && line.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(line.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int indexOf(String[] names, String name) {
+        String trimmed = name.trim();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].trim().equalsIgnoreCase(trimmed)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,171 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+
+// Static bucket quadtree over a PointStore, in normalized mercator space. Point indices are
+// reordered so every node owns a contiguous slice of one int array; nodes keep the tight
+// bounds of their points, so a viewport query skips whole subtrees off screen.
+public class PointQuadTree {
+    public interface Visitor {
+        void visit(int pointIndex);
+    }
+
+    private static final int LEAF_SIZE = 32;
+    private static final int MAX_DEPTH = 24;
+
+    private final PointStore points;
+    private final int[] order;
+    private final double[] xs;
+    private final double[] ys;
+
+    // Per node: slice of order[], first child (-1 for leaves, children are 4 consecutive ids), bounds
+    private int[] start = new int[64];
+    private int[] end = new int[64];
+    private int[] firstChild = new int[64];
+    private double[] minX = new double[64];
+    private double[] minY = new double[64];
+    private double[] maxX = new double[64];
+    private double[] maxY = new double[64];
+    private int nodeCount;
+
+    private PointQuadTree(PointStore points) {
+        this.points = points;
+        int n = points.size();
+        order = new int[n];
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            xs[i] = TileMath.mercatorX(points.getLongitude(i));
+            ys[i] = TileMath.mercatorY(points.getLatitude(i));
+        }
+    }
+
+    public static PointQuadTree build(PointStore points) {
+        PointQuadTree tree = new PointQuadTree(points);
+        int root = tree.newNode(0, points.size());
+        tree.split(root, 0);
+        return tree;
+    }
+
+    public PointStore getPoints() {
+        return points;
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    // Visits every point inside the box; returns how many
+    public int query(double south, double west, double north, double east, Visitor visitor) {
+        if (order.length == 0) {
+            return 0;
+        }
+        double qMinX = TileMath.mercatorX(west);
+        double qMaxX = TileMath.mercatorX(east);
+        double qMinY = TileMath.mercatorY(north);
+        double qMaxY = TileMath.mercatorY(south);
+
+        int visited = 0;
+        int[] stack = new int[4 * MAX_DEPTH + 4];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (maxX[node] < qMinX || minX[node] > qMaxX || maxY[node] < qMinY || minY[node] > qMaxY) {
+                continue;
+            }
+            boolean contained = minX[node] >= qMinX && maxX[node] <= qMaxX
+                    && minY[node] >= qMinY && maxY[node] <= qMaxY;
+            if (contained || firstChild[node] < 0) {
+                for (int i = start[node]; i < end[node]; i++) {
+                    int point = order[i];
+                    if (contained || (xs[point] >= qMinX && xs[point] <= qMaxX
+                            && ys[point] >= qMinY && ys[point] <= qMaxY)) {
+                        visitor.visit(point);
+                        visited++;
+                    }
+                }
+                continue;
+            }
+            for (int c = 0; c < 4; c++) {
+                stack[top++] = firstChild[node] + c;
+            }
+        }
+        return visited;
+    }
+
+    private int newNode(int from, int to) {
+        if (nodeCount == start.length) {
+            int capacity = nodeCount * 2;
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+        }
+        int node = nodeCount++;
+        start[node] = from;
+        end[node] = to;
+        firstChild[node] = -1;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int point = order[i];
+            x0 = Math.min(x0, xs[point]);
+            y0 = Math.min(y0, ys[point]);
+            x1 = Math.max(x1, xs[point]);
+            y1 = Math.max(y1, ys[point]);
+        }
+        minX[node] = x0;
+        minY[node] = y0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+        return node;
+    }
+
+    private void split(int node, int depth) {
+        int from = start[node];
+        int to = end[node];
+        // Identical points cannot be separated, hence the depth limit
+        if (to - from <= LEAF_SIZE || depth >= MAX_DEPTH) {
+            return;
+        }
+        double midX = (minX[node] + maxX[node]) / 2;
+        double midY = (minY[node] + maxY[node]) / 2;
+
+        // Partition into top/bottom halves, then each half into left/right
+        int middle = partition(from, to, midY, false);
+        int topMiddle = partition(from, middle, midX, true);
+        int bottomMiddle = partition(middle, to, midX, true);
+
+        int first = nodeCount;
+        newNode(from, topMiddle);
+        newNode(topMiddle, middle);
+        newNode(middle, bottomMiddle);
+        newNode(bottomMiddle, to);
+        firstChild[node] = first;
+        for (int c = 0; c < 4; c++) {
+            split(first + c, depth + 1);
+        }
+    }
+
+    // Moves points below the pivot to the front of [from, to); returns the boundary
+    private int partition(int from, int to, double pivot, boolean byX) {
+        int i = from;
+        int j = to - 1;
+        while (i <= j) {
+            int point = order[i];
+            double value = byX ? xs[point] : ys[point];
+            if (value < pivot) {
+                i++;
+            } else {
+                order[i] = order[j];
+                order[j--] = point;
+            }
+        }
+        return i;
+    }
+}
@@ -0,0 +1,307 @@
+package com.rhix.apidemo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+// Columnar point storage: latitude/longitude (fixed-point E7 ints or doubles) plus optional
+// double attribute columns, all in primitive buffers. The same buffers back heap-built stores
+// and memory-mapped files, so a mapped file is usable as soon as its small header is read.
+//
+// File layout (little-endian, sections 8-byte aligned):
+//   "PTS1" | int version | int encoding | int count | int columnCount | columnCount x (short len, UTF-8 name)
+//   | latitudes | longitudes | columnCount x attribute column (double)
+public final class PointStore {
+    public enum Encoding {
+        E7(4), DOUBLE(8);
+
+        final int bytesPerValue;
+
+        Encoding(int bytesPerValue) {
+            this.bytesPerValue = bytesPerValue;
+        }
+    }
+
+    private static final int MAGIC = 0x31535450; // "PTS1" read little-endian
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final double E7 = 1e7;
+
+    private final Encoding encoding;
+    private final int size;
+    private final IntBuffer latitudesE7;
+    private final IntBuffer longitudesE7;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final String[] columnNames;
+    private final DoubleBuffer[] columns;
+
+    private PointStore(Encoding encoding, int size, IntBuffer latitudesE7, IntBuffer longitudesE7,
+                       DoubleBuffer latitudes, DoubleBuffer longitudes, String[] columnNames, DoubleBuffer[] columns) {
+        this.encoding = encoding;
+        this.size = size;
+        this.latitudesE7 = latitudesE7;
+        this.longitudesE7 = longitudesE7;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.columnNames = columnNames;
+        this.columns = columns;
+    }
+
+    // Wraps existing arrays without copying
+    public static PointStore wrap(double[] latitudes, double[] longitudes, int size) {
+        return new PointStore(Encoding.DOUBLE, size, null, null, DoubleBuffer.wrap(latitudes),
+                DoubleBuffer.wrap(longitudes), new String[0], new DoubleBuffer[0]);
+    }
+
+    // Builds a store from lat, lon, lat, lon, ...
+    public static PointStore of(Encoding encoding, double... latLon) {
+        Builder builder = new Builder(encoding);
+        for (int i = 0; i + 1 < latLon.length; i += 2) {
+            builder.add(latLon[i], latLon[i + 1]);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public double getLatitude(int index) {
+        return encoding == Encoding.E7 ? latitudesE7.get(index) / E7 : latitudes.get(index);
+    }
+
+    public double getLongitude(int index) {
+        return encoding == Encoding.E7 ? longitudesE7.get(index) / E7 : longitudes.get(index);
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    public int getColumnIndex(String name) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public double getAttribute(int column, int index) {
+        return columns[column].get(index);
+    }
+
+    // Opens a file written by write() without parsing the point data
+    public static PointStore map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return fromBuffer(buffer);
+        }
+    }
+
+    static PointStore fromBuffer(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a point store file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported point store version " + buffer.getInt(4));
+        }
+        Encoding encoding = Encoding.values()[buffer.getInt(8)];
+        int count = buffer.getInt(12);
+        int columnCount = buffer.getInt(16);
+
+        int offset = 20;
+        String[] names = new String[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            int length = buffer.getShort(offset);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + 2 + i);
+            }
+            names[c] = new String(bytes, UTF_8);
+            offset += 2 + length;
+        }
+        offset = align(offset);
+
+        long coordinateBytes = (long) count * encoding.bytesPerValue;
+        ByteBuffer latSection = section(buffer, offset, coordinateBytes);
+        offset = align((int) (offset + coordinateBytes));
+        ByteBuffer lonSection = section(buffer, offset, coordinateBytes);
+        offset = align((int) (offset + coordinateBytes));
+
+        DoubleBuffer[] columns = new DoubleBuffer[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            columns[c] = section(buffer, offset, (long) count * 8).asDoubleBuffer();
+            offset += count * 8;
+        }
+
+        if (encoding == Encoding.E7) {
+            return new PointStore(encoding, count, latSection.asIntBuffer(), lonSection.asIntBuffer(),
+                    null, null, names, columns);
+        }
+        return new PointStore(encoding, count, null, null, latSection.asDoubleBuffer(),
+                lonSection.asDoubleBuffer(), names, columns);
+    }
+
+    public void write(File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file); FileChannel channel = out.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(encoding.ordinal()).putInt(size).putInt(columnNames.length);
+            long written = 20;
+            for (String name : columnNames) {
+                byte[] bytes = name.getBytes(UTF_8);
+                buffer.putShort((short) bytes.length).put(bytes);
+                written += 2 + bytes.length;
+            }
+            written = pad(buffer, written);
+
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < size; i++) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer);
+                    }
+                    if (encoding == Encoding.E7) {
+                        buffer.putInt(pass == 0 ? latitudesE7.get(i) : longitudesE7.get(i));
+                    } else {
+                        buffer.putDouble(pass == 0 ? latitudes.get(i) : longitudes.get(i));
+                    }
+                }
+                written = pad(buffer, written + (long) size * encoding.bytesPerValue);
+            }
+
+            for (DoubleBuffer column : columns) {
+                for (int i = 0; i < size; i++) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putDouble(column.get(i));
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, int offset, long length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit((int) (offset + length));
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    // Writes zero bytes up to the next 8-byte boundary; returns the new file position
+    private static long pad(ByteBuffer buffer, long written) {
+        long aligned = (written + 7) & ~7L;
+        for (long i = written; i < aligned; i++) {
+            buffer.put((byte) 0);
+        }
+        return aligned;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Growable primitive arrays; build() trims and freezes them
+    public static class Builder {
+        private final Encoding encoding;
+        private final String[] columnNames;
+        private int[] latE7 = new int[0];
+        private int[] lonE7 = new int[0];
+        private double[] lat = new double[0];
+        private double[] lon = new double[0];
+        private final double[][] columns;
+        private int size;
+
+        public Builder(Encoding encoding, String... columnNames) {
+            this.encoding = encoding;
+            this.columnNames = columnNames.clone();
+            this.columns = new double[columnNames.length][];
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = new double[0];
+            }
+            ensureCapacity(1024);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // Adds a point; its attributes start as NaN. Returns the point's index.
+        public int add(double latitude, double longitude) {
+            ensureCapacity(size + 1);
+            if (encoding == Encoding.E7) {
+                latE7[size] = (int) Math.round(latitude * E7);
+                lonE7[size] = (int) Math.round(longitude * E7);
+            } else {
+                lat[size] = latitude;
+                lon[size] = longitude;
+            }
+            for (double[] column : columns) {
+                column[size] = Double.NaN;
+            }
+            return size++;
+        }
+
+        public void setAttribute(int column, int index, double value) {
+            columns[column][index] = value;
+        }
+
+        public PointStore build() {
+            DoubleBuffer[] buffers = new DoubleBuffer[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                buffers[c] = DoubleBuffer.wrap(Arrays.copyOf(columns[c], size));
+            }
+            if (encoding == Encoding.E7) {
+                return new PointStore(encoding, size, IntBuffer.wrap(Arrays.copyOf(latE7, size)),
+                        IntBuffer.wrap(Arrays.copyOf(lonE7, size)), null, null, columnNames, buffers);
+            }
+            return new PointStore(encoding, size, null, null, DoubleBuffer.wrap(Arrays.copyOf(lat, size)),
+                    DoubleBuffer.wrap(Arrays.copyOf(lon, size)), columnNames, buffers);
+        }
+
+        private void ensureCapacity(int capacity) {
+            int current = encoding == Encoding.E7 ? latE7.length : lat.length;
+            if (capacity <= current) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, current + (current >> 1));
+            if (encoding == Encoding.E7) {
+                latE7 = Arrays.copyOf(latE7, newCapacity);
+                lonE7 = Arrays.copyOf(lonE7, newCapacity);
+            } else {
+                lat = Arrays.copyOf(lat, newCapacity);
+                lon = Arrays.copyOf(lon, newCapacity);
+            }
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], newCapacity);
+            }
+        }
+    }
+}
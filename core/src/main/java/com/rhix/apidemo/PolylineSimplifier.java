@@ -0,0 +1,141 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+
+// Douglas-Peucker simplification in normalized mercator space.
+// significance() runs the split once and records, for every vertex, the largest tolerance at
+// which Douglas-Peucker would still keep it. Any tolerance is then a linear filter, which is
+// what makes a per-zoom pyramid cheap: one O(n log n) pass, then O(n) per level.
+public final class PolylineSimplifier {
+    private PolylineSimplifier() {
+    }
+
+    // Endpoints are always kept and get +Infinity
+    public static double[] significance(PointStore points) {
+        int n = points.size();
+        double[] significance = new double[n];
+        if (n == 0) {
+            return significance;
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = TileMath.mercatorX(points.getLongitude(i));
+            ys[i] = TileMath.mercatorY(points.getLatitude(i));
+        }
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[n - 1] = Double.POSITIVE_INFINITY;
+
+        // Explicit stack of (first, last, parent significance); recursion would overflow on long traces
+        int[] ranges = new int[64];
+        double[] parents = new double[32];
+        ranges[0] = 0;
+        ranges[1] = n - 1;
+        parents[0] = Double.POSITIVE_INFINITY;
+        int top = 1;
+
+        while (top > 0) {
+            top--;
+            int first = ranges[top * 2];
+            int last = ranges[top * 2 + 1];
+            double parent = parents[top];
+            if (last - first < 2) {
+                continue;
+            }
+
+            int split = -1;
+            double maxDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    split = i;
+                }
+            }
+            // A vertex can never outlive the vertex whose split exposed it, so levels nest
+            double value = Math.min(Math.sqrt(maxDistance), parent);
+            significance[split] = value;
+
+            if (top + 2 > parents.length) {
+                parents = Arrays.copyOf(parents, parents.length * 2);
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[top * 2] = first;
+            ranges[top * 2 + 1] = split;
+            parents[top++] = value;
+            ranges[top * 2] = split;
+            ranges[top * 2 + 1] = last;
+            parents[top++] = value;
+        }
+        return significance;
+    }
+
+    // Indices of the vertices kept at the given tolerance (normalized mercator units), in order
+    public static int[] filter(double[] significance, double tolerance) {
+        int count = 0;
+        for (double value : significance) {
+            if (value > tolerance) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        int k = 0;
+        for (int i = 0; i < significance.length; i++) {
+            if (significance[i] > tolerance) {
+                indices[k++] = i;
+            }
+        }
+        return indices;
+    }
+
+    // Screen pixels at a zoom level to normalized mercator units (256 px tiles, like ClusterIndex)
+    public static double toleranceAtZoom(double tolerancePx, int zoom) {
+        return tolerancePx / (256.0 * (1L << zoom));
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    // Vertex indices for every integer zoom between minZoom and maxZoom
+    public static class Pyramid {
+        private final int minZoom;
+        private final int maxZoom;
+        private final int[][] levels;
+
+        private Pyramid(int minZoom, int maxZoom, int[][] levels) {
+            this.minZoom = minZoom;
+            this.maxZoom = maxZoom;
+            this.levels = levels;
+        }
+
+        public static Pyramid build(PointStore points, int minZoom, int maxZoom, double tolerancePx) {
+            double[] significance = significance(points);
+            int[][] levels = new int[maxZoom - minZoom + 1][];
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                levels[zoom - minZoom] = filter(significance, toleranceAtZoom(tolerancePx, zoom));
+            }
+            return new Pyramid(minZoom, maxZoom, levels);
+        }
+
+        public int getMinZoom() {
+            return minZoom;
+        }
+
+        public int getMaxZoom() {
+            return maxZoom;
+        }
+
+        // Zooms outside the pyramid use the nearest level
+        public int[] getIndices(int zoom) {
+            return levels[Math.max(minZoom, Math.min(maxZoom, zoom)) - minZoom];
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.rhix.apidemo;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-written streaming decoders for the API responses. Each reads only the fields we use
+// and skips the rest token by token, so large Nominatim payloads (address, bounding box,
+// licence, ...) are never materialized, and nothing goes through reflection.
+// A "main" object without a "temp" decodes as a null main, the same as a missing one, so a
+// partial response can never read as 0 degrees.
+public final class ResponseAdapters {
+    private ResponseAdapters() {
+    }
+
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(WeatherResponse.class, new WeatherResponseAdapter().nullSafe())
+                .registerTypeAdapter(WeatherResponseTwo.class, new WeatherResponseTwoAdapter().nullSafe())
+                .registerTypeAdapter(NominatimResponse.class, new NominatimResponseAdapter().nullSafe())
+                .registerTypeAdapter(GeocodeResponse.class, new GeocodeResponseAdapter().nullSafe());
+    }
+
+    static final class WeatherResponseAdapter extends TypeAdapter<WeatherResponse> {
+        @Override
+        public WeatherResponse read(JsonReader in) throws IOException {
+            WeatherResponse.Main main = null;
+            WeatherResponse.Weather[] weather = null;
+            String name = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "main":
+                        main = readWeatherMain(in);
+                        break;
+                    case "weather":
+                        weather = readWeatherList(in);
+                        break;
+                    case "name":
+                        name = nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new WeatherResponse(main, weather, name);
+        }
+
+        @Override
+        public void write(JsonWriter out, WeatherResponse value) throws IOException {
+            out.beginObject();
+            if (value.getMain() != null) {
+                out.name("main").beginObject().name("temp").value(value.getMain().getTemp()).endObject();
+            }
+            if (value.getWeather() != null) {
+                out.name("weather").beginArray();
+                for (WeatherResponse.Weather weather : value.getWeather()) {
+                    out.beginObject().name("description").value(weather.getDescription()).endObject();
+                }
+                out.endArray();
+            }
+            out.name("name").value(value.getName());
+            out.endObject();
+        }
+
+        private static WeatherResponse.Main readWeatherMain(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            double temp = nextTemp(in);
+            return Double.isNaN(temp) ? null : new WeatherResponse.Main((float) temp);
+        }
+
+        private static WeatherResponse.Weather[] readWeatherList(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<WeatherResponse.Weather> list = new ArrayList<>(1);
+            in.beginArray();
+            while (in.hasNext()) {
+                String description = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    if (in.nextName().equals("description")) {
+                        description = nextStringOrNull(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+                list.add(new WeatherResponse.Weather(description));
+            }
+            in.endArray();
+            return list.toArray(new WeatherResponse.Weather[0]);
+        }
+    }
+
+    static final class WeatherResponseTwoAdapter extends TypeAdapter<WeatherResponseTwo> {
+        @Override
+        public WeatherResponseTwo read(JsonReader in) throws IOException {
+            WeatherResponseTwo.Main main = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("main") && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    double temp = nextTemp(in);
+                    main = Double.isNaN(temp) ? null : new WeatherResponseTwo.Main(temp);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new WeatherResponseTwo(main);
+        }
+
+        @Override
+        public void write(JsonWriter out, WeatherResponseTwo value) throws IOException {
+            out.beginObject();
+            if (value.getMain() != null) {
+                out.name("main").beginObject().name("temp").value(value.getMain().getTemp()).endObject();
+            }
+            out.endObject();
+        }
+    }
+
+    static final class NominatimResponseAdapter extends TypeAdapter<NominatimResponse> {
+        @Override
+        public NominatimResponse read(JsonReader in) throws IOException {
+            String displayName = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("display_name")) {
+                    displayName = nextStringOrNull(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new NominatimResponse(displayName);
+        }
+
+        @Override
+        public void write(JsonWriter out, NominatimResponse value) throws IOException {
+            out.beginObject().name("display_name").value(value.getDisplayName()).endObject();
+        }
+    }
+
+    static final class GeocodeResponseAdapter extends TypeAdapter<GeocodeResponse> {
+        @Override
+        public GeocodeResponse read(JsonReader in) throws IOException {
+            String name = null;
+            String country = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        name = nextStringOrNull(in);
+                        break;
+                    case "country":
+                        country = nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GeocodeResponse(name, country);
+        }
+
+        @Override
+        public void write(JsonWriter out, GeocodeResponse value) throws IOException {
+            out.beginObject().name("name").value(value.getName()).name("country").value(value.getCountry()).endObject();
+        }
+    }
+
+    // The "temp" of a "main" object, or NaN when it is missing or null
+    private static double nextTemp(JsonReader in) throws IOException {
+        double temp = Double.NaN;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("temp") && in.peek() != JsonToken.NULL) {
+                temp = in.nextDouble();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return temp;
+    }
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
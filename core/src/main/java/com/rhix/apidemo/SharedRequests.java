@@ -0,0 +1,205 @@
+package com.rhix.apidemo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs each distinct request once however many callers ask for it. A caller asking for a key
+// that is already in flight joins that request; one asking shortly after it succeeded gets the
+// result replayed for up to replayMillis. The request itself is cancelled only when every
+// caller waiting on it has cancelled. Errors are delivered but never replayed.
+public class SharedRequests<T> {
+    public static final int DEFAULT_REPLAY_ENTRIES = 32;
+
+    public interface Callback<T> {
+        void onResult(T result);
+
+        void onError(Throwable t);
+    }
+
+    // Starts the request; must call back exactly once unless cancelled
+    public interface Loader<T> {
+        Cancellable load(Callback<T> callback);
+    }
+
+    private final long replayMillis;
+    private final Executor callbackExecutor;
+    private final Clock clock;
+
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    private final LinkedHashMap<String, Result<T>> recent;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public SharedRequests(long replayMillis, Executor callbackExecutor) {
+        this(replayMillis, DEFAULT_REPLAY_ENTRIES, callbackExecutor, Clock.SYSTEM);
+    }
+
+    public SharedRequests(long replayMillis, final int replayEntries, Executor callbackExecutor, Clock clock) {
+        this.replayMillis = replayMillis;
+        this.callbackExecutor = callbackExecutor;
+        this.clock = clock;
+        this.recent = new LinkedHashMap<String, Result<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result<T>> eldest) {
+                return size() > replayEntries;
+            }
+        };
+    }
+
+    public Cancellable get(final String key, Loader<T> loader, final Callback<T> callback) {
+        final T replay;
+        final InFlight subscribed;
+        boolean startLoad = false;
+
+        synchronized (this) {
+            Result<T> result = recent.get(key);
+            if (result != null && clock.nowMillis() - result.completedAt < replayMillis) {
+                replayed.incrementAndGet();
+                replay = result.value;
+                subscribed = null;
+            } else {
+                replay = null;
+                InFlight pending = inFlight.get(key);
+                if (pending == null) {
+                    pending = new InFlight(key);
+                    inFlight.put(key, pending);
+                    started.incrementAndGet();
+                    startLoad = true;
+                } else {
+                    joined.incrementAndGet();
+                }
+                pending.callbacks.add(callback);
+                subscribed = pending;
+            }
+        }
+
+        if (subscribed == null) {
+            callbackExecutor.execute(() -> callback.onResult(replay));
+            return Cancellable.NONE;
+        }
+        if (startLoad) {
+            Cancellable call = loader.load(new Callback<T>() {
+                @Override
+                public void onResult(T result) {
+                    complete(subscribed, result, null);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    complete(subscribed, null, t);
+                }
+            });
+            synchronized (this) {
+                subscribed.call = call;
+                if (subscribed.cancelled) {
+                    call.cancel();
+                }
+            }
+        }
+        return () -> unsubscribe(subscribed, callback);
+    }
+
+    // Requests actually started
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    // Callers that joined a request already in flight
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    // Callers answered from a recent result
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    // Requests cancelled because every caller had gone
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized void clearReplay() {
+        recent.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedRequests{started=" + started + ", joined=" + joined
+                + ", replayed=" + replayed + ", cancelled=" + cancelled + "}";
+    }
+
+    private void complete(InFlight pending, final T result, final Throwable error) {
+        final List<Callback<T>> callbacks;
+        synchronized (this) {
+            if (pending.cancelled) {
+                return;
+            }
+            if (inFlight.get(pending.key) == pending) {
+                inFlight.remove(pending.key);
+            }
+            if (error == null) {
+                recent.put(pending.key, new Result<>(result, clock.nowMillis()));
+            }
+            callbacks = new ArrayList<>(pending.callbacks);
+            pending.callbacks.clear();
+        }
+        for (final Callback<T> callback : callbacks) {
+            callbackExecutor.execute(() -> {
+                if (error == null) {
+                    callback.onResult(result);
+                } else {
+                    callback.onError(error);
+                }
+            });
+        }
+    }
+
+    private synchronized void unsubscribe(InFlight pending, Callback<T> callback) {
+        if (!pending.callbacks.remove(callback) || !pending.callbacks.isEmpty() || pending.cancelled) {
+            return;
+        }
+        // Nobody is waiting for this request any more
+        pending.cancelled = true;
+        cancelled.incrementAndGet();
+        if (inFlight.get(pending.key) == pending) {
+            inFlight.remove(pending.key);
+        }
+        if (pending.call != null) {
+            pending.call.cancel();
+        }
+    }
+
+    private static class Result<T> {
+        final T value;
+        final long completedAt;
+
+        Result(T value, long completedAt) {
+            this.value = value;
+            this.completedAt = completedAt;
+        }
+    }
+
+    private class InFlight {
+        final String key;
+        final List<Callback<T>> callbacks = new ArrayList<>();
+        Cancellable call;
+        boolean cancelled;
+
+        InFlight(String key) {
+            this.key = key;
+        }
+    }
+}
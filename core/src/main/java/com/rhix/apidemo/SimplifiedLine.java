@@ -0,0 +1,59 @@
+package com.rhix.apidemo;
+
+import java.util.Arrays;
+
+// A line that grows at its end and is simplified per integer zoom, like the LodPolyline pyramid:
+// PolylineSimplifier significance is computed once per change and every zoom is a linear filter
+// of it. The indices for the last zoom asked are cached, so redrawing an unchanged line at an
+// unchanged zoom costs nothing.
+public class SimplifiedLine {
+    private final double tolerancePx;
+    private double[] latitudes = new double[16];
+    private double[] longitudes = new double[16];
+    private int size;
+
+    private double[] significance;
+    private int[] indices;
+    private int indicesZoom = -1;
+
+    public SimplifiedLine(double tolerancePx) {
+        this.tolerancePx = tolerancePx;
+    }
+
+    public void add(double latitude, double longitude) {
+        if (size == latitudes.length) {
+            latitudes = Arrays.copyOf(latitudes, size * 2);
+            longitudes = Arrays.copyOf(longitudes, size * 2);
+        }
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+        significance = null;
+        indices = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    // Indices of the vertices that matter at the zoom, in order; shared, do not modify
+    public int[] indicesAt(int zoom) {
+        if (indices != null && indicesZoom == zoom) {
+            return indices;
+        }
+        if (significance == null) {
+            significance = PolylineSimplifier.significance(PointStore.wrap(latitudes, longitudes, size));
+        }
+        indices = PolylineSimplifier.filter(significance, PolylineSimplifier.toleranceAtZoom(tolerancePx, zoom));
+        indicesZoom = zoom;
+        return indices;
+    }
+}
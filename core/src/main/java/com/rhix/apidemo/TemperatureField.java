@@ -0,0 +1,132 @@
+package com.rhix.apidemo;
+
+// Temperature surface over slippy map tiles. Samples sit on the tile corners of a coarser
+// "sample zoom"; every display tile lies inside one sample cell and is bilinearly interpolated
+// from that cell's four corners, so neighbouring tiles agree along their shared edges and a
+// tile can be rendered as soon as its own four corners are known.
+public final class TemperatureField {
+    // Cells of roughly 10 km; finer than that the weather API returns the same station anyway
+    public static final int MAX_SAMPLE_ZOOM = 12;
+    // A sample cell spans 4 x 4 display tiles until MAX_SAMPLE_ZOOM is reached
+    static final int SAMPLE_ZOOM_OFFSET = 2;
+
+    // Colour ramp from blue (cold) through green to red (hot)
+    static final float RAMP_MIN = -20f;
+    static final float RAMP_MAX = 45f;
+    private static final float[] STOP_TEMPS = {-20f, 0f, 10f, 20f, 28f, 35f, 45f};
+    private static final int[] STOP_COLORS = {
+            0xFF3F51B5, 0xFF03A9F4, 0xFF4CAF50, 0xFFCDDC39, 0xFFFFC107, 0xFFFF5722, 0xFFB71C1C
+    };
+    private static final int[] LUT = buildLut(512);
+
+    private static final int COORD_BITS = 29;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private TemperatureField() {
+    }
+
+    public static int sampleZoom(int zoom) {
+        return Math.max(0, Math.min(zoom - SAMPLE_ZOOM_OFFSET, MAX_SAMPLE_ZOOM));
+    }
+
+    // Packs (zoom, x, y) into one long; used both for display tiles and sample nodes
+    public static long key(int zoom, int x, int y) {
+        return ((long) zoom << (2 * COORD_BITS)) | ((long) x << COORD_BITS) | y;
+    }
+
+    public static int keyZoom(long key) {
+        return (int) (key >>> (2 * COORD_BITS));
+    }
+
+    public static int keyX(long key) {
+        return (int) ((key >>> COORD_BITS) & COORD_MASK);
+    }
+
+    public static int keyY(long key) {
+        return (int) (key & COORD_MASK);
+    }
+
+    // Node (x, y) is the north-west corner of sample tile (x, y); x and y run to 2^zoom inclusive
+    public static double nodeLatitude(long nodeKey) {
+        return TileMath.latitudeOf((double) keyY(nodeKey) / (1 << keyZoom(nodeKey)));
+    }
+
+    public static double nodeLongitude(long nodeKey) {
+        return TileMath.longitudeOf((double) keyX(nodeKey) / (1 << keyZoom(nodeKey)));
+    }
+
+    // Sample nodes around a display tile, in NW, NE, SW, SE order
+    public static long[] cornerKeys(int zoom, int x, int y) {
+        int sampleZoom = sampleZoom(zoom);
+        int shift = zoom - sampleZoom;
+        int sx = x >> shift;
+        int sy = y >> shift;
+        return new long[]{
+                key(sampleZoom, sx, sy), key(sampleZoom, sx + 1, sy),
+                key(sampleZoom, sx, sy + 1), key(sampleZoom, sx + 1, sy + 1)
+        };
+    }
+
+    // Fills out[size * size] (row-major, north-west first) with temperatures at pixel centres.
+    // corners are NW, NE, SW, SE as returned by cornerKeys.
+    public static void interpolate(int zoom, int x, int y, float[] corners, float[] out, int size) {
+        int shift = zoom - sampleZoom(zoom);
+        int span = 1 << shift;
+        int offsetX = x & (span - 1);
+        int offsetY = y & (span - 1);
+        float nw = corners[0], ne = corners[1], sw = corners[2], se = corners[3];
+        float step = 1f / (size * span);
+        float u0 = (float) offsetX / span + step / 2;
+        float v = (float) offsetY / span + step / 2;
+        int i = 0;
+        for (int row = 0; row < size; row++, v += step) {
+            float west = nw + (sw - nw) * v;
+            float east = ne + (se - ne) * v;
+            float slope = (east - west) * step;
+            float value = west + (east - west) * u0;
+            for (int col = 0; col < size; col++) {
+                out[i++] = value;
+                value += slope;
+            }
+        }
+    }
+
+    public static void colorize(float[] temperatures, int[] argb, int count) {
+        int last = LUT.length - 1;
+        float scale = last / (RAMP_MAX - RAMP_MIN);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((temperatures[i] - RAMP_MIN) * scale + 0.5f);
+            argb[i] = LUT[slot < 0 ? 0 : slot > last ? last : slot];
+        }
+    }
+
+    public static int color(float temperature) {
+        int[] out = new int[1];
+        colorize(new float[]{temperature}, out, 1);
+        return out[0];
+    }
+
+    private static int[] buildLut(int size) {
+        int[] lut = new int[size];
+        for (int i = 0; i < size; i++) {
+            float temp = RAMP_MIN + (RAMP_MAX - RAMP_MIN) * i / (size - 1);
+            int stop = 1;
+            while (stop < STOP_TEMPS.length - 1 && temp > STOP_TEMPS[stop]) {
+                stop++;
+            }
+            float t = (temp - STOP_TEMPS[stop - 1]) / (STOP_TEMPS[stop] - STOP_TEMPS[stop - 1]);
+            lut[i] = blend(STOP_COLORS[stop - 1], STOP_COLORS[stop], Math.max(0f, Math.min(1f, t)));
+        }
+        return lut;
+    }
+
+    private static int blend(int from, int to, float t) {
+        int color = 0xFF000000;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int a = (from >> shift) & 0xFF;
+            int b = (to >> shift) & 0xFF;
+            color |= Math.round(a + (b - a) * t) << shift;
+        }
+        return color;
+    }
+}
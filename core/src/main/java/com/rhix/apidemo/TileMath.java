@@ -0,0 +1,56 @@
+package com.rhix.apidemo;
+
+// Slippy-map (Web Mercator) tile arithmetic
+public final class TileMath {
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private TileMath() {
+    }
+
+    // Normalized mercator x in [0, 1), west to east
+    public static double mercatorX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    // Normalized mercator y in [0, 1], north to south
+    public static double mercatorY(double latitude) {
+        double lat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(lat));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    public static double longitudeOf(double x) {
+        return x * 360 - 180;
+    }
+
+    public static double latitudeOf(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+    public static int longitudeToTileX(double longitude, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor(mercatorX(longitude) * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    public static int latitudeToTileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        int y = (int) Math.floor(mercatorY(latitude) * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    // MBTiles stores rows in TMS order (origin bottom-left)
+    public static int toTmsRow(int y, int zoom) {
+        return (1 << zoom) - 1 - y;
+    }
+
+    public static long countTiles(double north, double south, double east, double west, int minZoom, int maxZoom) {
+        long total = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            long columns = longitudeToTileX(east, zoom) - longitudeToTileX(west, zoom) + 1;
+            long rows = latitudeToTileY(south, zoom) - latitudeToTileY(north, zoom) + 1;
+            total += columns * rows;
+        }
+        return total;
+    }
+}
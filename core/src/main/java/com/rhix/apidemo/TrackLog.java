@@ -0,0 +1,332 @@
+package com.rhix.apidemo;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+
+// Append-only GPS track on disk. Each fix is one record: latitude and longitude in E7 and the
+// time in milliseconds, each stored as a zigzag varint delta from the previous fix, so a point
+// typically costs 6-8 bytes. Every record is framed as [length][payload][crc] and written with a
+// single write() call, so after process death the file holds every fix that was appended; a record
+// cut short by a crash or power loss is detected by its length or checksum and dropped on open.
+// A zero-length record starts a new segment (e.g. a new recording session).
+public class TrackLog implements Closeable {
+    private static final byte[] MAGIC = {'T', 'R', 'K', '1'};
+    private static final int MAX_PAYLOAD = 5 + 5 + 10;
+    private static final double E7 = 1e7;
+
+    public interface Visitor {
+        // newSegment is true for the first fix after a segment break
+        void onFix(double latitude, double longitude, long timeMillis, boolean newSegment) throws IOException;
+    }
+
+    private final File file;
+    private final RandomAccessFile out;
+    private final byte[] record = new byte[1 + MAX_PAYLOAD + 1];
+    private final CRC32 crc = new CRC32();
+    private long length;
+    private int size;
+    private long recoveredBytes;
+    private boolean segmentOpen;
+    private int lastLatE7, lastLonE7;
+    private long lastTime;
+
+    private TrackLog(File file, RandomAccessFile out) {
+        this.file = file;
+        this.out = out;
+    }
+
+    // Opens (or creates) the log, replays it to pick up the delta state and truncates a torn tail
+    public static TrackLog open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        TrackLog log = new TrackLog(file, raf);
+        try {
+            if (raf.length() < MAGIC.length) {
+                raf.setLength(0);
+                raf.write(MAGIC);
+                log.length = MAGIC.length;
+            } else {
+                log.recover(raf.length());
+            }
+            raf.seek(log.length);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        return log;
+    }
+
+    public synchronized void append(double latitude, double longitude, long timeMillis) throws IOException {
+        int latE7 = (int) Math.round(latitude * E7);
+        int lonE7 = (int) Math.round(longitude * E7);
+        int n = 1;
+        n = putVarint(record, n, zigzag(latE7 - lastLatE7));
+        n = putVarint(record, n, zigzag(lonE7 - lastLonE7));
+        n = putVarint(record, n, zigzag(timeMillis - lastTime));
+        record[0] = (byte) (n - 1);
+        record[n] = checksum(record, 1, n - 1);
+        out.write(record, 0, n + 1);
+        length += n + 1;
+        lastLatE7 = latE7;
+        lastLonE7 = lonE7;
+        lastTime = timeMillis;
+        size++;
+        segmentOpen = true;
+    }
+
+    // The next fix starts a new segment; no-op if the current one is still empty
+    public synchronized void startSegment() throws IOException {
+        if (!segmentOpen) {
+            return;
+        }
+        out.write(0);
+        length++;
+        segmentOpen = false;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long length() {
+        return length;
+    }
+
+    // Bytes of incomplete or corrupt records dropped from the end when the log was opened
+    public synchronized long getRecoveredBytes() {
+        return recoveredBytes;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Forces appended records to the storage device, for when a power loss must not lose them
+    public synchronized void sync() throws IOException {
+        out.getFD().sync();
+    }
+
+    // Streams every fix appended so far from disk; safe to call while appending on another thread
+    public void read(Visitor visitor) throws IOException {
+        long end = length();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            Decoder decoder = new Decoder(in, end);
+            decoder.skipMagic();
+            while (decoder.next()) {
+                if (!decoder.isBreak) {
+                    visitor.onFix(decoder.latE7 / E7, decoder.lonE7 / E7, decoder.time, decoder.newSegment);
+                }
+            }
+        }
+    }
+
+    // Streams the track as GPX 1.1, one trkseg per segment, without holding the fixes in memory
+    public void writeGpx(final Writer writer) throws IOException {
+        final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final Date date = new Date();
+        final StringBuilder line = new StringBuilder(96);
+        final boolean[] started = new boolean[1];
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<gpx version=\"1.1\" creator=\"API Demo\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n<trk>\n");
+        read((latitude, longitude, timeMillis, newSegment) -> {
+            line.setLength(0);
+            if (newSegment && started[0]) {
+                line.append("</trkseg>\n");
+            }
+            if (newSegment || !started[0]) {
+                line.append("<trkseg>\n");
+                started[0] = true;
+            }
+            line.append("<trkpt lat=\"");
+            appendE7(line, (int) Math.round(latitude * E7));
+            line.append("\" lon=\"");
+            appendE7(line, (int) Math.round(longitude * E7));
+            date.setTime(timeMillis);
+            line.append("\"><time>").append(iso.format(date)).append("</time></trkpt>\n");
+            writer.append(line);
+        });
+        if (started[0]) {
+            writer.write("</trkseg>\n");
+        }
+        writer.write("</trk>\n</gpx>\n");
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void recover(long fileLength) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            Decoder decoder = new Decoder(in, fileLength);
+            decoder.skipMagic();
+            while (decoder.next()) {
+                if (decoder.isBreak) {
+                    segmentOpen = false;
+                } else {
+                    size++;
+                    segmentOpen = true;
+                }
+            }
+            length = decoder.position;
+            lastLatE7 = decoder.latE7;
+            lastLonE7 = decoder.lonE7;
+            lastTime = decoder.time;
+        }
+        if (length < fileLength) {
+            recoveredBytes = fileLength - length;
+            out.setLength(length);
+        }
+    }
+
+    private byte checksum(byte[] bytes, int offset, int count) {
+        crc.reset();
+        crc.update(bytes, offset, count);
+        return (byte) crc.getValue();
+    }
+
+    // Reads records up to a length limit; stops at the first one that is torn or fails its check
+    private static final class Decoder {
+        private final InputStream in;
+        private final long limit;
+        private final byte[] payload = new byte[MAX_PAYLOAD];
+        private final CRC32 crc = new CRC32();
+        long position;
+        int latE7, lonE7;
+        long time;
+        boolean isBreak;
+        boolean newSegment = true;
+        private boolean afterBreak = true;
+
+        Decoder(InputStream in, long limit) {
+            this.in = in;
+            this.limit = limit;
+        }
+
+        void skipMagic() throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            readFully(magic, 0, magic.length);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a track log");
+                }
+            }
+            position = MAGIC.length;
+        }
+
+        boolean next() throws IOException {
+            if (position >= limit) {
+                return false;
+            }
+            int n = in.read();
+            if (n < 0) {
+                return false;
+            }
+            if (n == 0) {
+                position++;
+                isBreak = true;
+                afterBreak = true;
+                return true;
+            }
+            if (n > MAX_PAYLOAD || position + 1 + n + 1 > limit) {
+                return false;
+            }
+            try {
+                readFully(payload, 0, n);
+            } catch (EOFException e) {
+                return false;
+            }
+            int check = in.read();
+            crc.reset();
+            crc.update(payload, 0, n);
+            if (check < 0 || (byte) check != (byte) crc.getValue()) {
+                return false;
+            }
+            int[] cursor = {0};
+            long dLat = unzigzag(getVarint(payload, n, cursor));
+            long dLon = unzigzag(getVarint(payload, n, cursor));
+            long dTime = unzigzag(getVarint(payload, n, cursor));
+            if (cursor[0] != n) {
+                return false;
+            }
+            latE7 += (int) dLat;
+            lonE7 += (int) dLon;
+            time += dTime;
+            position += 1 + n + 1;
+            isBreak = false;
+            newSegment = afterBreak;
+            afterBreak = false;
+            return true;
+        }
+
+        private void readFully(byte[] bytes, int offset, int count) throws IOException {
+            while (count > 0) {
+                int read = in.read(bytes, offset, count);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+                count -= read;
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int putVarint(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    // Sets cursor past the end on a malformed varint so the caller's length check fails
+    private static long getVarint(byte[] bytes, int end, int[] cursor) {
+        long value = 0;
+        for (int shift = 0; shift < 64 && cursor[0] < end; shift += 7) {
+            byte b = bytes[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        cursor[0] = end + 1;
+        return 0;
+    }
+
+    // Fixed 7-decimal degrees without going through String.format
+    private static void appendE7(StringBuilder sb, int e7) {
+        long value = e7;
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        sb.append(value / 10_000_000).append('.');
+        String fraction = Long.toString(value % 10_000_000);
+        for (int i = fraction.length(); i < 7; i++) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+}
@@ -0,0 +1,359 @@
+package com.rhix.apidemo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Two-tier (memory LRU + disk) weather cache keyed by geohash cell. Lookups for the
+// same cell while a fetch is running join that fetch instead of starting another.
+// With maxStaleMillis set, an entry past its ttl but younger than that is still answered
+// straight away while a refresh for the cell runs in the background (stale-while-revalidate).
+// The disk tier holds one small file per cell: files too old to answer with are deleted when
+// read, and the directory is trimmed oldest first to maxDiskEntries after every write.
+public class WeatherCache {
+    public static final int DEFAULT_PRECISION = 6;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    public static final int DEFAULT_MEMORY_ENTRIES = 256;
+    public static final int DEFAULT_DISK_ENTRIES = 1024;
+    private static final String TMP_SUFFIX = ".tmp";
+
+    public interface Callback {
+        void onWeather(WeatherSnapshot snapshot);
+
+        void onError(Throwable t);
+    }
+
+    // Fetches weather for the centre of a cell; must call back exactly once unless cancelled
+    public interface Fetcher {
+        Cancellable fetch(double latitude, double longitude, Callback callback);
+    }
+
+    private final File diskDir;
+    private final int precision;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final Fetcher fetcher;
+    private final Executor ioExecutor;
+    private final Executor callbackExecutor;
+    private int maxDiskEntries = DEFAULT_DISK_ENTRIES;
+
+    private final LinkedHashMap<String, WeatherSnapshot> memory;
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    public WeatherCache(File diskDir, int precision, long ttlMillis, int memoryEntries,
+                        Fetcher fetcher, Executor ioExecutor, Executor callbackExecutor) {
+        this(diskDir, precision, ttlMillis, 0, memoryEntries, fetcher, ioExecutor, callbackExecutor);
+    }
+
+    public WeatherCache(File diskDir, int precision, long ttlMillis, long maxStaleMillis, final int memoryEntries,
+                        Fetcher fetcher, Executor ioExecutor, Executor callbackExecutor) {
+        this.diskDir = diskDir;
+        this.precision = precision;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.fetcher = fetcher;
+        this.ioExecutor = ioExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.memory = new LinkedHashMap<String, WeatherSnapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WeatherSnapshot> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    public synchronized void setMaxDiskEntries(int maxDiskEntries) {
+        this.maxDiskEntries = maxDiskEntries;
+    }
+
+    public String cellFor(double latitude, double longitude) {
+        return GeoHash.encode(latitude, longitude, precision);
+    }
+
+    public Cancellable get(double latitude, double longitude, final Callback callback) {
+        final String cell = cellFor(latitude, longitude);
+        final WeatherSnapshot snapshot;
+
+        synchronized (this) {
+            WeatherSnapshot cached = memory.get(cell);
+            if (cached != null && isFresh(cached)) {
+                memoryHits.incrementAndGet();
+                snapshot = cached;
+            } else if (cached != null && isUsable(cached)) {
+                staleHits.incrementAndGet();
+                snapshot = cached;
+                if (!inFlight.containsKey(cell)) {
+                    final InFlight refresh = new InFlight(cell);
+                    refresh.revalidation = true;
+                    inFlight.put(cell, refresh);
+                    revalidations.incrementAndGet();
+                    ioExecutor.execute(() -> fetch(refresh));
+                }
+            } else {
+                InFlight pending = inFlight.get(cell);
+                boolean startLoad = pending == null;
+                if (startLoad) {
+                    pending = new InFlight(cell);
+                    inFlight.put(cell, pending);
+                } else {
+                    coalesced.incrementAndGet();
+                }
+                pending.callbacks.add(callback);
+                final InFlight subscribed = pending;
+                if (startLoad) {
+                    ioExecutor.execute(() -> load(subscribed));
+                }
+                return () -> unsubscribe(subscribed, callback);
+            }
+        }
+
+        callbackExecutor.execute(() -> callback.onWeather(snapshot));
+        return Cancellable.NONE;
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    // Lookups answered with an expired entry while it was being refreshed
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    // Background refreshes started for stale entries
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    // Entries that could not be read back or written; the cache carries on without them
+    public long getDiskErrorCount() {
+        return diskErrors.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherCache{memoryHits=" + memoryHits + ", diskHits=" + diskHits
+                + ", misses=" + misses + ", coalesced=" + coalesced + ", staleHits=" + staleHits
+                + ", revalidations=" + revalidations + ", diskErrors=" + diskErrors + "}";
+    }
+
+    private boolean isFresh(WeatherSnapshot snapshot) {
+        return snapshot.getAgeMillis(System.currentTimeMillis()) < ttlMillis;
+    }
+
+    private boolean isUsable(WeatherSnapshot snapshot) {
+        return snapshot.getAgeMillis(System.currentTimeMillis()) < ttlMillis + maxStaleMillis;
+    }
+
+    // Runs on the io executor
+    private void load(final InFlight pending) {
+        WeatherSnapshot fromDisk = readFromDisk(pending.cell);
+        if (fromDisk != null && isFresh(fromDisk)) {
+            diskHits.incrementAndGet();
+            synchronized (this) {
+                memory.put(pending.cell, fromDisk);
+            }
+            complete(pending, fromDisk, null);
+            return;
+        }
+        if (fromDisk != null && isUsable(fromDisk)) {
+            // Answer the waiting callers now and keep the fetch going as a revalidation
+            staleHits.incrementAndGet();
+            revalidations.incrementAndGet();
+            synchronized (this) {
+                memory.put(pending.cell, fromDisk);
+                if (pending.cancelled) {
+                    return;
+                }
+                pending.revalidation = true;
+            }
+            deliver(pending, fromDisk, null);
+        } else {
+            misses.incrementAndGet();
+        }
+        fetch(pending);
+    }
+
+    private void fetch(final InFlight pending) {
+        synchronized (this) {
+            if (pending.cancelled) {
+                return;
+            }
+        }
+        double[] center = GeoHash.decodeCenter(pending.cell);
+        Cancellable call = fetcher.fetch(center[0], center[1], new Callback() {
+            @Override
+            public void onWeather(final WeatherSnapshot snapshot) {
+                synchronized (WeatherCache.this) {
+                    memory.put(pending.cell, snapshot);
+                }
+                ioExecutor.execute(() -> writeToDisk(pending.cell, snapshot));
+                complete(pending, snapshot, null);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                complete(pending, null, t);
+            }
+        });
+        synchronized (this) {
+            pending.call = call;
+            if (pending.cancelled) {
+                call.cancel();
+            }
+        }
+    }
+
+    private void complete(InFlight pending, WeatherSnapshot snapshot, Throwable error) {
+        synchronized (this) {
+            if (inFlight.get(pending.cell) == pending) {
+                inFlight.remove(pending.cell);
+            }
+        }
+        deliver(pending, snapshot, error);
+    }
+
+    // Hands the result to everyone waiting so far; the fetch itself may carry on
+    private void deliver(InFlight pending, final WeatherSnapshot snapshot, final Throwable error) {
+        final List<Callback> callbacks;
+        synchronized (this) {
+            callbacks = new ArrayList<>(pending.callbacks);
+            pending.callbacks.clear();
+        }
+        for (final Callback callback : callbacks) {
+            callbackExecutor.execute(() -> {
+                if (snapshot != null) {
+                    callback.onWeather(snapshot);
+                } else {
+                    callback.onError(error);
+                }
+            });
+        }
+    }
+
+    private synchronized void unsubscribe(InFlight pending, Callback callback) {
+        if (!pending.callbacks.remove(callback)) {
+            return;
+        }
+        // A revalidation refreshes the cache for later lookups, so it runs to the end
+        if (pending.callbacks.isEmpty() && !pending.cancelled && !pending.revalidation) {
+            // Nobody is waiting for this cell any more
+            pending.cancelled = true;
+            if (inFlight.get(pending.cell) == pending) {
+                inFlight.remove(pending.cell);
+            }
+            if (pending.call != null) {
+                pending.call.cancel();
+            }
+        }
+    }
+
+    private WeatherSnapshot readFromDisk(String cell) {
+        File file = new File(diskDir, cell);
+        if (!file.exists()) {
+            return null;
+        }
+        WeatherSnapshot snapshot;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            snapshot = new WeatherSnapshot(in.readDouble(), in.readLong());
+        } catch (IOException e) {
+            // Dropping the unreadable entry turns this lookup into a miss
+            diskErrors.incrementAndGet();
+            file.delete();
+            return null;
+        }
+        if (!isUsable(snapshot)) {
+            // Too old to ever be answered with again
+            file.delete();
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void writeToDisk(String cell, WeatherSnapshot snapshot) {
+        if (!diskDir.exists() && !diskDir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(diskDir, cell + TMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeDouble(snapshot.getTemp());
+            out.writeLong(snapshot.getFetchedAt());
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(new File(diskDir, cell))) {
+            diskErrors.incrementAndGet();
+            tmp.delete();
+            return;
+        }
+        trimDisk();
+    }
+
+    // Deletes the least recently written entries beyond maxDiskEntries
+    private void trimDisk() {
+        File[] files = diskDir.listFiles((dir, name) -> !name.endsWith(TMP_SUFFIX));
+        int limit;
+        synchronized (this) {
+            limit = maxDiskEntries;
+        }
+        if (files == null || files.length <= limit) {
+            return;
+        }
+        final long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        for (int i = 0; i < files.length - limit; i++) {
+            files[order[i]].delete();
+        }
+    }
+
+    private static class InFlight {
+        final String cell;
+        final List<Callback> callbacks = new ArrayList<>();
+        Cancellable call;
+        boolean cancelled;
+        boolean revalidation;
+
+        InFlight(String cell) {
+            this.cell = cell;
+        }
+    }
+}
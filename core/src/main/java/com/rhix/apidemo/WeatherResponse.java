@@ -0,0 +1,51 @@
+package com.rhix.apidemo;
+
+// Decoded by ResponseAdapters.WeatherResponseAdapter. Immutable: the weather array is copied in and out.
+public final class WeatherResponse {
+    private final Main main;
+    private final Weather[] weather;
+    private final String name;
+
+    public WeatherResponse(Main main, Weather[] weather, String name) {
+        this.main = main;
+        this.weather = weather == null ? null : weather.clone();
+        this.name = name;
+    }
+
+    public Main getMain() {
+        return main;
+    }
+
+    // A copy; null when the response had no weather list
+    public Weather[] getWeather() {
+        return weather == null ? null : weather.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static final class Main {
+        private final float temp;
+
+        public Main(float temp) {
+            this.temp = temp;
+        }
+
+        public float getTemp() {
+            return temp;
+        }
+    }
+
+    public static final class Weather {
+        private final String description;
+
+        public Weather(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
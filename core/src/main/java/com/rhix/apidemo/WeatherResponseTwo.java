@@ -0,0 +1,26 @@
+package com.rhix.apidemo;
+
+// Decoded by ResponseAdapters.WeatherResponseTwoAdapter
+public final class WeatherResponseTwo {
+    private final Main main;
+
+    public WeatherResponseTwo(Main main) {
+        this.main = main;
+    }
+
+    public Main getMain() {
+        return main;
+    }
+
+    public static final class Main {
+        private final double temp;
+
+        public Main(double temp) {
+            this.temp = temp;
+        }
+
+        public double getTemp() {
+            return temp;
+        }
+    }
+}
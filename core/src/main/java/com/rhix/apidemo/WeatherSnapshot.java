@@ -0,0 +1,23 @@
+package com.rhix.apidemo;
+
+public final class WeatherSnapshot {
+    private final double temp;
+    private final long fetchedAt; // epoch millis
+
+    public WeatherSnapshot(double temp, long fetchedAt) {
+        this.temp = temp;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public double getTemp() {
+        return temp;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public long getAgeMillis(long now) {
+        return now - fetchedAt;
+    }
+}
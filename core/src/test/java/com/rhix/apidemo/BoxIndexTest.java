@@ -0,0 +1,78 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BoxIndexTest {
+
+    @Test
+    public void query_matchesBruteForce() {
+        int count = 30_000;
+        Random random = new Random(5);
+        double[] minX = new double[count], minY = new double[count];
+        double[] maxX = new double[count], maxY = new double[count];
+        for (int i = 0; i < count; i++) {
+            minX[i] = random.nextDouble();
+            minY[i] = random.nextDouble();
+            // Mostly small boxes with a few long ones, like parcels and routes
+            double size = random.nextInt(50) == 0 ? 0.2 : 0.002;
+            maxX[i] = minX[i] + random.nextDouble() * size;
+            maxY[i] = minY[i] + random.nextDouble() * size;
+        }
+        double[] x0 = minX.clone(), y0 = minY.clone(), x1 = maxX.clone(), y1 = maxY.clone();
+        BoxIndex index = BoxIndex.build(minX, minY, maxX, maxY, count);
+        assertEquals(count, index.size());
+        assertTrue(index.getHeight() >= 4);
+
+        for (int q = 0; q < 200; q++) {
+            double qx0 = random.nextDouble();
+            double qy0 = random.nextDouble();
+            double qx1 = qx0 + random.nextDouble() * 0.1;
+            double qy1 = qy0 + random.nextDouble() * 0.1;
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (x1[i] >= qx0 && x0[i] <= qx1 && y1[i] >= qy0 && y0[i] <= qy1) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            int visited = index.query(qx0, qy0, qx1, qy1, actual::add);
+            Collections.sort(actual);
+
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), visited);
+        }
+    }
+
+    @Test
+    public void touchingEdges_intersect() {
+        BoxIndex index = BoxIndex.build(new double[]{0, 2}, new double[]{0, 2}, new double[]{1, 3}, new double[]{1, 3}, 2);
+
+        assertEquals(1, index.query(1, 1, 1.5, 1.5, item -> assertEquals(0, item)));
+        assertEquals(2, index.query(1, 1, 2, 2, item -> { }));
+        assertEquals(0, index.query(1.1, 1.1, 1.9, 1.9, item -> fail()));
+    }
+
+    @Test
+    public void singleItem_isItsOwnRoot() {
+        BoxIndex index = BoxIndex.build(new double[]{0.5}, new double[]{0.5}, new double[]{0.5}, new double[]{0.5}, 1);
+
+        assertEquals(1, index.getHeight());
+        assertEquals(1, index.query(0, 0, 1, 1, item -> assertEquals(0, item)));
+    }
+
+    @Test
+    public void emptyIndex_queriesNothing() {
+        BoxIndex index = BoxIndex.build(new double[0], new double[0], new double[0], new double[0], 0);
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.query(0, 0, 1, 1, item -> fail()));
+    }
+}
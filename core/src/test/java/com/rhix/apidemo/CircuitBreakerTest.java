@@ -0,0 +1,77 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 1_000, 4_000);
+
+    private void failTimes(int times, long now) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.allowRequest(now));
+            breaker.onFailure(now);
+        }
+    }
+
+    @Test
+    public void consecutiveFailures_openTheBreaker() {
+        failTimes(2, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(0));
+
+        failTimes(1, 0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(0));
+        assertFalse(breaker.allowRequest(500));
+        assertEquals(500, breaker.millisUntilRetry(500));
+        assertEquals(1, breaker.getOpenedCount());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void successInBetween_resetsTheCount() {
+        failTimes(2, 0);
+        breaker.onSuccess();
+        failTimes(2, 0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(0));
+    }
+
+    @Test
+    public void afterOpenTime_oneTrialIsLetThrough() {
+        failTimes(3, 0);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(1_000));
+        assertTrue(breaker.allowRequest(1_000));
+        assertFalse(breaker.allowRequest(1_001));
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(1_001));
+        assertTrue(breaker.allowRequest(1_001));
+    }
+
+    @Test
+    public void failedTrial_reopensForTwiceAsLong() {
+        failTimes(3, 0);
+        assertTrue(breaker.allowRequest(1_000));
+        breaker.onFailure(1_000);
+        assertFalse(breaker.allowRequest(2_999));
+        assertTrue(breaker.allowRequest(3_000));
+        breaker.onFailure(3_000);
+        assertTrue(breaker.allowRequest(7_000));
+        breaker.onFailure(7_000);
+
+        // Capped at maxOpenMillis
+        assertEquals(4_000, breaker.millisUntilRetry(7_000));
+        assertEquals(4, breaker.getOpenedCount());
+    }
+
+    @Test
+    public void abandonedTrial_letsTheNextOneThrough() {
+        failTimes(3, 0);
+        assertTrue(breaker.allowRequest(1_000));
+        breaker.onAbandoned();
+
+        assertTrue(breaker.allowRequest(1_000));
+    }
+}
@@ -0,0 +1,46 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ClusterIndexTest {
+
+    @Test
+    public void everyZoom_accountsForEveryPoint() {
+        int n = 10_000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            lat[i] = 10.0 + random.nextDouble();
+            lon[i] = 122.5 + random.nextDouble();
+        }
+        ClusterIndex index = ClusterIndex.build(lat, lon, n, 0, 18, 60);
+
+        for (int zoom = 0; zoom <= 18; zoom++) {
+            final int[] total = {0};
+            index.query(zoom, 9.9, 122.4, 11.1, 123.6, (latitude, longitude, count, pointIndex) -> total[0] += count);
+            assertEquals("zoom " + zoom, n, total[0]);
+        }
+        assertEquals(1, index.getClusterCount(0));
+        assertTrue(index.getClusterCount(18) > index.getClusterCount(12));
+    }
+
+    @Test
+    public void nearbyPoints_mergeUntilZoomedIn() {
+        // ~30 m apart
+        double[] lat = {10.668328, 10.668600};
+        double[] lon = {122.958444, 122.958444};
+        ClusterIndex index = ClusterIndex.build(lat, lon, 2, 0, 19, 60);
+
+        assertEquals(1, index.getClusterCount(12));
+        assertEquals(2, index.getClusterCount(19));
+        index.query(19, 10.6, 122.9, 10.7, 123.0, (latitude, longitude, count, pointIndex) -> {
+            assertEquals(1, count);
+            assertEquals(lat[pointIndex], latitude, 1e-9);
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DrawProfileTest {
+    private static final long MS = 1_000_000L;
+
+    // One map frame starting at time 0 with the given draw time per slot
+    private static void frame(DrawProfile profile, int zoom, long... slotNanos) {
+        profile.beginFrame(zoom, 0);
+        long total = 0;
+        for (int slot = 0; slot < slotNanos.length; slot++) {
+            if (slotNanos[slot] > 0) {
+                profile.recordDraw(slot, slotNanos[slot]);
+                total += slotNanos[slot];
+            }
+        }
+        profile.endFrame(total + MS);
+    }
+
+    @Test
+    public void overlaysWithTheSameName_shareAGroup() {
+        DrawProfile profile = new DrawProfile();
+        int first = profile.register("Marker");
+        int tiles = profile.register("TilesOverlay");
+        int second = profile.register("Marker");
+
+        assertEquals(first, second);
+        assertNotEquals(first, tiles);
+
+        profile.beginFrame(16, 0);
+        profile.recordDraw(first, 2 * MS);
+        profile.recordDraw(second, 3 * MS);
+        profile.recordDraw(tiles, 1 * MS);
+        profile.endFrame(7 * MS);
+
+        LatencyHistogram markers = profile.getGroupDrawTimes("Marker");
+        assertEquals(1, markers.getCount());
+        assertEquals(5 * MS, markers.getMaxNanos());
+        assertEquals(7 * MS, profile.getDrawTimes().getMaxNanos());
+        assertNull(profile.getGroupDrawTimes("Polyline"));
+        assertTrue(profile.report().contains("Marker"));
+        assertTrue(profile.report().contains("x2"));
+    }
+
+    @Test
+    public void lateFrames_areBlamedOnTheSlowestGroup() {
+        DrawProfile profile = new DrawProfile();
+        profile.register("TilesOverlay");
+        profile.register("GeometryLayer");
+
+        frame(profile, 15, 2 * MS, 20 * MS);
+        profile.recordFrameInterval(33 * MS);
+        frame(profile, 15, 2 * MS, 3 * MS);
+        profile.recordFrameInterval(16 * MS);
+        frame(profile, 17, 9 * MS, 1 * MS);
+        profile.recordFrameInterval(18 * MS);
+
+        assertEquals(3, profile.getFrameCount());
+        assertEquals(2, profile.getLateFrameCount());
+        assertEquals(1, profile.getSlowDrawCount());
+        assertEquals(1, profile.getBlamedFrames("GeometryLayer"));
+        assertEquals(1, profile.getBlamedFrames("TilesOverlay"));
+
+        String report = profile.report();
+        assertTrue(report, report.contains("3 map frames, 2 late"));
+        assertTrue(report, report.contains("z15"));
+        assertTrue(report, report.contains("z17"));
+        // Slowest group in total comes first
+        assertTrue(report, report.indexOf("GeometryLayer") < report.indexOf("TilesOverlay"));
+    }
+
+    @Test
+    public void intervalsWithoutAMapFrame_areIgnored() {
+        DrawProfile profile = new DrawProfile();
+        profile.register("Marker");
+
+        profile.recordFrameInterval(100 * MS);
+        frame(profile, 12, MS);
+        profile.recordFrameInterval(16 * MS);
+        profile.recordFrameInterval(500 * MS);
+
+        assertEquals(0, profile.getLateFrameCount());
+    }
+
+    @Test
+    public void reset_keepsGroupsButDropsTimes() {
+        DrawProfile profile = new DrawProfile();
+        int slot = profile.register("Marker");
+        frame(profile, 12, 30 * MS);
+        profile.recordFrameInterval(40 * MS);
+
+        profile.reset();
+
+        assertEquals(0, profile.getFrameCount());
+        assertEquals(0, profile.getLateFrameCount());
+        assertEquals(0, profile.getBlamedFrames("Marker"));
+        assertEquals(0, profile.getGroupDrawTimes("Marker").getCount());
+        assertFalse(profile.report().contains("z12"));
+        assertEquals(slot, profile.register("Marker"));
+    }
+}
@@ -0,0 +1,199 @@
+package com.rhix.apidemo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class FetchPolicyTest {
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private long now;
+
+    // Answers each attempt with the next scripted outcome: a String succeeds, a Throwable fails
+    private static class ScriptedAttempt implements FetchPolicy.Attempt<String> {
+        final Deque<Object> outcomes;
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+
+        ScriptedAttempt(Object... outcomes) {
+            this.outcomes = new ArrayDeque<>(Arrays.asList(outcomes));
+        }
+
+        @Override
+        public Cancellable start(FetchPolicy.Result<String> result) {
+            started.incrementAndGet();
+            Object outcome;
+            synchronized (this) {
+                outcome = outcomes.poll();
+            }
+            if (outcome instanceof String) {
+                result.onSuccess((String) outcome);
+            } else if (outcome instanceof Throwable) {
+                result.onFailure((Throwable) outcome);
+            }
+            // Nothing scripted: the attempt hangs until cancelled
+            return cancelled::incrementAndGet;
+        }
+    }
+
+    private static class Recorder implements FetchPolicy.Result<String> {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> value = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(String value) {
+            this.value.set(value);
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            error.set(t);
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private FetchPolicy newPolicy(CircuitBreaker breaker) {
+        return new FetchPolicy("weather", 3, 1, 5, breaker, scheduler, () -> now, new Random(42));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void transientFailures_areRetriedUntilSuccess() throws Exception {
+        FetchPolicy policy = newPolicy(new CircuitBreaker(10, 1_000, 1_000));
+        ScriptedAttempt attempt = new ScriptedAttempt(
+                new HttpStatusException("Weather request failed", 503), new IOException("reset"), "29.5");
+        Recorder recorder = new Recorder();
+
+        policy.execute(attempt, recorder);
+
+        assertTrue(recorder.await());
+        assertEquals("29.5", recorder.value.get());
+        assertEquals(3, attempt.started.get());
+        assertEquals(2, policy.getRetryCount());
+        assertEquals(0, policy.getFailureCount());
+    }
+
+    @Test
+    public void lastAttemptsError_isReported() throws Exception {
+        FetchPolicy policy = newPolicy(new CircuitBreaker(10, 1_000, 1_000));
+        HttpStatusException last = new HttpStatusException("Weather request failed", 502);
+        ScriptedAttempt attempt = new ScriptedAttempt(new IOException("timeout"), new IOException("timeout"), last, "late");
+        Recorder recorder = new Recorder();
+
+        policy.execute(attempt, recorder);
+
+        assertTrue(recorder.await());
+        assertSame(last, recorder.error.get());
+        assertEquals(3, attempt.started.get());
+        assertEquals(1, policy.getFailureCount());
+    }
+
+    @Test
+    public void clientErrors_areNotRetriedAndKeepTheBreakerClosed() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1_000, 1_000);
+        FetchPolicy policy = newPolicy(breaker);
+        Recorder recorder = new Recorder();
+
+        policy.execute(new ScriptedAttempt(new HttpStatusException("Weather request failed", 401)), recorder);
+
+        assertTrue(recorder.await());
+        assertEquals(401, ((HttpStatusException) recorder.error.get()).getCode());
+        assertEquals(0, policy.getRetryCount());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(now));
+    }
+
+    @Test
+    public void openBreaker_failsFastWithoutAnAttempt() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1_000, 1_000);
+        FetchPolicy policy = newPolicy(breaker);
+        Recorder first = new Recorder();
+        policy.execute(new ScriptedAttempt(new IOException("down"), new IOException("down"), new IOException("down")), first);
+        assertTrue(first.await());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(now));
+
+        ScriptedAttempt attempt = new ScriptedAttempt("29.5");
+        Recorder second = new Recorder();
+        policy.execute(attempt, second);
+
+        assertTrue(second.await());
+        assertTrue(second.error.get() instanceof FetchPolicy.CircuitOpenException);
+        assertEquals(0, attempt.started.get());
+        assertEquals(1, policy.getRejectedCount());
+
+        // Once the open time is up a trial goes through and closes it again
+        now += 1_000;
+        Recorder third = new Recorder();
+        policy.execute(attempt, third);
+        assertTrue(third.await());
+        assertEquals("29.5", third.value.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(now));
+    }
+
+    @Test
+    public void cancel_stopsTheAttemptAndLaterRetries() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(10, 1_000, 1_000);
+        FetchPolicy policy = new FetchPolicy("weather", 3, 60_000, 60_000, breaker, scheduler, () -> now, new Random(42));
+        ScriptedAttempt hanging = new ScriptedAttempt();
+        Recorder recorder = new Recorder();
+
+        policy.execute(hanging, recorder).cancel();
+
+        assertEquals(1, hanging.cancelled.get());
+        assertEquals(1, recorder.done.getCount());
+
+        // Cancelled while waiting to retry: the retry never starts
+        ScriptedAttempt failing = new ScriptedAttempt(new IOException("down"), "29.5");
+        Cancellable handle = policy.execute(failing, recorder);
+        handle.cancel();
+        Thread.sleep(50);
+        assertEquals(1, failing.started.get());
+        assertEquals(1, recorder.done.getCount());
+    }
+
+    @Test
+    public void backoff_staysWithinTheExponentialStep() {
+        FetchPolicy policy = new FetchPolicy("weather", 5, 100, 1_000, new CircuitBreaker(10, 1_000, 1_000),
+                scheduler, () -> now, new Random(7));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoffMillis(0) <= 100);
+            assertTrue(policy.backoffMillis(2) <= 400);
+            long capped = policy.backoffMillis(10);
+            assertTrue(capped >= 0 && capped <= 1_000);
+        }
+    }
+
+    @Test
+    public void once_makesASingleAttempt() throws Exception {
+        FetchPolicy policy = FetchPolicy.once("reverse");
+        ScriptedAttempt attempt = new ScriptedAttempt(new IOException("down"), "Bacolod");
+        Recorder recorder = new Recorder();
+
+        policy.execute(attempt, recorder);
+
+        assertTrue(recorder.await());
+        assertNotNull(recorder.error.get());
+        assertEquals(1, attempt.started.get());
+    }
+}
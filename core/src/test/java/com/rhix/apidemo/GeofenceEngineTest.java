@@ -0,0 +1,115 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeofenceEngineTest {
+
+    private static class RecordingListener implements GeofenceEngine.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onEnter(int fence) {
+            events.add("enter " + fence);
+        }
+
+        @Override
+        public void onExit(int fence) {
+            events.add("exit " + fence);
+        }
+    }
+
+    @Test
+    public void concavePolygon_excludesItsNotch() {
+        GeofenceEngine.Builder builder = new GeofenceEngine.Builder();
+        // A U shape: two arms joined at the bottom
+        builder.addFence(10.0, 122.0, 10.0, 122.3, 10.3, 122.3, 10.3, 122.2, 10.1, 122.2, 10.1, 122.1, 10.3, 122.1, 10.3, 122.0);
+        GeofenceEngine engine = builder.build();
+
+        assertTrue(engine.contains(0, 10.05, 122.15));
+        assertTrue(engine.contains(0, 10.2, 122.05));
+        assertTrue(engine.contains(0, 10.2, 122.25));
+        assertFalse(engine.contains(0, 10.2, 122.15));
+        assertFalse(engine.contains(0, 10.4, 122.15));
+        // Level with a vertex, outside on one side and inside on the other
+        assertFalse(engine.contains(0, 10.1, 121.95));
+        assertTrue(engine.contains(0, 10.1, 122.05));
+    }
+
+    @Test
+    public void closedRing_isTheSameFence() {
+        GeofenceEngine.Builder builder = new GeofenceEngine.Builder();
+        builder.addFence(10.0, 122.0, 10.0, 122.1, 10.1, 122.1, 10.1, 122.0);
+        builder.addFence(10.0, 122.0, 10.0, 122.1, 10.1, 122.1, 10.1, 122.0, 10.0, 122.0);
+        GeofenceEngine engine = builder.build();
+
+        assertEquals(2, engine.update(10.05, 122.05, new RecordingListener()));
+    }
+
+    @Test
+    public void walkingThroughFences_reportsEnterAndExit() {
+        GeofenceEngine.Builder builder = new GeofenceEngine.Builder();
+        builder.addFence(10.0, 122.0, 10.0, 122.01, 10.01, 122.01, 10.01, 122.0);
+        builder.addFence(10.0, 122.005, 10.0, 122.02, 10.01, 122.02, 10.01, 122.005);
+        GeofenceEngine engine = builder.build();
+        RecordingListener listener = new RecordingListener();
+
+        assertEquals(0, engine.update(10.005, 121.999, listener));
+        assertEquals(1, engine.update(10.005, 122.001, listener));
+        assertEquals(1, engine.update(10.005, 122.002, listener));
+        assertEquals(2, engine.update(10.005, 122.006, listener));
+        assertEquals(1, engine.update(10.005, 122.015, listener));
+        assertEquals(0, engine.update(10.02, 122.015, listener));
+
+        assertEquals(Arrays.asList("enter 0", "enter 1", "exit 0", "exit 1"), listener.events);
+        assertFalse(engine.isInside(0));
+    }
+
+    @Test
+    public void update_matchesBruteForceAlongAWalk() {
+        GeofenceEngine engine = Fixtures.randomFences(2000, 0.2, 4);
+        Random random = new Random(8);
+        double lat = 10.7;
+        double lon = 123.0;
+        int[] inside = new int[engine.size()];
+        RecordingListener listener = new RecordingListener();
+
+        for (int step = 0; step < 5000; step++) {
+            // Mostly short steps, with an occasional jump to another cell
+            double stride = random.nextInt(100) == 0 ? 0.05 : 0.0002;
+            lat += (random.nextDouble() - 0.5) * stride;
+            lon += (random.nextDouble() - 0.5) * stride;
+
+            int count = engine.update(lat, lon, listener);
+            boolean[] expected = new boolean[engine.size()];
+            int expectedCount = 0;
+            for (int f = 0; f < engine.size(); f++) {
+                expected[f] = engine.contains(f, lat, lon);
+                expectedCount += expected[f] ? 1 : 0;
+                assertEquals(expected[f], engine.isInside(f));
+            }
+            assertEquals(expectedCount, count);
+            assertEquals(count, engine.getInside(inside));
+        }
+        assertTrue(engine.getCellChangeCount() < engine.getUpdateCount() / 2);
+        assertFalse(listener.events.isEmpty());
+    }
+
+    @Test
+    public void emptyEngine_containsNothing() {
+        GeofenceEngine engine = new GeofenceEngine.Builder().build();
+
+        assertEquals(0, engine.update(10.0, 122.0, new RecordingListener()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void twoVertexFence_isRejected() {
+        new GeofenceEngine.Builder().addFence(10.0, 122.0, 10.1, 122.1, 10.0, 122.0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeometryStoreTest {
+
+    @Test
+    public void longLine_isChunkedWithSharedEndVertices() {
+        double[] latLon = new double[2 * 200];
+        for (int i = 0; i < 200; i++) {
+            latLon[2 * i] = 10.6 + i * 0.001;
+            latLon[2 * i + 1] = 122.9 + (i % 2) * 0.001;
+        }
+        GeometryStore store = new GeometryStore.Builder().addPolyline(latLon).build();
+
+        // 199 segments in chunks of 63
+        assertEquals(4, store.getItemCount());
+        int vertices = 0;
+        for (int item = 0; item < store.getItemCount(); item++) {
+            assertFalse(store.isFill(item));
+            assertEquals(0, store.getItemShape(item));
+            vertices += store.getItemVertexCount(item);
+        }
+        assertEquals(200 + 3, vertices);
+
+        // The last vertex of one chunk is the first of the next
+        double worldSize = 1 << 24;
+        float[] a = new float[2 * GeometryStore.CHUNK_VERTICES];
+        float[] b = new float[2 * GeometryStore.CHUNK_VERTICES];
+        int n = store.toPixels(0, worldSize, 0, a);
+        store.toPixels(1, worldSize, 0, b);
+        double endX = a[2 * n - 2] + store.getItemMinX(0) * worldSize;
+        double endY = a[2 * n - 1] + store.getItemMinY(0) * worldSize;
+        assertEquals(endX, b[0] + store.getItemMinX(1) * worldSize, 0.01);
+        assertEquals(endY, b[1] + store.getItemMinY(1) * worldSize, 0.01);
+    }
+
+    @Test
+    public void polygon_getsOneClosedFillItemAndStrokeChunks() {
+        GeometryStore store = new GeometryStore.Builder().addPolygon(Fixtures.ring(10.67, 122.96, 0.01, 100)).build();
+
+        assertEquals(1, store.getShapeCount());
+        // Closing vertex added: 101 vertices, one fill item and two stroke chunks
+        assertEquals(101, store.getVertexCount());
+        assertEquals(3, store.getItemCount());
+        assertTrue(store.isFill(0));
+        assertEquals(101, store.getItemVertexCount(0));
+
+        float[] out = new float[2 * 101];
+        int n = store.toPixels(0, 1 << 20, 0, out);
+        assertEquals(101, n);
+        assertEquals(out[0], out[2 * n - 2], 0f);
+        assertEquals(out[1], out[2 * n - 1], 0f);
+    }
+
+    @Test
+    public void polygonAlreadyClosed_isNotClosedTwice() {
+        double[] open = Fixtures.ring(10.67, 122.96, 0.01, 8);
+        double[] closed = new double[open.length + 2];
+        System.arraycopy(open, 0, closed, 0, open.length);
+        closed[open.length] = open[0];
+        closed[open.length + 1] = open[1];
+
+        GeometryStore store = new GeometryStore.Builder().addPolygon(closed).build();
+
+        assertEquals(9, store.getVertexCount());
+    }
+
+    @Test
+    public void toPixels_dropsInvisibleDetailButKeepsEnds() {
+        // A straight line with a tiny zig-zag: invisible when zoomed out, kept when zoomed in
+        double[] latLon = new double[2 * 50];
+        for (int i = 0; i < 50; i++) {
+            latLon[2 * i] = 10.6 + (i % 2) * 0.00001;
+            latLon[2 * i + 1] = 122.9 + i * 0.001;
+        }
+        GeometryStore store = new GeometryStore.Builder().addPolyline(latLon).build();
+        float[] out = new float[2 * 50];
+
+        assertEquals(2, store.toPixels(0, 256 << 10, 0.5, out));
+        assertEquals(0f, out[0], 0f);
+        assertEquals(50, store.toPixels(0, 256L << 20, 0.5, out));
+    }
+
+    @Test
+    public void query_returnsOnlyItemsInView() {
+        GeometryStore.Builder builder = new GeometryStore.Builder();
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                builder.addPolygon(Fixtures.ring(10.0 + row * 0.01, 122.0 + col * 0.01, 0.003, 6));
+            }
+        }
+        GeometryStore store = builder.build();
+        assertEquals(200, store.getItemCount());
+
+        List<Integer> shapes = new ArrayList<>();
+        int count = store.query(10.015, 122.015, 10.025, 122.025, item -> {
+            if (store.isFill(item)) {
+                shapes.add(store.getItemShape(item));
+            }
+        });
+
+        // Only the shape centred at (10.02, 122.02) reaches into the box
+        assertEquals(2, count);
+        assertEquals(1, shapes.size());
+        assertEquals(2 * 10 + 2, (int) shapes.get(0));
+        assertEquals(0, store.query(11, 123, 11.1, 123.1, item -> fail()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singleVertex_isRejected() {
+        new GeometryStore.Builder().addPolyline(10.6, 122.9);
+    }
+}
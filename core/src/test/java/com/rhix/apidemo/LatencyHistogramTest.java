@@ -0,0 +1,98 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty_reportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getMeanNanos(), 0);
+    }
+
+    @Test
+    public void buckets_tileTheRangeWithoutGaps() {
+        assertEquals(0, LatencyHistogram.lowOf(0));
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            assertEquals(LatencyHistogram.highOf(i - 1) + 1, LatencyHistogram.lowOf(i));
+            assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.lowOf(i)));
+            assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.highOf(i)));
+        }
+    }
+
+    @Test
+    public void percentiles_areWithinOneBucketOfTheExactValue() {
+        Random random = new Random(7);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal around 80 ms, the shape of real request latencies
+            values[i] = (long) (80e6 * Math.exp(random.nextGaussian() * 0.8));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[]{50, 90, 95, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100) - 1];
+            long reported = histogram.getPercentileNanos(p);
+            assertTrue(p + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(p + ": " + reported + " vs " + exact, reported <= exact * 1.125 + 1);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentileNanos(100));
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+        assertEquals(values.length, histogram.getCount());
+    }
+
+    @Test
+    public void outOfRangeValues_areClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(LatencyHistogram.highOf(LatencyHistogram.BUCKET_COUNT - 1), histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void concurrentRecords_areAllCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long value = (t + 1) * 1_000_000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(4_000_000L, histogram.getMaxNanos());
+        assertEquals(2_500_000, histogram.getMeanNanos(), 1e-6);
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+    }
+}
@@ -0,0 +1,179 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationRefreshPipelineTest {
+    private static final double START_LAT = 10.53724;
+    private static final double START_LON = 122.83202;
+
+    // Fake GPS: replays scripted fixes into the pipeline and records the rate it is asked for
+    private static class ScriptedLocationSource implements LocationRefreshPipeline.RateController {
+        final List<Long> rateChanges = new ArrayList<>();
+        long intervalMillis = LocationRefreshPipeline.MOVING_UPDATE_MILLIS;
+        LocationRefreshPipeline pipeline;
+        long now;
+        double lastLat = START_LAT;
+
+        @Override
+        public void setUpdateIntervalMillis(long millis) {
+            intervalMillis = millis;
+            rateChanges.add(millis);
+        }
+
+        // Emits fixes at the current rate for durationMillis, moving metersPerSecond due north
+        void travel(long durationMillis, double metersPerSecond) {
+            long end = now + durationMillis;
+            double lat = lastLat;
+            while (now < end) {
+                now += intervalMillis;
+                lat += GeoMath.metersToLatitudeDegrees(metersPerSecond * intervalMillis / 1000.0);
+                fix(lat, START_LON);
+            }
+        }
+
+        void fix(double lat, double lon) {
+            lastLat = lat;
+            pipeline.onLocation(lat, lon, now);
+        }
+    }
+
+    // Holds requests open until the test completes them
+    private static class RecordingFetcher implements LocationRefreshPipeline.Fetcher {
+        final List<double[]> requests = new ArrayList<>();
+        final List<Runnable> pending = new ArrayList<>();
+        int cancelled;
+        boolean completeImmediately = true;
+
+        @Override
+        public Cancellable fetch(double latitude, double longitude, Runnable done) {
+            requests.add(new double[]{latitude, longitude});
+            if (completeImmediately) {
+                done.run();
+            } else {
+                pending.add(done);
+            }
+            return () -> cancelled++;
+        }
+    }
+
+    private final ScriptedLocationSource source = new ScriptedLocationSource();
+    private final RecordingFetcher fetcher = new RecordingFetcher();
+
+    private LocationRefreshPipeline newPipeline() {
+        LocationRefreshPipeline pipeline = new LocationRefreshPipeline(fetcher, source);
+        source.pipeline = pipeline;
+        return pipeline;
+    }
+
+    @Test
+    public void firstFix_refreshesImmediately() {
+        LocationRefreshPipeline pipeline = newPipeline();
+
+        source.fix(START_LAT, START_LON);
+
+        assertEquals(1, fetcher.requests.size());
+        assertEquals(1, pipeline.getRefreshCount());
+    }
+
+    @Test
+    public void walking_refreshesOnlyAfterMinimumDistance() {
+        LocationRefreshPipeline pipeline = newPipeline();
+        source.fix(START_LAT, START_LON);
+
+        // 1.4 m/s for ten minutes: about 840 m, one refresh past the 500 m mark
+        source.travel(10 * 60_000, 1.4);
+
+        assertEquals(2, fetcher.requests.size());
+        assertEquals(301, pipeline.getFixCount());
+        double moved = GeoMath.distanceMeters(START_LAT, START_LON, fetcher.requests.get(1)[0], fetcher.requests.get(1)[1]);
+        assertTrue("moved " + moved, moved >= LocationRefreshPipeline.DEFAULT_MIN_DISTANCE_METERS && moved < 510);
+    }
+
+    @Test
+    public void driving_refreshesAtMostOncePerMinimumInterval() {
+        LocationRefreshPipeline pipeline = newPipeline();
+        source.fix(START_LAT, START_LON);
+
+        // 25 m/s covers 500 m every 20 s, but refreshes stay a minute apart
+        source.travel(5 * 60_000, 25);
+
+        assertEquals(6, pipeline.getRefreshCount());
+    }
+
+    @Test
+    public void standingStill_slowsGpsAndRefreshesOnlyWhenStale() {
+        LocationRefreshPipeline pipeline = newPipeline();
+        source.fix(START_LAT, START_LON);
+
+        // 20 minutes of GPS jitter a few metres around one spot
+        long end = source.now + 20 * 60_000;
+        int step = 0;
+        while (source.now < end) {
+            source.now += source.intervalMillis;
+            double jitter = GeoMath.metersToLatitudeDegrees((step++ % 5 - 2) * 4);
+            source.fix(START_LAT + jitter, START_LON - jitter);
+        }
+
+        assertTrue(pipeline.isStationary());
+        assertEquals(1, source.rateChanges.size());
+        assertEquals(LocationRefreshPipeline.STATIONARY_UPDATE_MILLIS, (long) source.rateChanges.get(0));
+        // Initial fix plus one when the 15 minute weather TTL ran out
+        assertEquals(2, fetcher.requests.size());
+        // 60 s at 2 s, then 30 s steps for the remaining 19 minutes
+        assertTrue(pipeline.getFixCount() < 80);
+
+        source.travel(30_000, 1.4);
+
+        assertFalse(pipeline.isStationary());
+        assertEquals(LocationRefreshPipeline.MOVING_UPDATE_MILLIS, (long) source.rateChanges.get(1));
+    }
+
+    @Test
+    public void newerRefresh_cancelsOneStillInFlight() {
+        LocationRefreshPipeline pipeline = newPipeline();
+        fetcher.completeImmediately = false;
+
+        source.fix(START_LAT, START_LON);
+        assertTrue(pipeline.isRefreshing());
+        source.travel(90_000, 10);
+
+        assertEquals(2, fetcher.requests.size());
+        assertEquals(1, fetcher.cancelled);
+        assertEquals(1, pipeline.getSupersededCount());
+
+        // The superseded request finishing late does not clear the newer one
+        fetcher.pending.get(0).run();
+        assertTrue(pipeline.isRefreshing());
+        fetcher.pending.get(1).run();
+        assertFalse(pipeline.isRefreshing());
+    }
+
+    @Test
+    public void completedRefresh_isNotCancelledByTheNext() {
+        LocationRefreshPipeline pipeline = newPipeline();
+
+        source.fix(START_LAT, START_LON);
+        source.travel(90_000, 10);
+
+        assertEquals(2, fetcher.requests.size());
+        assertEquals(0, fetcher.cancelled);
+        assertEquals(0, pipeline.getSupersededCount());
+    }
+
+    @Test
+    public void stop_cancelsInFlightRefresh() {
+        LocationRefreshPipeline pipeline = newPipeline();
+        fetcher.completeImmediately = false;
+        source.fix(START_LAT, START_LON);
+
+        pipeline.stop();
+
+        assertEquals(1, fetcher.cancelled);
+        assertFalse(pipeline.isRefreshing());
+    }
+}
@@ -0,0 +1,85 @@
+package com.rhix.apidemo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static com.rhix.apidemo.NetworkMetrics.Endpoint.*;
+import static org.junit.Assert.*;
+
+public class NetworkMetricsTest {
+
+    @Test
+    public void endpointOf_classifiesTheAppsUrls() {
+        assertEquals(WEATHER, NetworkMetrics.endpointOf("/data/2.5/weather"));
+        assertEquals(WEATHER, NetworkMetrics.endpointOf("/weather"));
+        assertEquals(REVERSE, NetworkMetrics.endpointOf("/reverse"));
+        assertEquals(REVERSE, NetworkMetrics.endpointOf("/reverse.php"));
+        assertEquals(TILES, NetworkMetrics.endpointOf("/16/55134/30712.png"));
+        assertEquals(TILES, NetworkMetrics.endpointOf("/tiles/osm/16/55134/30712.jpg"));
+        assertEquals(OTHER, NetworkMetrics.endpointOf("/55134/30712.png"));
+        assertEquals(OTHER, NetworkMetrics.endpointOf("/a/55134/30712.png"));
+        assertEquals(OTHER, NetworkMetrics.endpointOf("/search"));
+        assertEquals(OTHER, NetworkMetrics.endpointOf("/"));
+        assertEquals(OTHER, NetworkMetrics.endpointOf(""));
+    }
+
+    @Test
+    public void histograms_areKeptPerEndpointAndPhase() {
+        NetworkMetrics metrics = new NetworkMetrics();
+        metrics.record(WEATHER, NetworkMetrics.Phase.TOTAL, 80_000_000);
+        metrics.record(WEATHER, NetworkMetrics.Phase.TTFB, 50_000_000);
+        metrics.record(REVERSE, NetworkMetrics.Phase.TOTAL, 300_000_000);
+        metrics.recordFailure(REVERSE);
+
+        assertEquals(1, metrics.get(WEATHER, NetworkMetrics.Phase.TOTAL).getCount());
+        assertEquals(0, metrics.get(WEATHER, NetworkMetrics.Phase.DNS).getCount());
+        assertEquals(300_000_000, metrics.get(REVERSE, NetworkMetrics.Phase.TOTAL).getMaxNanos());
+        assertEquals(0, metrics.getFailureCount(WEATHER));
+        assertEquals(1, metrics.getFailureCount(REVERSE));
+        assertEquals("weather n 1  p50 80  p95 80  p99 80 ms  ttfb 50", metrics.summary(WEATHER));
+        assertTrue(metrics.summary(REVERSE).endsWith("failed 1"));
+
+        metrics.reset();
+        assertEquals(0, metrics.get(WEATHER, NetworkMetrics.Phase.TOTAL).getCount());
+        assertEquals(0, metrics.getFailureCount(REVERSE));
+    }
+
+    @Test
+    public void writeJson_dumpsPercentilesAndBuckets() throws Exception {
+        NetworkMetrics metrics = new NetworkMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(TILES, NetworkMetrics.Phase.TOTAL, i * 1_000_000L);
+        }
+        metrics.record(TILES, NetworkMetrics.Phase.DNS, 2_000_000);
+        metrics.recordFailure(WEATHER);
+
+        StringWriter out = new StringWriter();
+        metrics.writeJson(out);
+        JsonObject endpoints = JsonParser.parseString(out.toString()).getAsJsonObject().getAsJsonObject("endpoints");
+
+        assertEquals(4, endpoints.size());
+        assertEquals(1, endpoints.getAsJsonObject("weather").get("failures").getAsLong());
+        assertEquals(0, endpoints.getAsJsonObject("weather").getAsJsonObject("phases").size());
+        JsonObject phases = endpoints.getAsJsonObject("tiles").getAsJsonObject("phases");
+        assertEquals(2, phases.size());
+        JsonObject total = phases.getAsJsonObject("total");
+        assertEquals(100, total.get("count").getAsLong());
+        assertEquals(50.5, total.get("mean_ms").getAsDouble(), 1e-9);
+        assertEquals(100.0, total.get("max_ms").getAsDouble(), 1e-9);
+        double p50 = total.get("p50_ms").getAsDouble();
+        assertTrue(String.valueOf(p50), p50 >= 50 && p50 <= 50 * 1.125);
+
+        long bucketed = 0;
+        for (int i = 0; i < total.getAsJsonArray("buckets").size(); i++) {
+            JsonArray bucket = total.getAsJsonArray("buckets").get(i).getAsJsonArray();
+            assertTrue(bucket.get(0).getAsLong() <= bucket.get(1).getAsLong());
+            bucketed += bucket.get(2).getAsLong();
+        }
+        assertEquals(100, bucketed);
+    }
+}
@@ -0,0 +1,93 @@
+package com.rhix.apidemo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PlaceWeatherRefresherTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PlaceWeatherStore store;
+    private final List<String> fetched = new ArrayList<>();
+    private int cancelled;
+
+    // Answers at once: a place named "Down" fails, "Slow" never answers, the rest succeed
+    private final PlaceWeatherRefresher.Fetcher fetcher = (place, callback) -> {
+        fetched.add(place);
+        if (place.equals("Down")) {
+            callback.onError(new IOException("HTTP 503"));
+        } else if (!place.equals("Slow")) {
+            callback.onEntry(new PlaceWeatherStore.Entry(place, place, 29.5, "clear sky", System.currentTimeMillis()));
+        }
+        return () -> cancelled++;
+    };
+
+    @Before
+    public void setUp() {
+        store = new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin"));
+    }
+
+    @Test
+    public void allPlaces_areFetchedInOneBatch() throws Exception {
+        store.addPlace("Bacolod");
+        store.addPlace("Iloilo");
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, fetcher);
+
+        PlaceWeatherRefresher.Outcome outcome = refresher.refreshAll(1_000);
+
+        assertEquals(2, outcome.refreshed);
+        assertEquals(0, outcome.failed);
+        assertEquals(2, fetched.size());
+        assertNotNull(store.get("Bacolod"));
+        assertNotNull(new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin")).get("Iloilo"));
+        assertEquals(1, refresher.getRunCount());
+        assertEquals(1, refresher.getRefreshTimes().getCount());
+        assertTrue(refresher.getLastRefreshAt() > 0);
+    }
+
+    @Test
+    public void failedAndTimedOutPlaces_keepTheirOldWeather() throws Exception {
+        store.addPlace("Bacolod");
+        store.addPlace("Down");
+        store.addPlace("Slow");
+        store.putAll(Arrays.asList(
+                new PlaceWeatherStore.Entry("Down", "Down", 20.0, "rain", 1_000),
+                new PlaceWeatherStore.Entry("Slow", "Slow", 21.0, "rain", 1_000)));
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, fetcher);
+
+        PlaceWeatherRefresher.Outcome outcome = refresher.refreshAll(50);
+
+        assertEquals(1, outcome.refreshed);
+        assertEquals(2, outcome.failed);
+        assertEquals(20.0, store.get("Down").temp, 0.0);
+        assertEquals(1_000, store.get("Slow").fetchedAt);
+        // Every call is cancelled once the batch is over; the unanswered one is the one that matters
+        assertEquals(3, cancelled);
+        assertEquals(2, refresher.getPlacesFailedCount());
+    }
+
+    @Test
+    public void shownEntries_areTalliedByAge() {
+        PlaceWeatherRefresher refresher = new PlaceWeatherRefresher(store, fetcher, 10_000);
+        PlaceWeatherStore.Entry entry = new PlaceWeatherStore.Entry("Bacolod", "Bacolod", 29.5, "clear sky", 0);
+
+        refresher.recordShown(entry, 5_000);
+        refresher.recordShown(entry, 20_000);
+        refresher.recordShown(null, 20_000);
+
+        assertEquals(3, refresher.getShownCount());
+        assertEquals(1, refresher.getShownStaleCount());
+        assertEquals(1, refresher.getShownMissingCount());
+        assertEquals(20_000, refresher.getMaxShownAgeMillis());
+    }
+}
@@ -0,0 +1,91 @@
+package com.rhix.apidemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PlaceWeatherStoreTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static PlaceWeatherStore.Entry entry(String place, double temp, long fetchedAt) {
+        return new PlaceWeatherStore.Entry(place, place + " City", temp, "clear sky", fetchedAt);
+    }
+
+    @Test
+    public void placesAndEntries_surviveARestart() throws Exception {
+        File file = new File(tempFolder.getRoot(), "places.bin");
+        PlaceWeatherStore store = new PlaceWeatherStore(file);
+        assertTrue(store.addPlace("Bacolod"));
+        assertTrue(store.addPlace("Iloilo"));
+        assertFalse(store.addPlace("Bacolod"));
+        store.putAll(Arrays.asList(entry("Bacolod", 29.5, 1_000), entry("Iloilo", 28.0, 2_000)));
+
+        PlaceWeatherStore restarted = new PlaceWeatherStore(file);
+
+        assertEquals(Arrays.asList("Bacolod", "Iloilo"), restarted.getPlaces());
+        PlaceWeatherStore.Entry bacolod = restarted.get("Bacolod");
+        assertEquals("Bacolod City", bacolod.name);
+        assertEquals(29.5, bacolod.temp, 0.0);
+        assertEquals("clear sky", bacolod.description);
+        assertEquals(1_000, bacolod.fetchedAt);
+        assertEquals(0, restarted.getDiskErrorCount());
+    }
+
+    @Test
+    public void missingNameAndDescription_areStoredWithStandIns() {
+        File file = new File(tempFolder.getRoot(), "places.bin");
+        PlaceWeatherStore store = new PlaceWeatherStore(file);
+        store.addPlace("Bacolod");
+
+        store.put(new PlaceWeatherStore.Entry("Bacolod", null, 29.5, null, 1_000));
+
+        PlaceWeatherStore.Entry entry = new PlaceWeatherStore(file).get("Bacolod");
+        assertEquals("Bacolod", entry.name);
+        assertEquals("", entry.description);
+        assertEquals(0, store.getDiskErrorCount());
+    }
+
+    @Test
+    public void placeWithoutWeather_hasNoEntry() {
+        PlaceWeatherStore store = new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin"));
+        store.addPlace("Bacolod");
+
+        assertNull(store.get("Bacolod"));
+        assertEquals(Long.MAX_VALUE, store.getOldestAgeMillis(5_000));
+    }
+
+    @Test
+    public void entriesForUnsavedPlaces_areDropped() {
+        PlaceWeatherStore store = new PlaceWeatherStore(new File(tempFolder.getRoot(), "places.bin"));
+        store.addPlace("Bacolod");
+        store.addPlace("Iloilo");
+        store.removePlace("Iloilo");
+
+        store.putAll(Arrays.asList(entry("Bacolod", 29.5, 1_000), entry("Iloilo", 28.0, 4_000)));
+
+        assertEquals(Arrays.asList("Bacolod"), store.getPlaces());
+        assertNull(store.get("Iloilo"));
+        assertEquals(4_000, store.getOldestAgeMillis(5_000));
+    }
+
+    @Test
+    public void unreadableFile_startsEmpty() throws Exception {
+        File file = new File(tempFolder.getRoot(), "places.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{0, 0, 0, 1, 0, 0, 0, 5, 0});
+        }
+        PlaceWeatherStore store = new PlaceWeatherStore(file);
+
+        assertTrue(store.getPlaces().isEmpty());
+        assertEquals(1, store.getDiskErrorCount());
+        assertTrue(store.addPlace("Bacolod"));
+        assertEquals(Arrays.asList("Bacolod"), new PlaceWeatherStore(file).getPlaces());
+    }
+}
@@ -0,0 +1,61 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PointQuadTreeTest {
+
+    @Test
+    public void query_matchesBruteForce() {
+        PointStore points = Fixtures.randomPoints(20_000, 3);
+        PointQuadTree tree = PointQuadTree.build(points);
+        Random random = new Random(9);
+
+        for (int q = 0; q < 200; q++) {
+            double south = 10.0 + random.nextDouble();
+            double west = 122.5 + random.nextDouble();
+            double north = south + random.nextDouble() * 0.2;
+            double east = west + random.nextDouble() * 0.2;
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < points.size(); i++) {
+                double lat = points.getLatitude(i);
+                double lon = points.getLongitude(i);
+                if (lat >= south && lat <= north && lon >= west && lon <= east) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            int count = tree.query(south, west, north, east, actual::add);
+            Collections.sort(actual);
+
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    public void duplicatePoints_areAllReturned() {
+        PointStore.Builder builder = new PointStore.Builder(PointStore.Encoding.E7);
+        for (int i = 0; i < 1000; i++) {
+            builder.add(10.668328, 122.958444);
+        }
+        PointQuadTree tree = PointQuadTree.build(builder.build());
+
+        assertEquals(1000, tree.query(10.66, 122.95, 10.67, 122.96, index -> { }));
+        assertEquals(0, tree.query(10.0, 122.0, 10.1, 122.1, index -> { }));
+    }
+
+    @Test
+    public void emptyStore_queriesNothing() {
+        PointQuadTree tree = PointQuadTree.build(new PointStore.Builder(PointStore.Encoding.DOUBLE).build());
+
+        assertEquals(0, tree.query(-90, -180, 90, 180, index -> fail()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.rhix.apidemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class PointStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void e7_roundsToSevenDecimals() {
+        PointStore store = PointStore.of(PointStore.Encoding.E7, 10.679661456360577, 122.96088446926933);
+
+        assertEquals(1, store.size());
+        assertEquals(10.6796615, store.getLatitude(0), 1e-9);
+        assertEquals(122.9608845, store.getLongitude(0), 1e-9);
+    }
+
+    @Test
+    public void mappedFile_matchesBuiltStore() throws IOException {
+        for (PointStore.Encoding encoding : PointStore.Encoding.values()) {
+            PointStore.Builder builder = new PointStore.Builder(encoding, "elevation", "id");
+            for (int i = 0; i < 1001; i++) {
+                int point = builder.add(10 + i * 1e-4, 122.9 - i * 1e-4);
+                builder.setAttribute(0, point, i * 0.5);
+                if (i % 2 == 0) {
+                    builder.setAttribute(1, point, i);
+                }
+            }
+            PointStore built = builder.build();
+            File file = folder.newFile(encoding + ".pts");
+            built.write(file);
+
+            PointStore mapped = PointStore.map(file);
+            assertEquals(encoding, mapped.getEncoding());
+            assertEquals(1001, mapped.size());
+            assertEquals(2, mapped.getColumnCount());
+            assertEquals(1, mapped.getColumnIndex("id"));
+            for (int i = 0; i < built.size(); i++) {
+                assertEquals(built.getLatitude(i), mapped.getLatitude(i), 0);
+                assertEquals(built.getLongitude(i), mapped.getLongitude(i), 0);
+                assertEquals(i * 0.5, mapped.getAttribute(0, i), 0);
+            }
+            assertTrue(Double.isNaN(mapped.getAttribute(1, 1)));
+            assertEquals(2, mapped.getAttribute(1, 2), 0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void map_rejectsOtherFiles() throws IOException {
+        File file = folder.newFile("other.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        PointStore.map(file);
+    }
+
+    @Test
+    public void loadCsv_readsCoordinatesAndAttributes() throws IOException {
+        String csv = "name,lon,lat,elevation\n"
+                + "a,122.958444,10.668328,12\n"
+                + "\n"
+                + "b, 122.961091 , 10.674155,\n";
+        PointStore store = PointLoaders.loadCsv(new StringReader(csv), PointStore.Encoding.DOUBLE,
+                "lat", "lon", "elevation");
+
+        assertEquals(2, store.size());
+        assertEquals(10.674155, store.getLatitude(1), 0);
+        assertEquals(122.961091, store.getLongitude(1), 0);
+        assertEquals(12, store.getAttribute(0, 0), 0);
+        assertTrue(Double.isNaN(store.getAttribute(0, 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadCsv_rejectsBadCoordinates() throws IOException {
+        PointLoaders.loadCsv(new StringReader("lat,lon\n10.6,abc\n"), PointStore.Encoding.E7, "lat", "lon");
+    }
+
+    @Test
+    public void loadGeoJson_keepsPointFeatures() throws IOException {
+        String json = "{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"properties\":{\"name\":\"x\",\"pop\":120},"
+                + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[122.958444,10.668328]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"coordinates\":[122.96,10.67,5],\"type\":\"Point\"},"
+                + "\"properties\":null}"
+                + "]}";
+        PointStore store = PointLoaders.loadGeoJson(new StringReader(json), PointStore.Encoding.E7, "pop");
+
+        assertEquals(2, store.size());
+        assertEquals(10.668328, store.getLatitude(0), 1e-7);
+        assertEquals(120, store.getAttribute(0, 0), 0);
+        assertEquals(122.96, store.getLongitude(1), 1e-7);
+        assertTrue(Double.isNaN(store.getAttribute(0, 1)));
+    }
+}
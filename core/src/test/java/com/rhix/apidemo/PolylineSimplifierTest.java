@@ -0,0 +1,114 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PolylineSimplifierTest {
+
+    @Test
+    public void straightLine_keepsOnlyEndpoints() {
+        PointStore.Builder builder = new PointStore.Builder(PointStore.Encoding.DOUBLE);
+        for (int i = 0; i < 100; i++) {
+            builder.add(10.6, 122.9 + i * 1e-4);
+        }
+        double[] significance = PolylineSimplifier.significance(builder.build());
+
+        assertArrayEquals(new int[]{0, 99}, PolylineSimplifier.filter(significance, 1e-12));
+    }
+
+    @Test
+    public void filter_matchesClassicDouglasPeucker() {
+        PointStore trace = Fixtures.randomWalk(5_000, 11);
+        double[] significance = PolylineSimplifier.significance(trace);
+
+        for (int zoom : new int[]{8, 12, 16, 19}) {
+            double tolerance = PolylineSimplifier.toleranceAtZoom(2, zoom);
+            assertArrayEquals("zoom " + zoom, reference(trace, tolerance),
+                    PolylineSimplifier.filter(significance, tolerance));
+        }
+    }
+
+    @Test
+    public void pyramidLevels_nestAndGrowWithZoom() {
+        PointStore trace = Fixtures.randomWalk(20_000, 5);
+        PolylineSimplifier.Pyramid pyramid = PolylineSimplifier.Pyramid.build(trace, 0, 19, 1.5);
+
+        for (int zoom = 1; zoom <= 19; zoom++) {
+            int[] coarse = pyramid.getIndices(zoom - 1);
+            int[] fine = pyramid.getIndices(zoom);
+            assertTrue(fine.length >= coarse.length);
+            int j = 0;
+            for (int index : coarse) {
+                while (j < fine.length && fine[j] < index) {
+                    j++;
+                }
+                assertTrue("zoom " + zoom + " lost vertex " + index, j < fine.length && fine[j] == index);
+            }
+        }
+        assertSame(pyramid.getIndices(19), pyramid.getIndices(25));
+    }
+
+    @Test
+    public void closedLoop_isNotCollapsed() {
+        PointStore loop = PointStore.of(PointStore.Encoding.DOUBLE,
+                10.6796, 122.9608, 10.6805, 122.9626, 10.6786, 122.9647, 10.6796, 122.9608);
+        int[] kept = PolylineSimplifier.filter(PolylineSimplifier.significance(loop),
+                PolylineSimplifier.toleranceAtZoom(1.5, 16));
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, kept);
+    }
+
+    // Textbook recursive Douglas-Peucker
+    private static int[] reference(PointStore points, double tolerance) {
+        int n = points.size();
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        split(points, 0, n - 1, tolerance, keep);
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                kept.add(i);
+            }
+        }
+        int[] result = new int[kept.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = kept.get(i);
+        }
+        return result;
+    }
+
+    private static void split(PointStore points, int first, int last, double tolerance, boolean[] keep) {
+        if (last - first < 2) {
+            return;
+        }
+        double ax = TileMath.mercatorX(points.getLongitude(first));
+        double ay = TileMath.mercatorY(points.getLatitude(first));
+        double bx = TileMath.mercatorX(points.getLongitude(last));
+        double by = TileMath.mercatorY(points.getLatitude(last));
+        int index = -1;
+        double max = -1;
+        for (int i = first + 1; i < last; i++) {
+            double px = TileMath.mercatorX(points.getLongitude(i));
+            double py = TileMath.mercatorY(points.getLatitude(i));
+            double dx = bx - ax;
+            double dy = by - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+            double distance = Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+            if (distance > max) {
+                max = distance;
+                index = i;
+            }
+        }
+        if (max > tolerance) {
+            keep[index] = true;
+            split(points, first, index, tolerance, keep);
+            split(points, index, last, tolerance, keep);
+        }
+    }
+}
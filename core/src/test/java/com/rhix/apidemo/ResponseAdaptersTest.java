@@ -0,0 +1,83 @@
+package com.rhix.apidemo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ResponseAdaptersTest {
+    private final Gson gson = ResponseAdapters.register(new GsonBuilder()).create();
+
+    @Test
+    public void weatherResponse_readsUsedFieldsFromRecordedPayload() throws IOException {
+        WeatherResponse response = gson.fromJson(Fixtures.payload("openweather_weather.json"), WeatherResponse.class);
+
+        assertEquals("Bacolod City", response.getName());
+        assertEquals(30.52f, response.getMain().getTemp(), 0.001);
+        assertEquals(1, response.getWeather().length);
+        assertEquals("broken clouds", response.getWeather()[0].getDescription());
+    }
+
+    @Test
+    public void weatherResponseTwo_readsTemperature() throws IOException {
+        WeatherResponseTwo response = gson.fromJson(Fixtures.payload("openweather_weather.json"), WeatherResponseTwo.class);
+
+        assertEquals(30.52, response.getMain().getTemp(), 1e-9);
+    }
+
+    @Test
+    public void nominatimResponse_skipsEverythingButDisplayName() throws IOException {
+        NominatimResponse response = gson.fromJson(Fixtures.payload("nominatim_reverse.json"), NominatimResponse.class);
+
+        assertEquals("University of St. La Salle, La Salle Avenue, Barangay 41, Villamonte, Bacolod, "
+                + "Negros Island Region, 6100, Philippines", response.getDisplayName());
+    }
+
+    @Test
+    public void nullsAndMissingFields_decodeToNull() {
+        WeatherResponse weather = gson.fromJson("{\"main\":null,\"weather\":null,\"name\":null}", WeatherResponse.class);
+        NominatimResponse place = gson.fromJson("{\"error\":\"Unable to geocode\"}", NominatimResponse.class);
+
+        assertNull(weather.getMain());
+        assertNull(weather.getWeather());
+        assertNull(weather.getName());
+        assertNull(place.getDisplayName());
+        assertNull(gson.fromJson("null", WeatherResponseTwo.class));
+    }
+
+    @Test
+    public void mainWithoutTemp_decodesAsNoMain() {
+        WeatherResponse weather = gson.fromJson("{\"main\":{\"humidity\":80},\"name\":\"Bago\"}", WeatherResponse.class);
+        WeatherResponseTwo two = gson.fromJson("{\"main\":{\"temp\":null,\"humidity\":80}}", WeatherResponseTwo.class);
+
+        assertNull(weather.getMain());
+        assertEquals("Bago", weather.getName());
+        assertNull(two.getMain());
+    }
+
+    @Test
+    public void weatherList_cannotBeChangedThroughTheGetter() {
+        WeatherResponse response = new WeatherResponse(new WeatherResponse.Main(28.5f),
+                new WeatherResponse.Weather[]{new WeatherResponse.Weather("light rain")}, "Bago");
+
+        response.getWeather()[0] = new WeatherResponse.Weather("hail");
+
+        assertEquals("light rain", response.getWeather()[0].getDescription());
+    }
+
+    @Test
+    public void write_roundTrips() {
+        WeatherResponse original = new WeatherResponse(new WeatherResponse.Main(28.5f),
+                new WeatherResponse.Weather[]{new WeatherResponse.Weather("light rain")}, "Bago");
+
+        WeatherResponse copy = gson.fromJson(gson.toJson(original), WeatherResponse.class);
+
+        assertEquals("Bago", copy.getName());
+        assertEquals(28.5f, copy.getMain().getTemp(), 0);
+        assertEquals("light rain", copy.getWeather()[0].getDescription());
+    }
+}
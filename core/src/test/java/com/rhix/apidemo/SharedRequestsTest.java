@@ -0,0 +1,160 @@
+package com.rhix.apidemo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SharedRequestsTest {
+    private long now;
+    private SharedRequests<String> requests;
+    private final List<FakeLoader> loads = new ArrayList<>();
+
+    // Holds on to its callback so the test decides when the request finishes
+    private class FakeLoader implements SharedRequests.Loader<String> {
+        SharedRequests.Callback<String> callback;
+        boolean cancelled;
+
+        @Override
+        public Cancellable load(SharedRequests.Callback<String> callback) {
+            this.callback = callback;
+            loads.add(this);
+            return () -> cancelled = true;
+        }
+    }
+
+    private static class Recorder implements SharedRequests.Callback<String> {
+        final List<String> results = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onResult(String result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            errors.add(t);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        requests = new SharedRequests<>(60_000, 4, Runnable::run, () -> now);
+    }
+
+    @Test
+    public void identicalRequestsInFlight_shareOneLoad() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        requests.get("GET /weather?q=Bacolod", new FakeLoader(), first);
+        requests.get("GET /weather?q=Bacolod", new FakeLoader(), second);
+
+        assertEquals(1, loads.size());
+        loads.get(0).callback.onResult("29.5");
+
+        assertEquals(1, first.results.size());
+        assertEquals("29.5", second.results.get(0));
+        assertEquals(1, requests.getStartedCount());
+        assertEquals(1, requests.getJoinedCount());
+        assertEquals(0, requests.getInFlightCount());
+    }
+
+    @Test
+    public void differentKeys_loadSeparately() {
+        requests.get("a", new FakeLoader(), new Recorder());
+        requests.get("b", new FakeLoader(), new Recorder());
+
+        assertEquals(2, loads.size());
+        assertEquals(2, requests.getInFlightCount());
+    }
+
+    @Test
+    public void lateSubscriber_getsTheResultReplayedUntilItExpires() {
+        requests.get("a", new FakeLoader(), new Recorder());
+        loads.get(0).callback.onResult("first");
+
+        now += 59_000;
+        Recorder late = new Recorder();
+        Cancellable handle = requests.get("a", new FakeLoader(), late);
+
+        assertSame(Cancellable.NONE, handle);
+        assertEquals("first", late.results.get(0));
+        assertEquals(1, loads.size());
+        assertEquals(1, requests.getReplayedCount());
+
+        now += 1_000;
+        requests.get("a", new FakeLoader(), new Recorder());
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void errors_reachEveryoneWaitingButAreNotReplayed() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        requests.get("a", new FakeLoader(), first);
+        requests.get("a", new FakeLoader(), second);
+        IOException failure = new IOException("HTTP 500");
+        loads.get(0).callback.onError(failure);
+
+        assertSame(failure, first.errors.get(0));
+        assertSame(failure, second.errors.get(0));
+
+        requests.get("a", new FakeLoader(), new Recorder());
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void load_isCancelledOnlyWhenTheLastSubscriberLeaves() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        Cancellable firstHandle = requests.get("a", new FakeLoader(), first);
+        Cancellable secondHandle = requests.get("a", new FakeLoader(), second);
+        FakeLoader load = loads.get(0);
+
+        firstHandle.cancel();
+        assertFalse(load.cancelled);
+
+        secondHandle.cancel();
+        assertTrue(load.cancelled);
+        assertEquals(1, requests.getCancelledCount());
+        assertEquals(0, requests.getInFlightCount());
+
+        // A late answer from the cancelled load is dropped and not kept for replay
+        load.callback.onResult("late");
+        assertTrue(first.results.isEmpty());
+        assertTrue(second.results.isEmpty());
+        requests.get("a", new FakeLoader(), new Recorder());
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void cancelledSubscriber_missesTheResultOthersGet() {
+        Recorder gone = new Recorder();
+        Recorder staying = new Recorder();
+        requests.get("a", new FakeLoader(), gone).cancel();
+        // The first subscriber cancelled alone, so this one starts a fresh load
+        requests.get("a", new FakeLoader(), staying);
+        loads.get(1).callback.onResult("ok");
+
+        assertTrue(gone.results.isEmpty());
+        assertEquals("ok", staying.results.get(0));
+    }
+
+    @Test
+    public void replay_keepsOnlyTheMostRecentKeys() {
+        for (String key : new String[]{"a", "b", "c", "d", "e"}) {
+            requests.get(key, new FakeLoader(), new Recorder());
+            loads.get(loads.size() - 1).callback.onResult(key);
+        }
+
+        requests.get("e", new FakeLoader(), new Recorder());
+        assertEquals(5, loads.size());
+        requests.get("a", new FakeLoader(), new Recorder());
+        assertEquals(6, loads.size());
+    }
+}
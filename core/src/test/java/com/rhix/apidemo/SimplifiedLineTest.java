@@ -0,0 +1,88 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SimplifiedLineTest {
+    private static final double TOLERANCE_PX = 1.5;
+    // TrackOverlay.CHUNK_SIZE
+    private static final int CHUNK_SIZE = 256;
+
+    // A walk of about 5 m per fix with GPS jitter, cut into chunks the way TrackOverlay does
+    private static List<SimplifiedLine> recordTrack(int fixes) {
+        Random random = new Random(11);
+        List<SimplifiedLine> chunks = new ArrayList<>();
+        SimplifiedLine open = null;
+        double latitude = 10.668328;
+        double longitude = 122.958444;
+        double heading = 0;
+        for (int i = 0; i < fixes; i++) {
+            if (open == null || open.size() >= CHUNK_SIZE) {
+                SimplifiedLine previous = open;
+                open = new SimplifiedLine(TOLERANCE_PX);
+                chunks.add(open);
+                if (previous != null) {
+                    open.add(previous.getLatitude(previous.size() - 1), previous.getLongitude(previous.size() - 1));
+                }
+            }
+            heading += random.nextGaussian() * 0.3;
+            latitude += Math.cos(heading) * 0.000045 + random.nextGaussian() * 0.000005;
+            longitude += Math.sin(heading) * 0.000045 + random.nextGaussian() * 0.000005;
+            open.add(latitude, longitude);
+        }
+        return chunks;
+    }
+
+    private static int pointsAt(List<SimplifiedLine> chunks, int zoom) {
+        int points = 0;
+        for (SimplifiedLine chunk : chunks) {
+            points += chunk.indicesAt(zoom).length;
+        }
+        return points;
+    }
+
+    @Test
+    public void longTrackAtLowZoom_drawsABoundedNumberOfPoints() {
+        int fixes = 100_000;
+        List<SimplifiedLine> chunks = recordTrack(fixes);
+
+        // Each chunk spans about a kilometre, a few pixels at zoom 10: little more than its endpoints
+        int zoomedOut = pointsAt(chunks, 10);
+        assertTrue(zoomedOut + " points", zoomedOut <= 4 * chunks.size());
+
+        int zoomedIn = pointsAt(chunks, 19);
+        assertTrue(zoomedIn > 10 * zoomedOut);
+        assertTrue(zoomedIn <= fixes + chunks.size());
+    }
+
+    @Test
+    public void endpointsAreAlwaysKept() {
+        SimplifiedLine line = new SimplifiedLine(TOLERANCE_PX);
+        for (int i = 0; i < 50; i++) {
+            line.add(10.0 + i * 0.0001, 122.0);
+        }
+
+        int[] indices = line.indicesAt(3);
+
+        assertArrayEquals(new int[]{0, 49}, indices);
+    }
+
+    @Test
+    public void addingPoints_invalidatesTheCachedLevel() {
+        SimplifiedLine line = new SimplifiedLine(TOLERANCE_PX);
+        line.add(10.0, 122.0);
+        line.add(10.001, 122.0);
+        int[] before = line.indicesAt(18);
+        assertSame(before, line.indicesAt(18));
+
+        line.add(10.001, 122.01);
+
+        int[] after = line.indicesAt(18);
+        assertEquals(3, after.length);
+    }
+}
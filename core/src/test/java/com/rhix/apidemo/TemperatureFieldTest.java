@@ -0,0 +1,98 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TemperatureFieldTest {
+    private static final int SIZE = 16;
+
+    @Test
+    public void sampleZoom_isCoarserThanDisplayAndCapped() {
+        assertEquals(0, TemperatureField.sampleZoom(0));
+        assertEquals(0, TemperatureField.sampleZoom(2));
+        assertEquals(8, TemperatureField.sampleZoom(10));
+        assertEquals(TemperatureField.MAX_SAMPLE_ZOOM, TemperatureField.sampleZoom(18));
+    }
+
+    @Test
+    public void key_roundTrips() {
+        long key = TemperatureField.key(18, 219_000, 123_456);
+        assertEquals(18, TemperatureField.keyZoom(key));
+        assertEquals(219_000, TemperatureField.keyX(key));
+        assertEquals(123_456, TemperatureField.keyY(key));
+    }
+
+    @Test
+    public void tilesInOneSampleCell_shareCorners() {
+        // Zoom 10 samples at zoom 8, so tiles 4..7 in both directions sit in sample cell (1, 1)
+        long[] first = TemperatureField.cornerKeys(10, 4, 4);
+        long[] last = TemperatureField.cornerKeys(10, 7, 7);
+        assertArrayEquals(first, last);
+        assertEquals(TemperatureField.key(8, 1, 1), first[0]);
+        assertEquals(TemperatureField.key(8, 2, 2), first[3]);
+        assertNotEquals(first[0], TemperatureField.cornerKeys(10, 8, 4)[0]);
+    }
+
+    @Test
+    public void nodeCoordinates_areSampleTileCorners() {
+        long node = TemperatureField.key(2, 2, 2);
+        assertEquals(0.0, TemperatureField.nodeLatitude(node), 1e-9);
+        assertEquals(0.0, TemperatureField.nodeLongitude(node), 1e-9);
+        assertEquals(180.0, TemperatureField.nodeLongitude(TemperatureField.key(2, 4, 0)), 1e-9);
+    }
+
+    @Test
+    public void uniformCorners_giveUniformField() {
+        float[] out = new float[SIZE * SIZE];
+        TemperatureField.interpolate(12, 3000, 1800, new float[]{25f, 25f, 25f, 25f}, out, SIZE);
+        for (float value : out) {
+            assertEquals(25f, value, 1e-4f);
+        }
+    }
+
+    @Test
+    public void field_staysWithinCornersAndRunsWestToEast() {
+        float[] out = new float[SIZE * SIZE];
+        // Warm in the west, cool in the east
+        TemperatureField.interpolate(2, 0, 0, new float[]{30f, 10f, 30f, 10f}, out, SIZE);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 1; col < SIZE; col++) {
+                assertTrue(out[row * SIZE + col] < out[row * SIZE + col - 1]);
+            }
+            // North and south corners agree, so every row is the same
+            assertEquals(out[0], out[row * SIZE], 1e-4f);
+        }
+        for (float value : out) {
+            assertTrue(value > 10f && value < 30f);
+        }
+    }
+
+    @Test
+    public void neighbouringTiles_meetWithoutSeam() {
+        float[] corners = {12f, 31f, 18f, 26f};
+        float[] left = new float[SIZE * SIZE];
+        float[] right = new float[SIZE * SIZE];
+        // Zoom 5 samples at zoom 3: tiles 0..3 share a sample cell
+        TemperatureField.interpolate(5, 1, 2, corners, left, SIZE);
+        TemperatureField.interpolate(5, 2, 2, corners, right, SIZE);
+        for (int row = 0; row < SIZE; row++) {
+            float edgeLeft = left[row * SIZE + SIZE - 1];
+            float edgeRight = right[row * SIZE];
+            float stepLeft = left[row * SIZE + SIZE - 1] - left[row * SIZE + SIZE - 2];
+            // The first pixel of the right tile continues the left tile's gradient by one step
+            assertEquals(edgeLeft + stepLeft, edgeRight, 1e-3f);
+        }
+    }
+
+    @Test
+    public void colour_runsFromBlueToRedAndClamps() {
+        int cold = TemperatureField.color(-30f);
+        int hot = TemperatureField.color(60f);
+        assertEquals(TemperatureField.color(TemperatureField.RAMP_MIN), cold);
+        assertEquals(TemperatureField.color(TemperatureField.RAMP_MAX), hot);
+        assertTrue((cold & 0xFF) > ((cold >> 16) & 0xFF));
+        assertTrue(((hot >> 16) & 0xFF) > (hot & 0xFF));
+        assertEquals(0xFF, cold >>> 24);
+    }
+}
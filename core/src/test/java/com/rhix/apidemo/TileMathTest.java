@@ -0,0 +1,48 @@
+package com.rhix.apidemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TileMathTest {
+    @Test
+    public void tmsRow_flipsTheRowWithinTheZoom() {
+        assertEquals(0, TileMath.toTmsRow(0, 0));
+        assertEquals(1, TileMath.toTmsRow(0, 1));
+        assertEquals(0, TileMath.toTmsRow(1, 1));
+        assertEquals(65535, TileMath.toTmsRow(0, 16));
+        for (int y = 0; y < 8; y++) {
+            assertEquals(y, TileMath.toTmsRow(TileMath.toTmsRow(y, 3), 3));
+        }
+    }
+
+    @Test
+    public void tileXY_ofTheCoverageCentre() {
+        // Bacolod at zoom 16, as served by tile.openstreetmap.org
+        assertEquals(55150, TileMath.longitudeToTileX(122.95, 16));
+        assertEquals(30814, TileMath.latitudeToTileY(10.67, 16));
+    }
+
+    @Test
+    public void countTiles_sumsEveryZoom() {
+        // The whole world: 1 + 4 + 16 tiles
+        assertEquals(21, TileMath.countTiles(85, -85, 179.9, -180, 0, 2));
+        // A box around the origin spans one tile at zoom 0 and four at zoom 1
+        assertEquals(5, TileMath.countTiles(10, -10, 10, -10, 0, 1));
+        // A single point is one tile at every zoom
+        assertEquals(7, TileMath.countTiles(10.67, 10.67, 122.95, 122.95, 10, 16));
+    }
+
+    @Test
+    public void countTiles_matchesTheRangesAtEachZoom() {
+        long expected = 0;
+        for (int zoom = 10; zoom <= 16; zoom++) {
+            int columns = TileMath.longitudeToTileX(123.00, zoom) - TileMath.longitudeToTileX(122.80, zoom) + 1;
+            int rows = TileMath.latitudeToTileY(10.50, zoom) - TileMath.latitudeToTileY(10.72, zoom) + 1;
+            assertTrue(columns > 0 && rows > 0);
+            expected += (long) columns * rows;
+        }
+
+        assertEquals(expected, TileMath.countTiles(10.72, 10.50, 123.00, 122.80, 10, 16));
+    }
+}
@@ -0,0 +1,202 @@
+package com.rhix.apidemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrackLogTest {
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static class Fix {
+        final double latitude;
+        final double longitude;
+        final long time;
+        final boolean newSegment;
+
+        Fix(double latitude, double longitude, long time, boolean newSegment) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.time = time;
+            this.newSegment = newSegment;
+        }
+    }
+
+    private static List<Fix> readAll(TrackLog log) throws IOException {
+        List<Fix> fixes = new ArrayList<>();
+        log.read((latitude, longitude, timeMillis, newSegment) ->
+                fixes.add(new Fix(latitude, longitude, timeMillis, newSegment)));
+        return fixes;
+    }
+
+    @Test
+    public void appendedFixes_readBackInOrderAtE7Precision() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        try (TrackLog log = TrackLog.open(file)) {
+            log.append(10.668328, 122.958444, START_TIME);
+            log.append(10.674155, -122.961091, START_TIME + 1500);
+            log.append(-33.8688197, 151.2092955, START_TIME - 20);
+
+            List<Fix> fixes = readAll(log);
+            assertEquals(3, fixes.size());
+            assertEquals(10.668328, fixes.get(0).latitude, 1e-7);
+            assertEquals(-122.961091, fixes.get(1).longitude, 1e-7);
+            assertEquals(START_TIME + 1500, fixes.get(1).time);
+            assertEquals(-33.8688197, fixes.get(2).latitude, 1e-7);
+            assertEquals(151.2092955, fixes.get(2).longitude, 1e-7);
+            assertEquals(START_TIME - 20, fixes.get(2).time);
+            assertTrue(fixes.get(0).newSegment);
+            assertFalse(fixes.get(1).newSegment);
+        }
+    }
+
+    @Test
+    public void walkingFixes_costAFewBytesEach() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        try (TrackLog log = TrackLog.open(file)) {
+            Fixtures.appendWalk(log, 1000, START_TIME);
+            // Header plus the first (absolute) fix aside, each record is frame + three short varints
+            assertTrue("bytes " + file.length(), file.length() < 4 + 20 + 999 * 8);
+            assertEquals(log.length(), file.length());
+        }
+    }
+
+    @Test
+    public void reopenedLog_continuesWithANewSegment() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        try (TrackLog log = TrackLog.open(file)) {
+            Fixtures.appendWalk(log, 10, START_TIME);
+        }
+        try (TrackLog log = TrackLog.open(file)) {
+            assertEquals(10, log.size());
+            log.startSegment();
+            log.startSegment(); // second break is a no-op
+            Fixtures.appendWalk(log, 5, START_TIME + 60_000);
+        }
+        try (TrackLog log = TrackLog.open(file)) {
+            List<Fix> fixes = readAll(log);
+            assertEquals(15, fixes.size());
+            assertTrue(fixes.get(10).newSegment);
+            assertEquals(START_TIME + 60_000, fixes.get(10).time);
+            assertEquals(10.6683280, fixes.get(10).latitude, 1e-7);
+            assertEquals(0, log.getRecoveredBytes());
+        }
+    }
+
+    @Test
+    public void tornTail_isDroppedAtEveryCutPoint() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        long[] recordEnds = new long[6];
+        try (TrackLog log = TrackLog.open(file)) {
+            recordEnds[0] = log.length();
+            for (int i = 1; i <= 5; i++) {
+                Fixtures.appendWalk(log, 1, START_TIME + i);
+                recordEnds[i] = log.length();
+            }
+        }
+        byte[] full = Files.readAllBytes(file.toPath());
+
+        // Cut the file at every byte inside the last record, as a crash mid-write would
+        for (long cut = recordEnds[4] + 1; cut < recordEnds[5]; cut++) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(0);
+                raf.write(full, 0, (int) cut);
+            }
+            try (TrackLog log = TrackLog.open(file)) {
+                assertEquals(4, log.size());
+                assertEquals(cut - recordEnds[4], log.getRecoveredBytes());
+                assertEquals(recordEnds[4], file.length());
+                // Appending after recovery continues the delta chain correctly
+                log.append(11.0, 123.0, START_TIME + 99);
+                List<Fix> fixes = readAll(log);
+                assertEquals(5, fixes.size());
+                assertEquals(11.0, fixes.get(4).latitude, 1e-7);
+                assertEquals(123.0, fixes.get(4).longitude, 1e-7);
+                assertEquals(START_TIME + 99, fixes.get(4).time);
+            }
+        }
+    }
+
+    @Test
+    public void corruptedLastRecord_failsItsChecksum() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        try (TrackLog log = TrackLog.open(file)) {
+            Fixtures.appendWalk(log, 3, START_TIME);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 2);
+            int b = raf.read();
+            raf.seek(raf.length() - 2);
+            raf.write(b ^ 0x01);
+        }
+        try (TrackLog log = TrackLog.open(file)) {
+            assertEquals(2, log.size());
+            assertTrue(log.getRecoveredBytes() > 0);
+        }
+    }
+
+    @Test
+    public void notATrackLog_isRejected() throws Exception {
+        File file = tempFolder.newFile("other.bin");
+        Files.write(file.toPath(), new byte[]{'P', 'T', 'S', '1', 0, 0});
+        try {
+            TrackLog.open(file).close();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void gpxExport_hasOneTrksegPerSegment() throws Exception {
+        File file = new File(tempFolder.getRoot(), "track.log");
+        try (TrackLog log = TrackLog.open(file)) {
+            log.append(10.668328, 122.958444, START_TIME);
+            log.append(-0.0000001, -122.5, START_TIME + 1000);
+            log.startSegment();
+            log.append(10.7, 122.9, START_TIME + 60_000);
+
+            StringWriter out = new StringWriter();
+            log.writeGpx(out);
+            String gpx = out.toString();
+
+            assertTrue(gpx.startsWith("<?xml"));
+            assertTrue(gpx.contains("<gpx version=\"1.1\""));
+            assertEquals(2, count(gpx, "<trkseg>"));
+            assertEquals(2, count(gpx, "</trkseg>"));
+            assertEquals(3, count(gpx, "<trkpt "));
+            assertTrue(gpx.contains("<trkpt lat=\"10.6683280\" lon=\"122.9584440\"><time>2023-11-14T22:13:20.000Z</time></trkpt>"));
+            assertTrue(gpx.contains("lat=\"-0.0000001\" lon=\"-122.5000000\""));
+            assertTrue(gpx.trim().endsWith("</gpx>"));
+        }
+    }
+
+    @Test
+    public void emptyLog_exportsEmptyTrack() throws Exception {
+        try (TrackLog log = TrackLog.open(new File(tempFolder.getRoot(), "track.log"))) {
+            StringWriter out = new StringWriter();
+            log.writeGpx(out);
+            assertEquals(0, count(out.toString(), "<trkseg>"));
+            assertTrue(out.toString().contains("<trk>\n</trk>"));
+        }
+    }
+
+    private static int count(String text, String needle) {
+        int count = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
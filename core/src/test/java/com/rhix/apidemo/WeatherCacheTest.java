@@ -0,0 +1,243 @@
+package com.rhix.apidemo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class WeatherCacheTest {
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // Fetcher that holds callbacks until the test completes them
+    private static class ManualFetcher implements WeatherCache.Fetcher {
+        final List<WeatherCache.Callback> pending = new ArrayList<>();
+        int cancelled;
+
+        @Override
+        public Cancellable fetch(double latitude, double longitude, WeatherCache.Callback callback) {
+            pending.add(callback);
+            return () -> cancelled++;
+        }
+
+        void completeAll(double temp) {
+            for (WeatherCache.Callback callback : pending) {
+                callback.onWeather(new WeatherSnapshot(temp, System.currentTimeMillis()));
+            }
+            pending.clear();
+        }
+    }
+
+    private static class Recorder implements WeatherCache.Callback {
+        final List<Double> temps = new ArrayList<>();
+
+        @Override
+        public void onWeather(WeatherSnapshot snapshot) {
+            temps.add(snapshot.getTemp());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t.toString());
+        }
+    }
+
+    private WeatherCache newCache(File dir, ManualFetcher fetcher, long ttl) {
+        return new WeatherCache(dir, 6, ttl, 16, fetcher, DIRECT, DIRECT);
+    }
+
+    @Test
+    public void nearbyFixesInFlight_areCoalescedIntoOneFetch() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = newCache(tempFolder.newFolder(), fetcher, 60_000);
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+
+        // A few metres apart, same precision-6 cell
+        cache.get(10.668328, 122.958444, first);
+        cache.get(10.668340, 122.958460, second);
+        assertEquals(1, fetcher.pending.size());
+
+        fetcher.completeAll(29.5);
+
+        assertEquals(1, first.temps.size());
+        assertEquals(1, second.temps.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+    }
+
+    @Test
+    public void repeatLookup_isServedFromMemory() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = newCache(tempFolder.newFolder(), fetcher, 60_000);
+
+        cache.get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(29.5);
+        Recorder again = new Recorder();
+        cache.get(10.668328, 122.958444, again);
+
+        assertTrue(fetcher.pending.isEmpty());
+        assertEquals(29.5, again.temps.get(0), 0.0);
+        assertEquals(1, cache.getMemoryHitCount());
+    }
+
+    @Test
+    public void newInstance_readsPersistedEntryFromDisk() throws Exception {
+        File dir = tempFolder.newFolder();
+        ManualFetcher fetcher = new ManualFetcher();
+        newCache(dir, fetcher, 60_000).get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(27.0);
+
+        WeatherCache restarted = newCache(dir, fetcher, 60_000);
+        Recorder recorder = new Recorder();
+        restarted.get(10.668328, 122.958444, recorder);
+
+        assertTrue(fetcher.pending.isEmpty());
+        assertEquals(27.0, recorder.temps.get(0), 0.0);
+        assertEquals(1, restarted.getDiskHitCount());
+    }
+
+    @Test
+    public void expiredEntry_isRefetched() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = newCache(tempFolder.newFolder(), fetcher, 0);
+
+        cache.get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(27.0);
+        cache.get(10.668328, 122.958444, new Recorder());
+
+        assertEquals(1, fetcher.pending.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void cancellingLastSubscriber_cancelsFetch() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = newCache(tempFolder.newFolder(), fetcher, 60_000);
+
+        Cancellable a = cache.get(10.668328, 122.958444, new Recorder());
+        Cancellable b = cache.get(10.668328, 122.958444, new Recorder());
+        a.cancel();
+        assertEquals(0, fetcher.cancelled);
+        b.cancel();
+        assertEquals(1, fetcher.cancelled);
+    }
+
+    @Test
+    public void staleEntry_isServedAtOnceAndRefreshedInBackground() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = new WeatherCache(tempFolder.newFolder(), 6, 0, 60_000, 16, fetcher, DIRECT, DIRECT);
+        cache.get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(27.0);
+
+        Recorder stale = new Recorder();
+        Recorder alsoStale = new Recorder();
+        cache.get(10.668328, 122.958444, stale);
+        cache.get(10.668340, 122.958460, alsoStale);
+
+        assertEquals(27.0, stale.temps.get(0), 0.0);
+        assertEquals(27.0, alsoStale.temps.get(0), 0.0);
+        // One refresh for the cell however many stale answers went out
+        assertEquals(1, fetcher.pending.size());
+        assertEquals(2, cache.getStaleHitCount());
+        assertEquals(1, cache.getRevalidationCount());
+
+        fetcher.completeAll(29.5);
+        Recorder refreshed = new Recorder();
+        cache.get(10.668328, 122.958444, refreshed);
+
+        assertEquals(1, stale.temps.size());
+        assertEquals(29.5, refreshed.temps.get(0), 0.0);
+    }
+
+    @Test
+    public void staleEntryOnDisk_isServedAndRevalidated() throws Exception {
+        File dir = tempFolder.newFolder();
+        ManualFetcher fetcher = new ManualFetcher();
+        newCache(dir, fetcher, 60_000).get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(27.0);
+
+        WeatherCache restarted = new WeatherCache(dir, 6, 0, 60_000, 16, fetcher, DIRECT, DIRECT);
+        Recorder recorder = new Recorder();
+        Cancellable handle = restarted.get(10.668328, 122.958444, recorder);
+
+        assertEquals(27.0, recorder.temps.get(0), 0.0);
+        assertEquals(1, fetcher.pending.size());
+        assertEquals(0, restarted.getMissCount());
+        assertEquals(1, restarted.getRevalidationCount());
+
+        // The caller has its answer; going away does not stop the refresh
+        handle.cancel();
+        assertEquals(0, fetcher.cancelled);
+        fetcher.completeAll(29.5);
+        assertEquals(1, recorder.temps.size());
+    }
+
+    @Test
+    public void entryPastMaxStale_isAMiss() throws Exception {
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = new WeatherCache(tempFolder.newFolder(), 6, 0, 0, 16, fetcher, DIRECT, DIRECT);
+
+        cache.get(10.668328, 122.958444, new Recorder());
+        fetcher.completeAll(27.0);
+        Recorder recorder = new Recorder();
+        cache.get(10.668328, 122.958444, recorder);
+
+        assertTrue(recorder.temps.isEmpty());
+        assertEquals(0, cache.getStaleHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void entryPastMaxStaleOnDisk_isDeletedWhenRead() throws Exception {
+        File dir = tempFolder.newFolder();
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = new WeatherCache(dir, 6, 1_000, 1_000, 16, fetcher, DIRECT, DIRECT);
+        String cell = cache.cellFor(10.668328, 122.958444);
+        File file = new File(dir, cell);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeDouble(27.0);
+            out.writeLong(System.currentTimeMillis() - 10_000);
+        }
+
+        cache.get(10.668328, 122.958444, new Recorder());
+
+        assertFalse(file.exists());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, fetcher.pending.size());
+    }
+
+    @Test
+    public void diskTier_isTrimmedOldestFirst() throws Exception {
+        File dir = tempFolder.newFolder();
+        ManualFetcher fetcher = new ManualFetcher();
+        WeatherCache cache = newCache(dir, fetcher, 60_000);
+        cache.setMaxDiskEntries(3);
+        double[] longitudes = {122.90, 122.92, 122.94, 122.96};
+        long base = System.currentTimeMillis() - 60_000;
+
+        for (int i = 0; i < longitudes.length; i++) {
+            cache.get(10.66, longitudes[i], new Recorder());
+            fetcher.completeAll(27.0 + i);
+            // File times are too coarse to order writes made within the same test
+            new File(dir, cache.cellFor(10.66, longitudes[i])).setLastModified(base + i * 1_000);
+        }
+
+        String[] names = dir.list();
+        assertEquals(3, names.length);
+        assertFalse(new File(dir, cache.cellFor(10.66, longitudes[0])).exists());
+        for (int i = 1; i < longitudes.length; i++) {
+            assertTrue(new File(dir, cache.cellFor(10.66, longitudes[i])).exists());
+        }
+    }
+}
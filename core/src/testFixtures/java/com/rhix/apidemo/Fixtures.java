@@ -0,0 +1,90 @@
+package com.rhix.apidemo;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+
+// Generated data and recorded payloads shared by the core tests and the JMH benchmarks.
+// Everything is seeded, so a benchmark run measures the same input as the test that checks it.
+public final class Fixtures {
+    private Fixtures() {
+    }
+
+    // Points scattered uniformly over about 130 x 130 km
+    public static PointStore randomPoints(int n, long seed) {
+        Random random = new Random(seed);
+        PointStore.Builder builder = new PointStore.Builder(PointStore.Encoding.E7);
+        for (int i = 0; i < n; i++) {
+            builder.add(10.0 + random.nextDouble() * 1.2, 122.5 + random.nextDouble() * 1.2);
+        }
+        return builder.build();
+    }
+
+    public static PointStore randomWalk(int n, long seed) {
+        Random random = new Random(seed);
+        PointStore.Builder builder = new PointStore.Builder(PointStore.Encoding.DOUBLE);
+        double lat = 10.6;
+        double lon = 122.9;
+        double heading = 0;
+        for (int i = 0; i < n; i++) {
+            // A few metres per fix with a slowly wandering heading, like a walked GPS trace
+            heading += random.nextGaussian() * 0.3;
+            lat += Math.cos(heading) * 3e-5 + random.nextGaussian() * 2e-6;
+            lon += Math.sin(heading) * 3e-5 + random.nextGaussian() * 2e-6;
+            builder.add(lat, lon);
+        }
+        return builder.build();
+    }
+
+    // A ring of n vertices around a centre, not repeating the first vertex
+    public static double[] ring(double lat, double lon, double radius, int n) {
+        double[] latLon = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            latLon[2 * i] = lat + radius * Math.sin(angle);
+            latLon[2 * i + 1] = lon + radius * Math.cos(angle);
+        }
+        return latLon;
+    }
+
+    // Random fences of 6 to 30 vertices: star-shaped, so many are concave
+    public static GeofenceEngine randomFences(int count, double span, long seed) {
+        Random random = new Random(seed);
+        GeofenceEngine.Builder builder = new GeofenceEngine.Builder();
+        for (int f = 0; f < count; f++) {
+            double lat = 10.6 + random.nextDouble() * span;
+            double lon = 122.9 + random.nextDouble() * span;
+            int n = 6 + random.nextInt(25);
+            double[] latLon = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                double angle = 2 * Math.PI * i / n;
+                double radius = 0.001 + random.nextDouble() * 0.003;
+                latLon[2 * i] = lat + radius * Math.sin(angle);
+                latLon[2 * i + 1] = lon + radius * Math.cos(angle);
+            }
+            builder.addFence(latLon);
+        }
+        return builder.build();
+    }
+
+    // A walk heading north-east, one fix per second
+    public static void appendWalk(TrackLog log, int fixes, long startTime) throws IOException {
+        for (int i = 0; i < fixes; i++) {
+            log.append(10.6683280 + i * 0.0000093, 122.9584440 + i * 0.0000071, startTime + i * 1000L);
+        }
+    }
+
+    // A recorded API response from src/testFixtures/resources/payloads
+    public static String payload(String name) throws IOException {
+        try (InputStream in = Fixtures.class.getClassLoader().getResourceAsStream("payloads/" + name)) {
+            if (in == null) {
+                throw new FileNotFoundException("missing payload " + name);
+            }
+            Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name()).useDelimiter("\\A");
+            return scanner.next();
+        }
+    }
+}